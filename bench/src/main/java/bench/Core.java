@@ -0,0 +1,544 @@
+package bench;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Core Class for the Core Interpreter Benchmarks; Calls into the interpreter classes;
+ */
+final class Core {
+
+	/*******************************************************************************************
+	 * The interpreter lives in the default package, which a named package cannot import, and  *
+	 * JMH does not take benchmarks in the default package; So every entry point is looked up  *
+	 * once by name and held as a constant method handle, which the JIT inlines like a direct  *
+	 * call; Parse trees, programs and sinks are passed around as Object                       *
+	 *******************************************************************************************/
+
+	private static final MethodHandle TOKENIZER;
+	private static final MethodHandle SCANNER;
+	private static final MethodHandle CURRENT_TOKEN;
+	private static final MethodHandle NEXT_TOKEN;
+	private static final MethodHandle RESET;
+	private static final MethodHandle PARSE;
+	private static final MethodHandle PRINT;
+	private static final MethodHandle COMPILE;
+	private static final MethodHandle EXECUTOR;
+	private static final MethodHandle EXECUTE;
+	private static final MethodHandle STEPS;
+	private static final MethodHandle SET_MEMO;
+	private static final MethodHandle SET_BUDGET;
+	private static final MethodHandle BUDGET;
+	private static final MethodHandle BEGIN;
+	private static final MethodHandle ADVANCE;
+	private static final MethodHandle IS_WAITING;
+	private static final MethodHandle IS_FINISHED;
+	private static final MethodHandle SUPPLY;
+	private static final MethodHandle SPECIALIZE;
+	private static final MethodHandle REGIONS;
+	private static final MethodHandle REGIONS_BUDGET;
+	private static final MethodHandle REGIONS_RUN;
+	private static final MethodHandle CHECKPOINT;
+	private static final MethodHandle CHECKPOINT_BUDGET;
+	private static final MethodHandle CHECKPOINT_RUN;
+	private static final MethodHandle BATCH;
+	private static final MethodHandle BATCH_BUDGET;
+	private static final MethodHandle BATCH_RUN;
+	private static final MethodHandle PREFIX_BATCH;
+	private static final MethodHandle PREFIX_BATCH_BUDGET;
+	private static final MethodHandle PREFIX_BATCH_RUN;
+	private static final MethodHandle REPORT_ERROR;
+	private static final MethodHandle LONG_EXECUTOR;
+	private static final Object LONG;
+	private static final MethodHandle OVERFLOWS;
+	private static final MethodHandle PIPE;
+	private static final MethodHandle SCHEDULER;
+	private static final MethodHandle SUBMIT;
+	private static final MethodHandle TASK_AWAIT;
+	private static final MethodHandle SESSIONS;
+	private static final MethodHandle OPEN;
+	private static final MethodHandle SEND;
+	private static final MethodHandle END;
+	private static final MethodHandle FAIL;
+	private static final MethodHandle SESSION_AWAIT;
+	private static final MethodHandle DAEMON;
+	private static final MethodHandle DAEMON_BUDGET;
+	private static final MethodHandle DAEMON_PORT;
+	private static final MethodHandle SERVE;
+	private static final MethodHandle RESULTS;
+	private static final MethodHandle RESULTS_BUDGET;
+	private static final MethodHandle RESULTS_EXECUTE;
+	private static final MethodHandle POOL;
+	private static final MethodHandle POOL_BUDGET;
+	private static final MethodHandle POOL_RUN;
+	private static final MethodHandle READ_ARRAY;
+	private static final MethodHandle FARM;
+	private static final MethodHandle FARM_BUDGET;
+	private static final MethodHandle FARM_RUN;
+	private static final MethodHandle WRAP;
+	private static final MethodHandle HAS_NEXT;
+	private static final MethodHandle NEXT;
+	private static final MethodHandle STREAM;
+	private static final MethodHandle FLUSH;
+	private static final Class<?> TEXT_INPUT;
+	private static final Class<?> CORE_EXCEPTION;
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			Class<?> tokenizer = Class.forName("Tokenizer");
+			Class<?> scanner = Class.forName("Scanner");
+			Class<?> prog = Class.forName("PROG");
+			Class<?> program = Class.forName("Program");
+			Class<?> executor = Class.forName("Executor");
+			Class<?> input = Class.forName("InputSource");
+			Class<?> output = Class.forName("OutputSink");
+			TOKENIZER = generic(lookup.findConstructor(tokenizer, MethodType.methodType(void.class, List.class)));
+			SCANNER = generic(lookup.findConstructor(scanner, MethodType.methodType(void.class, tokenizer)));
+			CURRENT_TOKEN = generic(lookup.findVirtual(scanner, "currentToken", MethodType.methodType(String.class)));
+			NEXT_TOKEN = generic(lookup.findVirtual(scanner, "nextToken", MethodType.methodType(void.class)));
+			RESET = generic(lookup.findVirtual(scanner, "resetTokenStream", MethodType.methodType(void.class)));
+			PARSE = generic(lookup.findStatic(Class.forName("Parser"), "getParseTree", MethodType.methodType(prog,
+					scanner)));
+			PRINT = generic(lookup.findStatic(Class.forName("Printer"), "prettyPrint", MethodType.methodType(void.class,
+					prog, Appendable.class)));
+			COMPILE = generic(lookup.findStatic(program, "compile", MethodType.methodType(program, prog)));
+			EXECUTOR = generic(lookup.findConstructor(executor, MethodType.methodType(void.class, program, input,
+					output)));
+			EXECUTE = generic(lookup.findVirtual(executor, "execute", MethodType.methodType(void.class)));
+			STEPS = generic(lookup.findVirtual(executor, "getSteps", MethodType.methodType(long.class)));
+			OVERFLOWS = generic(lookup.findVirtual(executor, "getOverflows", MethodType.methodType(long.class)));
+			SET_MEMO = generic(lookup.findVirtual(executor, "setMemo", MethodType.methodType(void.class,
+					boolean.class)));
+			Class<?> budget = Class.forName("Budget");
+			SET_BUDGET = generic(lookup.findVirtual(executor, "setBudget", MethodType.methodType(void.class, budget)));
+			BUDGET = generic(lookup.findConstructor(budget, MethodType.methodType(void.class, long.class, long.class,
+					long.class)));
+			BEGIN = generic(lookup.findVirtual(executor, "begin", MethodType.methodType(void.class)));
+			ADVANCE = generic(lookup.findVirtual(executor, "advance", MethodType.methodType(boolean.class,
+					long.class)));
+			IS_WAITING = generic(lookup.findVirtual(executor, "isWaiting", MethodType.methodType(boolean.class)));
+			IS_FINISHED = generic(lookup.findVirtual(executor, "isFinished", MethodType.methodType(boolean.class)));
+			SUPPLY = generic(lookup.findVirtual(executor, "supply", MethodType.methodType(void.class, input)));
+			SPECIALIZE = generic(lookup.findStatic(Class.forName("Specializer"), "specialize",
+					MethodType.methodType(prog, prog, List.class)));
+			Class<?> regions = Class.forName("ParallelRegions");
+			REGIONS = generic(lookup.findConstructor(regions, MethodType.methodType(void.class, program, int.class)));
+			REGIONS_BUDGET = generic(lookup.findVirtual(regions, "setBudget", MethodType.methodType(void.class,
+					budget)));
+			REGIONS_RUN = generic(lookup.findVirtual(regions, "run", MethodType.methodType(void.class, input,
+					output)));
+			Class<?> checkpoint = Class.forName("Checkpoint");
+			CHECKPOINT = generic(lookup.findConstructor(checkpoint, MethodType.methodType(void.class, program,
+					File.class, long.class)));
+			CHECKPOINT_BUDGET = generic(lookup.findVirtual(checkpoint, "setBudget", MethodType.methodType(void.class,
+					budget)));
+			CHECKPOINT_RUN = generic(lookup.findVirtual(checkpoint, "run", MethodType.methodType(void.class, input,
+					output, Class.forName("Checkpoint$State"))));
+			Class<?> batch = Class.forName("BatchRunner");
+			Class<?> report = Class.forName("BatchRunner$Report");
+			BATCH = generic(lookup.findConstructor(batch, MethodType.methodType(void.class, program, int.class)));
+			BATCH_BUDGET = generic(lookup.findVirtual(batch, "setBudget", MethodType.methodType(void.class, budget)));
+			BATCH_RUN = generic(lookup.findVirtual(batch, "run", MethodType.methodType(report, List.class,
+					File.class)));
+			Class<?> prefixBatch = Class.forName("PrefixBatchRunner");
+			PREFIX_BATCH = generic(lookup.findConstructor(prefixBatch, MethodType.methodType(void.class, program)));
+			PREFIX_BATCH_BUDGET = generic(lookup.findVirtual(prefixBatch, "setBudget", MethodType.methodType(
+					void.class, budget)));
+			PREFIX_BATCH_RUN = generic(lookup.findVirtual(prefixBatch, "run", MethodType.methodType(report,
+					List.class, File.class)));
+			REPORT_ERROR = generic(lookup.findVirtual(report, "getError", MethodType.methodType(String.class,
+					int.class)));
+			Class<?> mode = Class.forName("WideFrame$Mode");
+			LONG_EXECUTOR = generic(lookup.findConstructor(executor, MethodType.methodType(void.class, program, mode,
+					input, output)));
+			LONG = mode.getField("LONG").get(null);
+			PIPE = generic(lookup.findConstructor(Class.forName("PipeInput"), MethodType.methodType(void.class,
+					ReadableByteChannel.class)));
+			Class<?> scheduler = Class.forName("Scheduler");
+			Class<?> task = Class.forName("Scheduler$Task");
+			SCHEDULER = generic(lookup.findConstructor(scheduler, MethodType.methodType(void.class, int.class,
+					long.class)));
+			SUBMIT = generic(lookup.findVirtual(scheduler, "submit", MethodType.methodType(task, program, input,
+					output, budget)));
+			TASK_AWAIT = generic(lookup.findVirtual(task, "await", MethodType.methodType(String.class)));
+			Class<?> sessions = Class.forName("SessionHost");
+			Class<?> session = Class.forName("SessionHost$Session");
+			SESSIONS = generic(lookup.findConstructor(sessions, MethodType.methodType(void.class, program)));
+			OPEN = generic(lookup.findVirtual(sessions, "open", MethodType.methodType(session, output)));
+			SEND = generic(lookup.findVirtual(session, "send", MethodType.methodType(void.class, int.class)));
+			END = generic(lookup.findVirtual(session, "end", MethodType.methodType(void.class)));
+			FAIL = generic(lookup.findVirtual(session, "fail", MethodType.methodType(void.class, String.class)));
+			SESSION_AWAIT = generic(lookup.findVirtual(session, "await", MethodType.methodType(String.class)));
+			Class<?> daemon = Class.forName("Daemon");
+			DAEMON = generic(lookup.findConstructor(daemon, MethodType.methodType(void.class, int.class, int.class)));
+			DAEMON_BUDGET = generic(lookup.findVirtual(daemon, "setBudget", MethodType.methodType(void.class,
+					budget)));
+			DAEMON_PORT = generic(lookup.findVirtual(daemon, "getPort", MethodType.methodType(int.class)));
+			SERVE = generic(lookup.findVirtual(daemon, "serve", MethodType.methodType(void.class)));
+			Class<?> results = Class.forName("ResultCache");
+			RESULTS = generic(lookup.findConstructor(results, MethodType.methodType(void.class, File.class,
+					long.class, long.class)));
+			RESULTS_BUDGET = generic(lookup.findVirtual(results, "setBudget", MethodType.methodType(void.class,
+					budget)));
+			RESULTS_EXECUTE = generic(lookup.findVirtual(results, "execute", MethodType.methodType(executor, program,
+					byte[].class, output)));
+			Class<?> pool = Class.forName("WorkerPool");
+			POOL = generic(lookup.findConstructor(pool, MethodType.methodType(void.class, prog, int.class)));
+			POOL_BUDGET = generic(lookup.findVirtual(pool, "setBudget", MethodType.methodType(void.class, budget)));
+			POOL_RUN = generic(lookup.findVirtual(pool, "run", MethodType.methodType(report, List.class,
+					File.class)));
+			Class<?> array = Class.forName("ArrayInput");
+			READ_ARRAY = generic(lookup.findStatic(array, "read", MethodType.methodType(array, String.class)));
+			Class<?> farm = Class.forName("FarmRunner");
+			FARM = generic(lookup.findConstructor(farm, MethodType.methodType(void.class, array, int.class)));
+			FARM_BUDGET = generic(lookup.findVirtual(farm, "setBudget", MethodType.methodType(void.class, budget)));
+			FARM_RUN = generic(lookup.findVirtual(farm, "run", MethodType.methodType(report, List.class,
+					File.class)));
+			WRAP = generic(lookup.findStatic(input, "wrap", MethodType.methodType(input, byte[].class)));
+			HAS_NEXT = generic(lookup.findVirtual(input, "hasNext", MethodType.methodType(boolean.class)));
+			NEXT = generic(lookup.findVirtual(input, "next", MethodType.methodType(int.class)));
+			STREAM = generic(lookup.findStatic(output, "stream", MethodType.methodType(output, OutputStream.class)));
+			FLUSH = generic(lookup.findVirtual(output, "flush", MethodType.methodType(void.class)));
+			TEXT_INPUT = Class.forName("TextInput");
+			CORE_EXCEPTION = Class.forName("CoreException");
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private Core() { }
+
+	// Looked up on first use, since ColumnarEngine links against the Vector API module;
+	private static final class Columnar {
+
+		private static final MethodHandle NEW;
+		private static final MethodHandle BUDGET;
+		private static final MethodHandle RUN;
+		static {
+			try {
+				Class<?> columnar = Class.forName("ColumnarEngine");
+				NEW = generic(MethodHandles.lookup().findConstructor(columnar, MethodType.methodType(void.class,
+						Class.forName("Program"), int.class)));
+				BUDGET = generic(MethodHandles.lookup().findVirtual(columnar, "setBudget", MethodType.methodType(
+						void.class, Class.forName("Budget"))));
+				RUN = generic(MethodHandles.lookup().findVirtual(columnar, "run", MethodType.methodType(
+						Class.forName("BatchRunner$Report"), List.class, File.class)));
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************************* Methods for Phases **********************************
+	 *******************************************************************************************/
+
+	static Object tokenize(List<String> lines) { return call(TOKENIZER, lines); }
+
+	static Object scanner(Object tokenizer) { return call(SCANNER, tokenizer); }
+
+	static String currentToken(Object scanner) { return (String) call(CURRENT_TOKEN, scanner); }
+
+	static void nextToken(Object scanner) { call(NEXT_TOKEN, scanner); }
+
+	static void reset(Object scanner) { call(RESET, scanner); }
+
+	static Object parse(Object scanner) { return call(PARSE, scanner); }
+
+	static void print(Object parseTree, Appendable out) { call(PRINT, parseTree, out); }
+
+	static Object compile(Object parseTree) { return call(COMPILE, parseTree); }
+
+	/**
+	 * Execute a compiled program on a data file held in memory; Output is discarded;
+	 *
+	 * @param program   compiled program
+	 * @param data      bytes of the text data
+	 * @return          number of statements executed
+	 */
+	static long execute(Object program, byte[] data) {
+		Object output = call(STREAM, OutputStream.nullOutputStream());
+		Object executor = call(EXECUTOR, program, call(WRAP, data), output);
+		call(EXECUTE, executor);
+		return (Long) call(STEPS, executor);
+	}
+
+	/*******************************************************************************************
+	 ************************************ Methods for Engines **********************************
+	 *******************************************************************************************/
+
+	static Object executor(Object program, Object input, Object output) {
+		return call(EXECUTOR, program, input, output);
+	}
+
+	/**
+	 * Executor of --numeric long; See WideFrame;
+	 *
+	 * @param program   compiled program
+	 * @param input     source of the data
+	 * @param output    sink of the OUTPUT values
+	 * @return          executor with 64-bit variables
+	 */
+	static Object longExecutor(Object program, Object input, Object output) {
+		return call(LONG_EXECUTOR, program, LONG, input, output);
+	}
+
+	static long overflows(Object executor) { return (Long) call(OVERFLOWS, executor); }
+
+	static Object pipe(ReadableByteChannel stream) { return call(PIPE, stream); }
+
+	static void run(Object executor) { call(EXECUTE, executor); }
+
+	static long steps(Object executor) { return (Long) call(STEPS, executor); }
+
+	static void setMemo(Object executor, boolean memo) { call(SET_MEMO, executor, memo); }
+
+	static void setBudget(Object executor, long steps) { call(SET_BUDGET, executor, budget(steps)); }
+
+	static void begin(Object executor) { call(BEGIN, executor); }
+
+	static void advance(Object executor, long slice) { call(ADVANCE, executor, slice); }
+
+	static boolean isWaiting(Object executor) { return (Boolean) call(IS_WAITING, executor); }
+
+	static boolean isFinished(Object executor) { return (Boolean) call(IS_FINISHED, executor); }
+
+	static void supply(Object executor, Object input) { call(SUPPLY, executor, input); }
+
+	static Object specialize(Object parseTree, List<Integer> prefix) { return call(SPECIALIZE, parseTree, prefix); }
+
+	static void runRegions(Object program, int threads, long steps, Object input, Object output) {
+		Object regions = call(REGIONS, program, threads);
+		call(REGIONS_BUDGET, regions, budget(steps));
+		call(REGIONS_RUN, regions, input, output);
+	}
+
+	static void runCheckpointed(Object program, File file, long interval, long steps, Object input, Object output) {
+		Object checkpoint = call(CHECKPOINT, program, file, interval);
+		call(CHECKPOINT_BUDGET, checkpoint, budget(steps));
+		call(CHECKPOINT_RUN, checkpoint, input, output, null);
+	}
+
+	static Object scheduler(int carriers, long slice) { return call(SCHEDULER, carriers, slice); }
+
+	/**
+	 * Run a program on a Scheduler and wait for it;
+	 *
+	 * @param scheduler     scheduler of the run
+	 * @param program       compiled program
+	 * @param steps         most statements the run may execute; Long.MAX_VALUE for no limit
+	 * @param input         source of the data; closed when the run ends
+	 * @param output        sink of the OUTPUT values; closed when the run ends
+	 * @return              message of the error ending the run; null if it succeeded
+	 */
+	static String schedule(Object scheduler, Object program, long steps, Object input, Object output) {
+		Object task = call(SUBMIT, scheduler, program, input, output, budget(steps));
+		return (String) call(TASK_AWAIT, task);
+	}
+
+	static Object sessions(Object program) { return call(SESSIONS, program); }
+
+	static Object open(Object sessions, Object output) { return call(OPEN, sessions, output); }
+
+	static void send(Object session, int value) { call(SEND, session, value); }
+
+	static void end(Object session) { call(END, session); }
+
+	static void fail(Object session, String token) { call(FAIL, session, token); }
+
+	static String await(Object session) { return (String) call(SESSION_AWAIT, session); }
+
+	/**
+	 * Start a Daemon on a free loopback port, serving on a daemon thread until the JVM exits;
+	 *
+	 * @param steps     most statements a request may execute; Long.MAX_VALUE for no limit
+	 * @return          port of the daemon
+	 */
+	static int startDaemon(long steps) {
+		final Object daemon = call(DAEMON, 0, 64);
+		call(DAEMON_BUDGET, daemon, budget(steps));
+		Thread thread = new Thread(() -> call(SERVE, daemon), "differential-daemon");
+		thread.setDaemon(true);
+		thread.start();
+		return (Integer) call(DAEMON_PORT, daemon);
+	}
+
+	/**
+	 * Execute a program through a ResultCache with only a disk level, so a hit reads an entry file;
+	 *
+	 * @param dir       directory of the entry files; kept between calls
+	 * @param program   compiled program
+	 * @param steps     most statements the run may execute; Long.MAX_VALUE for no limit
+	 * @param data      bytes of the data
+	 * @param output    sink of the OUTPUT values
+	 */
+	static void executeCached(File dir, Object program, long steps, byte[] data, Object output) {
+		Object results = call(RESULTS, dir, 0L, Long.MAX_VALUE);
+		call(RESULTS_BUDGET, results, budget(steps));
+		call(RESULTS_EXECUTE, results, program, data, output);
+	}
+
+	/**
+	 * Run a batch of data files on a WorkerPool;
+	 *
+	 * @param parseTree     parse tree of the program, shipped to the workers
+	 * @param workers       number of worker JVMs
+	 * @param steps         most statements a run may execute; Long.MAX_VALUE for no limit
+	 * @param inputs        data files
+	 * @param outDir        directory of the output files
+	 * @return              report of the batch
+	 */
+	static Object runPool(Object parseTree, int workers, long steps, List<File> inputs, File outDir) {
+		Object pool = call(POOL, parseTree, workers);
+		call(POOL_BUDGET, pool, budget(steps));
+		return call(POOL_RUN, pool, inputs, outDir);
+	}
+
+	/**
+	 * Run program files against one data file with a FarmRunner;
+	 *
+	 * @param data      data file, parsed once
+	 * @param steps     most statements a run may execute; Long.MAX_VALUE for no limit
+	 * @param programs  program files
+	 * @param outDir    directory of the output files
+	 * @return          report of the farm run
+	 */
+	static Object runFarm(File data, long steps, List<File> programs, File outDir) {
+		Object farm = call(FARM, call(READ_ARRAY, data.getPath()), 1);
+		call(FARM_BUDGET, farm, budget(steps));
+		return call(FARM_RUN, farm, programs, outDir);
+	}
+
+	/**
+	 * Run a batch of data files with a BatchRunner or a PrefixBatchRunner;
+	 *
+	 * @param program   compiled program
+	 * @param prefix    whether to share input prefixes
+	 * @param steps     most statements a run may execute; Long.MAX_VALUE for no limit
+	 * @param inputs    data files
+	 * @param outDir    directory of the output files
+	 * @return          report of the batch
+	 */
+	static Object runBatch(Object program, boolean prefix, long steps, List<File> inputs, File outDir) {
+		if (prefix) {
+			Object runner = call(PREFIX_BATCH, program);
+			call(PREFIX_BATCH_BUDGET, runner, budget(steps));
+			return call(PREFIX_BATCH_RUN, runner, inputs, outDir);
+		}
+		Object runner = call(BATCH, program, 1);
+		call(BATCH_BUDGET, runner, budget(steps));
+		return call(BATCH_RUN, runner, inputs, outDir);
+	}
+
+	/**
+	 * Run a batch of data files with a ColumnarEngine; See hasColumnar;
+	 *
+	 * @param program   compiled program
+	 * @param steps     most statements a run may execute; Long.MAX_VALUE for no limit
+	 * @param inputs    data files
+	 * @param outDir    directory of the output files
+	 * @return          report of the batch
+	 */
+	static Object runColumnar(Object program, long steps, List<File> inputs, File outDir) {
+		Object engine = call(Columnar.NEW, program, 1);
+		call(Columnar.BUDGET, engine, budget(steps));
+		return call(Columnar.RUN, engine, inputs, outDir);
+	}
+
+	/**
+	 * Determine whether the ColumnarEngine can run; It needs the Vector API module;
+	 *
+	 * @return  whether or not jdk.incubator.vector was added to this JVM
+	 */
+	static boolean hasColumnar() { return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(); }
+
+	static String error(Object report, int i) { return (String) call(REPORT_ERROR, report, i); }
+
+	static Object wrap(byte[] data) { return call(WRAP, data); }
+
+	/**
+	 * Determine whether data is in the text format; The binary format is detected by its header;
+	 *
+	 * @param data  bytes of the data
+	 * @return      whether or not InputSource.wrap reads it as text
+	 */
+	static boolean isText(byte[] data) { return TEXT_INPUT.isInstance(call(WRAP, data)); }
+
+	static boolean hasNext(Object input) { return (Boolean) call(HAS_NEXT, input); }
+
+	static int next(Object input) { return (Integer) call(NEXT, input); }
+
+	static Object stream(OutputStream out) { return call(STREAM, out); }
+
+	static void flush(Object output) { call(FLUSH, output); }
+
+	/**
+	 * Determine whether a failure is one the interpreter reports as "ERROR: message";
+	 *
+	 * @param e     exception thrown by a phase
+	 * @return      whether or not it is a CoreException
+	 */
+	static boolean isCoreException(Throwable e) { return CORE_EXCEPTION.isInstance(e); }
+
+	/*******************************************************************************************
+	 ********************************* Helper Methods for Handles ******************************
+	 *******************************************************************************************/
+
+	private static Object budget(long steps) { return call(BUDGET, steps, Long.MAX_VALUE, Long.MAX_VALUE); }
+
+	private static MethodHandle generic(MethodHandle handle) {
+		return handle.asType(handle.type().generic());
+	}
+
+	// invokeExact on static final handles of generic type compiles to a direct call;
+	private static Object call(MethodHandle handle, Object a) {
+		try {
+			return (Object) handle.invokeExact(a);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	private static Object call(MethodHandle handle, Object a, Object b) {
+		try {
+			return (Object) handle.invokeExact(a, b);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	private static Object call(MethodHandle handle, Object a, Object b, Object c) {
+		try {
+			return (Object) handle.invokeExact(a, b, c);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	private static Object call(MethodHandle handle, Object a, Object b, Object c, Object d) {
+		try {
+			return (Object) handle.invokeExact(a, b, c, d);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	private static Object call(MethodHandle handle, Object a, Object b, Object c, Object d, Object e) {
+		try {
+			return (Object) handle.invokeExact(a, b, c, d, e);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable e) {
+		if (e instanceof RuntimeException) return (RuntimeException) e;
+		if (e instanceof Error) throw (Error) e;
+		return new IllegalStateException(e);
+	}
+}
@@ -0,0 +1,94 @@
+package bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CoreBenchmark Class for the Core Interpreter Benchmarks; Throughput of every phase of the
+ * interpreter on generated programs;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xss512m", "--add-modules", "jdk.incubator.vector"})
+public class CoreBenchmark {
+
+	/*******************************************************************************************
+	 * Each benchmark times one phase on its own: the input of the phase is made once in       *
+	 * setup, so tokenize times the Tokenizer, scan walks the Scanner over the tokens, parse   *
+	 * builds the parse tree from them, print pretty prints that tree and execute runs the     *
+	 * compiled program; Run with -prof gc for the allocation rate of each phase; The stack of *
+	 * a forked JVM is large since parsing and execution recurse along the statements          *
+	 *******************************************************************************************/
+
+	private static final long SEED = 42;
+
+	@Param({"100", "1000", "10000"})
+	public int size;
+
+	@Param({"flat", "nested", "expr"})
+	public String shape;
+
+	private List<String> lines;
+	private Object scanner;
+	private Object parseTree;
+	private Object program;
+	private byte[] data;
+
+	@Setup
+	public void setup() {
+		ProgramGenerator generator = new ProgramGenerator(ProgramGenerator.Knobs.of(shape), SEED);
+		lines = generator.program(size);
+		scanner = Core.scanner(Core.tokenize(lines));
+		parseTree = Core.parse(scanner);
+		program = Core.compile(parseTree);
+		data = generator.data();
+	}
+
+	/*******************************************************************************************
+	 ************************************ Benchmarks of Phases *********************************
+	 *******************************************************************************************/
+
+	@Benchmark
+	public Object tokenize() { return Core.tokenize(lines); }
+
+	@Benchmark
+	public void scan(Blackhole blackhole) {
+		Core.reset(scanner);
+		for (String token = Core.currentToken(scanner); !token.equals("EOF"); token = Core.currentToken(scanner)) {
+			blackhole.consume(token);
+			Core.nextToken(scanner);
+		}
+	}
+
+	@Benchmark
+	public Object parse() {
+		Core.reset(scanner);
+		return Core.parse(scanner);
+	}
+
+	@Benchmark
+	public Object print() {
+		StringBuilder out = new StringBuilder();
+		Core.print(parseTree, out);
+		return out;
+	}
+
+	@Benchmark
+	public long execute() { return Core.execute(program, data); }
+}
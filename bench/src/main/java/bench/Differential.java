@@ -0,0 +1,536 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Differential Class for the Core Interpreter Benchmarks; Every engine against the reference
+ * Executor on a corpus of hand-written and generated programs;
+ */
+public final class Differential {
+
+	/*******************************************************************************************
+	 * A case is a program and several data files: its data file and variants of it sharing   *
+	 * ever longer prefixes with it, so a prefix batch forks and columnar lanes diverge; Every *
+	 * case runs on every engine --warmup untimed times, then --repeat timed times; Each       *
+	 * transcript must equal the one of the reference byte for byte, OUTPUT values and error   *
+	 * message alike, in every run, so a race shows up as well; A failing program is minimized *
+	 * by removing ever smaller chunks of lines while it still parses, the reference still     *
+	 * ends within a step budget on every data file and the engine still disagrees; The time   *
+	 * of an engine on a case is its fastest timed run over all the data files, programs with  *
+	 * syntax errors are not timed; Its speedup on a workload class is the geometric mean of   *
+	 * reference time over engine time                                                         *
+	 *******************************************************************************************/
+
+	private static final long STACK_SIZE = 1L << 29;        // the engines recurse per statement;
+	private static final long MINIMIZE_STEPS = 10000000;    // budget of a minimized program;
+	private static final int MINIMIZE_TESTS = 2000;         // most candidates tried per failure;
+	private static final int[] CHANGES = {1, 2, 3, 4};      // changed values, in quarters of the data;
+
+	/*******************************************************************************************
+	 * Private Members: Engines & the Reasons of those Not Run; Cases; Runs per Case; Failure  *
+	 * Directory; Results & the Reasons of the Skipped Data Files                              *
+	 *******************************************************************************************/
+
+	private final List<Engines.Engine> engines;
+	private final Map<String,String> unavailable;
+	private final List<Case> cases;
+	private final int warmup;
+	private final int repeat;
+	private final File failures;
+	private final Map<String,Mismatch> mismatches = new LinkedHashMap<String,Mismatch>();
+	private final Map<String,String> skipped = new LinkedHashMap<String,String>();
+	private long[][] nanos;
+
+	private Differential(List<Engines.Engine> engines, Map<String,String> unavailable, List<Case> cases, int warmup,
+			int repeat, File failures) {
+		this.engines = engines;
+		this.unavailable = unavailable;
+		this.cases = cases;
+		this.warmup = warmup;
+		this.repeat = repeat;
+		this.failures = failures;
+	}
+
+	/*******************************************************************************************
+	 ************************************* Methods for Runs ************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run every case on every engine, then minimize the failures;
+	 */
+	private void run() {
+		nanos = new long[cases.size()][engines.size()];
+		for (long[] row : nanos) Arrays.fill(row, Long.MAX_VALUE);
+		for (int r = -warmup; r < repeat; r++) {
+			for (int c = 0; c < cases.size(); c++) {
+				Case test = cases.get(c);
+				byte[][] expected = null;
+				// Every engine checks the case before any is timed, so none runs it warm from its check;
+				String[][] checks = new String[engines.size()][];
+				for (int e = 0; e < engines.size(); e++) {
+					checks[e] = checks(engines.get(e), test.parseTree, test.inputs, Long.MAX_VALUE);
+				}
+				for (int e = 0; e < engines.size(); e++) {
+					Engines.Engine engine = engines.get(e);
+					byte[][] actual = new byte[test.inputs.size()][];
+					String[] reasons = checks[e];
+					long time = outcome(engine, test.parseTree, test.inputs, Long.MAX_VALUE, actual, reasons);
+					boolean complete = true;
+					for (int i = 0; i < actual.length; i++) {
+						if (actual[i] == null) {
+							skipped.put(engine.name + " " + test.name + "#" + i, engine.name + ": " + reasons[i]);
+							complete = false;
+						}
+					}
+					// A case is timed only if the engine ran every data file;
+					if (r >= 0 && complete && !(test.parseTree instanceof byte[])) {
+						nanos[c][e] = Math.min(nanos[c][e], time);
+					}
+					if (e == 0) {
+						expected = actual;
+						continue;
+					}
+					int file = differs(expected, actual);
+					if (file >= 0) {
+						mismatches.putIfAbsent(engine.name + " " + test.name, new Mismatch(engine, test, file,
+								expected[file], actual[file]));
+					}
+				}
+			}
+		}
+		for (Mismatch mismatch : mismatches.values()) mismatch.minimize();
+		for (Case test : cases) test.inputs.delete();
+	}
+
+	/**
+	 * Transcripts of the runs on every data file, or the failure of the engine itself, e.g.
+	 * "CRASH: ...", as the transcript of each;
+	 *
+	 * @param engine        engine to run
+	 * @param parseTree     parse tree of the program; a transcript of its syntax error if not parsed
+	 * @param inputs        data files of the case
+	 * @param steps         most statements a run may execute
+	 * @param transcripts   destination of the transcripts; null where the engine does not support
+	 *                      the program on a data file
+	 * @param reasons       reasons of the checks; the reason of every other null transcript is added
+	 * @return              nanoseconds the engine took
+	 */
+	private static long outcome(Engines.Engine engine, Object parseTree, Engines.Inputs inputs, long steps,
+			byte[][] transcripts, String[] reasons) {
+		if (parseTree instanceof byte[]) {
+			Arrays.fill(transcripts, (byte[]) parseTree);
+			return 0;
+		}
+		try {
+			return engine.transcripts(parseTree, inputs, steps, transcripts, reasons);
+		} catch (RuntimeException | StackOverflowError e) {
+			Arrays.fill(transcripts, ("CRASH: " + e).getBytes(StandardCharsets.UTF_8));
+			return Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Reasons why an engine cannot run a program on each data file; See Engine.checks; A check
+	 * that fails otherwise lets the run report the failure;
+	 *
+	 * @param engine        engine to check
+	 * @param parseTree     parse tree of the program; a transcript of its syntax error if not parsed
+	 * @param inputs        data files of the case
+	 * @param steps         most statements a run may execute
+	 * @return              reason per data file; null where the engine runs it
+	 */
+	private static String[] checks(Engines.Engine engine, Object parseTree, Engines.Inputs inputs, long steps) {
+		if (parseTree instanceof byte[]) return new String[inputs.size()];
+		try {
+			return engine.checks(parseTree, inputs, steps);
+		} catch (RuntimeException | StackOverflowError e) {
+			return new String[inputs.size()];
+		}
+	}
+
+	/**
+	 * First data file on which an engine disagrees with the reference;
+	 *
+	 * @param expected  transcripts of the reference
+	 * @param actual    transcripts of the engine; null where it does not support the program
+	 * @return          index of the data file; -1 if they agree
+	 */
+	private static int differs(byte[][] expected, byte[][] actual) {
+		for (int i = 0; i < actual.length; i++) {
+			if (expected[i] != null && actual[i] != null && !Arrays.equals(expected[i], actual[i])) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Parse a program; A syntax error becomes the transcript of every engine;
+	 *
+	 * @param lines     lines of the program
+	 * @return          parse tree, or the bytes of "ERROR: message"
+	 */
+	private static Object parse(List<String> lines) {
+		try {
+			return Core.parse(Core.scanner(Core.tokenize(lines)));
+		} catch (RuntimeException e) {
+			if (!Core.isCoreException(e)) throw e;
+			return ("ERROR: " + e.getMessage() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/*******************************************************************************************
+	 ****************************************** Reports ****************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Print the engines not run, the data files skipped, the mismatches and the speedup table;
+	 *
+	 * @param out   destination of the report
+	 */
+	private void report(PrintWriter out) {
+		int files = 0;
+		for (Case test : cases) files += test.inputs.size();
+		out.printf(Locale.ROOT, "CONFORMANCE: %d cases (%d data files) x %d engines x %d runs; %d mismatch(es);"
+				+ " %d skipped%n", cases.size(), files, engines.size(), warmup + repeat, mismatches.size(),
+				skipped.size());
+		for (Map.Entry<String,String> entry : unavailable.entrySet()) {
+			out.printf(Locale.ROOT, "NOT RUN %s: %s%n", entry.getKey(), entry.getValue());
+		}
+		// Skipped := one line per engine and reason, with the number of data files;
+		Map<String,Integer> reasons = new LinkedHashMap<String,Integer>();
+		for (String reason : skipped.values()) reasons.merge(reason, 1, Integer::sum);
+		for (Map.Entry<String,Integer> entry : reasons.entrySet()) {
+			out.printf(Locale.ROOT, "SKIPPED %s (%d data files)%n", entry.getKey(), entry.getValue());
+		}
+		for (Mismatch mismatch : mismatches.values()) mismatch.print(out);
+		out.println();
+		Map<String,List<Integer>> classes = new LinkedHashMap<String,List<Integer>>();
+		for (int c = 0; c < cases.size(); c++) {
+			classes.computeIfAbsent(cases.get(c).workload, k -> new ArrayList<Integer>()).add(c);
+		}
+		List<Integer> all = new ArrayList<Integer>();
+		for (int c = 0; c < cases.size(); c++) all.add(c);
+		classes.put("all", all);
+		out.println("SPEEDUP over the reference (geometric mean of the per-case time ratios; > 1 is faster)");
+		out.printf(Locale.ROOT, "%-16s %5s %12s", "workload", "cases", "ref ms");
+		for (int e = 1; e < engines.size(); e++) out.printf(Locale.ROOT, " %12s", engines.get(e).name);
+		out.println();
+		for (Map.Entry<String,List<Integer>> entry : classes.entrySet()) {
+			long reference = 0;
+			for (int c : entry.getValue()) if (nanos[c][0] != Long.MAX_VALUE) reference += nanos[c][0];
+			out.printf(Locale.ROOT, "%-16s %5d %12.3f", entry.getKey(), entry.getValue().size(), reference / 1e6);
+			for (int e = 1; e < engines.size(); e++) {
+				double logs = 0;
+				int n = 0;
+				for (int c : entry.getValue()) {
+					if (nanos[c][e] == Long.MAX_VALUE || nanos[c][0] == Long.MAX_VALUE) continue;
+					logs += Math.log((double) Math.max(1, nanos[c][0]) / Math.max(1, nanos[c][e]));
+					n++;
+				}
+				out.printf(Locale.ROOT, " %12s", n == 0 ? "-" : String.format(Locale.ROOT, "%.2fx", Math.exp(logs / n)));
+			}
+			out.println();
+		}
+	}
+
+	/*******************************************************************************************
+	 *********************************** Cases of the Corpus ***********************************
+	 *******************************************************************************************/
+
+	/**
+	 * A program and its data files, in a workload class;
+	 */
+	private static final class Case {
+
+		final String name;
+		final String workload;
+		final List<String> lines;
+		final Engines.Inputs inputs;
+		final Object parseTree;
+
+		Case(String name, String workload, List<String> lines, byte[] data) {
+			this.name = name;
+			this.workload = workload;
+			this.lines = lines;
+			this.inputs = new Engines.Inputs(variants(data));
+			this.parseTree = parse(lines);
+		}
+	}
+
+	/**
+	 * Data files of a case: a data file in the text format, then copies of it with one value
+	 * changed at each of CHANGES, sharing the values before it, then its first half, so INPUT
+	 * runs out of data; A value is changed by flipping its lowest bit; Malformed tokens stay;
+	 * Duplicates are dropped; A data file in the binary format has no variants;
+	 *
+	 * @param data  bytes of the data file
+	 * @return      the data file first, then its variants
+	 */
+	private static List<byte[]> variants(byte[] data) {
+		for (byte b : data) {
+			if ((b < 0x20 || b > 0x7e) && !Character.isWhitespace(b)) return Arrays.asList(data);
+		}
+		String text = new String(data, StandardCharsets.US_ASCII).trim();
+		List<String> tokens = text.isEmpty() ? new ArrayList<String>() : Arrays.asList(text.split("\\s+"));
+		Map<String,byte[]> variants = new LinkedHashMap<String,byte[]>();
+		variants.put(new String(data, StandardCharsets.ISO_8859_1), data);
+		for (int quarter : CHANGES) {
+			if (tokens.isEmpty()) break;
+			List<String> changed = new ArrayList<String>(tokens);
+			int pos = Math.max(0, tokens.size() * quarter / 4 - 1);
+			try {
+				changed.set(pos, Integer.toString(Integer.parseInt(tokens.get(pos)) ^ 1));
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			variant(changed, variants);
+		}
+		variant(tokens.subList(0, tokens.size() / 2), variants);
+		return new ArrayList<byte[]>(variants.values());
+	}
+
+	private static void variant(List<String> tokens, Map<String,byte[]> variants) {
+		StringBuilder text = new StringBuilder();
+		for (String token : tokens) text.append(token).append('\n');
+		variants.putIfAbsent(text.toString(), text.toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Hand-written cases: every name.core below a directory, with name.data if present; The
+	 * workload class is the directory of the program, relative to the corpus;
+	 *
+	 * @param corpus    corpus directory
+	 * @param cases     list to add the cases to
+	 */
+	private static void load(File corpus, File dir, List<Case> cases) throws IOException {
+		File[] files = dir.listFiles();
+		if (files == null) throw new IOException("cannot read corpus directory " + dir);
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				load(corpus, file, cases);
+			} else if (file.getName().endsWith(".core")) {
+				String base = file.getName().substring(0, file.getName().length() - ".core".length());
+				File data = new File(dir, base + ".data");
+				String workload = dir.equals(corpus) ? corpus.getName() : corpus.toPath().relativize(dir.toPath())
+						.toString();
+				cases.add(new Case(workload + "/" + base, workload, Files.readAllLines(file.toPath()),
+						data.isFile() ? Files.readAllBytes(data.toPath()) : new byte[0]));
+			}
+		}
+	}
+
+	/**
+	 * Generated cases of every shape; Every fourth one lacks its last data value, so INPUT
+	 * runs out of data;
+	 *
+	 * @param count     cases per shape
+	 * @param size      statements per program
+	 * @param seed      seed of the first program
+	 * @param cases     list to add the cases to
+	 */
+	private static void generate(int count, int size, long seed, List<Case> cases) {
+		for (String shape : ProgramGenerator.SHAPES) {
+			for (int i = 0; i < count; i++) {
+				ProgramGenerator generator = new ProgramGenerator(ProgramGenerator.Knobs.of(shape), seed + i);
+				List<String> lines = generator.program(size);
+				String data = new String(generator.data(), StandardCharsets.US_ASCII);
+				if (i % 4 == 3) data = data.substring(0, data.lastIndexOf('\n', data.length() - 2) + 1);
+				cases.add(new Case("random-" + shape + "/" + (seed + i), "random-" + shape, lines,
+						data.getBytes(StandardCharsets.US_ASCII)));
+			}
+		}
+	}
+
+	/*******************************************************************************************
+	 *************************************** Mismatches ****************************************
+	 *******************************************************************************************/
+
+	/**
+	 * First disagreement of an engine on a case, and its minimized program;
+	 */
+	private final class Mismatch {
+
+		final Engines.Engine engine;
+		final Case test;
+		final int file;
+		final byte[] expected;
+		final byte[] actual;
+		List<String> minimized;
+		int minimizedFile;
+		File saved;
+
+		Mismatch(Engines.Engine engine, Case test, int file, byte[] expected, byte[] actual) {
+			this.engine = engine;
+			this.test = test;
+			this.file = file;
+			this.expected = expected;
+			this.actual = actual;
+		}
+
+		/**
+		 * Remove chunks of lines, halving the chunks when none can go, while the engine still
+		 * disagrees; Saves the result with the data file it disagrees on to the failure directory;
+		 */
+		void minimize() {
+			List<String> current = test.lines;
+			int chunks = 2, tests = 0;
+			while (current.size() >= 2 && tests < MINIMIZE_TESTS) {
+				int length = (current.size() + chunks - 1) / chunks;
+				boolean reduced = false;
+				for (int start = 0; start < current.size() && tests < MINIMIZE_TESTS; start += length) {
+					List<String> candidate = new ArrayList<String>(current.subList(0, start));
+					candidate.addAll(current.subList(Math.min(current.size(), start + length), current.size()));
+					tests++;
+					if (fails(candidate) >= 0) {
+						current = candidate;
+						chunks = Math.max(chunks - 1, 2);
+						reduced = true;
+						break;
+					}
+				}
+				if (!reduced) {
+					if (chunks >= current.size()) break;
+					chunks = Math.min(chunks * 2, current.size());
+				}
+			}
+			minimized = current;
+			minimizedFile = Math.max(fails(minimized), 0);
+			try {
+				if (!failures.isDirectory() && !failures.mkdirs()) throw new IOException("cannot create " + failures);
+				String base = engine.name + "-" + test.name.replaceAll("[^A-Za-z0-9_.-]", "_");
+				saved = new File(failures, base + ".core");
+				Files.write(saved.toPath(), minimized);
+				Files.write(new File(failures, base + ".data").toPath(), test.inputs.get(minimizedFile));
+			} catch (IOException e) {
+				System.err.println("ERROR: cannot save minimized program: " + e.getMessage());
+			}
+		}
+
+		/**
+		 * Run a candidate on the reference and the engine;
+		 *
+		 * @param lines     lines of the candidate program
+		 * @return          first data file on which the engine disagrees; -1 if it agrees, or the
+		 *                  candidate does not parse or reaches the step limit on the reference
+		 */
+		private int fails(List<String> lines) {
+			Object parseTree = parse(lines);
+			if (parseTree instanceof byte[]) return -1;
+			byte[][] reference = new byte[test.inputs.size()][];
+			String[] reasons = checks(engines.get(0), parseTree, test.inputs, MINIMIZE_STEPS);
+			outcome(engines.get(0), parseTree, test.inputs, MINIMIZE_STEPS, reference, reasons);
+			for (byte[] transcript : reference) {
+				if (transcript == null || new String(transcript, StandardCharsets.UTF_8).contains("step limit of")) {
+					return -1;
+				}
+			}
+			byte[][] other = new byte[test.inputs.size()][];
+			reasons = checks(engine, parseTree, test.inputs, MINIMIZE_STEPS);
+			outcome(engine, parseTree, test.inputs, MINIMIZE_STEPS, other, reasons);
+			return differs(reference, other);
+		}
+
+		void print(PrintWriter out) {
+			String[] want = new String(expected, StandardCharsets.UTF_8).split("\r?\n", -1);
+			String[] got = new String(actual, StandardCharsets.UTF_8).split("\r?\n", -1);
+			int line = 0;
+			while (line < want.length && line < got.length && want[line].equals(got[line])) line++;
+			out.printf(Locale.ROOT, "MISMATCH %s on %s#%d at transcript line %d: expected \"%s\", got \"%s\"%n",
+					engine.name, test.name, file, line + 1, line < want.length ? want[line] : "<end>",
+					line < got.length ? got[line] : "<end>");
+			if (saved != null) {
+				out.printf(Locale.ROOT, "  minimized from %d to %d lines: %s%n", test.lines.size(), minimized.size(),
+						saved);
+			}
+		}
+	}
+
+	/*******************************************************************************************
+	 *************************************** Command Line **************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run the corpus and print the report; Exits with status 1 if an engine disagreed;
+	 * Usage: Differential [--corpus dir] [--random n] [--size n] [--seed n] [--warmup n]
+	 * [--repeat n] [--engines a,b] [--failures dir]
+	 *
+	 * @param args  options
+	 */
+	public static void main(String[] args) throws Exception {
+		List<String> corpora = new ArrayList<String>();
+		int random = 8, size = 200, warmup = 1, repeat = 3;
+		long seed = 1;
+		Set<String> names = null;
+		File failures = new File("failures");
+		int arg = 0;
+		try {
+			while (arg + 1 < args.length && args[arg].startsWith("--")) {
+				String option = args[arg++];
+				String value = args[arg++];
+				if (option.equals("--corpus")) {
+					corpora.add(value);
+				} else if (option.equals("--random")) {
+					random = Integer.parseInt(value);
+				} else if (option.equals("--size")) {
+					size = Integer.parseInt(value);
+				} else if (option.equals("--seed")) {
+					seed = Long.parseLong(value);
+				} else if (option.equals("--warmup")) {
+					warmup = Integer.parseInt(value);
+				} else if (option.equals("--repeat")) {
+					repeat = Integer.parseInt(value);
+				} else if (option.equals("--engines")) {
+					names = new LinkedHashSet<String>(Arrays.asList(value.split(",")));
+				} else if (option.equals("--failures")) {
+					failures = new File(value);
+				} else {
+					throw new IllegalArgumentException("unknown option " + option);
+				}
+			}
+			if (arg != args.length || warmup < 0 || repeat < 1) throw new IllegalArgumentException("invalid arguments");
+		} catch (IllegalArgumentException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			System.err.println("Usage: Differential [--corpus <dir>] [--random <n>] [--size <statements>]"
+					+ " [--seed <n>] [--warmup <n>] [--repeat <n>] [--engines <name,...>] [--failures <dir>]");
+			System.exit(2);
+		}
+		List<Engines.Engine> engines = new ArrayList<Engines.Engine>();
+		Map<String,String> unavailable = new LinkedHashMap<String,String>();
+		for (Engines.Engine engine : Engines.all()) {
+			// The reference always runs, first; an engine this JVM cannot run is reported instead;
+			if (names == null || engine.name.equals(Engines.REFERENCE) || names.remove(engine.name)) {
+				String reason = engine.unavailable();
+				if (reason == null) engines.add(engine);
+				else unavailable.put(engine.name, reason);
+			}
+		}
+		if (names != null) names.remove(Engines.REFERENCE);
+		if (names != null && !names.isEmpty()) {
+			System.err.println("ERROR: unknown engine(s) " + names);
+			System.exit(2);
+		}
+		List<Case> cases = new ArrayList<Case>();
+		for (String corpus : corpora) load(new File(corpus), new File(corpus), cases);
+		generate(random, size, seed, cases);
+		Differential differential = new Differential(engines, unavailable, cases, warmup, repeat, failures);
+		Thread thread = new Thread(null, differential::run, "differential", STACK_SIZE);
+		thread.start();
+		thread.join();
+		PrintWriter out = new PrintWriter(System.out, true);
+		differential.report(out);
+		out.flush();
+		System.exit(differential.mismatches.isEmpty() ? 0 : 1);
+	}
+}
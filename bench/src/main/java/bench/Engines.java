@@ -0,0 +1,687 @@
+package bench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Engines Class for the Core Interpreter Benchmarks; Every way the interpreter can execute a
+ * program, behind one interface;
+ */
+final class Engines {
+
+	/*******************************************************************************************
+	 * Every engine turns a parse tree and the data files of a case into transcripts: the     *
+	 * OUTPUT values one per line, then "ERROR: message" if the run failed, as Main prints     *
+	 * them and as a batch writes them to an output file; The batch engines run all the data   *
+	 * files of a case as one batch, the others run them one by one; The reference is the     *
+	 * recursive Executor; An engine skips a data file it cannot run, e.g. the LONG numeric    *
+	 * mode one on which the program overflows 32 bits, and gives the reason                   *
+	 *******************************************************************************************/
+
+	static final String REFERENCE = "reference";
+	private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+	private static final long SLICE = 1000;     // statements between two yields of the step engine;
+	private static final int[] PREFIXES = {0, 1, 2, 4, 8, 64};  // values known to the specializer;
+	private static final int CARRIERS = 2;      // threads of the scheduler engine;
+	private static final int WORKERS = 2;       // JVMs of the worker pool engine;
+
+	private Engines() { }
+
+	/**
+	 * Engines by name, the reference first; See Engine.unavailable;
+	 *
+	 * @return  every engine
+	 */
+	static List<Engine> all() {
+		return new ArrayList<Engine>(Arrays.asList(new Reference(), new Memo(), new Step(), new Printed(),
+				new Specialized(), new Parallel(), new Checkpointed(), new Pipe(), new Numeric(), new Scheduled(),
+				new Sessions(), new Served(), new Cached(), new Farm(), new Batch(false), new Batch(true), new Pool(),
+				new Columnar()));
+	}
+
+	/*******************************************************************************************
+	 ****************************************** Engine *****************************************
+	 *******************************************************************************************/
+
+	/**
+	 * One way of executing a program;
+	 */
+	abstract static class Engine {
+
+		final String name;
+
+		Engine(String name) { this.name = name; }
+
+		/**
+		 * Determine whether the engine can run in this JVM;
+		 *
+		 * @return  reason why it cannot; null if it can
+		 */
+		String unavailable() { return null; }
+
+		/**
+		 * Check a program on every data file of a case; Not timed; See check;
+		 *
+		 * @param parseTree     parse tree of the program
+		 * @param inputs        data files of the case
+		 * @param steps         most statements a run may execute; Long.MAX_VALUE for no limit
+		 * @return              reason why the engine cannot run the program on each data file;
+		 *                      null where it can
+		 */
+		String[] checks(Object parseTree, Inputs inputs, long steps) {
+			String[] reasons = new String[inputs.size()];
+			for (int i = 0; i < reasons.length; i++) {
+				try {
+					check(parseTree, inputs, i, steps);
+				} catch (Unsupported e) {
+					reasons[i] = e.getMessage();
+				}
+			}
+			return reasons;
+		}
+
+		/**
+		 * Run a program on every data file of a case, one by one; Failures other than those of
+		 * the interpreter are thrown;
+		 *
+		 * @param parseTree     parse tree of the program
+		 * @param inputs        data files of the case
+		 * @param steps         most statements a run may execute; Long.MAX_VALUE for no limit
+		 * @param transcripts   destination of the transcript of every data file; null where the
+		 *                      engine cannot run the program on it
+		 * @param reasons       reasons of the checks, null where the data file is run; the reason
+		 *                      of every other null transcript is added
+		 * @return              nanoseconds of the runs
+		 */
+		long transcripts(Object parseTree, Inputs inputs, long steps, byte[][] transcripts, String[] reasons) {
+			long nanos = 0;
+			for (int i = 0; i < inputs.size(); i++) {
+				if (reasons[i] != null) {
+					transcripts[i] = null;
+					continue;
+				}
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				long start = System.nanoTime();
+				try {
+					run(parseTree, inputs, i, steps, out);
+				} catch (Unsupported e) {
+					transcripts[i] = null;
+					reasons[i] = e.getMessage();
+					continue;
+				} catch (RuntimeException e) {
+					if (!Core.isCoreException(e)) throw e;
+					error(e, out);
+				}
+				nanos += System.nanoTime() - start;
+				transcripts[i] = out.toByteArray();
+			}
+			return nanos;
+		}
+
+		/**
+		 * Decide whether the engine can run a program on a data file; Not timed;
+		 *
+		 * @param parseTree     parse tree of the program
+		 * @param inputs        data files of the case
+		 * @param file          index of the data file to run on
+		 * @param steps         most statements the run may execute; Long.MAX_VALUE for no limit
+		 * @throws Unsupported  if the engine cannot run this program on this data file
+		 */
+		void check(Object parseTree, Inputs inputs, int file, long steps) { }
+
+		/**
+		 * Run a program on one data file, writing its OUTPUT values to out; Errors of the
+		 * interpreter are thrown;
+		 *
+		 * @param parseTree     parse tree of the program
+		 * @param inputs        data files of the case
+		 * @param file          index of the data file to run on
+		 * @param steps         most statements the run may execute; Long.MAX_VALUE for no limit
+		 * @param out           destination of the transcript
+		 * @throws Unsupported  if the engine cannot run this program on this data file
+		 */
+		abstract void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out);
+	}
+
+	/**
+	 * Thrown by an engine that cannot run a program on a data file, e.g. the specializer when
+	 * INPUT reads the known prefix under control depending on later data; The message is the
+	 * reason given in the report;
+	 */
+	static final class Unsupported extends RuntimeException {
+
+		Unsupported(String message) { super(message); }
+	}
+
+	/*******************************************************************************************
+	 ************************************* Executor Engines ************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Executor.execute: the recursive tree walk;
+	 */
+	private static class Reference extends Engine {
+
+		Reference() { super(REFERENCE); }
+
+		Reference(String name) { super(name); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			Object output = Core.stream(out);
+			try {
+				Object executor = executor(Core.compile(parseTree), input(inputs.get(file)), output);
+				if (steps != Long.MAX_VALUE) Core.setBudget(executor, steps);
+				configure(executor);
+				Core.run(executor);
+			} finally {
+				Core.flush(output);
+			}
+		}
+
+		Object input(byte[] data) { return Core.wrap(data); }
+
+		Object executor(Object program, Object input, Object output) { return Core.executor(program, input, output); }
+
+		void configure(Object executor) { }
+	}
+
+	/**
+	 * Executor.execute with the EXPR memo table;
+	 */
+	private static final class Memo extends Reference {
+
+		Memo() { super("memo"); }
+
+		@Override
+		void configure(Object executor) { Core.setMemo(executor, true); }
+	}
+
+	/**
+	 * Step mode of the Executor: an explicit stack, yielding every SLICE statements and at
+	 * every INPUT id;
+	 */
+	private static final class Step extends Engine {
+
+		Step() { super("step"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			Object output = Core.stream(out);
+			try {
+				Object input = Core.wrap(inputs.get(file));
+				Object executor = Core.executor(Core.compile(parseTree), input, output);
+				if (steps != Long.MAX_VALUE) Core.setBudget(executor, steps);
+				Core.begin(executor);
+				while (true) {
+					if (Core.isWaiting(executor)) Core.supply(executor, input);
+					Core.advance(executor, SLICE);
+					if (Core.isFinished(executor)) break;
+				}
+			} finally {
+				Core.flush(output);
+			}
+		}
+	}
+
+	/**
+	 * The pretty printed program, tokenized and parsed again, then executed;
+	 */
+	private static final class Printed extends Reference {
+
+		Printed() { super("printed"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			StringBuilder text = new StringBuilder();
+			Core.print(parseTree, text);
+			List<String> lines = Arrays.asList(text.toString().split("\r?\n"));
+			super.run(Core.parse(Core.scanner(Core.tokenize(lines))), inputs, file, steps, out);
+		}
+	}
+
+	/**
+	 * Specializer: the residual program for the first values of the data file, run on the
+	 * values after them; Data file i fixes up to PREFIXES[i % PREFIXES.length] values, so a
+	 * case tries several prefix lengths;
+	 */
+	private static final class Specialized extends Engine {
+
+		Specialized() { super("specialized"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			Object input = Core.wrap(inputs.get(file));
+			List<Integer> prefix = new ArrayList<Integer>();
+			Object residual;
+			try {
+				while (prefix.size() < PREFIXES[file % PREFIXES.length] && Core.hasNext(input)) {
+					prefix.add(Core.next(input));
+				}
+				residual = Core.specialize(parseTree, prefix);
+			} catch (RuntimeException e) {
+				// Malformed data and programs the specializer declines are not specialized;
+				if (!(e instanceof NumberFormatException) && !Core.isCoreException(e)) throw e;
+				throw new Unsupported(e.getMessage());
+			}
+			Object output = Core.stream(out);
+			try {
+				Object executor = Core.executor(Core.compile(residual), input, output);
+				if (steps != Long.MAX_VALUE) Core.setBudget(executor, steps);
+				Core.run(executor);
+			} finally {
+				Core.flush(output);
+			}
+		}
+	}
+
+	/**
+	 * ParallelRegions: independent top-level statements on two threads;
+	 */
+	private static final class Parallel extends Engine {
+
+		Parallel() { super("parallel"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			Object output = Core.stream(out);
+			try {
+				Core.runRegions(Core.compile(parseTree), 2, steps, Core.wrap(inputs.get(file)), output);
+			} finally {
+				Core.flush(output);
+			}
+		}
+	}
+
+	/**
+	 * Checkpoint: step mode saving its state to a file in the directory of the case at every
+	 * slice;
+	 */
+	private static final class Checkpointed extends Engine {
+
+		Checkpointed() { super("checkpoint"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			Object output = Core.stream(out);
+			File checkpoint = inputs.file("checkpoint");
+			try {
+				Core.runCheckpointed(Core.compile(parseTree), checkpoint, 0, steps, Core.wrap(inputs.get(file)),
+						output);
+			} finally {
+				Core.flush(output);
+				checkpoint.delete();
+			}
+		}
+	}
+
+	/**
+	 * PipeInput: the text data parsed ahead on a reader thread, as with --pipe;
+	 */
+	private static final class Pipe extends Reference {
+
+		Pipe() { super("pipe"); }
+
+		@Override
+		void check(Object parseTree, Inputs inputs, int file, long steps) {
+			if (!Core.isText(inputs.get(file))) throw new Unsupported("pipe input reads the text format only");
+		}
+
+		@Override
+		Object input(byte[] data) { return Core.pipe(Channels.newChannel(new ByteArrayInputStream(data))); }
+	}
+
+	/**
+	 * Executor with the 64-bit variables of --numeric long; It rightly differs from the
+	 * reference where a value leaves the int range, so it only runs the data files on which
+	 * an untimed run of its own counts no value beyond 32 bits; See Executor.getOverflows;
+	 */
+	private static final class Numeric extends Reference {
+
+		Numeric() { super("numeric-long"); }
+
+		@Override
+		void check(Object parseTree, Inputs inputs, int file, long steps) {
+			Object output = Core.stream(OutputStream.nullOutputStream());
+			Object executor = executor(Core.compile(parseTree), input(inputs.get(file)), output);
+			if (steps != Long.MAX_VALUE) Core.setBudget(executor, steps);
+			try {
+				Core.run(executor);
+			} catch (RuntimeException e) {
+				if (!Core.isCoreException(e)) throw e;
+			}
+			if (Core.overflows(executor) > 0) {
+				throw new Unsupported("values of the program leave the int range on the data file");
+			}
+		}
+
+		@Override
+		Object executor(Object program, Object input, Object output) { return Core.longExecutor(program, input, output); }
+	}
+
+	/**
+	 * Scheduler: step mode time-sliced on CARRIERS threads, a slice of SLICE statements at a time;
+	 */
+	private static final class Scheduled extends Engine {
+
+		private Object scheduler;
+
+		Scheduled() { super("scheduler"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			if (scheduler == null) scheduler = Core.scheduler(CARRIERS, SLICE);
+			// The run closes the sink, which flushes it;
+			String error = Core.schedule(scheduler, Core.compile(parseTree), steps, Core.wrap(inputs.get(file)),
+					Core.stream(out));
+			if (error != null) error(error, out);
+		}
+	}
+
+	/**
+	 * SessionHost: a session thread fed the values of the data one by one, as a caller sends
+	 * them; Sessions have no budget, so the minimizer only keeps programs the reference ends;
+	 */
+	private static final class Sessions extends Engine {
+
+		Sessions() { super("sessions"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			Object session = Core.open(Core.sessions(Core.compile(parseTree)), Core.stream(out));
+			Object input = Core.wrap(inputs.get(file));
+			try {
+				while (Core.hasNext(input)) Core.send(session, Core.next(input));
+				Core.end(session);
+			} catch (NumberFormatException e) {
+				Core.fail(session, e.getMessage());
+			}
+			String error = Core.await(session);
+			if (error != null) error(error, out);
+		}
+	}
+
+	/**
+	 * Daemon: the printed program and the data sent as one request to a Daemon of this JVM,
+	 * one per step budget; Its response is what Main prints, a blank line after the values of
+	 * a run that succeeded;
+	 */
+	private static final class Served extends Engine {
+
+		private final Map<Long,Integer> ports = new HashMap<Long,Integer>();
+
+		Served() { super("daemon"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			StringBuilder text = new StringBuilder();
+			Core.print(parseTree, text);
+			byte[] source = text.toString().getBytes(StandardCharsets.UTF_8);
+			byte[] data = inputs.get(file);
+			int port = ports.computeIfAbsent(steps, Core::startDaemon);
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+				DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				request.writeInt(0);
+				request.writeInt(source.length);
+				request.write(source);
+				request.writeInt(data.length);
+				request.write(data);
+				request.flush();
+				DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				int status = response.readInt();
+				byte[] bytes = new byte[response.readInt()];
+				response.readFully(bytes);
+				out.write(bytes, 0, status == 0 ? bytes.length - NEWLINE.length : bytes.length);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * ResultCache with only a disk level, in the directory of the case: the first run on a data
+	 * file executes and stores its result, the later runs replay the entry file;
+	 */
+	private static final class Cached extends Engine {
+
+		Cached() { super("result-cache"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			Object output = Core.stream(out);
+			try {
+				Core.executeCached(inputs.file(name), Core.compile(parseTree), steps, inputs.get(file), output);
+			} finally {
+				Core.flush(output);
+			}
+		}
+	}
+
+	/**
+	 * FarmRunner: the printed program as the only program file of a farm run against the data
+	 * file; Its output file is the transcript;
+	 */
+	private static final class Farm extends Engine {
+
+		Farm() { super("farm"); }
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			StringBuilder text = new StringBuilder();
+			Core.print(parseTree, text);
+			File program = inputs.file(name + ".core");
+			File outDir = inputs.file(name);
+			try {
+				Files.write(program.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+				Core.runFarm(inputs.files().get(file), steps, Collections.singletonList(program), outDir);
+				out.writeBytes(Files.readAllBytes(new File(outDir, program.getName() + ".out").toPath()));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/*******************************************************************************************
+	 *************************************** Batch Engines *************************************
+	 *******************************************************************************************/
+
+	/**
+	 * BatchRunner or PrefixBatchRunner on the directory of all the data files of a case; The
+	 * output files are the transcripts; Writing the data files and reading the output files
+	 * back are not timed, writing the output files is;
+	 */
+	private static class Batch extends Engine {
+
+		private final boolean prefix;
+
+		Batch(boolean prefix) {
+			super(prefix ? "prefix-batch" : "batch");
+			this.prefix = prefix;
+		}
+
+		Batch(String name) {
+			super(name);
+			this.prefix = false;
+		}
+
+		@Override
+		long transcripts(Object parseTree, Inputs inputs, long steps, byte[][] transcripts, String[] reasons) {
+			List<File> files = inputs.files();
+			File outDir = inputs.file(name);
+			delete(outDir);
+			long start = System.nanoTime();
+			try {
+				run(parseTree, steps, files, outDir);
+			} catch (RuntimeException e) {
+				// A failure of the whole batch is the transcript of every data file;
+				if (!Core.isCoreException(e)) throw e;
+				for (int i = 0; i < transcripts.length; i++) {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					error(e, out);
+					transcripts[i] = out.toByteArray();
+				}
+				return System.nanoTime() - start;
+			}
+			long nanos = System.nanoTime() - start;
+			try {
+				for (int i = 0; i < transcripts.length; i++) {
+					transcripts[i] = Files.readAllBytes(new File(outDir, files.get(i).getName() + ".out").toPath());
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return nanos;
+		}
+
+		@Override
+		void run(Object parseTree, Inputs inputs, int file, long steps, ByteArrayOutputStream out) {
+			throw new UnsupportedOperationException("a batch runs all the data files of a case");
+		}
+
+		void run(Object parseTree, long steps, List<File> inputs, File outDir) {
+			Core.runBatch(Core.compile(parseTree), prefix, steps, inputs, outDir);
+		}
+	}
+
+	/**
+	 * WorkerPool: the batch on WORKERS worker JVMs, started for it with the class path of this JVM;
+	 */
+	private static final class Pool extends Batch {
+
+		Pool() { super("worker-pool"); }
+
+		@Override
+		String unavailable() {
+			File java = new File(System.getProperty("java.home"), "bin" + File.separator + "java");
+			return java.canExecute() ? null : "no java launcher in java.home to start the workers";
+		}
+
+		@Override
+		void run(Object parseTree, long steps, List<File> inputs, File outDir) {
+			Core.runPool(parseTree, WORKERS, steps, inputs, outDir);
+		}
+	}
+
+	/**
+	 * ColumnarEngine: the batch in SIMD lanes, one per data file of the case;
+	 */
+	private static final class Columnar extends Batch {
+
+		Columnar() { super("columnar"); }
+
+		@Override
+		String unavailable() { return Core.hasColumnar() ? null : "jdk.incubator.vector is not added to this JVM"; }
+
+		@Override
+		void run(Object parseTree, long steps, List<File> inputs, File outDir) {
+			Core.runColumnar(Core.compile(parseTree), steps, inputs, outDir);
+		}
+	}
+
+	/*******************************************************************************************
+	 ****************************************** Inputs *****************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Data files of a case, held in memory; Written once to a temporary directory, on first
+	 * use by an engine that reads files; The directory also holds the files of the engines;
+	 */
+	static final class Inputs {
+
+		private final List<byte[]> data;
+		private File dir;
+		private List<File> files;
+
+		Inputs(List<byte[]> data) { this.data = data; }
+
+		int size() { return data.size(); }
+
+		byte[] get(int file) { return data.get(file); }
+
+		/**
+		 * Data files on disk, named so their order is the order of the data;
+		 *
+		 * @return  one file per data file of the case
+		 */
+		List<File> files() {
+			if (files != null) return files;
+			List<File> written = new ArrayList<File>();
+			try {
+				for (int i = 0; i < data.size(); i++) {
+					File file = new File(dir(), String.format(Locale.ROOT, "data-%03d", i));
+					Files.write(file.toPath(), data.get(i));
+					written.add(file);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return files = written;
+		}
+
+		/**
+		 * File or directory of an engine in the directory of the case;
+		 *
+		 * @param name  name of the file
+		 * @return      the file; not created
+		 */
+		File file(String name) { return new File(dir(), name); }
+
+		/**
+		 * Delete the directory of the case, if it was created;
+		 */
+		void delete() {
+			Engines.delete(dir);
+			dir = null;
+			files = null;
+		}
+
+		private File dir() {
+			if (dir == null) {
+				try {
+					dir = Files.createTempDirectory("core-diff").toFile();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return dir;
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************************** Helper Methods *************************************
+	 *******************************************************************************************/
+
+	private static void error(RuntimeException e, ByteArrayOutputStream out) { error(e.getMessage(), out); }
+
+	private static void error(String message, ByteArrayOutputStream out) {
+		out.writeBytes(("ERROR: " + message).getBytes(StandardCharsets.UTF_8));
+		out.writeBytes(NEWLINE);
+	}
+
+	private static void delete(File file) {
+		if (file == null) return;
+		File[] children = file.listFiles();
+		if (children != null) for (File child : children) delete(child);
+		file.delete();
+	}
+}
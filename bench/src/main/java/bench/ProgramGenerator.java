@@ -0,0 +1,304 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ProgramGenerator Class for the Core Interpreter Benchmarks; Seeded valid CORE programs and
+ * their data files;
+ */
+public final class ProgramGenerator {
+
+	/*******************************************************************************************
+	 * A program declares 16 variables and one LOOP counter per nesting level; It starts with  *
+	 * INPUT of v0 and assignments to the others, then draws statements until the size is      *
+	 * reached: ASSIGN, OUTPUT and top-level INPUT at any level, and IF, LOOP and CASE while   *
+	 * the knobs allow; Every LOOP counts its own variable up to the trip count, so every      *
+	 * program ends; INPUT only appears outside LOOPs, so the data file holds exactly the      *
+	 * values the program takes; The same knobs and seed always give the same program          *
+	 *******************************************************************************************/
+
+	public static final List<String> SHAPES = Arrays.asList("flat", "nested", "expr");
+
+	private static final int VARIABLES = 16;
+
+	/*******************************************************************************************
+	 * Private Members: Knobs; Random Choices of Program & Data; Text & Counters               *
+	 *******************************************************************************************/
+
+	private final Knobs knobs;
+	private final long seed;
+	private Random random;
+	private StringBuilder out;
+	private int statements;
+	private int inputs;
+
+	/**
+	 * Prepare a generator;
+	 *
+	 * @param knobs     shape of the programs
+	 * @param seed      seed of the random choices
+	 */
+	public ProgramGenerator(Knobs knobs, long seed) {
+		this.knobs = knobs;
+		this.seed = seed;
+	}
+
+	/*******************************************************************************************
+	 ************************************ Methods for Callers **********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Generate a program; The same generator always gives the same program of a size;
+	 *
+	 * @param size      approximate number of statements, nested ones included
+	 * @return          lines of the program
+	 */
+	public List<String> program(int size) {
+		random = new Random(seed);
+		out = new StringBuilder();
+		statements = 0;
+		inputs = 1;
+		header();
+		while (statements < size) statement(0);
+		out.append("output v0, v1;\n");
+		out.append("end\n");
+		List<String> lines = new ArrayList<String>(Arrays.asList(out.toString().split("\n")));
+		out = null;
+		return lines;
+	}
+
+	/**
+	 * Data file of the last generated program; One value per INPUT id, from 0 to 9;
+	 *
+	 * @return  bytes of the text data
+	 */
+	public byte[] data() {
+		Random values = new Random(~seed);
+		StringBuilder data = new StringBuilder();
+		for (int i = 0; i < inputs; i++) data.append(values.nextInt(10)).append('\n');
+		return data.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/*******************************************************************************************
+	 ******************************* Helper Methods for Statements *****************************
+	 *******************************************************************************************/
+
+	private void header() {
+		out.append("program int ");
+		for (int i = 0; i < VARIABLES; i++) out.append(i == 0 ? "" : ", ").append("v").append(i);
+		for (int d = 0; d < knobs.depth; d++) out.append(", c").append(d);
+		out.append(";\n");
+		out.append("begin\n");
+		out.append("input v0;\n");
+		for (int i = 1; i < VARIABLES; i++) line(0, "v" + i + " := " + (i + 1) + ";");
+	}
+
+	private void statement(int depth) {
+		boolean compound = depth < knobs.depth || knobs.caseWidth > 0;
+		int choice = compound ? random.nextInt(10) : 0;
+		if (choice < 5 || (choice < 9 && depth == knobs.depth) || (choice == 9 && knobs.caseWidth == 0)) {
+			simple(depth);
+		} else if (choice < 7) {
+			line(depth, "if " + cond() + " then");
+			block(depth + 1);
+			if (random.nextBoolean()) {
+				line(depth, "else");
+				block(depth + 1);
+			}
+			line(depth, "endif;");
+		} else if (choice < 9) {
+			String counter = "c" + depth;
+			line(depth, counter + " := 0;");
+			line(depth, "do");
+			block(depth + 1);
+			line(depth + 1, counter + " := " + counter + " + 1;");
+			line(depth, "while [" + counter + " < " + knobs.trips + "] enddo;");
+		} else {
+			StringBuilder cases = new StringBuilder("case v" + random.nextInt(VARIABLES) + " of ");
+			for (int i = 0; i < knobs.caseWidth; i++) {
+				cases.append(i == 0 ? "" : " | ").append(i * 2).append(", ").append(i * 2 + 1).append(": ")
+						.append(expr(2));
+			}
+			line(depth, cases.append(" else ").append(expr(2)).append(" end;").toString());
+		}
+	}
+
+	private void simple(int depth) {
+		int choice = random.nextInt(32);
+		if (choice < 2) {
+			line(depth, "output v" + random.nextInt(VARIABLES) + ";");
+		} else if (choice == 2 && depth == 0) {
+			int ids = 1 + random.nextInt(3);
+			StringBuilder input = new StringBuilder("input ");
+			for (int i = 0; i < ids; i++) input.append(i == 0 ? "v" : ", v").append(random.nextInt(VARIABLES));
+			line(depth, input.append(";").toString());
+			inputs += ids;
+		} else {
+			int length = (knobs.exprLength + 1) / 2 + random.nextInt(knobs.exprLength / 2 + 1);
+			line(depth, "v" + random.nextInt(VARIABLES) + " := " + expr(length) + ";");
+		}
+	}
+
+	private void block(int depth) {
+		int length = 1 + random.nextInt(4);
+		for (int i = 0; i < length; i++) statement(depth);
+	}
+
+	private void line(int depth, String text) {
+		for (int i = 0; i < depth; i++) out.append('\t');
+		out.append(text).append('\n');
+		if (text.endsWith(";") || text.equals("do")) statements++;
+	}
+
+	/*******************************************************************************************
+	 ****************************** Helper Methods for Expressions *****************************
+	 *******************************************************************************************/
+
+	private String expr(int factors) {
+		StringBuilder expr = new StringBuilder(factor());
+		for (int i = 1; i < factors; i++) {
+			int op = random.nextInt(3);
+			expr.append(op == 0 ? " + " : op == 1 ? " - " : " * ").append(factor());
+		}
+		return expr.toString();
+	}
+
+	private String factor() {
+		switch (random.nextInt(6)) {
+			case 0:
+				return String.valueOf(random.nextInt(100));
+			case 1:
+				return "-v" + random.nextInt(VARIABLES);
+			case 2:
+				return "(v" + random.nextInt(VARIABLES) + " + " + random.nextInt(10) + ")";
+			default:
+				return "v" + random.nextInt(VARIABLES);
+		}
+	}
+
+	private String cond() {
+		String cmpr = "[v" + random.nextInt(VARIABLES) + (random.nextBoolean() ? " < " : " >= ") + expr(2) + "]";
+		if (random.nextInt(4) != 0) return cmpr;
+		return "(" + cmpr + " OR !" + "[v" + random.nextInt(VARIABLES) + " = " + random.nextInt(10) + "])";
+	}
+
+	/*******************************************************************************************
+	 ************************************** Knobs of Shapes ************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Shape of generated programs;
+	 */
+	public static final class Knobs {
+
+		final int depth;
+		final int exprLength;
+		final int caseWidth;
+		final int trips;
+
+		/**
+		 * Set the knobs;
+		 *
+		 * @param depth         deepest nesting of IF and LOOP statements; 0 for none
+		 * @param exprLength    most factors of an ASSIGN EXPR; at least half as many are used
+		 * @param caseWidth     arms of a CASE statement; 0 for no CASE statements
+		 * @param trips         iterations of every LOOP
+		 */
+		public Knobs(int depth, int exprLength, int caseWidth, int trips) {
+			if (depth < 0 || exprLength < 1 || caseWidth < 0 || trips < 1) {
+				throw new IllegalArgumentException("invalid knobs " + depth + ", " + exprLength + ", " + caseWidth
+						+ ", " + trips);
+			}
+			this.depth = depth;
+			this.exprLength = exprLength;
+			this.caseWidth = caseWidth;
+			this.trips = trips;
+		}
+
+		/**
+		 * Knobs of a named shape: flat is straight-line ASSIGN, OUTPUT and INPUT statements;
+		 * nested adds IF, LOOP and CASE statements up to three levels deep; expr is flat with
+		 * EXPRs of 16 to 32 factors;
+		 *
+		 * @param shape     flat, nested or expr
+		 * @return          knobs of the shape
+		 */
+		public static Knobs of(String shape) {
+			switch (shape) {
+				case "flat":
+					return new Knobs(0, 4, 0, 4);
+				case "nested":
+					return new Knobs(3, 4, 4, 4);
+				case "expr":
+					return new Knobs(0, 32, 0, 4);
+				default:
+					throw new IllegalArgumentException("unknown shape " + shape);
+			}
+		}
+
+		/**
+		 * Knobs with one changed by a command line option; --shape changes all of them;
+		 *
+		 * @param option    --shape, --depth, --expr, --case or --trips
+		 * @param value     value of the option
+		 * @return          changed knobs, or null if the option is not a knob
+		 * @throws IllegalArgumentException if the value is invalid
+		 */
+		Knobs with(String option, String value) {
+			if (option.equals("--shape")) return of(value);
+			if (option.equals("--depth")) return new Knobs(Integer.parseInt(value), exprLength, caseWidth, trips);
+			if (option.equals("--expr")) return new Knobs(depth, Integer.parseInt(value), caseWidth, trips);
+			if (option.equals("--case")) return new Knobs(depth, exprLength, Integer.parseInt(value), trips);
+			if (option.equals("--trips")) return new Knobs(depth, exprLength, caseWidth, Integer.parseInt(value));
+			return null;
+		}
+	}
+
+	/*******************************************************************************************
+	 *************************************** Command Line **************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Write a program and its data file;
+	 * Usage: ProgramGenerator [--shape s] [--depth n] [--expr n] [--case n] [--trips n]
+	 * [--seed n] <statements> <program-file> <data-file>
+	 *
+	 * @param args  options, size and output files
+	 */
+	public static void main(String[] args) throws IOException {
+		Knobs knobs = Knobs.of("nested");
+		long seed = 42;
+		int arg = 0;
+		try {
+			// Options := flags preceding the size; a shape sets all knobs, later flags change one;
+			while (arg + 1 < args.length && args[arg].startsWith("--")) {
+				String option = args[arg++];
+				String value = args[arg++];
+				if (option.equals("--seed")) {
+					seed = Long.parseLong(value);
+				} else {
+					Knobs changed = knobs.with(option, value);
+					if (changed == null) throw new IllegalArgumentException("unknown option " + option);
+					knobs = changed;
+				}
+			}
+			if (args.length - arg != 3) throw new IllegalArgumentException("expected <statements> <program> <data>");
+			ProgramGenerator generator = new ProgramGenerator(knobs, seed);
+			Files.write(new File(args[arg + 1]).toPath(), generator.program(Integer.parseInt(args[arg])),
+					StandardCharsets.US_ASCII);
+			Files.write(new File(args[arg + 2]).toPath(), generator.data());
+		} catch (IllegalArgumentException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			System.err.println("Usage: ProgramGenerator [--shape flat|nested|expr] [--depth <n>] [--expr <n>]"
+					+ " [--case <n>] [--trips <n>] [--seed <n>] <statements> <program-file> <data-file>");
+			System.exit(2);
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * ScalingHarness Class for the Core Interpreter Benchmarks; Time and heap of the Tokenizer,
+ * Parser and Executor over program sizes from 1k to 10M tokens;
+ */
+public final class ScalingHarness {
+
+	/*******************************************************************************************
+	 * Program sizes grow by about 3x per step; Every phase runs on the output of the one      *
+	 * before, so it is timed alone; Its time is the fastest of a few runs, its peak heap the  *
+	 * highest use of the heap pools above the heap in use before the run, and its retained    *
+	 * heap what is still reachable after a GC, i.e. its result; Growth is the slope on a log- *
+	 * log scale over the work, 1.0 for linear, 2.0 for quadratic; The work is the tokens, or  *
+	 * the statements executed for execute, since LOOPs make execution time depend on the      *
+	 * shape; A phase is flagged when the slope fitted from 100k tokens on is above the        *
+	 * threshold; single steps are too noisy for that, so they are only marked                 *
+	 *******************************************************************************************/
+
+	private static final long[] SIZES = {1000, 3000, 10000, 30000, 100000, 300000, 1000000, 3000000, 10000000};
+	private static final String[] PHASES = {"tokenize", "parse", "execute"};
+	private static final long FLAGGED_FROM = 100000;     // tokens; smaller sizes are mostly noise;
+	private static final long STACK_SIZE = 1L << 31;     // parse and execute recurse per statement;
+	private static final int BAR = 40;
+
+	/*******************************************************************************************
+	 * Private Members: Knobs & Seed; Size Range; Runs per Phase; Threshold; Measured Points   *
+	 *******************************************************************************************/
+
+	private final ProgramGenerator.Knobs knobs;
+	private final long seed;
+	private final long min, max;
+	private final int repeat;
+	private final double threshold;
+	private final List<Point> points = new ArrayList<Point>();
+
+	private ScalingHarness(ProgramGenerator.Knobs knobs, long seed, long min, long max, int repeat,
+			double threshold) {
+		this.knobs = knobs;
+		this.seed = seed;
+		this.min = min;
+		this.max = max;
+		this.repeat = repeat;
+		this.threshold = threshold;
+	}
+
+	/*******************************************************************************************
+	 ************************************ Methods for Measuring ********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Measure every phase at every size in the range;
+	 */
+	private void run() {
+		ProgramGenerator generator = new ProgramGenerator(knobs, seed);
+		// Statements per token of this shape, so a size in tokens maps to a program size;
+		double ratio = 1000.0 / tokens(Core.tokenize(generator.program(1000)));
+		warmUp(generator, (int) Math.max(1, Math.min(max, FLAGGED_FROM) * ratio));
+		for (long size : SIZES) {
+			if (size < min || size > max) continue;
+			try {
+				measureSize(generator, size, (int) Math.max(1, size * ratio));
+			} catch (OutOfMemoryError | StackOverflowError e) {
+				// Report the sizes measured so far;
+				System.err.printf(Locale.ROOT, "ERROR: %s at %,d tokens%n", e, size);
+				return;
+			}
+		}
+	}
+
+	private void measureSize(ProgramGenerator generator, long size, int statements) {
+		List<String> lines = generator.program(statements);
+		byte[] data = generator.data();
+		Point tokenize = measure("tokenize", () -> Core.tokenize(lines));
+		Object tokenizer = tokenize.result;
+		Object scanner = Core.scanner(tokenizer);
+		long tokens = tokens(tokenizer);
+		Point parse = measure("parse", () -> {
+			Core.reset(scanner);
+			return Core.parse(scanner);
+		});
+		Object program = Core.compile(parse.result);
+		Point execute = measure("execute", () -> Core.execute(program, data));
+		for (Point point : new Point[] {tokenize, parse, execute}) {
+			point.size = size;
+			point.tokens = tokens;
+			point.work = point == execute ? (Long) execute.result : tokens;
+			point.result = null;
+			points.add(point);
+		}
+		System.err.printf(Locale.ROOT, "%,d tokens done%n", tokens);
+	}
+
+	private void warmUp(ProgramGenerator generator, int statements) {
+		List<String> lines = generator.program(statements);
+		byte[] data = generator.data();
+		for (int i = 0; i < 5; i++) {
+			Object scanner = Core.scanner(Core.tokenize(lines));
+			Core.execute(Core.compile(Core.parse(scanner)), data);
+		}
+	}
+
+	/**
+	 * Run a phase repeat times after a GC each;
+	 *
+	 * @param phase     name of the phase
+	 * @param body      the phase; returns its result, which is kept reachable
+	 * @return          fastest time, highest peak heap and retained heap of the runs
+	 */
+	private Point measure(String phase, Supplier<Object> body) {
+		Point point = new Point(phase);
+		point.nanos = Long.MAX_VALUE;
+		for (int i = 0; i < repeat; i++) {
+			point.result = null;
+			long before = collect();
+			for (MemoryPoolMXBean pool : heapPools()) pool.resetPeakUsage();
+			long start = System.nanoTime();
+			Object result = body.get();
+			long nanos = System.nanoTime() - start;
+			long peak = 0;
+			for (MemoryPoolMXBean pool : heapPools()) peak += pool.getPeakUsage().getUsed();
+			point.result = result;
+			point.nanos = Math.min(point.nanos, nanos);
+			point.peak = Math.max(point.peak, peak - before);
+			point.retained = Math.max(0, collect() - before);
+		}
+		return point;
+	}
+
+	private static long collect() {
+		System.gc();
+		long used = 0;
+		for (MemoryPoolMXBean pool : heapPools()) used += pool.getUsage().getUsed();
+		return used;
+	}
+
+	private static List<MemoryPoolMXBean> heapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) pools.add(pool);
+		}
+		return pools;
+	}
+
+	private static long tokens(Object tokenizer) {
+		Object scanner = Core.scanner(tokenizer);
+		long tokens = 1;
+		for (; !Core.currentToken(scanner).equals("EOF"); Core.nextToken(scanner)) tokens++;
+		Core.reset(scanner);
+		return tokens;
+	}
+
+	/*******************************************************************************************
+	 ************************************ Methods for Reports **********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Print a table of every phase with the log-log slope of every step, marked with ! above
+	 * the threshold, and the slope fitted from 100k tokens on, flagged above the threshold;
+	 * Then a chart of time and peak heap per unit of work, which stays level for linear growth;
+	 *
+	 * @param out   destination of the report
+	 * @return      number of flagged phases
+	 */
+	private int report(PrintWriter out) {
+		int flagged = 0;
+		out.printf(Locale.ROOT, "%-9s %11s %11s %11s %9s %10s %10s %8s %8s%n", "phase", "tokens", "work", "ms",
+				"ns/work", "peak MB", "kept MB", "t-slope", "h-slope");
+		for (String phase : PHASES) {
+			Point last = null;
+			for (Point point : phase(phase)) {
+				String timeSlope = "", heapSlope = "";
+				if (last != null) {
+					timeSlope = mark(slope(last.work, last.nanos, point.work, point.nanos), last);
+					heapSlope = mark(slope(last.work, last.peak, point.work, point.peak), last);
+				}
+				out.printf(Locale.ROOT, "%-9s %,11d %,11d %11.2f %9.1f %10.1f %10.1f %8s %8s%n", phase,
+						point.tokens, point.work, point.nanos / 1e6, (double) point.nanos / point.work,
+						point.peak / 1048576.0, point.retained / 1048576.0, timeSlope, heapSlope);
+				last = point;
+			}
+			List<Point> fitted = new ArrayList<Point>();
+			for (Point point : phase(phase)) if (point.size >= FLAGGED_FROM) fitted.add(point);
+			if (fitted.size() >= 2) {
+				double time = fit(fitted, true), heap = fit(fitted, false);
+				boolean superLinear = time > threshold || heap > threshold;
+				out.printf(Locale.ROOT, "%-9s fitted slope from %,d tokens: time %.2f, peak heap %.2f%s%n", phase,
+						FLAGGED_FROM, time, heap, superLinear ? "  SUPER-LINEAR" : "");
+				if (superLinear) flagged++;
+			}
+			out.println();
+		}
+		for (String phase : PHASES) {
+			chart(out, phase, true);
+			chart(out, phase, false);
+		}
+		out.printf(Locale.ROOT, "%d phase(s) flagged above slope %.2f%n", flagged, threshold);
+		return flagged;
+	}
+
+	// Slope of one step; marked if above the threshold from FLAGGED_FROM tokens on;
+	private String mark(double slope, Point from) {
+		boolean high = from.size >= FLAGGED_FROM && slope > threshold;
+		return String.format(Locale.ROOT, "%.2f%s", slope, high ? "!" : " ");
+	}
+
+	private void chart(PrintWriter out, String phase, boolean time) {
+		List<Point> series = phase(phase);
+		double top = 0;
+		for (Point point : series) top = Math.max(top, perWork(point, time));
+		if (top <= 0) return;
+		out.printf(Locale.ROOT, "%s %s per %s%n", phase, time ? "ns" : "peak heap bytes",
+				phase.equals("execute") ? "statement executed" : "token");
+		for (Point point : series) {
+			double value = perWork(point, time);
+			StringBuilder bar = new StringBuilder();
+			for (int i = 0; i < Math.round(BAR * value / top); i++) bar.append('#');
+			out.printf(Locale.ROOT, "  %,11d |%-" + BAR + "s %.1f%n", point.tokens, bar, value);
+		}
+		out.println();
+	}
+
+	private static double perWork(Point point, boolean time) {
+		return (double) (time ? point.nanos : point.peak) / point.work;
+	}
+
+	/**
+	 * Write one line per measured point, for plotting elsewhere;
+	 *
+	 * @param out   destination of the CSV
+	 */
+	private void csv(PrintWriter out) {
+		out.println("phase,tokens,work,nanos,peak_bytes,retained_bytes");
+		for (Point point : points) {
+			out.println(point.phase + "," + point.tokens + "," + point.work + "," + point.nanos + "," + point.peak + ","
+					+ point.retained);
+		}
+	}
+
+	private List<Point> phase(String phase) {
+		List<Point> series = new ArrayList<Point>();
+		for (Point point : points) if (point.phase.equals(phase)) series.add(point);
+		return series;
+	}
+
+	private static double slope(long x1, long y1, long x2, long y2) {
+		if (y1 <= 0 || y2 <= 0) return 0;
+		return Math.log((double) y2 / y1) / Math.log((double) x2 / x1);
+	}
+
+	// Least squares slope of log(y) over log(tokens);
+	private static double fit(List<Point> series, boolean time) {
+		double sx = 0, sy = 0, sxx = 0, sxy = 0;
+		int n = 0;
+		for (Point point : series) {
+			long y = time ? point.nanos : point.peak;
+			if (y <= 0) continue;
+			double x = Math.log(point.work), ly = Math.log(y);
+			sx += x;
+			sy += ly;
+			sxx += x * x;
+			sxy += x * ly;
+			n++;
+		}
+		return n < 2 ? 0 : (n * sxy - sx * sy) / (n * sxx - sx * sx);
+	}
+
+	/*******************************************************************************************
+	 *************************************** Measured Point ************************************
+	 *******************************************************************************************/
+
+	private static final class Point {
+
+		final String phase;
+		long size;      // tokens asked for;
+		long tokens;
+		long work;      // tokens, or statements executed for execute;
+		long nanos;
+		long peak;
+		long retained;
+		Object result;
+
+		Point(String phase) { this.phase = phase; }
+	}
+
+	/*******************************************************************************************
+	 *************************************** Command Line **************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Measure the phases and print the report; Exits with status 1 if a phase was flagged;
+	 * Usage: ScalingHarness [knob options of ProgramGenerator] [--seed n] [--min tokens]
+	 * [--max tokens] [--repeat n] [--threshold slope] [--csv file]
+	 *
+	 * @param args  options
+	 */
+	public static void main(String[] args) throws Exception {
+		ProgramGenerator.Knobs knobs = ProgramGenerator.Knobs.of("nested");
+		long seed = 42, min = 1000, max = 10000000;
+		int repeat = 3;
+		double threshold = 1.2;
+		String csv = null;
+		int arg = 0;
+		try {
+			while (arg + 1 < args.length && args[arg].startsWith("--")) {
+				String option = args[arg++];
+				String value = args[arg++];
+				if (option.equals("--seed")) {
+					seed = Long.parseLong(value);
+				} else if (option.equals("--min")) {
+					min = Long.parseLong(value);
+				} else if (option.equals("--max")) {
+					max = Long.parseLong(value);
+				} else if (option.equals("--repeat")) {
+					repeat = Integer.parseInt(value);
+				} else if (option.equals("--threshold")) {
+					threshold = Double.parseDouble(value);
+				} else if (option.equals("--csv")) {
+					csv = value;
+				} else {
+					ProgramGenerator.Knobs changed = knobs.with(option, value);
+					if (changed == null) throw new IllegalArgumentException("unknown option " + option);
+					knobs = changed;
+				}
+			}
+			if (arg != args.length || repeat < 1 || min > max) throw new IllegalArgumentException("invalid arguments");
+		} catch (IllegalArgumentException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			System.err.println("Usage: ScalingHarness [--shape flat|nested|expr] [--depth <n>] [--expr <n>]"
+					+ " [--case <n>] [--trips <n>] [--seed <n>] [--min <tokens>] [--max <tokens>]"
+					+ " [--repeat <n>] [--threshold <slope>] [--csv <file>]");
+			System.exit(2);
+		}
+		ScalingHarness harness = new ScalingHarness(knobs, seed, min, max, repeat, threshold);
+		// Parsing and execution recurse once per statement of a STMT_SEQ; run them on a deep stack;
+		Thread thread = new Thread(null, harness::run, "scaling", STACK_SIZE);
+		thread.start();
+		thread.join();
+		PrintWriter out = new PrintWriter(System.out, true);
+		int flagged = harness.report(out);
+		out.flush();
+		if (csv != null) {
+			try (PrintWriter file = new PrintWriter(csv)) {
+				harness.csv(file);
+			} catch (IOException e) {
+				System.err.println("ERROR: cannot write " + csv);
+				System.exit(2);
+			}
+		}
+		System.exit(flagged > 0 ? 1 : 0);
+	}
+}
@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * ArrayInput Class for the Core Interpreter Project; Cursor over integers parsed once into an array;
+ */
+public class ArrayInput extends InputSource {
+
+	/***********************************************************************************************
+	 * Private Members: Shared Values & Malformed Token (never modified); Cursor of this Reader    *
+	 ***********************************************************************************************/
+
+	private final int[] values;
+	private final String malformed;
+	private int cursor;
+
+	private ArrayInput(int[] values, String malformed, int cursor) {
+		this.values = values;
+		this.malformed = malformed;
+		this.cursor = cursor;
+	}
+
+	/**
+	 * Parse a data file of either format into memory; Tokens after a malformed one are dropped;
+	 *
+	 * @param data  name of file containing the input data
+	 * @return      cursor at the first value; share the data through cursor(int)
+	 */
+	public static ArrayInput read(String data) {
+		InputSource source = InputSource.open(data);
+		int[] read = new int[16];
+		int count = 0;
+		String bad = null;
+		try {
+			while (source.hasNext()) {
+				// Parse first: a malformed token must not leave a slot behind;
+				int value = source.next();
+				if (count == read.length) read = Arrays.copyOf(read, count * 2);
+				read[count++] = value;
+			}
+		} catch (NumberFormatException e) {
+			bad = e.getMessage();
+		} finally {
+			source.close();
+		}
+		return new ArrayInput(Arrays.copyOf(read, count), bad, 0);
+	}
+
+	/**
+	 * Serve values decoded elsewhere, e.g. from binary data in memory;
+	 *
+	 * @param values      values to serve; not copied, must not be modified afterwards
+	 * @param malformed   text of a malformed token after the values; null if none
+	 * @return            cursor at the first value
+	 */
+	static ArrayInput of(int[] values, String malformed) { return new ArrayInput(values, malformed, 0); }
+
+	/**
+	 * Another reader of the same values; Cursors are independent, the array is shared;
+	 *
+	 * @param position  index of the first value to read
+	 * @return          new cursor over the values
+	 */
+	public ArrayInput cursor(int position) { return new ArrayInput(values, malformed, position); }
+
+	/***********************************************************************************************
+	 ************************************ Methods for Executor *************************************
+	 ***********************************************************************************************/
+
+	@Override
+	public boolean hasNext() { return cursor < values.length || (malformed != null && cursor == values.length); }
+
+	@Override
+	public int next() {
+		if (cursor < values.length) return values[cursor++];
+		cursor++;
+		throw new NumberFormatException(malformed);
+	}
+
+	@Override
+	public long position() { return cursor; }
+
+	@Override
+	public void seek(long position) {
+		if (position < 0 || position > Integer.MAX_VALUE) super.seek(position);
+		cursor = (int) position;
+	}
+
+	/***********************************************************************************************
+	 ************************************ Getter Methods *******************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Getter for the number of valid values;
+	 *
+	 * @return  values before the end or the malformed token
+	 */
+	public int size() { return values.length; }
+
+	/**
+	 * Getter for a value;
+	 *
+	 * @param position  index of the value, less than size()
+	 * @return          value at position
+	 */
+	public int get(int position) { return values[position]; }
+
+	/**
+	 * Getter for the malformed token ending the values;
+	 *
+	 * @return  text of the token; null if the data ended normally
+	 */
+	public String getMalformed() { return malformed; }
+}
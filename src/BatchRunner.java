@@ -0,0 +1,245 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * BatchRunner Class for the Core Interpreter Project; One compiled program run against many data files;
+ */
+public class BatchRunner {
+
+	/*******************************************************************************************
+	 * Private Members: Compiled Program; Worker Count; Memo Mode; Budget; Executor per Worker *
+	 *******************************************************************************************/
+
+	private final Program program;
+	private final int threads;
+	private boolean memo = false;
+	private Budget budget = Budget.UNLIMITED;
+	private final ThreadLocal<Executor> executors = new ThreadLocal<Executor>() {
+		@Override
+		protected Executor initialValue() {
+			Executor executor = new Executor(program);
+			executor.setMemo(memo);
+			executor.setBudget(budget);
+			return executor;
+		}
+	};
+
+	/**
+	 * Prepare batch runs of a program; The program is parsed and compiled once by the caller;
+	 *
+	 * @param program   compiled program to run
+	 * @param threads   number of worker threads
+	 */
+	public BatchRunner(Program program, int threads) {
+		this.program = program;
+		this.threads = threads;
+	}
+
+	/**
+	 * Enable memo mode in every worker; See Executor.setMemo;
+	 *
+	 * @param memo  whether or not to cache EXPR values across evaluations
+	 */
+	public void setMemo(boolean memo) { this.memo = memo; }
+
+	/**
+	 * Limit every run of the batch; See Executor.setBudget;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/*******************************************************************************************
+	 ************************** Start Method for Beginning a Batch *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run the program on every data file on a work-stealing pool; The OUTPUT values of an input
+	 * are written to outDir/name.out, followed by the error message if the run failed;
+	 *
+	 * @param inputs    data files in either format
+	 * @param outDir    directory for the output files; created if missing
+	 * @return          report of the batch, in the order of inputs
+	 */
+	public Report run(final List<File> inputs, final File outDir) {
+		createDirectory(outDir);
+		final String[] errors = new String[inputs.size()];
+		long start = System.nanoTime();
+		forEach(threads, inputs.size(), i -> errors[i] = runOne(inputs.get(i), outDir));
+		return new Report(inputs, errors, System.nanoTime() - start);
+	}
+
+	/**
+	 * Regular files of a directory in name order; The order of the outputs and the report;
+	 *
+	 * @param dir   directory of data files
+	 * @return      sorted data files
+	 */
+	public static List<File> dataFiles(File dir) {
+		File[] files = dir.listFiles();
+		if (files == null) throw new CoreRuntimeException("cannot read data directory " + dir);
+		Arrays.sort(files);
+		List<File> inputs = new ArrayList<File>();
+		for (File file : files) {
+			if (file.isFile()) inputs.add(file);
+		}
+		return inputs;
+	}
+
+	/**
+	 * Create the output directory of a batch;
+	 *
+	 * @param outDir    directory for the output files; created with its parents if missing
+	 * @throws CoreRuntimeException if it cannot be created
+	 */
+	static void createDirectory(File outDir) {
+		if (!outDir.isDirectory() && !outDir.mkdirs()) {
+			throw new CoreRuntimeException("cannot create output directory " + outDir);
+		}
+	}
+
+	/**
+	 * Run a task for every index on a work-stealing pool, and wait for all of them;
+	 *
+	 * @param threads   number of worker threads
+	 * @param count     number of indices, from 0
+	 * @param task      work of one index
+	 */
+	static void forEach(int threads, int count, IntConsumer task) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(new Range(task, 0, count));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/*******************************************************************************************
+	 ********************************** Helper Methods for Workers *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run one input with the Executor of the current worker;
+	 *
+	 * @param input     data file
+	 * @param outDir    directory for the output file
+	 * @return          error message of the run; null if it succeeded
+	 */
+	private String runOne(File input, File outDir) {
+		File out = new File(outDir, input.getName() + ".out");
+		try {
+			executors.get().execute(InputSource.open(input.getPath()),
+					OutputSink.file(out.getPath(), OutputSink.FlushPolicy.THROUGHPUT));
+			return null;
+		} catch (Throwable e) {
+			// Any failure is the error of this input alone, e.g. a StackOverflowError of deep nesting;
+			return appendError(out, CoreException.messageOf(e));
+		}
+	}
+
+	/**
+	 * Append the error message of a failed run to its output file, after its OUTPUT values;
+	 *
+	 * @param out       output file of the run
+	 * @param error     message of the failure, see CoreException.messageOf
+	 * @return          the message as printed by Main: "ERROR: " + error
+	 */
+	static String appendError(File out, String error) {
+		String message = "ERROR: " + error;
+		try {
+			Files.write(out.toPath(), (message + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException ignored) { }
+		return message;
+	}
+
+	/**
+	 * Range of indices for forEach; Split in halves so idle workers steal the larger untouched halves;
+	 */
+	private static class Range extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final IntConsumer task;
+		private final int from;
+		private final int to;
+
+		private Range(IntConsumer task, int from, int to) {
+			this.task = task;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Range(task, from, middle), new Range(task, middle, to));
+				return;
+			}
+			for (int i = from; i < to; i++) task.accept(i);
+		}
+	}
+
+	/*******************************************************************************************
+	 *********************************** Report of a Batch *************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Errors per input in input order, and the throughput of the batch;
+	 */
+	public static class Report {
+
+		private final List<File> inputs;
+		private final String[] errors;
+		private final long nanos;
+
+		Report(List<File> inputs, String[] errors, long nanos) {
+			this.inputs = inputs;
+			this.errors = errors;
+			this.nanos = nanos;
+		}
+
+		public int getRuns() { return errors.length; }
+		public long getNanos() { return nanos; }
+
+		/**
+		 * Getter for the error of an input;
+		 *
+		 * @param i     index of the input
+		 * @return      "ERROR: ..." message; null if the run succeeded
+		 */
+		public String getError(int i) { return errors[i]; }
+
+		public int getFailures() {
+			int failures = 0;
+			for (String error : errors) {
+				if (error != null) failures++;
+			}
+			return failures;
+		}
+
+		public double getRunsPerSecond() { return nanos == 0 ? 0.0 : errors.length * 1e9 / nanos; }
+
+		/**
+		 * Print the failed inputs in input order, then the throughput;
+		 */
+		public void print() {
+			for (int i = 0; i < errors.length; i++) {
+				if (errors[i] != null) System.out.println(inputs.get(i).getName() + ": " + errors[i]);
+			}
+			System.err.println("BATCH: " + getRuns() + " runs (" + getFailures() + " failed) in "
+					+ String.format("%.3f", nanos / 1e9) + " s = "
+					+ String.format("%.1f", getRunsPerSecond()) + " runs/s");
+		}
+	}
+}
@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * BinaryInput Class for the Core Interpreter Project; Little-endian int32 values served from a mapped file;
+ */
+public class BinaryInput extends InputSource {
+
+	/***********************************************************************************************
+	 * Binary Format: 8 Byte Header ("CORE" & Little-Endian int32 Version); Little-Endian int32s   *
+	 ***********************************************************************************************/
+
+	public static final byte[] MAGIC = {'C', 'O', 'R', 'E'};
+	public static final int VERSION = 1;
+	public static final int HEADER = 8;
+
+	/***********************************************************************************************
+	 ************** Private Members: Mapped Window of Values; Index of the Next Value **************
+	 ***********************************************************************************************/
+
+	private static final int WINDOW = 1 << 24; // values per mapped window;
+
+	private final FileChannel channel;
+	private final long count;
+	private final boolean truncated;
+	private IntBuffer window = IntBuffer.allocate(0);
+	private long windowStart = 0;
+	private long index = 0;
+
+	/**
+	 * Serve the values of a binary data file whose header has been checked;
+	 *
+	 * @param channel   channel of the data file
+	 * @throws IOException  if the size of the file cannot be read
+	 */
+	public BinaryInput(FileChannel channel) throws IOException {
+		this.channel = channel;
+		long bytes = channel.size() - HEADER;
+		this.count = bytes / 4;
+		this.truncated = bytes % 4 != 0;
+	}
+
+	/***********************************************************************************************
+	 ************************************ Methods for Executor *************************************
+	 ***********************************************************************************************/
+
+	@Override
+	public boolean hasNext() { return index < count || (truncated && index == count); }
+
+	@Override
+	public int next() {
+		if (index == count) throw new NumberFormatException("<truncated int32>");
+		if (index - windowStart >= window.limit()) {
+			windowStart = index;
+			try {
+				long length = Math.min(WINDOW, count - index) * 4;
+				window = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + index * 4, length)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			} catch (IOException e) {
+				throw new CoreRuntimeException("cannot read input data: " + e.getMessage());
+			}
+		}
+		return window.get((int) (index++ - windowStart));
+	}
+
+	/**
+	 * Index of the next value;
+	 *
+	 * @return  values taken so far
+	 */
+	@Override
+	public long position() { return index; }
+
+	@Override
+	public void seek(long position) {
+		if (position < 0) super.seek(position);
+		index = position;
+		window = IntBuffer.allocate(0);
+		windowStart = 0;
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException ignored) { }
+	}
+}
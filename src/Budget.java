@@ -0,0 +1,150 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget Class for the Core Interpreter Project; Hard limits on one run of a program;
+ */
+public final class Budget {
+
+	/*******************************************************************************************
+	 * Private Members: Limits on Statements Executed, Wall Time and OUTPUT Values of a Run    *
+	 *******************************************************************************************/
+
+	public static final long NONE = Long.MAX_VALUE;     // no limit;
+	public static final Budget UNLIMITED = new Budget(NONE, NONE, NONE);
+	private static final long TIME_CHECK = 4096;        // steps between two reads of the clock;
+
+	private final long steps;
+	private final long millis;
+	private final long outputs;
+
+	/**
+	 * Limits of a run; A run exceeding one ends with a CoreRuntimeException;
+	 *
+	 * @param steps     maximum number of statements executed; NONE for no limit
+	 * @param millis    maximum wall time in milliseconds from the start of the run; NONE for no limit
+	 * @param outputs   maximum number of OUTPUT values; NONE for no limit
+	 */
+	public Budget(long steps, long millis, long outputs) {
+		if (steps < 0 || millis < 0 || outputs < 0) throw new IllegalArgumentException("negative budget");
+		this.steps = steps;
+		this.millis = millis;
+		this.outputs = outputs;
+	}
+
+	/*******************************************************************************************
+	 ************************************* Getter Methods **************************************
+	 *******************************************************************************************/
+
+	public long getSteps() { return steps; }
+	public long getMillis() { return millis; }
+	public long getOutputs() { return outputs; }
+
+	/*******************************************************************************************
+	 ******************************* Checks of a Run by an Executor ****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Deadline of a run starting now, for checkLoop;
+	 *
+	 * @return  System.nanoTime() at which the time limit is reached; 0 without a time limit
+	 */
+	long deadline() { return millis == NONE ? 0 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis); }
+
+	/**
+	 * Step count of the next check at a LOOP back-edge: past the step limit or at the next
+	 * read of the clock, whichever comes first; Steps are only compared on the hot path;
+	 *
+	 * @param steps     statements executed so far
+	 * @param end       step count of a check the caller needs anyway, e.g. the end of a time slice
+	 * @param poll      whether the caller polls a flag at every check, which then runs at least
+	 *                  every TIME_CHECK steps as for the clock
+	 * @return          step count at which the caller checks next
+	 */
+	long nextCheck(long steps, long end, boolean poll) {
+		long next = end;
+		if (this.steps != NONE) next = Math.min(next, this.steps + 1);
+		if (millis != NONE || poll) next = Math.min(next, steps + TIME_CHECK);
+		return next;
+	}
+
+	/**
+	 * Check the step and time limits where a LOOP repeats;
+	 *
+	 * @param steps     statements executed so far
+	 * @param deadline  deadline of the run, see deadline()
+	 * @param loopStmt  LOOP node about to repeat, for the error position
+	 * @throws CoreRuntimeException if the step or the time limit is exceeded
+	 */
+	void checkLoop(long steps, long deadline, LOOP loopStmt) {
+		if (steps > this.steps) throw new CoreRuntimeException("step limit of " + this.steps + " exceeded", loopStmt);
+		if (millis != NONE && System.nanoTime() - deadline > 0) {
+			throw new CoreRuntimeException("time limit of " + millis + " ms exceeded", loopStmt);
+		}
+	}
+
+	/**
+	 * Check the step limit where a statement run on counters shared with other Executors ends;
+	 *
+	 * @param steps     statements executed by the whole run so far
+	 * @param stmt      STMT node ending, for the error position
+	 * @throws CoreRuntimeException if the step limit is exceeded
+	 */
+	void checkSteps(long steps, STMT stmt) {
+		if (steps > this.steps) throw new CoreRuntimeException("step limit of " + this.steps + " exceeded", stmt);
+	}
+
+	/**
+	 * Check the output limit before an OUTPUT value is written;
+	 *
+	 * @param outputs   OUTPUT values of the run, including this one
+	 * @param idList    node of the value, for the error position
+	 * @throws CoreRuntimeException if the output limit is exceeded
+	 */
+	void checkOutput(long outputs, ID_LIST idList) {
+		if (outputs > this.outputs) {
+			throw new CoreRuntimeException("output limit of " + this.outputs + " values exceeded", idList);
+		}
+	}
+
+	/*******************************************************************************************
+	 ****************************** Counters Shared by Executors *******************************
+	 *******************************************************************************************/
+
+	/**
+	 * Statements, OUTPUT values and deadline of one run split over several Executors, e.g. the
+	 * top-level statements of ParallelRegions, so the limits apply to the whole run; Executors
+	 * add their steps at every check and when they end, so the step limit is seen at most one
+	 * check late on each of them;
+	 */
+	static final class Tally {
+
+		private final AtomicLong steps = new AtomicLong();
+		private final AtomicLong outputs = new AtomicLong();
+		private final long deadline;
+
+		/**
+		 * Start the counters of a run now;
+		 *
+		 * @param budget    limits of the run
+		 */
+		Tally(Budget budget) { this.deadline = budget.deadline(); }
+
+		long deadline() { return deadline; }
+
+		/**
+		 * Add the steps of one Executor;
+		 *
+		 * @param delta     statements executed since its last call
+		 * @return          statements executed by the run so far
+		 */
+		long addSteps(long delta) { return steps.addAndGet(delta); }
+
+		/**
+		 * Count one OUTPUT value;
+		 *
+		 * @return  OUTPUT values of the run so far, including this one
+		 */
+		long addOutput() { return outputs.incrementAndGet(); }
+	}
+}
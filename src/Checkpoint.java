@@ -0,0 +1,277 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkpoint Class for the Core Interpreter Project; Long runs saved to disk and resumed later;
+ */
+public class Checkpoint {
+
+	/*******************************************************************************************
+	 * A run with checkpoints executes in step mode, where the pending STMT_SEQ, LOOP and      *
+	 * INPUT ID_LIST nodes form an explicit stack; Every interval the run pauses at a LOOP     *
+	 * back-edge, flushes its output and saves the frame, the stack as preorder numbers of its *
+	 * nodes, the waiting INPUT id, the step and OUTPUT counts and the offset of the next      *
+	 * input token; A checkpoint is also saved when INPUT finds no more data, so once data is  *
+	 * appended the run resumes at that INPUT without executing the prefix again               *
+	 *******************************************************************************************/
+
+	private static final int MAGIC = 0x43434b50;   // "CCKP";
+	private static final int VERSION = 1;
+	private static final long SLICE = 1 << 20;      // statements between two reads of the clock;
+
+	/*******************************************************************************************
+	 * Private Members: Compiled Program & its Key; Checkpoint File; Interval; Numbered Nodes; *
+	 * Budget; Counters                                                                        *
+	 *******************************************************************************************/
+
+	private final Program program;
+	private final String programKey;
+	private final File file;
+	private final long interval;
+	private final List<NODE> nodes = new ArrayList<NODE>();
+	private final IdentityHashMap<NODE,Integer> numbers = new IdentityHashMap<NODE,Integer>();
+	private Budget budget = Budget.UNLIMITED;
+	private int saved = 0;
+	private long resumed = -1;
+
+	/**
+	 * Prepare runs of a program saving checkpoints to a file;
+	 *
+	 * @param program   compiled program to run
+	 * @param file      checkpoint file; replaced atomically by every save
+	 * @param interval  milliseconds of execution between two saves
+	 */
+	public Checkpoint(Program program, File file, long interval) {
+		this.program = program;
+		this.programKey = Storage.hash(TreeCodec.encode(program.getParseTree()));
+		this.file = file;
+		this.interval = interval;
+		number(program.getParseTree().getStmtSeq());
+	}
+
+	/**
+	 * Limit the runs; See Executor.setBudget; Steps and OUTPUT values count on across a restore;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/*******************************************************************************************
+	 ************************** Start Method for Running the Program ***************************
+	 *******************************************************************************************/
+
+	/**
+	 * Execute the program, or continue a saved execution; Closes the source and the sink;
+	 * Deletes the checkpoint file when the program ends normally;
+	 *
+	 * @param data      source of the input data; must be a data file
+	 * @param output    sink for the values of OUTPUT statements; see OutputSink.resumeFile
+	 * @param state     state returned by load(); null to start from the beginning
+	 * @throws CoreRuntimeException if an error occurs; the last checkpoint is kept
+	 */
+	public void run(InputSource data, OutputSink output, State state) {
+		Executor executor = new Executor(program, data, output);
+		executor.setBudget(budget);
+		try {
+			if (data.position() < 0) throw new CoreRuntimeException("checkpoints need the input from a data file");
+			if (state == null) {
+				executor.begin();
+			} else {
+				data.seek(state.input);
+				executor.restore(state);
+				resumed = state.steps;
+			}
+			long next = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval);
+			while (true) {
+				if (executor.isWaiting()) {
+					// More data may be appended later; resume at this INPUT id;
+					if (!data.hasNext()) save(executor, data, output);
+					executor.supply(data);
+				}
+				executor.advance(SLICE);
+				if (executor.isFinished()) break;
+				if (!executor.isWaiting() && System.nanoTime() - next >= 0) {
+					save(executor, data, output);
+					next = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval);
+				}
+			}
+		} finally {
+			output.close();
+			data.close();
+		}
+		file.delete();
+	}
+
+	/**
+	 * Read the checkpoint file;
+	 *
+	 * @return  saved state of the execution
+	 * @throws CoreRuntimeException if the file cannot be read or was saved for another program
+	 */
+	public State load() {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) throw invalid("is not a checkpoint of this version");
+			if (!in.readUTF().equals(programKey)) throw invalid("was saved for another program");
+			long steps = in.readLong();
+			long outputs = in.readLong();
+			long input = in.readLong();
+			if (in.readInt() != program.size()) throw invalid("has another number of variables");
+			int[] values = new int[program.size()];
+			boolean[] defined = new boolean[program.size()];
+			for (int slot = 0; slot < values.length; slot++) {
+				defined[slot] = in.readBoolean();
+				values[slot] = in.readInt();
+			}
+			Object[] stack = new Object[in.readInt()];
+			for (int i = 0; i < stack.length; i++) stack[i] = node(in.readInt());
+			int waiting = in.readInt();
+			if (waiting >= 0 && !(node(waiting) instanceof ID_LIST)) throw invalid("is corrupt");
+			State state = new State(values, defined, stack, waiting < 0 ? null : (ID_LIST) node(waiting), steps,
+					outputs);
+			state.input = input;
+			return state;
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot read checkpoint " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Describe the checkpoints of the last run;
+	 *
+	 * @return  number of saves and the step the run resumed at
+	 */
+	public String getReport() {
+		return "CHECKPOINT: " + saved + " saved to " + file + "; "
+				+ (resumed < 0 ? "started at the beginning" : "resumed at step " + resumed);
+	}
+
+	/*******************************************************************************************
+	 ******************************* Helper Methods for Saving *********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Force the output to the disk, then replace the checkpoint file by the state of the paused
+	 * execution; The new file is synced before it is moved into place, so a crash keeps either
+	 * version, and the output file never holds fewer values than the checkpoint claims;
+	 *
+	 * @param executor  execution paused in step mode
+	 * @param data      source of the input data
+	 * @param output    sink of the execution
+	 * @throws CoreRuntimeException if the file cannot be written
+	 */
+	private void save(Executor executor, InputSource data, OutputSink output) {
+		output.sync();
+		State state = executor.save();
+		try {
+			Storage.replace(file.toPath(), out -> {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(programKey);
+				out.writeLong(state.steps);
+				out.writeLong(state.outputs);
+				out.writeLong(data.position());
+				out.writeInt(state.values.length);
+				for (int slot = 0; slot < state.values.length; slot++) {
+					out.writeBoolean(state.defined[slot]);
+					out.writeInt(state.values[slot]);
+				}
+				out.writeInt(state.stack.length);
+				for (Object node : state.stack) out.writeInt(numbers.get(node));
+				out.writeInt(state.waiting == null ? -1 : numbers.get(state.waiting));
+			}, true);
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot save checkpoint " + file + ": " + e.getMessage());
+		}
+		saved++;
+	}
+
+	/*******************************************************************************************
+	 ****************************** Helper Methods for Node Numbers ****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Number the nodes the step mode stack can hold in preorder: STMT_SEQ, LOOP and the
+	 * ID_LIST nodes of INPUT statements;
+	 *
+	 * @param stmtSeq   STMT_SEQ node to number with its nested statements
+	 */
+	private void number(STMT_SEQ stmtSeq) {
+		for (; ; stmtSeq = stmtSeq.getStmtSeq()) {
+			add(stmtSeq);
+			STMT stmt = stmtSeq.getStmt();
+			switch (stmt.getAltNo()) {
+				case 2: // IF;
+					number(stmt.getIf().getStmtSeq());
+					if (stmt.getIf().getAltNo() == 1) number(stmt.getIf().getElseStmtSeq());
+					break;
+				case 3: // LOOP;
+					add(stmt.getLoop());
+					number(stmt.getLoop().getStmtSeq());
+					break;
+				case 4: // INPUT;
+					for (ID_LIST idList = stmt.getIn().getIdList(); idList != null; idList = idList.getIdList()) {
+						add(idList);
+					}
+					break;
+				default:
+					break;
+			}
+			if (stmtSeq.getAltNo() != 1) return;
+		}
+	}
+
+	private void add(NODE node) {
+		numbers.put(node, nodes.size());
+		nodes.add(node);
+	}
+
+	private NODE node(int number) {
+		if (number < 0 || number >= nodes.size()) throw invalid("is corrupt");
+		return nodes.get(number);
+	}
+
+	private CoreRuntimeException invalid(String reason) {
+		return new CoreRuntimeException("checkpoint " + file + " " + reason);
+	}
+
+	/*******************************************************************************************
+	 *************************************** Saved State ***************************************
+	 *******************************************************************************************/
+
+	/**
+	 * State of an execution paused in step mode; See Executor.save;
+	 */
+	public static final class State {
+
+		final int[] values;
+		final boolean[] defined;
+		final Object[] stack;
+		final ID_LIST waiting;
+		final long steps;
+		final long outputs;
+		long input = -1;
+
+		State(int[] values, boolean[] defined, Object[] stack, ID_LIST waiting, long steps, long outputs) {
+			this.values = values;
+			this.defined = defined;
+			this.stack = stack;
+			this.waiting = waiting;
+			this.steps = steps;
+			this.outputs = outputs;
+		}
+
+		/**
+		 * Getter for the number of OUTPUT values written before the state was saved;
+		 *
+		 * @return  values to keep when the output of the run is resumed
+		 */
+		public long getOutputs() { return outputs; }
+	}
+}
@@ -0,0 +1,99 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Client Class for the Core Interpreter Project; Thin replacement of Main talking to a running Daemon;
+ */
+public class Client {
+
+	private Client() { }
+
+	/**
+	 * Send (program, data) pairs to the Daemon in one pipelined connection; Print the responses
+	 * in order and exit with the worst status;
+	 *
+	 * @param args  [--port <port>] [--no-print] [--memo] program data [program data ...]
+	 */
+	public static void main(String[] args) {
+		int port = Daemon.DEFAULT_PORT;
+		int flags = Daemon.PRINT;
+		int arg = 0;
+		try {
+			while (args[arg].startsWith("--")) {
+				String option = args[arg++];
+				if (option.equals("--port")) port = Integer.parseInt(args[arg++]);
+				else if (option.equals("--no-print")) flags &= ~Daemon.PRINT;
+				else if (option.equals("--memo")) flags |= Daemon.MEMO;
+				else usage();
+			}
+		} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+			usage();
+		}
+		int requests = (args.length - arg) / 2;
+		if (requests == 0 || (args.length - arg) % 2 != 0) usage();
+		final byte[][] files = new byte[args.length - arg][];
+		for (int i = 0; i < files.length; i++) {
+			try {
+				files[i] = Files.readAllBytes(Paths.get(args[arg + i]));
+			} catch (IOException e) {
+				System.out.println("ERROR: cannot read " + args[arg + i]);
+				System.exit(2); // Failure Case;
+			}
+		}
+		int status = 0;
+		try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			// Pipeline := a writer thread sends every request while the responses are read;
+			final int requestFlags = flags;
+			Thread writer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < files.length; i += 2) {
+							out.writeInt(requestFlags);
+							out.writeInt(files[i].length);
+							out.write(files[i]);
+							out.writeInt(files[i + 1].length);
+							out.write(files[i + 1]);
+						}
+						out.flush();
+						socket.shutdownOutput();
+					} catch (IOException ignored) {
+						// The read of the responses reports the failure;
+					}
+				}
+			}, "core-client-writer");
+			writer.setDaemon(true);
+			writer.start();
+			byte[] response = new byte[0];
+			for (int i = 0; i < requests; i++) {
+				status = Math.max(status, in.readInt());
+				int length = in.readInt();
+				if (response.length < length) response = new byte[length];
+				in.readFully(response, 0, length);
+				System.out.write(response, 0, length);
+			}
+			System.out.flush();
+		} catch (IOException e) {
+			System.out.println("ERROR: cannot reach daemon on port " + port + ": " + e.getMessage());
+			System.exit(2); // Failure Case;
+		}
+		System.exit(status);
+	}
+
+	/**
+	 * Report incorrect command line arguments and terminate;
+	 */
+	private static void usage() {
+		System.out.println("Unknown option or incorrect number of arguments");
+		System.exit(2);
+	}
+}
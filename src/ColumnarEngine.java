@@ -0,0 +1,674 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * ColumnarEngine Class for the Core Interpreter Project; One program run over blocks of data files
+ * in SIMD lanes;
+ */
+public class ColumnarEngine {
+
+	/*******************************************************************************************
+	 * A block holds up to BLOCK records, one per lane; Every declared variable is an int[]    *
+	 * column with one value per lane, and EXPR and CMPR run on whole columns with the vector  *
+	 * API; IF, CASE and LOOP narrow a mask of lanes, a long[] with one bit per lane, so every *
+	 * lane runs exactly the statements its record runs alone; A LOOP repeats while its        *
+	 * condition holds in any lane of its mask; A lane that fails drops out of every mask and  *
+	 * keeps its output and error; Each lane counts its own statements and OUTPUT values for   *
+	 * the budget, and the wall time of a lane is that of its block                            *
+	 *******************************************************************************************/
+
+	public static final int BLOCK = 1024;
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	/*******************************************************************************************
+	 * Private Members: Compiled Program; Worker Count; Budget of a Lane; Counters of Blocks,  *
+	 * Statements & Lanes                                                                      *
+	 *******************************************************************************************/
+
+	private final Program program;
+	private final int threads;
+	private Budget budget = Budget.UNLIMITED;
+	private final AtomicLong blocks = new AtomicLong();
+	private final AtomicLong statements = new AtomicLong();   // block statements executed;
+	private final AtomicLong lanes = new AtomicLong();        // records of the blocks, per statement;
+	private final AtomicLong active = new AtomicLong();       // lanes in the mask, per statement;
+
+	/**
+	 * Prepare columnar batch runs of a program; The program is parsed and compiled once by the caller;
+	 *
+	 * @param program   compiled program to run
+	 * @param threads   number of worker threads, each running whole blocks
+	 */
+	public ColumnarEngine(Program program, int threads) {
+		this.program = program;
+		this.threads = threads;
+	}
+
+	/*******************************************************************************************
+	 ************************** Start Method for Beginning a Batch *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run the program on every data file, BLOCK files at a time; The output files and the
+	 * errors are those of BatchRunner; Memo mode does not apply;
+	 *
+	 * @param inputs    data files in either format; each is read into memory
+	 * @param outDir    directory for the output files; created if missing
+	 * @return          report of the batch, in the order of inputs
+	 */
+	public BatchRunner.Report run(List<File> inputs, File outDir) {
+		BatchRunner.createDirectory(outDir);
+		final String[] errors = new String[inputs.size()];
+		long start = System.nanoTime();
+		BatchRunner.forEach(threads, (inputs.size() + BLOCK - 1) / BLOCK, b -> {
+			int first = b * BLOCK;
+			new Block(inputs.subList(first, Math.min(first + BLOCK, inputs.size()))).run(outDir, errors, first);
+		});
+		return new BatchRunner.Report(inputs, errors, System.nanoTime() - start);
+	}
+
+	/**
+	 * Setter method for the budget of each lane;
+	 *
+	 * @param budget    limits of a run, as for BatchRunner; Budget.UNLIMITED by default
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/**
+	 * Describe the blocks and how far the lanes diverged;
+	 *
+	 * @return  blocks run, vector width and the share of lanes active per statement
+	 */
+	public String getReport() {
+		return String.format("COLUMNAR: %d blocks of up to %d records; %d int lanes per vector; "
+				+ "%d block statements with %.1f%% of lanes active", blocks.get(), BLOCK, SPECIES.length(),
+				statements.get(), lanes.get() == 0 ? 0.0 : 100.0 * active.get() / lanes.get());
+	}
+
+	/*******************************************************************************************
+	 *************************************** Blocks ********************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Records run together; Lane i is input i; Columns are padded to whole vectors, and the
+	 * padding lanes are never alive; A vector never straddles two words of a mask;
+	 */
+	private final class Block {
+
+		private final List<File> inputs;
+		private final int size;
+		private final int width;
+		private final int words;
+		private final int[][] values;
+		private final long[][] defined;
+		private final long[] alive;
+		private final InputSource[] data;
+		private final String[] errors;
+		private final int[][] outputs;
+		private final int[] counts;
+		private final long[] steps;           // statements per lane; null without a step limit;
+		private long deadline = 0;
+		private final ArrayList<int[]> temps = new ArrayList<int[]>();
+		private int top = 0;
+		private long statements = 0;
+		private long active = 0;
+
+		private Block(List<File> inputs) {
+			this.inputs = inputs;
+			this.size = inputs.size();
+			this.width = (size + SPECIES.length() - 1) / SPECIES.length() * SPECIES.length();
+			this.words = (width + 63) >>> 6;
+			this.values = new int[program.size()][width];
+			this.defined = new long[program.size()][words];
+			this.alive = new long[words];
+			this.data = new InputSource[size];
+			this.errors = new String[size];
+			this.outputs = new int[size][4];
+			this.counts = new int[size];
+			this.steps = budget.getSteps() == Budget.NONE ? null : new long[size];
+			for (int i = 0; i < size; i++) {
+				try {
+					data[i] = ArrayInput.read(inputs.get(i).getPath());
+					alive[i >>> 6] |= 1L << i;
+				} catch (CoreException e) {
+					errors[i] = e.getMessage();
+				}
+			}
+		}
+
+		/**
+		 * Execute the program in every lane, then write the output files;
+		 *
+		 * @param outDir    directory for the output files
+		 * @param report    errors of the batch; "ERROR: ..." per failed input
+		 * @param first     index of the first input of the block in the batch
+		 */
+		private void run(File outDir, String[] report, int first) {
+			if (budget.getMillis() != Budget.NONE) {
+				deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget.getMillis());
+			}
+			long[] mask = alive.clone();
+			ID_LIST repeated = program.getRepeated();
+			if (repeated != null) {
+				fail(mask, "Variable " + repeated.getId() + " has already been instantiated.", repeated);
+			} else {
+				execSTMTSEQ(program.getParseTree().getStmtSeq(), mask);
+			}
+			for (int i = 0; i < size; i++) {
+				File out = new File(outDir, inputs.get(i).getName() + ".out");
+				String error = errors[i];
+				try {
+					OutputSink sink = OutputSink.file(out.getPath(), OutputSink.FlushPolicy.THROUGHPUT);
+					for (int k = 0; k < counts[i]; k++) sink.write(outputs[i][k]);
+					sink.close();
+				} catch (CoreException e) {
+					if (error == null) error = e.getMessage();
+				}
+				if (error != null) report[first + i] = BatchRunner.appendError(out, error);
+			}
+			blocks.incrementAndGet();
+			ColumnarEngine.this.statements.addAndGet(statements);
+			lanes.addAndGet(statements * size);
+			ColumnarEngine.this.active.addAndGet(active);
+		}
+
+		/*******************************************************************************************
+		 ************************** Statements under a Mask of Lanes *******************************
+		 *******************************************************************************************/
+
+		/**
+		 * Execute the STMT nodes of a STMT_SEQ in the lanes of a mask; Stops once none is left;
+		 *
+		 * @param stmtSeq   STMT_SEQ node to execute
+		 * @param mask      lanes executing it; failed lanes are cleared
+		 */
+		private void execSTMTSEQ(STMT_SEQ stmtSeq, long[] mask) {
+			while (true) {
+				int live = live(mask);
+				if (live == 0) return;
+				statements++;
+				active += live;
+				if (steps != null) count(mask);
+				execSTMT(stmtSeq.getStmt(), mask);
+				if (stmtSeq.getAltNo() != 1) return;
+				stmtSeq = stmtSeq.getStmtSeq();
+			}
+		}
+
+		private void execSTMT(STMT stmt, long[] mask) {
+			switch (stmt.getAltNo()) {
+				case 1:
+					ASSIGN assignStmt = stmt.getAssign();
+					int slot = program.slot(assignStmt.getLvalue());
+					if (slot < 0) {
+						fail(mask, "variable id " + assignStmt.getLvalue() + " has not been declared", assignStmt);
+					} else {
+						assign(slot, assignStmt.getExpr(), mask);
+					}
+					break;
+				case 2:
+					execIF(stmt.getIf(), mask);
+					break;
+				case 3:
+					execLOOP(stmt.getLoop(), mask);
+					break;
+				case 4:
+					execIN(stmt.getIn(), mask);
+					break;
+				case 5:
+					execOUT(stmt.getOut(), mask);
+					break;
+				case 6:
+					execCASE(stmt.getCase(), mask);
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * Lanes where the condition holds run the THEN clause, the others the ELSE clause;
+		 *
+		 * @param ifStmt    IF node to execute
+		 * @param mask      lanes executing it
+		 */
+		private void execIF(IF ifStmt, long[] mask) {
+			long[] then = cond(ifStmt.getCond(), mask);
+			long[] other = ifStmt.getAltNo() == 1 ? andNot(mask, then) : null;
+			execSTMTSEQ(ifStmt.getStmtSeq(), then);
+			if (other != null) execSTMTSEQ(ifStmt.getElseStmtSeq(), other);
+		}
+
+		/**
+		 * Every lane runs the body once; Lanes leave the loop as their condition becomes false,
+		 * and the loop ends when no lane is left; The budget is checked where lanes repeat;
+		 *
+		 * @param loopStmt  LOOP node to execute
+		 * @param mask      lanes executing it
+		 */
+		private void execLOOP(LOOP loopStmt, long[] mask) {
+			execSTMTSEQ(loopStmt.getStmtSeq(), mask);
+			long[] repeat = cond(loopStmt.getCond(), mask);
+			while (live(repeat) > 0) {
+				backEdge(loopStmt, repeat);
+				execSTMTSEQ(loopStmt.getStmtSeq(), repeat);
+				repeat = cond(loopStmt.getCond(), repeat);
+			}
+		}
+
+		/**
+		 * Check the budget of the lanes about to repeat a LOOP, as Executor.backEdge;
+		 *
+		 * @param loopStmt  LOOP node about to repeat, for the error position
+		 * @param repeat    lanes repeating it; the lanes over a limit fail
+		 */
+		private void backEdge(LOOP loopStmt, long[] repeat) {
+			if (steps != null) {
+				for (int w = 0; w < words; w++) {
+					for (long bits = repeat[w] & alive[w]; bits != 0; bits &= bits - 1) {
+						int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+						if (steps[i] > budget.getSteps()) {
+							fail(i, "step limit of " + budget.getSteps() + " exceeded", loopStmt);
+						}
+					}
+				}
+			}
+			if (budget.getMillis() != Budget.NONE && System.nanoTime() - deadline > 0) {
+				fail(repeat, "time limit of " + budget.getMillis() + " ms exceeded", loopStmt);
+			}
+		}
+
+		/**
+		 * Take the next value of the input of each lane for each id, as Executor.setVarByInput;
+		 *
+		 * @param inputStmt IN node to execute
+		 * @param mask      lanes executing it
+		 */
+		private void execIN(IN inputStmt, long[] mask) {
+			for (ID_LIST idList = inputStmt.getIdList(); ; idList = idList.getIdList()) {
+				int slot = program.slot(idList.getId());
+				for (int w = 0; w < words; w++) {
+					for (long bits = mask[w] & alive[w]; bits != 0; bits &= bits - 1) {
+						int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+						if (!data[i].hasNext()) {
+							fail(i, "no more input, cannot take input", idList);
+						} else if (slot < 0) {
+							fail(i, "variable id " + idList.getId() + " has not been declared", idList);
+						} else {
+							try {
+								values[slot][i] = data[i].next();
+								defined[slot][w] |= 1L << i;
+							} catch (NumberFormatException e) {
+								fail(i, "Input " + e.getMessage() + " does not match a valid integer", idList);
+							}
+						}
+					}
+				}
+				if (idList.getAltNo() != 1) return;
+			}
+		}
+
+		/**
+		 * Append the value of each id to the output of each lane;
+		 *
+		 * @param outputStmt    OUT node to execute
+		 * @param mask          lanes executing it
+		 */
+		private void execOUT(OUT outputStmt, long[] mask) {
+			for (ID_LIST idList = outputStmt.getIdList(); ; idList = idList.getIdList()) {
+				if (budget.getOutputs() != Budget.NONE) limit(idList, mask);
+				int[] column = column(idList.getId(), idList, mask);
+				for (int w = 0; w < words; w++) {
+					for (long bits = mask[w]; bits != 0; bits &= bits - 1) {
+						int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+						if (counts[i] == outputs[i].length) outputs[i] = Arrays.copyOf(outputs[i], counts[i] * 2);
+						outputs[i][counts[i]++] = column[i];
+					}
+				}
+				if (idList.getAltNo() != 1) return;
+			}
+		}
+
+		/**
+		 * Fail the lanes of a mask whose next OUTPUT value exceeds the budget, as Executor.outputVar;
+		 *
+		 * @param idList    node of the value, for the error position
+		 * @param mask      lanes writing it; cleared where the lane failed
+		 */
+		private void limit(ID_LIST idList, long[] mask) {
+			for (int w = 0; w < words; w++) {
+				for (long bits = mask[w] & alive[w]; bits != 0; bits &= bits - 1) {
+					int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+					if (counts[i] >= budget.getOutputs()) {
+						fail(i, "output limit of " + budget.getOutputs() + " values exceeded", idList);
+					}
+				}
+				mask[w] &= alive[w];
+			}
+		}
+
+		/**
+		 * Each lane assigns the EXPR of the first CASES listing its value, or the ELSE EXPR;
+		 *
+		 * @param caseStmt  CASE node to execute
+		 * @param mask      lanes executing it
+		 */
+		private void execCASE(CASE caseStmt, long[] mask) {
+			int slot = program.slot(caseStmt.getId());
+			// Copy := the value matched is the one before the assignments below;
+			int[] value = column(caseStmt.getId(), caseStmt, mask).clone();
+			if (slot < 0) return;
+			long[] rest = mask;
+			for (CASES cases = caseStmt.getCases(); ; cases = cases.getCases()) {
+				long[] match = matches(cases.getIntList(), value, rest);
+				rest = andNot(rest, match);
+				assign(slot, cases.getExpr(), match);
+				if (cases.getAltNo() != 1) {
+					assign(slot, cases.getElseExpr(), rest);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Evaluate an EXPR and store it in a column in the lanes of the mask;
+		 *
+		 * @param slot      frame slot of the variable
+		 * @param expr      EXPR node to evaluate
+		 * @param mask      lanes assigning it; failed lanes are cleared
+		 */
+		private void assign(int slot, EXPR expr, long[] mask) {
+			if (live(mask) == 0) return;
+			top = 0;
+			int[] result = evalEXPR(expr, mask);
+			int[] column = values[slot];
+			int[] select = temp();
+			for (int i = 0; i < width; i++) select[i] = (int) -((mask[i >>> 6] >>> i) & 1);
+			for (int i = 0; i < width; i += SPECIES.length()) {
+				IntVector old = IntVector.fromArray(SPECIES, column, i);
+				IntVector.fromArray(SPECIES, result, i).lanewise(VectorOperators.XOR, old)
+						.and(IntVector.fromArray(SPECIES, select, i)).lanewise(VectorOperators.XOR, old).intoArray(column, i);
+			}
+			long[] set = defined[slot];
+			for (int w = 0; w < words; w++) set[w] |= mask[w];
+		}
+
+		/*******************************************************************************************
+		 ******************************* Conditions as Lane Masks **********************************
+		 *******************************************************************************************/
+
+		/**
+		 * Evaluate a COND in the lanes of a mask;
+		 *
+		 * @param cond  COND node to evaluate
+		 * @param mask  lanes evaluating it; failed lanes are cleared
+		 * @return      new mask of the lanes where the COND holds
+		 */
+		private long[] cond(COND cond, long[] mask) {
+			top = 0;
+			return execCOND(cond, mask);
+		}
+
+		private long[] execCOND(COND cond, long[] mask) {
+			switch (cond.getAltNo()) {
+				case 0: // !COND;
+					return andNot(mask, execCOND(cond.getNeg(), mask));
+				case 1: // (COND op COND); the right COND only runs in the lanes it decides;
+					long[] lhs = execCOND(cond.getLhs(), mask);
+					if (cond.getOp().equals("AND")) return execCOND(cond.getRhs(), lhs);
+					long[] rhs = execCOND(cond.getRhs(), andNot(mask, lhs));
+					for (int w = 0; w < words; w++) lhs[w] = (lhs[w] & alive[w]) | rhs[w];
+					return lhs;
+				default: // CMPR;
+					return execCMPR(cond.getCmpr(), mask);
+			}
+		}
+
+		/**
+		 * Compare two EXPRs lanewise; One loop per comparison, so the JIT sees a constant operator
+		 * and compiles it to vector instructions; a > b is b < a and a != b is !(a = b);
+		 *
+		 * @param cmpr  CMPR node to evaluate
+		 * @param mask  lanes evaluating it; failed lanes are cleared
+		 * @return      new mask of the lanes where the comparison holds
+		 */
+		private long[] execCMPR(CMPR cmpr, long[] mask) {
+			int[] lhs = evalEXPR(cmpr.getExpr1(), mask);
+			int[] rhs = evalEXPR(cmpr.getExpr2(), mask);
+			String op = cmpr.getOp().getOp();
+			if (op.equals("GREATER_THAN") || op.equals("GREATER_EQUAL")) {
+				int[] swap = lhs;
+				lhs = rhs;
+				rhs = swap;
+			}
+			long[] result = new long[words];
+			int step = SPECIES.length();
+			if (op.equals("LESS_THAN") || op.equals("GREATER_THAN")) {
+				for (int i = 0; i < width; i += step) {
+					set(result, i, IntVector.fromArray(SPECIES, lhs, i).lt(IntVector.fromArray(SPECIES, rhs, i)));
+				}
+			} else if (op.equals("LESS_EQUAL") || op.equals("GREATER_EQUAL")) {
+				for (int i = 0; i < width; i += step) {
+					set(result, i, IntVector.fromArray(SPECIES, lhs, i)
+							.compare(VectorOperators.LE, IntVector.fromArray(SPECIES, rhs, i)));
+				}
+			} else {
+				for (int i = 0; i < width; i += step) {
+					set(result, i, IntVector.fromArray(SPECIES, lhs, i).eq(IntVector.fromArray(SPECIES, rhs, i)));
+				}
+			}
+			boolean negate = op.equals("NOT_EQUAL");
+			for (int w = 0; w < words; w++) result[w] = (negate ? ~result[w] : result[w]) & mask[w];
+			return result;
+		}
+
+		/**
+		 * Lanes of a mask whose value is a member of an INT_LIST;
+		 *
+		 * @param intList   INT_LIST node to match
+		 * @param value     value per lane
+		 * @param mask      lanes matching
+		 * @return          new mask of the matching lanes
+		 */
+		private long[] matches(INT_LIST intList, int[] value, long[] mask) {
+			int[] members = new int[1];
+			int count = 0;
+			for (INT_LIST next = intList; ; next = next.getIntList()) {
+				if (count == members.length) members = Arrays.copyOf(members, count * 2);
+				members[count++] = next.getValue();
+				if (next.getAltNo() != 1) break;
+			}
+			long[] result = new long[words];
+			for (int i = 0; i < width; i += SPECIES.length()) {
+				IntVector lane = IntVector.fromArray(SPECIES, value, i);
+				for (int k = 0; k < count; k++) set(result, i, lane.eq(members[k]));
+			}
+			for (int w = 0; w < words; w++) result[w] &= mask[w];
+			return result;
+		}
+
+		/*******************************************************************************************
+		 ******************************* Expressions as Columns ************************************
+		 *******************************************************************************************/
+
+		/**
+		 * Evaluate an EXPR in every lane; Reads of undeclared or unset ids fail the lanes of the
+		 * mask in the order Executor evaluates them;
+		 *
+		 * @param expr  EXPR node to evaluate
+		 * @param mask  lanes whose reads are checked; failed lanes are cleared
+		 * @return      column of values; a variable column or a temporary, valid until the next
+		 *              statement
+		 */
+		private int[] evalEXPR(EXPR expr, long[] mask) {
+			int[] result = evalTERM(expr.getTerm(), mask);
+			// Decision: add/subtract second EXPR;
+			if (expr.getAltNo() == 1) {
+				result = arithmetic(expr.getOp(), result, evalEXPR(expr.getExpr(), mask));
+			}
+			return result;
+		}
+
+		private int[] evalTERM(TERM term, long[] mask) {
+			int[] result = evalFACTOR(term.getFactor(), mask);
+			// Decision: multiply second TERM;
+			if (term.getAltNo() == 1) {
+				result = arithmetic("TIMES", result, evalTERM(term.getTerm(), mask));
+			}
+			return result;
+		}
+
+		private int[] evalFACTOR(FACTOR factor, long[] mask) {
+			switch (factor.getAltNo()) {
+				case 0: // CONST;
+					int[] constant = temp();
+					Arrays.fill(constant, factor.getValue());
+					return constant;
+				case 1: // ID;
+					return column(factor.getId(), factor, mask);
+				case 2: // -FACTOR;
+					int[] operand = evalFACTOR(factor.getFactor(), mask);
+					int[] result = temp();
+					for (int i = 0; i < width; i += SPECIES.length()) {
+						IntVector.fromArray(SPECIES, operand, i).neg().intoArray(result, i);
+					}
+					return result;
+				case 3: // (EXPR);
+					return evalEXPR(factor.getExpr(), mask);
+				default:
+					return temp();
+			}
+		}
+
+		/**
+		 * Lanewise PLUS, MINUS or TIMES; One loop per operator, as in execCMPR;
+		 *
+		 * @param op    operator token name
+		 * @param lhs   column of left operands
+		 * @param rhs   column of right operands
+		 * @return      temporary column of the results
+		 */
+		private int[] arithmetic(String op, int[] lhs, int[] rhs) {
+			int[] result = temp();
+			int step = SPECIES.length();
+			if (op.equals("PLUS")) {
+				for (int i = 0; i < width; i += step) {
+					IntVector.fromArray(SPECIES, lhs, i).add(IntVector.fromArray(SPECIES, rhs, i)).intoArray(result, i);
+				}
+			} else if (op.equals("MINUS")) {
+				for (int i = 0; i < width; i += step) {
+					IntVector.fromArray(SPECIES, lhs, i).sub(IntVector.fromArray(SPECIES, rhs, i)).intoArray(result, i);
+				}
+			} else {
+				for (int i = 0; i < width; i += step) {
+					IntVector.fromArray(SPECIES, lhs, i).mul(IntVector.fromArray(SPECIES, rhs, i)).intoArray(result, i);
+				}
+			}
+			return result;
+		}
+
+		/*******************************************************************************************
+		 ************************************ Helper Methods ***************************************
+		 *******************************************************************************************/
+
+		/**
+		 * Column of an id read in the lanes of a mask; Fails the lanes where it is not set;
+		 *
+		 * @param id    identifier name
+		 * @param node  node reading the identifier, for the error position
+		 * @param mask  lanes reading it; failed lanes are cleared
+		 * @return      column of the variable; a temporary if the id is not declared
+		 */
+		private int[] column(String id, NODE node, long[] mask) {
+			int slot = program.slot(id);
+			if (slot < 0) {
+				fail(mask, "variable id " + id + " has not been declared", node);
+				return temp();
+			}
+			long[] set = defined[slot];
+			for (int w = 0; w < words; w++) {
+				long unset = mask[w] & alive[w] & ~set[w];
+				if (unset == 0) continue;
+				for (long bits = unset; bits != 0; bits &= bits - 1) {
+					fail((w << 6) + Long.numberOfTrailingZeros(bits), "variable id " + id + " has not been instantiated",
+							node);
+				}
+				mask[w] &= ~unset;
+			}
+			return values[slot];
+		}
+
+		private int[] temp() {
+			if (top == temps.size()) temps.add(new int[width]);
+			return temps.get(top++);
+		}
+
+		/**
+		 * Drop the failed lanes from a mask;
+		 *
+		 * @param mask  lanes to check; cleared where the lane failed
+		 * @return      number of lanes left
+		 */
+		private int live(long[] mask) {
+			int count = 0;
+			for (int w = 0; w < words; w++) {
+				mask[w] &= alive[w];
+				count += Long.bitCount(mask[w]);
+			}
+			return count;
+		}
+
+		/**
+		 * Count a statement in every lane of a mask, for the step limit;
+		 *
+		 * @param mask  lanes executing the statement
+		 */
+		private void count(long[] mask) {
+			for (int w = 0; w < words; w++) {
+				for (long bits = mask[w]; bits != 0; bits &= bits - 1) steps[(w << 6) + Long.numberOfTrailingZeros(bits)]++;
+			}
+		}
+
+		private long[] andNot(long[] mask, long[] minus) {
+			long[] result = new long[words];
+			for (int w = 0; w < words; w++) result[w] = mask[w] & alive[w] & ~minus[w];
+			return result;
+		}
+
+		private void fail(int lane, String message, NODE node) {
+			errors[lane] = new CoreRuntimeException(message, node).getMessage();
+			alive[lane >>> 6] &= ~(1L << lane);
+		}
+
+		private void fail(long[] mask, String message, NODE node) {
+			String error = new CoreRuntimeException(message, node).getMessage();
+			for (int w = 0; w < words; w++) {
+				for (long bits = mask[w] & alive[w]; bits != 0; bits &= bits - 1) {
+					errors[(w << 6) + Long.numberOfTrailingZeros(bits)] = error;
+				}
+				alive[w] &= ~mask[w];
+				mask[w] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Set the lanes of a vector mask in a mask;
+	 *
+	 * @param mask      one bit per lane
+	 * @param i         first lane of the vector; a multiple of the vector length
+	 * @param lanes     lanes to set
+	 */
+	private static void set(long[] mask, int i, VectorMask<Integer> lanes) {
+		mask[i >>> 6] |= lanes.toLong() << (i & 63);
+	}
+}
@@ -0,0 +1,59 @@
+/**
+ * CoreException Class for the Core Interpreter Project; Failure reported instead of ending the process;
+ */
+public class CoreException extends RuntimeException {
+
+	/***********************************************************************************************
+	 ******************** Private Members: Source Position of the Failure (0 if none) **************
+	 ***********************************************************************************************/
+
+	private static final long serialVersionUID = 1L;
+
+	private final int line;
+	private final int column;
+
+	/**
+	 * Failure without a source position, e.g. an unreadable file;
+	 *
+	 * @param message   description of the failure, without the "ERROR: " prefix
+	 */
+	public CoreException(String message) { this(message, 0, 0); }
+
+	/**
+	 * Failure at a position of the program source;
+	 *
+	 * @param message   description of the failure, without the "ERROR: " prefix
+	 * @param line      line of the program, starting at 1
+	 * @param column    column of the line, starting at 1
+	 */
+	public CoreException(String message, int line, int column) {
+		super(message);
+		this.line = line;
+		this.column = column;
+	}
+
+	/**
+	 * Getter for the line of the failure;
+	 *
+	 * @return  line of the program, starting at 1; 0 if the failure has no source position
+	 */
+	public int getLine() { return line; }
+
+	/**
+	 * Getter for the column of the failure;
+	 *
+	 * @return  column of the line, starting at 1; 0 if the failure has no source position
+	 */
+	public int getColumn() { return column; }
+
+	/**
+	 * Error message of any failure ending a run: that of a CoreException, else the failure
+	 * itself, e.g. a StackOverflowError of a deeply nested program;
+	 *
+	 * @param e     failure ending the run
+	 * @return      message without the "ERROR: " prefix
+	 */
+	static String messageOf(Throwable e) {
+		return e instanceof CoreException ? e.getMessage() : "run failed: " + e;
+	}
+}
@@ -0,0 +1,33 @@
+/**
+ * CoreRuntimeException Class for the Core Interpreter Project; Executor errors;
+ */
+public class CoreRuntimeException extends CoreException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Runtime error without a source position, e.g. unreadable input data;
+	 *
+	 * @param message   description of the error
+	 */
+	public CoreRuntimeException(String message) { super(message); }
+
+	/**
+	 * Runtime error while executing a node of the parse tree;
+	 *
+	 * @param message   description of the error
+	 * @param node      node being executed
+	 */
+	public CoreRuntimeException(String message, NODE node) {
+		super(message, node.getLine(), node.getColumn());
+	}
+
+	/**
+	 * Runtime error at a known source position, e.g. replayed from a cached run;
+	 *
+	 * @param message   description of the error
+	 * @param line      line of the program; 0 if the error has no source position
+	 * @param column    column of the line; 0 if the error has no source position
+	 */
+	public CoreRuntimeException(String message, int line, int column) { super(message, line, column); }
+}
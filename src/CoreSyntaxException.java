@@ -0,0 +1,17 @@
+/**
+ * CoreSyntaxException Class for the Core Interpreter Project; Scanner & Parser errors;
+ */
+public class CoreSyntaxException extends CoreException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Syntax error at the current token of a Scanner;
+	 *
+	 * @param message   description of the error
+	 * @param scanner   token stream positioned at the offending token
+	 */
+	public CoreSyntaxException(String message, Scanner scanner) {
+		super(message, scanner.line(), scanner.column());
+	}
+}
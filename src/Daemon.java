@@ -0,0 +1,275 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Daemon Class for the Core Interpreter Project; Long-running server with an LRU cache of compiled programs;
+ */
+public class Daemon {
+
+	/*******************************************************************************************
+	 * Protocol: Requests & Responses Framed by Big-Endian int Lengths; Pipelined per Socket    *
+	 *                                                                                         *
+	 * request  := int flags; int length; program bytes; int length; data bytes               *
+	 * response := int status (0 or 2, as the exit status of Main); int length; output bytes  *
+	 *******************************************************************************************/
+
+	public static final int DEFAULT_PORT = 7341;
+	public static final int PRINT = 1;          // flag: print the program before its output;
+	public static final int MEMO = 2;           // flag: execute in memo mode;
+	private static final int MAX_BLOCK = 1 << 30;
+	private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+	/*******************************************************************************************
+	 * Private Members: Server Socket; Compiled Programs by Canonical Hash; Canonical Hash by   *
+	 * Source Hash; Cache Counters                                                             *
+	 *******************************************************************************************/
+
+	private final ServerSocket server;
+	private final Lru<String,Entry> programs;
+	private final Lru<String,String> sources;
+	private ResultCache results = null;
+	private Budget budget = Budget.UNLIMITED;
+	private long hits = 0;
+	private long canonicalHits = 0;
+	private long misses = 0;
+
+	/**
+	 * Listen on a loopback port;
+	 *
+	 * @param port      TCP port on 127.0.0.1; 0 for any free port
+	 * @param capacity  maximum number of compiled programs kept
+	 * @throws CoreException    if the port cannot be bound
+	 */
+	public Daemon(int port, int capacity) {
+		try {
+			server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		} catch (IOException e) {
+			throw new CoreException("cannot listen on port " + port + ": " + e.getMessage());
+		}
+		programs = new Lru<String,Entry>(capacity);
+		sources = new Lru<String,String>(capacity);
+	}
+
+	public int getPort() { return server.getLocalPort(); }
+
+	/**
+	 * Answer repeated (program, data) requests from a result cache instead of executing them;
+	 *
+	 * @param results   cache of the outputs of earlier runs; null to always execute
+	 */
+	public void setResultCache(ResultCache results) { this.results = results; }
+
+	/**
+	 * Limit every executed request; See Executor.setBudget; A result cache applies its own;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/*******************************************************************************************
+	 ************************** Start Method for Serving Connections ***************************
+	 *******************************************************************************************/
+
+	/**
+	 * Accept connections until the process ends; One thread per connection;
+	 */
+	public void serve() {
+		while (true) {
+			final Socket socket;
+			try {
+				socket = server.accept();
+			} catch (IOException e) {
+				throw new CoreException("cannot accept connection: " + e.getMessage());
+			}
+			Thread connection = new Thread(new Runnable() {
+				@Override
+				public void run() { handle(socket); }
+			}, "core-daemon-connection");
+			connection.setDaemon(true);
+			connection.start();
+		}
+	}
+
+	/**
+	 * Describe the cache hit rate;
+	 *
+	 * @return  source hits, canonical hits, misses and cached programs
+	 */
+	public synchronized String getStats() {
+		return "DAEMON: " + hits + " source hits, " + canonicalHits + " canonical hits, " + misses
+				+ " misses; " + programs.size() + " programs cached"
+				+ (results == null ? "" : System.lineSeparator() + results.getStats());
+	}
+
+	/*******************************************************************************************
+	 ********************************* Helper Methods for Requests *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Answer the requests of a connection in order; Responses are flushed once no further
+	 * request is already buffered, so pipelined requests share writes;
+	 *
+	 * @param socket    accepted connection
+	 */
+	private void handle(Socket socket) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			while (true) {
+				int flags;
+				try {
+					flags = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				byte[] source = readBlock(in);
+				byte[] data = readBlock(in);
+				ByteArrayOutputStream response = new ByteArrayOutputStream();
+				int status = run(flags, source, data, response);
+				out.writeInt(status);
+				out.writeInt(response.size());
+				response.writeTo(out);
+				if (in.available() == 0) out.flush();
+			}
+			out.flush();
+		} catch (IOException e) {
+			// Connection dropped or malformed frame; other connections are unaffected;
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException ignored) { }
+		}
+	}
+
+	/**
+	 * Run one request as Main would: listing, OUTPUT values, then a blank line or the error;
+	 *
+	 * @param flags     PRINT and MEMO flags
+	 * @param source    program code
+	 * @param data      input data in the text or the binary format
+	 * @param response  destination of the text Main would print to standard output
+	 * @return          0 on success; 2 after an error
+	 * @throws IOException  never for the in-memory response
+	 */
+	private int run(int flags, byte[] source, byte[] data, ByteArrayOutputStream response) throws IOException {
+		try {
+			Entry entry = lookup(source);
+			if ((flags & PRINT) != 0) response.write(entry.listing);
+			if (results != null) {
+				results.execute(entry.program, data, OutputSink.stream(response));
+			} else {
+				Executor executor = new Executor(entry.program, InputSource.wrap(data), OutputSink.stream(response));
+				executor.setMemo((flags & MEMO) != 0);
+				executor.setBudget(budget);
+				executor.execute();
+			}
+			response.write(NEWLINE);
+			return 0;
+		} catch (Throwable e) {
+			// Any failure answers this request alone, so pipelined requests on the socket still run;
+			response.write(("ERROR: " + CoreException.messageOf(e)).getBytes(StandardCharsets.UTF_8));
+			response.write(NEWLINE);
+			return 2;
+		}
+	}
+
+	/**
+	 * Find the compiled program of a source; A known source skips the Scanner and the Parser;
+	 * A new source is parsed and shares the entry of any program with the same listing;
+	 *
+	 * @param source    program code
+	 * @return          cached or new entry
+	 * @throws CoreSyntaxException  if the code is not a valid program; errors are not cached
+	 */
+	private Entry lookup(byte[] source) {
+		String sourceKey = Storage.hash(source);
+		synchronized (this) {
+			String canonicalKey = sources.get(sourceKey);
+			Entry entry = canonicalKey == null ? null : programs.get(canonicalKey);
+			if (entry != null) {
+				hits++;
+				return entry;
+			}
+		}
+		// Parse outside the lock; concurrent misses of one program may both parse it;
+		Interpreter interpreter = Interpreter.fromSource(new String(source, StandardCharsets.UTF_8));
+		StringBuilder listing = new StringBuilder();
+		Printer.prettyPrint(interpreter.getParseTree(), listing);
+		byte[] canonical = listing.toString().getBytes(StandardCharsets.UTF_8);
+		String canonicalKey = Storage.hash(canonical);
+		synchronized (this) {
+			Entry entry = programs.get(canonicalKey);
+			if (entry != null) {
+				canonicalHits++;
+			} else {
+				misses++;
+				entry = new Entry(interpreter.getProgram(), canonical);
+				programs.put(canonicalKey, entry);
+			}
+			sources.put(sourceKey, canonicalKey);
+			return entry;
+		}
+	}
+
+	/**
+	 * Read a length-prefixed block of a request;
+	 *
+	 * @param in    stream of the connection
+	 * @return      bytes of the block
+	 * @throws IOException  if the stream ends or the length is invalid
+	 */
+	private static byte[] readBlock(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_BLOCK) throw new IOException("invalid block length " + length);
+		byte[] block = new byte[length];
+		in.readFully(block);
+		return block;
+	}
+
+	/*******************************************************************************************
+	 ************************************ Cache Entries & LRU **********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Compiled program and its canonical listing;
+	 */
+	private static class Entry {
+
+		private final Program program;
+		private final byte[] listing;
+
+		private Entry(Program program, byte[] listing) {
+			this.program = program;
+			this.listing = listing;
+		}
+	}
+
+	/**
+	 * Map in access order dropping its least recently used entry beyond a capacity;
+	 */
+	private static class Lru<K,V> extends LinkedHashMap<K,V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		private Lru(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K,V> eldest) { return size() > capacity; }
+	}
+}
@@ -1,37 +1,435 @@
-import java.io.*;
-import java.util.HashMap;
-import java.util.List;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Executor Class for the Core Interpreter Project;
+ * Executor Class for the Core Interpreter Project; One execution of a Program with its own variables;
  */
 public class Executor {
 
-	private Executor() { }
+	/*******************************************************************************************
+	 * Private Members: Compiled Program; Frame of Variable Values; Wide Values of a Numeric   *
+	 * Mode; Input Data; Output Sink                                                           *
+	 *******************************************************************************************/
+
+	private final Program program;
+	private int[] values;
+	private boolean[] defined;
+	private boolean shared = false;     // frame shared with a fork; copied before the next write;
+	private WideFrame wide = null;      // values of a numeric mode; null for the int values;
+	private InputSource data;
+	private OutputSink output;
 
 	/*******************************************************************************************
-	 * Private Members: Map for Program Variable Declarations & Storage; List for Input Tokens *
+	 * Private Members: Step Mode; Stack of Pending STMT_SEQ, LOOP & INPUT ID_LIST Nodes       *
 	 *******************************************************************************************/
 
-	private static HashMap<String,Integer> VARIABLES = new HashMap<String,Integer>();
-	private static List<Integer> DATA = new LinkedList<Integer>();
+	private Object[] stack = new Object[16];
+	private int depth = 0;
+	private ID_LIST waiting = null;
+
+	/*******************************************************************************************
+	 * Private Members: Memo Mode; Version Counter per Variable; Cached Values per EXPR Node   *
+	 *******************************************************************************************/
+
+	private boolean memo = false;
+	private final int[] versions;
+	private final IdentityHashMap<EXPR,Cached> cache = new IdentityHashMap<EXPR,Cached>();
+	private long lookups = 0;
+	private long hits = 0;
+
+	/*******************************************************************************************
+	 * Private Members: Profile Mode; Executions & Time of STMTs, LOOP Iterations & CASE Arms  *
+	 *******************************************************************************************/
+
+	private Profile profile = null;
+	private Profile active = null;      // profile of the execute() running; step mode is not profiled;
+
+	/*******************************************************************************************
+	 * Private Members: Budget of a Run; Abort Flag; Counters Shared with other Executors;     *
+	 * Statements & OUTPUT Values so far; Statements Added to the Shared Counters; Deadline;   *
+	 * Step Count of the Next Check at a LOOP Back-Edge & of the End of the Time Slice         *
+	 *******************************************************************************************/
+
+	private Budget budget = Budget.UNLIMITED;
+	private AtomicBoolean abort = null;
+	private Budget.Tally tally = null;
+	private long steps = 0;
+	private long outputs = 0;
+	private long tallied = 0;
+	private long deadline = 0;
+	private long checkpoint = Budget.NONE;
+	private long sliceEnd = Budget.NONE;
+
+	/**
+	 * Prepare executions of a program; Executors share nothing but the immutable Program;
+	 *
+	 * @param program   compiled program to execute
+	 */
+	public Executor(Program program) {
+		this.program = program;
+		this.values = new int[program.size()];
+		this.defined = new boolean[program.size()];
+		this.versions = new int[program.size()];
+	}
+
+	/**
+	 * Prepare an execution of a program;
+	 *
+	 * @param program   compiled program to execute
+	 * @param data      source of the input DATA
+	 * @param output    sink for the values of OUTPUT statements
+	 */
+	public Executor(Program program, InputSource data, OutputSink output) {
+		this(program);
+		this.data = data;
+		this.output = output;
+	}
+
+	/**
+	 * Prepare an execution of a program with 64-bit or arbitrary precision variables; Only
+	 * their storage and arithmetic differ, see WideFrame; Memo mode and checkpoints do not
+	 * apply to them;
+	 *
+	 * @param program   compiled program to execute
+	 * @param mode      numeric mode of the variables
+	 * @param data      source of the input DATA; read with nextLong() or nextBig()
+	 * @param output    sink for the values of OUTPUT statements
+	 */
+	public Executor(Program program, WideFrame.Mode mode, InputSource data, OutputSink output) {
+		this(program, data, output);
+		this.wide = new WideFrame(program, mode, this);
+	}
+
+	/**
+	 * Fork an Executor in step mode; The copy shares the frame until either of them writes
+	 * a variable, and continues from the same program position and INPUT id;
+	 *
+	 * @param parent    executor to copy
+	 * @param output    sink for the OUTPUT values of the copy
+	 */
+	private Executor(Executor parent, OutputSink output) {
+		this.program = parent.program;
+		this.values = parent.values;
+		this.defined = parent.defined;
+		this.shared = parent.shared = true;
+		this.wide = parent.wide == null ? null : parent.wide.copy(this);
+		this.versions = new int[program.size()];
+		this.stack = Arrays.copyOf(parent.stack, parent.stack.length);
+		this.depth = parent.depth;
+		this.waiting = parent.waiting;
+		this.output = output;
+		this.budget = parent.budget;
+		this.abort = parent.abort;
+		this.tally = parent.tally;
+		this.tallied = parent.tallied;
+		this.steps = parent.steps;
+		this.outputs = parent.outputs;
+		this.deadline = parent.deadline;
+		this.checkpoint = parent.checkpoint;
+	}
+
+	/**
+	 * Prepare the execution of single statements on a frame shared with other Executors; Only
+	 * statements touching disjoint variables may run at the same time, see ParallelRegions;
+	 *
+	 * @param program   compiled program to execute
+	 * @param values    shared variable values, one per slot
+	 * @param defined   shared flags of the instantiated slots
+	 * @param data      source of the input DATA
+	 * @param output    sink for the values of OUTPUT statements
+	 */
+	Executor(Program program, int[] values, boolean[] defined, InputSource data, OutputSink output) {
+		this(program, data, output);
+		this.values = values;
+		this.defined = defined;
+	}
 
 	/*******************************************************************************************
 	 ************************** Start Method for Beginning Execution ***************************
 	 *******************************************************************************************/
 
 	/**
-	 * Execute program represent by a parse tree using DATA from a file;
+	 * Execute the program; Closes the input source and the output sink, also after an error;
+	 *
+	 * @throws CoreRuntimeException if an error occurs; OUTPUT values written before it are flushed
+	 */
+	public void execute() {
+		active = profile;
+		if (active != null) active.start();
+		try {
+			execPROG(program.getParseTree());
+		} finally {
+			if (active != null) active.finish();
+			active = null;
+			output.close();
+			data.close();
+		}
+	}
+
+	/**
+	 * Execute the program again on other input; Reuses the frame of this Executor, which is
+	 * cleared first, so a worker running many inputs allocates nothing per run;
+	 *
+	 * @param data      source of the input DATA
+	 * @param output    sink for the values of OUTPUT statements
+	 * @throws CoreRuntimeException if an error occurs; OUTPUT values written before it are flushed
+	 */
+	public void execute(InputSource data, OutputSink output) {
+		this.data = data;
+		this.output = output;
+		if (shared) {
+			values = new int[values.length];
+			defined = new boolean[defined.length];
+			shared = false;
+		}
+		Arrays.fill(defined, false);
+		// Invalidate every memo entry of the previous run;
+		for (int i = 0; i < versions.length; i++) versions[i]++;
+		execute();
+	}
+
+	/**
+	 * Execute one statement on the frame; Neither closes the source or the sink nor checks
+	 * repeated declarations; The budget counts from this call; With shared counters, a
+	 * statement containing a LOOP also checks the step limit of the run when it ends, since
+	 * its LOOPs may not have repeated often enough to check it;
+	 *
+	 * @param stmt      STMT node of the program
+	 * @param loops     whether or not stmt contains a LOOP
+	 * @throws CoreRuntimeException if an error occurs
+	 */
+	void execute(STMT stmt, boolean loops) {
+		startBudget();
+		long total = 0;
+		try {
+			execSTMT(stmt);
+		} finally {
+			if (tally != null) total = tally.addSteps(steps - tallied);
+			tallied = steps;
+		}
+		if (tally != null && loops) budget.checkSteps(total, stmt);
+	}
+
+	/*******************************************************************************************
+	 ******************** Step Mode: Execution Paused at each INPUT id *************************
+	 *******************************************************************************************/
+
+	/**
+	 * Start the program in step mode; Statements run in advance() with an explicit stack, so
+	 * the execution can stop at an INPUT id and be forked; Memo mode is not used;
+	 *
+	 * @throws CoreRuntimeException if a variable is declared twice
+	 */
+	public void begin() {
+		startBudget();
+		checkRepeated();
+		depth = 0;
+		waiting = null;
+		push(program.getParseTree().getStmtSeq());
+	}
+
+	/**
+	 * Run until an INPUT id needs a value or the program ends;
+	 *
+	 * @return  whether or not the execution waits for a value; false at the end of the program
+	 * @throws CoreRuntimeException if an error occurs
+	 */
+	public boolean advance() { return advance(Budget.NONE); }
+
+	/**
+	 * Run for a time slice: until an INPUT id needs a value, the program ends, or a LOOP is
+	 * about to repeat after at least slice statements; See isFinished;
+	 *
+	 * @param slice     number of statements after which the execution yields at a back-edge
+	 * @return          whether or not the execution waits for a value
+	 * @throws CoreRuntimeException if an error occurs or the budget is exceeded
+	 */
+	public boolean advance(long slice) {
+		sliceEnd = slice >= Budget.NONE - steps ? Budget.NONE : steps + slice;
+		checkpoint = nextCheckpoint();
+		try {
+			step();
+		} finally {
+			sliceEnd = Budget.NONE;
+			checkpoint = nextCheckpoint();
+		}
+		return waiting != null;
+	}
+
+	/**
+	 * Determine whether the program ended in advance(); Neither waiting nor yielded;
+	 *
+	 * @return  whether or not the execution is complete
+	 */
+	public boolean isFinished() { return waiting == null && depth == 0; }
+
+	/**
+	 * Pop and run nodes of the stack until an INPUT id waits, the stack is empty or the time
+	 * slice ends at a back-edge;
+	 */
+	private void step() {
+		while (waiting == null && depth > 0) {
+			Object top = stack[--depth];
+			stack[depth] = null;
+			if (top instanceof STMT_SEQ) {
+				STMT_SEQ stmtSeq = (STMT_SEQ) top;
+				// Decision: the rest of the STMT_SEQ runs after the STMT;
+				if (stmtSeq.getAltNo() == 1) push(stmtSeq.getStmtSeq());
+				stepSTMT(stmtSeq.getStmt());
+			} else if (top instanceof LOOP) { // Body done; test the condition;
+				LOOP loopStmt = (LOOP) top;
+				if (execCOND(loopStmt.getCond())) {
+					push(loopStmt);
+					push(loopStmt.getStmtSeq());
+					if (steps >= checkpoint && backEdge(loopStmt)) return;
+				}
+			} else { // ID_LIST of an INPUT statement;
+				ID_LIST idList = (ID_LIST) top;
+				if (idList.getAltNo() == 1) push(idList.getIdList());
+				waiting = idList;
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the execution stopped at an INPUT id in advance();
+	 *
+	 * @return  whether or not supply() is expected next
+	 */
+	public boolean isWaiting() { return waiting != null; }
+
+	/**
+	 * Give the waiting INPUT id its value; Errors are those of a normal execution;
+	 *
+	 * @param token     source holding the next token of the DATA, or nothing at its end
+	 * @throws CoreRuntimeException if the input ended, the token is malformed or the id undeclared
+	 */
+	public void supply(InputSource token) {
+		ID_LIST idList = waiting;
+		waiting = null;
+		data = token;
+		setVarByInput(idList);
+	}
+
+	/**
+	 * Copy this execution; Cheap: the frame is copied on the first write of either copy;
+	 *
+	 * @param output    sink for the OUTPUT values of the copy
+	 * @return          executor continuing from the same position
+	 */
+	public Executor fork(OutputSink output) { return new Executor(this, output); }
+
+	/**
+	 * Move the deadline of the run later, e.g. by the time a fork waited while other forks ran;
+	 *
+	 * @param nanos     wall time not charged to the run
+	 */
+	void delayDeadline(long nanos) {
+		if (budget.getMillis() != Budget.NONE) deadline += nanos;
+	}
+
+	/**
+	 * Copy the state of an execution paused in step mode, e.g. for a Checkpoint;
+	 *
+	 * @return  frame, pending nodes, waiting INPUT id and counters of the execution
+	 */
+	Checkpoint.State save() {
+		return new Checkpoint.State(values.clone(), defined.clone(), Arrays.copyOf(stack, depth), waiting, steps,
+				outputs);
+	}
+
+	/**
+	 * Continue a saved execution in step mode instead of begin(); The steps and OUTPUT values
+	 * of the budget count on from the saved state, the wall time from this call;
+	 *
+	 * @param state     state returned by save() for the same program
+	 */
+	void restore(Checkpoint.State state) {
+		startBudget();
+		values = state.values.clone();
+		defined = state.defined.clone();
+		shared = false;
+		stack = Arrays.copyOf(state.stack, Math.max(16, state.stack.length));
+		depth = state.stack.length;
+		waiting = state.waiting;
+		steps = state.steps;
+		outputs = state.outputs;
+		checkpoint = nextCheckpoint();
+	}
+
+	/**
+	 * Enable memo mode: an EXPR returns its cached value while none of the variables it reads
+	 * has been written by ASSIGN, INPUT or CASE since the value was computed;
+	 *
+	 * @param memo  whether or not to cache EXPR values across evaluations
+	 */
+	public void setMemo(boolean memo) { this.memo = memo; }
+
+	/**
+	 * Enable profile mode for the following runs of execute(); Step mode is not profiled;
+	 *
+	 * @param profile   profile to count and time the statements in; null to disable
+	 */
+	public void setProfile(Profile profile) { this.profile = profile; }
+
+	/**
+	 * Getter for the profile of the runs, e.g. for its report;
+	 *
+	 * @return  profile given to setProfile; null if profile mode is disabled
+	 */
+	public Profile getProfile() { return profile; }
+
+	/**
+	 * Limit the following runs; Steps and wall time are checked where a LOOP repeats, so a
+	 * run without loops always ends; OUTPUT values are checked as they are written;
+	 *
+	 * @param budget    limits of a run; Budget.UNLIMITED by default
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/**
+	 * End the run once a flag is set, e.g. when a run on another thread failed; Checked with
+	 * the wall time where a LOOP repeats;
+	 *
+	 * @param abort     flag shared by the runs to stop together; null for none
+	 */
+	void setAbort(AtomicBoolean abort) { this.abort = abort; }
+
+	/**
+	 * Count the steps and OUTPUT values of the runs against counters shared with other
+	 * Executors, and use their deadline, so the budget limits all of them together;
+	 *
+	 * @param tally     counters of the whole run; null for a run of its own
+	 */
+	void setTally(Budget.Tally tally) { this.tally = tally; }
+
+	/**
+	 * Getter for the number of statements executed by the current or last run;
+	 *
+	 * @return  statements executed, including the ones of nested statement sequences
+	 */
+	public long getSteps() { return steps; }
+
+	/**
+	 * Getter for the number of values of a numeric mode that do not fit in 32 bits, e.g. to
+	 * tell whether the run had the result of an int run; See WideFrame;
+	 *
+	 * @return  values stored, compared or read beyond the int range; 0 for the int variables
+	 */
+	public long getOverflows() { return wide == null ? 0 : wide.getOverflows(); }
+
+	/**
+	 * Describe the memo hit rate of the execution;
 	 *
-	 * @param parseTree     parse tree representing the program file
-	 * @param data          name of file containing the input DATA
+	 * @return  hits, lookups and number of cached expressions
 	 */
-	public static void execute(PROG parseTree, String data) {
-		// Generate input list
-		getData(data);
-		// Begin execution
-		execPROG(parseTree);
+	public String getMemoReport() {
+		return "MEMO: " + hits + " hits / " + lookups + " lookups ("
+				+ String.format("%.1f", lookups == 0 ? 0.0 : 100.0 * hits / lookups) + "%) over "
+				+ cache.size() + " expressions";
 	}
 
 	/*******************************************************************************************
@@ -39,57 +437,70 @@ public class Executor {
 	 *******************************************************************************************/
 
 	/**
-	 * Function to execute a PROG node;
+	 * Function to execute a PROG node; Variables are numbered by the Program;
 	 *
 	 * @param prog     PROG node to execute
 	 */
-	private static void execPROG(PROG prog) {
-		// Generate variable list;
-		execDECLSEQ(prog.getDeclSeq());
+	private void execPROG(PROG prog) {
+		startBudget();
+		checkRepeated();
 		// Execute statement sequence;
 		execSTMTSEQ(prog.getStmtSeq());
 	}
 
 	/**
-	 * Function to execute a DECL_SEQ node;
-	 *
-	 * @param declSeq   DECL_SEQ node to execute
+	 * Declarations were resolved when compiling; Report a repeated one before any statement;
 	 */
-	private static void execDECLSEQ(DECL_SEQ declSeq) {
-		execDECL(declSeq.getDecl());
-		// Decision: execute another DECL_SEQ;
-		if (declSeq.getAltNo() == 1) {
-			execDECLSEQ(declSeq.getDeclSeq());
+	void checkRepeated() {
+		ID_LIST repeated = program.getRepeated();
+		if (repeated != null) {
+			throw new CoreRuntimeException("Variable " + repeated.getId() + " has already been instantiated.",
+					repeated);
 		}
 	}
 
 	/**
-	 * Function to execute a DECL node;
-	 *
-	 * @param decl   DECL node to execute
+	 * Reset the counters of the budget at the start of a run and arm its first check;
 	 */
-	private static void execDECL(DECL decl) {
-		execIDLIST(decl.getIdList());
+	private void startBudget() {
+		steps = 0;
+		outputs = 0;
+		tallied = 0;
+		deadline = tally == null ? budget.deadline() : tally.deadline();
+		checkpoint = nextCheckpoint();
 	}
 
 	/**
-	 * Function to declare all identifiers in an ID_LIST node;
+	 * Check the budget where a LOOP repeats; Called once steps reached the checkpoint;
 	 *
-	 * @param idList    ID_LIST node to execute
+	 * @param loopStmt  LOOP node about to repeat, for the error position
+	 * @return          whether or not the time slice is over
+	 * @throws CoreRuntimeException if the step or the time limit is exceeded or the run is aborted
 	 */
-	private static void execIDLIST(ID_LIST idList) {
-		// Add new variable to list;
-		String var = idList.getId();
-		if (!VARIABLES.containsKey(var)) {
-			VARIABLES.put(var, null);
+	private boolean backEdge(LOOP loopStmt) {
+		if (abort != null && abort.get()) throw new CoreRuntimeException("run aborted", loopStmt);
+		if (tally == null) {
+			budget.checkLoop(steps, deadline, loopStmt);
 		} else {
-			System.out.println("ERROR: Variable " + var + " has already been instantiated.");
-			System.exit(2); // Failure Case;
-		}
-		// Decision: execute another ID_LIST;
-		if (idList.getAltNo() == 1) {
-			execIDLIST(idList.getIdList());
+			long total = tally.addSteps(steps - tallied);
+			tallied = steps;
+			budget.checkLoop(total, deadline, loopStmt);
 		}
+		checkpoint = nextCheckpoint();
+		return steps >= sliceEnd;
+	}
+
+	/**
+	 * Step count of the next back-edge check: past the step limit, the next read of the clock
+	 * or of the abort flag, or the end of the time slice, whichever comes first; With shared
+	 * counters, the steps the other Executors added so far count as spent;
+	 *
+	 * @return  step count at which backEdge runs next
+	 */
+	private long nextCheckpoint() {
+		if (tally == null) return budget.nextCheck(steps, sliceEnd, abort != null);
+		long others = tally.addSteps(0) - tallied;
+		return budget.nextCheck(steps + others, Budget.NONE, true) - others;
 	}
 
 	/**
@@ -97,7 +508,7 @@ public class Executor {
 	 *
 	 * @param stmtSeq   STMT_SEQ node to execute
 	 */
-	private static void execSTMTSEQ(STMT_SEQ stmtSeq) {
+	private void execSTMTSEQ(STMT_SEQ stmtSeq) {
 		execSTMT(stmtSeq.getStmt());
 		// Decision: execute another STMT_SEQ;
 		if (stmtSeq.getAltNo() == 1) {
@@ -110,7 +521,9 @@ public class Executor {
 	 *
 	 * @param stmt  STMT node to execute
 	 */
-	private static void execSTMT(STMT stmt) {
+	private void execSTMT(STMT stmt) {
+		steps++;
+		if (active != null) active.enter(stmt);
 		switch (stmt.getAltNo()) {
 			case 1:
 				execASSIGN(stmt.getAssign());
@@ -133,6 +546,48 @@ public class Executor {
 			default:
 				break;
 		}
+		if (active != null) active.exit();
+	}
+
+	/**
+	 * Function to start a STMT node in step mode; Nested statements are pushed on the stack;
+	 *
+	 * @param stmt  STMT node to execute
+	 */
+	private void stepSTMT(STMT stmt) {
+		switch (stmt.getAltNo()) {
+			case 2:
+				steps++;
+				IF ifStmt = stmt.getIf();
+				if (execCOND(ifStmt.getCond())) {
+					push(ifStmt.getStmtSeq());
+				} else if (ifStmt.getAltNo() == 1) { // Potential ELSE clause;
+					push(ifStmt.getElseStmtSeq());
+				}
+				break;
+			case 3: // Body first; the LOOP below it tests the condition;
+				steps++;
+				push(stmt.getLoop());
+				push(stmt.getLoop().getStmtSeq());
+				break;
+			case 4:
+				steps++;
+				push(stmt.getIn().getIdList());
+				break;
+			default:
+				execSTMT(stmt);
+				break;
+		}
+	}
+
+	/**
+	 * Push a node on the stack of step mode;
+	 *
+	 * @param node  STMT_SEQ, LOOP or ID_LIST node
+	 */
+	private void push(Object node) {
+		if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+		stack[depth++] = node;
 	}
 
 	/**
@@ -140,13 +595,13 @@ public class Executor {
 	 *
 	 * @param assignStmt    ASSIGN node to execute
 	 */
-	private static void execASSIGN(ASSIGN assignStmt) {
+	private void execASSIGN(ASSIGN assignStmt) {
 		String id = assignStmt.getLvalue();
-		if (VARIABLES.containsKey(id)) {
-			VARIABLES.put(id, execEXPR(assignStmt.getExpr()));
+		int slot = program.slot(id);
+		if (slot >= 0) {
+			setVar(slot, assignStmt.getExpr());
 		} else {
-			System.out.println("ERROR: variable id " + id + " has not been declared");
-			System.exit(2); // Failure Case;
+			throw new CoreRuntimeException("variable id " + id + " has not been declared", assignStmt);
 		}
 	}
 
@@ -155,7 +610,7 @@ public class Executor {
 	 *
 	 * @param ifStmt    IF node to execute
 	 */
-	private static void execIF(IF ifStmt) {
+	private void execIF(IF ifStmt) {
 		if (execCOND(ifStmt.getCond())) {
 			execSTMTSEQ(ifStmt.getStmtSeq());
 		} else if (ifStmt.getAltNo() == 1) { // Potential ELSE clause;
@@ -168,10 +623,25 @@ public class Executor {
 	 *
 	 * @param loopStmt  LOOP node to execute
 	 */
-	private static void execLOOP(LOOP loopStmt) {
-		do {
-			execSTMTSEQ(loopStmt.getStmtSeq());
-		} while (execCOND(loopStmt.getCond()));
+	private void execLOOP(LOOP loopStmt) {
+		while (execITERATION(loopStmt)) {
+			// Back-edge := the budget is checked; time slices only end in step mode;
+			if (steps >= checkpoint) backEdge(loopStmt);
+		}
+	}
+
+	/**
+	 * Function to execute the body of a LOOP once and test its condition;
+	 *
+	 * @param loopStmt  LOOP node to execute
+	 * @return          whether or not the LOOP repeats
+	 */
+	private boolean execITERATION(LOOP loopStmt) {
+		if (active != null) active.enter(loopStmt);
+		execSTMTSEQ(loopStmt.getStmtSeq());
+		boolean repeat = execCOND(loopStmt.getCond());
+		if (active != null) active.exit();
+		return repeat;
 	}
 
 	/**
@@ -179,7 +649,7 @@ public class Executor {
 	 *
 	 * @param inputStmt IN node to execute
 	 */
-	private static void execIN(IN inputStmt) {
+	private void execIN(IN inputStmt) {
 		// Get initial idList for assignment;
 		ID_LIST idList = inputStmt.getIdList();
 		setVarByInput(idList);
@@ -195,7 +665,7 @@ public class Executor {
 	 *
 	 * @param outputStmt    OUT node to execute
 	 */
-	private static void execOUT(OUT outputStmt) {
+	private void execOUT(OUT outputStmt) {
 		// Get initial idList for output;
 		ID_LIST idList = outputStmt.getIdList();
 		outputVar(idList);
@@ -204,6 +674,7 @@ public class Executor {
 			idList = idList.getIdList();
 			outputVar(idList);
 		}
+		output.endStatement();
 	}
 
 	/**
@@ -212,7 +683,7 @@ public class Executor {
 	 * @param cond  COND node to evaluate
 	 * @return      Boolean result of evaluation
 	 */
-	private static Boolean execCOND(COND cond) {
+	private Boolean execCOND(COND cond) {
 		Boolean result = true;
 		switch (cond.getAltNo()) {
 			case 0: // !COND;
@@ -240,36 +711,78 @@ public class Executor {
 	 * @param cmpr  CMPR node to evaluate
 	 * @return      Boolean result of the evaluation
 	 */
-	private static Boolean execCMPR(CMPR cmpr) {
+	private Boolean execCMPR(CMPR cmpr) {
 		Boolean result = true;
 		CMPR_OP cmprOp = cmpr.getOp();
+		if (wide != null) return holds(cmprOp, wide.compare(cmpr.getExpr1(), cmpr.getExpr2()));
 		if (cmprOp.getOp().equals("EQUALS")) {
-			result = (execEXPR(cmpr.getExpr1()) == execEXPR(cmpr.getExpr2()));
+			result = (evalEXPR(cmpr.getExpr1()) == evalEXPR(cmpr.getExpr2()));
 		} else if (cmprOp.getOp().equals("LESS_THAN")) {
-			result = (execEXPR(cmpr.getExpr1()) < execEXPR(cmpr.getExpr2()));
+			result = (evalEXPR(cmpr.getExpr1()) < evalEXPR(cmpr.getExpr2()));
 		} else if (cmprOp.getOp().equals("GREATER_THAN")) {
-			result = (execEXPR(cmpr.getExpr1()) > execEXPR(cmpr.getExpr2()));
+			result = (evalEXPR(cmpr.getExpr1()) > evalEXPR(cmpr.getExpr2()));
 		} else if (cmprOp.getOp().equals("LESS_EQUAL")) {
-			result = (execEXPR(cmpr.getExpr1()) <= execEXPR(cmpr.getExpr2()));
+			result = (evalEXPR(cmpr.getExpr1()) <= evalEXPR(cmpr.getExpr2()));
 		} else if (cmprOp.getOp().equals("GREATER_EQUAL")) {
-			result = (execEXPR(cmpr.getExpr1()) >= execEXPR(cmpr.getExpr2()));
+			result = (evalEXPR(cmpr.getExpr1()) >= evalEXPR(cmpr.getExpr2()));
 		} else if (cmprOp.getOp().equals("NOT_EQUAL")) {
-			result = (execEXPR(cmpr.getExpr1()) != execEXPR(cmpr.getExpr2()));
+			result = (evalEXPR(cmpr.getExpr1()) != evalEXPR(cmpr.getExpr2()));
 		}
 		return result;
 	}
 
+	/**
+	 * Determine whether a comparison holds in a numeric mode, where the WideFrame compares;
+	 *
+	 * @param cmprOp    CMPR_OP node of the comparison
+	 * @param order     negative, zero or positive as the left side is less, equal or greater
+	 * @return          Boolean result of the comparison
+	 */
+	private static Boolean holds(CMPR_OP cmprOp, int order) {
+		String op = cmprOp.getOp();
+		if (op.equals("EQUALS")) return order == 0;
+		if (op.equals("LESS_THAN")) return order < 0;
+		if (op.equals("GREATER_THAN")) return order > 0;
+		if (op.equals("LESS_EQUAL")) return order <= 0;
+		if (op.equals("GREATER_EQUAL")) return order >= 0;
+		if (op.equals("NOT_EQUAL")) return order != 0;
+		return true;
+	}
+
 	/**********************************************************************
 	 * execCMPROP() omitted - not necessary to implement a trivial method *
 	 **********************************************************************/
 
+	/**
+	 * Function to evaluate an EXPR node used by a statement or comparison; Cached in memo mode;
+	 *
+	 * @param expr  EXPR node to evaluate
+	 * @return      int value of the expression evaluation
+	 */
+	private int evalEXPR(EXPR expr) {
+		if (!memo) return execEXPR(expr);
+		Cached cached = cache.get(expr);
+		if (cached == null) {
+			cached = new Cached(expr, program);
+			cache.put(expr, cached);
+		}
+		lookups++;
+		if (cached.isCurrent(versions)) {
+			hits++;
+			return cached.value;
+		}
+		int value = execEXPR(expr);
+		cached.update(versions, value);
+		return value;
+	}
+
 	/**
 	 * Function to evaluate an EXPR node;
 	 *
 	 * @param expr  EXPR node to evaluate
 	 * @return      int value of the expression evaluation
 	 */
-	private static int execEXPR(EXPR expr) {
+	private int execEXPR(EXPR expr) {
 		int result = execTERM(expr.getTerm());
 		// Decision: add/subtract second EXPR;
 		if (expr.getAltNo() == 1) {
@@ -288,7 +801,7 @@ public class Executor {
 	 * @param term  TERM node to evaluate
 	 * @return      int value of the term evaluation
 	 */
-	private static int execTERM(TERM term) {
+	private int execTERM(TERM term) {
 		int result = execFACTOR(term.getFactor());
 		// Decision: multiply second EXPR;
 		if (term.getAltNo() == 1) {
@@ -303,14 +816,14 @@ public class Executor {
 	 * @param factor    FACTOR node to evaluate
 	 * @return          int value of the factor evaluation
 	 */
-	private static int execFACTOR(FACTOR factor) {
+	private int execFACTOR(FACTOR factor) {
 		int result = 0;
 		switch (factor.getAltNo()) {
 			case 0: // CONST;
 				result = factor.getValue();
 				break;
 			case 1: // ID;
-				result = getValueById(factor.getId());
+				result = getValueById(factor.getId(), factor);
 				break;
 			case 2: // -FACTOR;
 				result = -1*execFACTOR(factor.getFactor());
@@ -329,175 +842,234 @@ public class Executor {
 	 *
 	 * @param caseStmt  CASE node to execute;
 	 */
-	private static void execCASE(CASE caseStmt) {
-		// Get id/value pair and pass into CASES;
-		String id = caseStmt.getId();
-		int value = getValueById(id);
-		execCASES(caseStmt.getCases(), id, value);
+	private void execCASE(CASE caseStmt) {
+		// Get slot/value pair and pass into CASES;
+		int value = getValueById(caseStmt.getId(), caseStmt);
+		execCASES(caseStmt.getCases(), program.slot(caseStmt.getId()), value);
 	}
 
 	/**
 	 * Function to evaluate a CASES statement;
 	 *
 	 * @param cases     CASES node to evaluate
-	 * @param id        id of variable to set
+	 * @param slot      slot of variable to set
 	 * @param value     value of integer to match
 	 */
-	private static void execCASES(CASES cases, String id, int value) {
+	private void execCASES(CASES cases, int slot, int value) {
 		// Set id value to EXPR if value is found in current INT_LIST;
-		if (execINTLIST(cases.getIntList(), value)) {
-			VARIABLES.put(id, execEXPR(cases.getExpr()));
+		if (execINTLIST(cases.getIntList(), slot, value)) {
+			setARM(slot, cases.getExpr());
 		} else if (cases.getAltNo() == 1) { // Decision: more CASES;
-			execCASES(cases.getCases(), id, value);
+			execCASES(cases.getCases(), slot, value);
 		} else { // Decision: else
-			VARIABLES.put(id, execEXPR(cases.getElseExpr()));
+			setARM(slot, cases.getElseExpr());
 		}
 	}
 
+	/**
+	 * Function to set the variable of a CASE to the EXPR of the arm taken; A region of its
+	 * own when profiled;
+	 *
+	 * @param slot  slot of variable to set
+	 * @param expr  EXPR node of the arm
+	 */
+	private void setARM(int slot, EXPR expr) {
+		if (active != null) active.enter(expr);
+		setVar(slot, expr);
+		if (active != null) active.exit();
+	}
+
 	/**
 	 * Determine whether a value is a member of the int list;
 	 *
 	 * @param intList   INT_LIST node to execute
+	 * @param slot      slot of the variable, for the WideFrame of a numeric mode
 	 * @param value     int value to match to members
 	 * @return          whether or not value is contained in intList
 	 */
-	private static Boolean execINTLIST(INT_LIST intList, int value) {
+	private Boolean execINTLIST(INT_LIST intList, int slot, int value) {
 		Boolean result = false;
-		if (intList.getValue() == value) {
+		if (wide != null ? wide.is(slot, intList.getValue()) : intList.getValue() == value) {
 			result = true;
 		} else if (intList.getAltNo() == 1) {
-			result = execINTLIST(intList.getIntList(), value);
+			result = execINTLIST(intList.getIntList(), slot, value);
 		}
 		return result;
 	}
 
 	/*******************************************************************************************
-	 ************************** Methods for Extracting Data from File **************************
+	 ***************************** Helper Methods for Exec Methods *****************************
 	 *******************************************************************************************/
 
 	/**
-	 * Generate token list of lines from DATA file;
+	 * For execIN; Set the id field of the idList to the next integer of the DATA stream;
 	 *
-	 * @param data  file containing the input DATA
+	 * @param idList    node with the current ID field to set to input
 	 */
-	private static void getData(String data) {
-		BufferedReader reader = null;
-		List<String> lines = new LinkedList<String>();
-		try {
-			reader = new BufferedReader(new FileReader(new File(data)));
-			String line;
-			while ((line = reader.readLine()) != null) lines.add(line);
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				if (reader != null)
-					reader.close();
-			} catch (IOException ignored) { }
+	private void setVarByInput(ID_LIST idList) {
+		// Error if no more input tokens;
+		if (data.hasNext()) {
+			// Set value to first input token if id is declared;
+			String currentId = idList.getId();
+			int slot = program.slot(currentId);
+			if (slot >= 0) {
+				try {
+					if (wide != null) {
+						wide.input(slot, data);
+						instantiate(slot);
+					} else {
+						setVar(slot, data.next());
+					}
+				} catch (NumberFormatException e) {
+					throw new CoreRuntimeException("Input " + e.getMessage() + " does not match a valid integer",
+							idList);
+				}
+			} else {
+				throw new CoreRuntimeException("variable id " + currentId + " has not been declared", idList);
+			}
+		} else {
+			throw new CoreRuntimeException("no more input, cannot take input", idList);
 		}
-		updateDataList(lines);
 	}
 
 	/**
-	 * Update DATA list with integers from DATA lines;
+	 * Set the value of a declared variable; Bump its version for memo mode;
 	 *
-	 * @param lines     lines of the DATA file read from BufferedReader
+	 * @param slot      frame slot of the identifier
+	 * @param value     value to associate to identifier
 	 */
-	private static void updateDataList(List<String> lines) {
-		for (String line : lines) {
-			int i = 0, len = line.length();
-			while (i < len) {
-				String token = "";
-				// Ensure j - i = |next token|;
-				int j = i + 1;
-				// First character from character stream;
-				char first = line.charAt(i);
-				if (Character.isDigit(first) || first == '-') {
-					while (j < len && Character.isDigit(line.charAt(j))) j++;
-					token = line.substring(i, j);
-				}
-				// Try to parse int and add value to DATA;
-				if (token.length() > 0) {
-					try {
-						DATA.add(Integer.parseInt(token));
-					} catch (NumberFormatException e) {
-						System.out.println("ERROR: Input " + token + " does not match a valid integer");
-						System.exit(2);
-					}
-				}
-				// Update index with length of built token; Only increment for whitespace;
-				i = j;
-			}
-		}
+	private void setVar(int slot, int value) {
+		instantiate(slot);
+		values[slot] = value;
 	}
 
-	/*******************************************************************************************
-	 ***************************** Helper Methods for Exec Methods *****************************
-	 *******************************************************************************************/
-
 	/**
-	 * For execIN; Set the id field of the idList to the Integer at DATA.remove(0);
+	 * Set a declared variable to the value of an EXPR; The WideFrame evaluates and stores it
+	 * in a numeric mode;
 	 *
-	 * @param idList    node with the current ID field to set to input
+	 * @param slot      frame slot of the identifier
+	 * @param expr      EXPR node giving the value
 	 */
-	private static void setVarByInput(ID_LIST idList) {
-		// Error if no more input tokens;
-		if (DATA.size() > 0) {
-			// Set value to first input token if id is in VARIABLES and |VARIABLES| > 0;
-			String currentId = idList.getId();
-			if (VARIABLES.containsKey(currentId)) {
-				VARIABLES.put(currentId, DATA.remove(0));
-			} else {
-				System.out.println("ERROR: variable id " + currentId + " has not been declared");
-				System.exit(2); // Failure Case;
-			}
+	private void setVar(int slot, EXPR expr) {
+		if (wide != null) {
+			wide.assign(slot, expr);
+			instantiate(slot);
 		} else {
-			System.out.println("ERROR: no more input, cannot take input");
-			System.exit(2); // Failure Case;
+			setVar(slot, evalEXPR(expr));
 		}
 	}
 
 	/**
-	 * For execOUT; Print value of id of idList to System.out if in VARIABLES;
+	 * Mark a variable instantiated before its value is written; Copies a frame shared with a
+	 * fork first;
+	 *
+	 * @param slot      frame slot of the identifier
+	 */
+	private void instantiate(int slot) {
+		if (shared) {
+			values = values.clone();
+			defined = defined.clone();
+			shared = false;
+		}
+		defined[slot] = true;
+		if (memo) versions[slot]++;
+	}
+
+	/**
+	 * For execOUT; Write value of id of idList to the output sink if it is instantiated;
 	 *
 	 * @param idList    node with the current ID field to output
 	 */
-	private static void outputVar(ID_LIST idList) {
-		String currentId = idList.getId();
-		if (VARIABLES.containsKey(currentId)) {
-			if (VARIABLES.get(currentId) != null) {
-				System.out.println(VARIABLES.get(currentId));
-			} else {
-				System.out.println("ERROR: variable id " + currentId + " has not been instantiated");
-				System.exit(2); // Failure Case;
-			}
+	private void outputVar(ID_LIST idList) {
+		budget.checkOutput(tally == null ? ++outputs : tally.addOutput(), idList);
+		if (wide != null) {
+			wide.output(slot(idList.getId(), idList), output);
 		} else {
-			System.out.print("ERROR: variable id " + currentId + " has not been declared");
-			System.exit(2); // Failure Case;
+			output.write(getValueById(idList.getId(), idList));
 		}
 	}
 
 	/**
 	 * For resolving an ID to a CONST;
 	 *
-	 * @param id    identifier name to look up in VARIABLES
+	 * @param id    identifier name to look up in the frame
+	 * @param node  node reading the identifier, for the error position
 	 * @return      value associated to identifier name
 	 */
-	private static int getValueById(String id) {
-		int result = 0;
-		if (VARIABLES.containsKey(id)) {
-			if (VARIABLES.get(id) != null) {
-				result = VARIABLES.get(id);
-			} else {
-				System.out.println("ERROR: variable id " + id + " has not been instantiated");
-				System.exit(2); // Failure Case;
+	private int getValueById(String id, NODE node) { return values[slot(id, node)]; }
+
+	/**
+	 * Resolve an id read by a node to its slot; Also for the WideFrame of a numeric mode;
+	 *
+	 * @param id    identifier name
+	 * @param node  node reading the identifier, for the error position
+	 * @return      slot of an instantiated variable
+	 */
+	int slot(String id, NODE node) {
+		int slot = program.slot(id);
+		if (slot < 0) {
+			throw new CoreRuntimeException("variable id " + id + " has not been declared", node);
+		} else if (!defined[slot]) {
+			throw new CoreRuntimeException("variable id " + id + " has not been instantiated", node);
+		}
+		return slot;
+	}
+
+	/*******************************************************************************************
+	 ****************************** Cached Value of an EXPR Node *******************************
+	 *******************************************************************************************/
+
+	/**
+	 * Memo entry of an EXPR; Records the slots of the variables the EXPR reads;
+	 */
+	private static class Cached {
+
+		private final int[] slots;        // slots of the ids read; null if uncacheable;
+		private final int[] seen;         // versions of the ids when value was computed;
+		private boolean valid = false;
+		private int value;
+
+		private Cached(EXPR expr, Program program) {
+			Set<String> ids = new LinkedHashSet<String>();
+			reads(expr, ids);
+			int[] found = new int[ids.size()];
+			int i = 0;
+			for (String id : ids) {
+				found[i] = program.slot(id);
+				// Undeclared ids are never cached so the error is still reported;
+				if (found[i++] < 0) {
+					found = null;
+					break;
+				}
+			}
+			slots = found;
+			seen = new int[ids.size()];
+		}
+
+		private boolean isCurrent(int[] versions) {
+			if (!valid) return false;
+			for (int i = 0; i < slots.length; i++) {
+				if (versions[slots[i]] != seen[i]) return false;
+			}
+			return true;
+		}
+
+		private void update(int[] versions, int value) {
+			if (slots == null) return;
+			for (int i = 0; i < slots.length; i++) seen[i] = versions[slots[i]];
+			this.value = value;
+			valid = true;
+		}
+
+		private static void reads(EXPR expr, Set<String> ids) {
+			for (; expr != null; expr = expr.getExpr()) {
+				for (TERM term = expr.getTerm(); term != null; term = term.getTerm()) {
+					FACTOR factor = term.getFactor();
+					while (factor.getAltNo() == 2) factor = factor.getFactor();
+					if (factor.getAltNo() == 1) ids.add(factor.getId());
+					else if (factor.getAltNo() == 3) reads(factor.getExpr(), ids);
+				}
 			}
-		} else {
-			System.out.println("ERROR: variable id " + id + " has not been declared");
-			System.exit(2); // Failure Case;
 		}
-		return result;
 	}
 }
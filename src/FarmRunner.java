@@ -0,0 +1,180 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * FarmRunner Class for the Core Interpreter Project; Many programs run against one shared data file;
+ */
+public class FarmRunner {
+
+	/*******************************************************************************************
+	 * Private Members: Shared Parsed Data; Worker Count; Budget & Scheduler of the Runs;       *
+	 * Latencies per Program and Phase                                                         *
+	 *******************************************************************************************/
+
+	private final ArrayInput data;
+	private final int threads;
+	private Budget budget = Budget.UNLIMITED;
+	private Scheduler scheduler = null;
+	private Scheduler.Task[] tasks;
+	private long[] parseNanos;
+	private long[] compileNanos;
+	private long[] executeNanos;
+
+	/**
+	 * Prepare farm runs against data parsed once; Every program reads it through its own cursor;
+	 *
+	 * @param data      parsed input data, shared read-only by all programs
+	 * @param threads   number of worker threads
+	 */
+	public FarmRunner(ArrayInput data, int threads) {
+		this.data = data;
+		this.threads = threads;
+	}
+
+	/**
+	 * Limit every run of the farm; See Executor.setBudget;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/**
+	 * Execute the programs time-sliced on a Scheduler instead of on the workers, so a program
+	 * that loops forever cannot hold a worker; Scanning, parsing and compiling stay on the workers;
+	 *
+	 * @param scheduler     scheduler running the executions; null to execute on the workers
+	 */
+	public void setScheduler(Scheduler scheduler) { this.scheduler = scheduler; }
+
+	/*******************************************************************************************
+	 ************************** Start Method for Beginning a Farm Run **************************
+	 *******************************************************************************************/
+
+	/**
+	 * Scan, parse, compile and execute every program on a work-stealing pool; The OUTPUT values
+	 * of a program are written to outDir/name.out, followed by its error message if it failed;
+	 *
+	 * @param programs  program files
+	 * @param outDir    directory for the output files; created if missing
+	 * @return          report of the farm run, in the order of programs
+	 */
+	public BatchRunner.Report run(List<File> programs, File outDir) {
+		BatchRunner.createDirectory(outDir);
+		final String[] errors = new String[programs.size()];
+		parseNanos = new long[programs.size()];
+		compileNanos = new long[programs.size()];
+		executeNanos = new long[programs.size()];
+		Arrays.fill(compileNanos, -1);
+		Arrays.fill(executeNanos, -1);
+		tasks = new Scheduler.Task[programs.size()];
+		long start = System.nanoTime();
+		BatchRunner.forEach(threads, programs.size(), i -> errors[i] = runOne(i, programs.get(i), outDir));
+		for (int i = 0; i < tasks.length; i++) {
+			if (tasks[i] != null) errors[i] = await(i, new File(outDir, programs.get(i).getName() + ".out"));
+		}
+		return new BatchRunner.Report(programs, errors, System.nanoTime() - start);
+	}
+
+	/**
+	 * Describe the latency percentiles of each phase; Failed phases are not counted;
+	 *
+	 * @return  one line per phase: p50, p90, p99 and max in microseconds
+	 */
+	public String getLatencyReport() {
+		return latency("parse", parseNanos) + System.lineSeparator()
+				+ latency("compile", compileNanos) + System.lineSeparator()
+				+ latency("execute", executeNanos);
+	}
+
+	/*******************************************************************************************
+	 ********************************** Helper Methods for Workers *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Scan, parse, compile and execute one program; Times each phase;
+	 *
+	 * @param i         index of the program
+	 * @param program   program file
+	 * @param outDir    directory for the output file
+	 * @return          error message of the program; null if it succeeded
+	 */
+	private String runOne(int i, File program, File outDir) {
+		File out = new File(outDir, program.getName() + ".out");
+		OutputSink sink = OutputSink.file(out.getPath(), OutputSink.FlushPolicy.THROUGHPUT);
+		try {
+			long t0 = System.nanoTime();
+			PROG parseTree = Parser.getParseTree(Scanner.open(program.getPath()));
+			long t1 = System.nanoTime();
+			parseNanos[i] = t1 - t0;
+			Program compiled = Program.compile(parseTree);
+			long t2 = System.nanoTime();
+			compileNanos[i] = t2 - t1;
+			if (scheduler != null) {
+				tasks[i] = scheduler.submit(compiled, data.cursor(0), sink, budget);
+				return null;
+			}
+			Executor executor = new Executor(compiled, data.cursor(0), sink);
+			executor.setBudget(budget);
+			executor.execute();
+			executeNanos[i] = System.nanoTime() - t2;
+			return null;
+		} catch (Throwable e) {
+			// Any failure is the error of this program alone, e.g. a StackOverflowError of deep nesting;
+			try {
+				sink.close();
+			} catch (Throwable ignored) { }
+			return BatchRunner.appendError(out, CoreException.messageOf(e));
+		}
+	}
+
+	/**
+	 * Wait for the scheduled execution of a program;
+	 *
+	 * @param i     index of the program
+	 * @param out   output file of the program
+	 * @return      error message of the program; null if it succeeded
+	 */
+	private String await(int i, File out) {
+		try {
+			String error = tasks[i].await();
+			executeNanos[i] = tasks[i].getNanos();
+			return error == null ? null : BatchRunner.appendError(out, error);
+		} catch (InterruptedException e) {
+			throw new CoreRuntimeException("farm run interrupted");
+		}
+	}
+
+	/**
+	 * Format the percentiles of the completed latencies of a phase;
+	 *
+	 * @param phase     name of the phase
+	 * @param nanos     latency per program; -1 where the phase did not complete
+	 * @return          line of the report
+	 */
+	private static String latency(String phase, long[] nanos) {
+		long[] done = new long[nanos.length];
+		int n = 0;
+		for (long t : nanos) {
+			if (t >= 0) done[n++] = t;
+		}
+		Arrays.sort(done, 0, n);
+		return String.format("FARM %-8s n=%d p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus", phase, n,
+				percentile(done, n, 50), percentile(done, n, 90), percentile(done, n, 99),
+				n == 0 ? 0.0 : done[n - 1] / 1e3);
+	}
+
+	/**
+	 * Nearest-rank percentile of sorted latencies;
+	 *
+	 * @param sorted    latencies in ascending order
+	 * @param n         number of latencies
+	 * @param p         percentile in (0, 100]
+	 * @return          latency in microseconds; 0 if there are none
+	 */
+	private static double percentile(long[] sorted, int n, int p) {
+		if (n == 0) return 0.0;
+		int rank = (int) Math.ceil(p / 100.0 * n);
+		return sorted[Math.max(rank, 1) - 1] / 1e3;
+	}
+}
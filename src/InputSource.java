@@ -0,0 +1,164 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * InputSource Class for the Core Interpreter Project; Stream of the integers read by INPUT;
+ */
+public abstract class InputSource {
+
+	/***********************************************************************************************
+	 ************************************ Methods for Executor *************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Determine whether another integer token remains; Advances past separators only;
+	 *
+	 * @return  whether or not INPUT can take another value
+	 */
+	public abstract boolean hasNext();
+
+	/**
+	 * Consume the next integer token; Only valid after hasNext() returned true;
+	 *
+	 * @return  value of the next integer token
+	 * @throws NumberFormatException    if the token does not match a valid integer; message is the token
+	 */
+	public abstract int next();
+
+	/**
+	 * Consume the next integer token as a long, for WideFrame; Sources of int32 values
+	 * never hold more;
+	 *
+	 * @return  value of the next integer token
+	 * @throws NumberFormatException    if the token does not match a valid long; message is the token
+	 */
+	public long nextLong() { return next(); }
+
+	/**
+	 * Consume the next integer token at any precision, for WideFrame; The long parser
+	 * handles every token but the ones of more than 18 digits;
+	 *
+	 * @return  value of the next integer token
+	 * @throws NumberFormatException    if the token does not match a valid integer; message is the token
+	 */
+	public BigInteger nextBig() {
+		try {
+			return BigInteger.valueOf(nextLong());
+		} catch (NumberFormatException e) {
+			// The message is the token; it is an integer beyond the long range if only digits;
+			String token = e.getMessage();
+			if (token == null || !token.matches("-?[0-9]+")) throw e;
+			return new BigInteger(token);
+		}
+	}
+
+	/**
+	 * Release the underlying file or stream;
+	 */
+	public void close() { }
+
+	/**
+	 * Offset of the next token, e.g. for a Checkpoint; Only sources over files or memory have one;
+	 *
+	 * @return  offset to pass to seek() on a source over the same data; -1 if the source cannot seek
+	 */
+	public long position() { return -1; }
+
+	/**
+	 * Continue at an offset returned by position() on a source over the same data, which may
+	 * have grown since;
+	 *
+	 * @param position  offset of the next token
+	 * @throws CoreRuntimeException if the source cannot seek
+	 */
+	public void seek(long position) {
+		throw new CoreRuntimeException("input data cannot be resumed from an offset");
+	}
+
+	/***********************************************************************************************
+	 ************************************ Factory Methods for Sources ******************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Open a data file for lazy reading; The binary format is detected by its header, and a
+	 * file starting with "CORE" but not the version is text; Pipes and devices are read as
+	 * text streams; A missing file is reported and read as empty;
+	 *
+	 * @param data  name of file containing the input data
+	 * @return      source of the integers in the data file
+	 */
+	public static InputSource open(String data) {
+		try {
+			if (new File(data).exists() && !new File(data).isFile()) {
+				return new TextInput(Channels.newChannel(new FileInputStream(data)));
+			}
+			FileChannel channel = new RandomAccessFile(data, "r").getChannel();
+			ByteBuffer header = ByteBuffer.allocate(BinaryInput.HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && channel.read(header, header.position()) > 0) { }
+			if (header.position() < BinaryInput.HEADER || !isBinary(header)) return new TextInput(channel);
+			return new BinaryInput(channel);
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return new TextInput(new byte[0]);
+	}
+
+	/**
+	 * Read data held in memory, e.g. received over a socket; The format is detected by its header;
+	 *
+	 * @param data  bytes of the data in the text or the binary format
+	 * @return      source of the integers in the data
+	 */
+	public static InputSource wrap(byte[] data) {
+		ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		if (data.length < BinaryInput.HEADER || !isBinary(buffer)) return new TextInput(data);
+		buffer.position(BinaryInput.HEADER);
+		int[] values = new int[buffer.remaining() / 4];
+		buffer.asIntBuffer().get(values);
+		return ArrayInput.of(values, buffer.remaining() % 4 != 0 ? "<truncated int32>" : null);
+	}
+
+	/**
+	 * Read all integers of a data file into a list; Used by the Specializer for a known prefix;
+	 *
+	 * @param data  name of file containing the input data
+	 * @return      list of integers in the data file
+	 * @throws CoreRuntimeException if a token does not match a valid integer
+	 */
+	public static List<Integer> readAll(String data) {
+		InputSource source = open(data);
+		List<Integer> values = new ArrayList<Integer>();
+		try {
+			while (source.hasNext()) values.add(source.next());
+		} catch (NumberFormatException e) {
+			throw new CoreRuntimeException("Input " + e.getMessage() + " does not match a valid integer");
+		} finally {
+			source.close();
+		}
+		return values;
+	}
+
+	/***********************************************************************************************
+	 ************************************ Helper Methods for the Header ****************************
+	 ***********************************************************************************************/
+
+	private static boolean isBinary(ByteBuffer header) {
+		for (int i = 0; i < BinaryInput.MAGIC.length; i++) {
+			if (header.get(i) != BinaryInput.MAGIC[i]) return false;
+		}
+		// Text such as "CORE 1 2" has the magic; only the binary version follows it as an int32;
+		return header.getInt(4) == BinaryInput.VERSION;
+	}
+}
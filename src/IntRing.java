@@ -0,0 +1,121 @@
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * IntRing Class for the Core Interpreter Project; Bounded single-producer single-consumer queue of ints;
+ */
+public class IntRing {
+
+	/***********************************************************************************************
+	 * Private Members: Primitive Buffer; Read & Write Counters; End of Stream; Parked Threads     *
+	 ***********************************************************************************************/
+
+	private final int[] buffer;
+	private final int mask;
+	private volatile long head = 0;          // count of values taken;
+	private volatile long tail = 0;          // count of values put;
+	private volatile boolean closed = false;
+	private volatile boolean abandoned = false;
+	private volatile String error = null;
+	private volatile Thread consumer = null;
+	private volatile Thread producer = null;
+
+	/**
+	 * Create an empty ring;
+	 *
+	 * @param capacity  maximum number of queued values; rounded up to a power of two
+	 */
+	public IntRing(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		buffer = new int[size];
+		mask = size - 1;
+	}
+
+	/***********************************************************************************************
+	 ************************************** Producer Methods ***************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Queue a value; Blocks while the ring is full, which stops the producer reading ahead;
+	 * Dropped once the consumer abandoned the ring;
+	 *
+	 * @param value     value to queue
+	 */
+	public void put(int value) {
+		long t = tail;
+		while (t - head == buffer.length) {
+			if (abandoned) return;
+			producer = Thread.currentThread();
+			if (t - head == buffer.length && !abandoned) LockSupport.park(this);
+			producer = null;
+		}
+		buffer[(int) t & mask] = value;
+		tail = t + 1;
+		Thread waiting = consumer;
+		if (waiting != null) LockSupport.unpark(waiting);
+	}
+
+	/**
+	 * Mark the end of the stream; The consumer drains the queued values first;
+	 */
+	public void close() {
+		closed = true;
+		Thread waiting = consumer;
+		if (waiting != null) LockSupport.unpark(waiting);
+	}
+
+	/**
+	 * Mark the end of the stream at a malformed token; Reported after the queued values;
+	 *
+	 * @param token     text of the malformed token
+	 */
+	public void fail(String token) {
+		error = token;
+		close();
+	}
+
+	/***********************************************************************************************
+	 ************************************** Consumer Methods ***************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Wait for a value or the end of the stream;
+	 *
+	 * @return  whether or not a value or a malformed token is next
+	 */
+	public boolean hasNext() {
+		while (head == tail) {
+			if (closed) return head != tail || error != null;
+			consumer = Thread.currentThread();
+			if (head == tail && !closed) LockSupport.park(this);
+			consumer = null;
+		}
+		return true;
+	}
+
+	/**
+	 * Take the next value; Only valid after hasNext() returned true;
+	 *
+	 * @return  next value of the stream
+	 * @throws NumberFormatException    if the stream ended at a malformed token
+	 */
+	public int take() {
+		long h = head;
+		if (h == tail) throw new NumberFormatException(error);
+		int value = buffer[(int) h & mask];
+		head = h + 1;
+		// Wake a blocked producer only once half the ring is free, not for every value;
+		Thread waiting = producer;
+		if (waiting != null && tail - (h + 1) <= buffer.length / 2) LockSupport.unpark(waiting);
+		return value;
+	}
+
+	/**
+	 * Stop consuming, e.g. when the program ended before its input; A producer blocked on a
+	 * full ring returns, and later values that do not fit are dropped;
+	 */
+	public void abandon() {
+		abandoned = true;
+		Thread waiting = producer;
+		if (waiting != null) LockSupport.unpark(waiting);
+	}
+}
@@ -0,0 +1,175 @@
+import java.util.Arrays;
+
+/**
+ * Interpreter Class for the Core Interpreter Project; One program with its own token stream,
+ * parse tree and variables; Independent instances can run concurrently in one JVM;
+ */
+public class Interpreter {
+
+	/*******************************************************************************************
+	 * Private Members: Token Stream; Parse Tree; Compiled Program; Executor of the Last Run;   *
+	 * Options of the Following Runs; Statement DAG of Parallel Runs                           *
+	 *******************************************************************************************/
+
+	private final Scanner scanner;
+	private final PROG parseTree;
+	private final Program program;
+	private Executor executor = null;
+	private boolean memo = false;
+	private boolean profile = false;
+	private Budget budget = Budget.UNLIMITED;
+	private int parallel = 0;
+	private WideFrame.Mode numeric = null;
+	private ParallelRegions regions = null;
+
+	/**
+	 * Parse and compile a program; Nothing is printed and nothing is shared with other instances;
+	 *
+	 * @param scanner   token stream of the program
+	 * @throws CoreSyntaxException  if the token stream is not a valid program
+	 */
+	public Interpreter(Scanner scanner) {
+		this.scanner = scanner;
+		this.parseTree = Parser.getParseTree(scanner);
+		this.program = Program.compile(parseTree);
+	}
+
+	/**
+	 * Compile a parse tree built or decoded elsewhere, e.g. by ProgramCache; Has no token stream;
+	 *
+	 * @param parseTree     parse tree representing the program file
+	 */
+	public Interpreter(PROG parseTree) {
+		this.scanner = null;
+		this.parseTree = parseTree;
+		this.program = Program.compile(parseTree);
+	}
+
+	/**
+	 * Parse and compile a program file;
+	 *
+	 * @param programFile   name of file containing program code
+	 * @return              interpreter of the program
+	 * @throws CoreException    if the file cannot be read or is not a valid program
+	 */
+	public static Interpreter load(String programFile) { return new Interpreter(Scanner.open(programFile)); }
+
+	/**
+	 * Parse and compile program code held in memory;
+	 *
+	 * @param source    program code
+	 * @return          interpreter of the program
+	 * @throws CoreSyntaxException  if the code is not a valid program
+	 */
+	public static Interpreter fromSource(String source) {
+		return new Interpreter(new Scanner(new Tokenizer(Arrays.asList(source.split("\r?\n", -1)))));
+	}
+
+	/*******************************************************************************************
+	 ************************************* Methods for Running *********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Enable memo mode for the following runs; See Executor.setMemo;
+	 *
+	 * @param memo  whether or not to cache EXPR values across evaluations
+	 */
+	public void setMemo(boolean memo) { this.memo = memo; }
+
+	/**
+	 * Profile the statements of the following runs, each run on its own; See Profile; Parallel
+	 * and wide runs are not profiled;
+	 *
+	 * @param profile   whether or not to count and time every statement
+	 */
+	public void setProfile(boolean profile) { this.profile = profile; }
+
+	/**
+	 * Limit the following runs; See Executor.setBudget;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/**
+	 * Run independent top-level statements of the following runs concurrently; See
+	 * ParallelRegions; Memo mode does not apply to such runs;
+	 *
+	 * @param threads   number of worker threads; 0 to run every statement in order
+	 */
+	public void setParallel(int threads) {
+		this.parallel = threads;
+		this.regions = threads > 0 ? new ParallelRegions(program, threads) : null;
+	}
+
+	/**
+	 * Run the following runs with 64-bit or arbitrary precision variables; See WideFrame;
+	 * Memo mode and parallel runs do not apply to them;
+	 *
+	 * @param numeric   numeric mode; null for the int variables of the Executor
+	 */
+	public void setNumeric(WideFrame.Mode numeric) { this.numeric = numeric; }
+
+	/**
+	 * Execute the program with fresh variables; Closes the source and the sink;
+	 *
+	 * @param data      source of the input data
+	 * @param output    sink for the values of OUTPUT statements
+	 * @throws CoreRuntimeException if an execution error occurs
+	 */
+	public void run(InputSource data, OutputSink output) {
+		if (numeric != null) {
+			executor = new Executor(program, numeric, data, output);
+			executor.setBudget(budget);
+			executor.execute();
+			return;
+		}
+		if (parallel > 0 && regions.isParallel()) {
+			executor = null;
+			regions.setBudget(budget);
+			regions.run(data, output);
+			return;
+		}
+		executor = new Executor(program, data, output);
+		executor.setMemo(memo);
+		executor.setBudget(budget);
+		if (profile) executor.setProfile(new Profile());
+		executor.execute();
+	}
+
+	/**
+	 * Execute the program with fresh variables on a data file;
+	 *
+	 * @param data      name of file containing the input data
+	 * @param output    sink for the values of OUTPUT statements
+	 * @throws CoreRuntimeException if an execution error occurs
+	 */
+	public void run(String data, OutputSink output) { run(InputSource.open(data), output); }
+
+	/*******************************************************************************************
+	 ************************************* Getter Methods **************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Getter for the token stream of the program;
+	 *
+	 * @return  scanner of the program; null if the parse tree was not parsed by this instance
+	 */
+	public Scanner getScanner() { return scanner; }
+	public PROG getParseTree() { return parseTree; }
+	public Program getProgram() { return program; }
+
+	/**
+	 * Getter for the Executor of the last run, e.g. for its memo report;
+	 *
+	 * @return  executor of the last run; null before the first run or after a parallel one
+	 */
+	public Executor getExecutor() { return executor; }
+
+	/**
+	 * Getter for the statement DAG of parallel runs, e.g. for its report;
+	 *
+	 * @return  regions of the program; null unless parallel runs are enabled
+	 */
+	public ParallelRegions getRegions() { return regions; }
+}
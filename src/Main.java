@@ -1,37 +1,523 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
 /**
  * Main Class for the Core Interpreter Project;
  */
 public class Main {
 
+	private static final long RESULT_MEMORY = 64L << 20;   // bytes of results kept in memory;
+	private static final long RESULT_DISK = 1L << 30;      // bytes of result files kept on disk;
+
+	// Errors := standard error once standard output carries binary OUTPUT values;
+	private static PrintStream errors = System.out;
+
 	/**
 	 * Interpretation := scan tokens => generate parse tree => print program => execute program;
+	 * Specialization := scan tokens => generate parse tree => print residual program for a prefix;
+	 * Pipe := scan tokens => generate parse tree => execute program on standard input;
+	 * Batch := scan tokens => generate parse tree => execute program on every file of a directory;
+	 * Columnar := scan tokens => generate parse tree => execute blocks of data files in SIMD lanes;
+	 * Farm := read data once => scan, parse & execute every program of a directory against it;
+	 * Sessions := scan tokens => generate parse tree => many concurrent runs fed input over time;
+	 * Daemon := serve (program, data) requests of Clients with a cache of compiled programs;
+	 * Conversion := read data file in either format => write data file in the given format;
 	 *
-	 * @param args  command line arguments; args[0] is the program; args[1] is the input data;
+	 * @param args  command line arguments; [options] program [data]; see usage in README;
 	 */
 	public static void main (String[] args) {
 		try {
-			// Scanner := token stream;
-			Scanner.begin(args[0]);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			System.out.println("Unknown option or incorrect number of arguments");
+			run(args);
+		} catch (CoreException e) {
+			// Errors := report after the output written so far; Failure Case;
+			errors.println("ERROR: " + e.getMessage());
 			System.exit(2);
 		}
+	}
+
+	/**
+	 * Parse the command line and run the requested mode; Errors are thrown as CoreExceptions;
+	 *
+	 * @param args  command line arguments
+	 */
+	private static void run(String[] args) {
+		String prefix = null, output = null, convert = null;
+		OutputSink.FlushPolicy policy = OutputSink.FlushPolicy.THROUGHPUT;
+		String printTo = null, batch = null, batchOut = null, farm = null, cacheDir = null, resultDir = null;
+		String checkpointFile = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int daemon = -1, cache = 256, sessions = 0, workers = 0;
+		long maxSteps = Budget.NONE, maxTime = Budget.NONE, maxOutput = Budget.NONE, slice = 0;
+		long checkpointInterval = 60000;
+		boolean binary = false, pipe = false, print = true, async = false, memo = false, share = false;
+		boolean columnar = false, parallel = false, restore = false, profile = false;
+		WideFrame.Mode numeric = null;
+		Interpreter interpreter = null;
+		ResultCache results = null;
+		Budget budget = Budget.UNLIMITED;
+		int arg = 0;
+		try {
+			// Options := flags preceding the program file; the daemon takes no program file;
+			while (arg < args.length && args[arg].startsWith("--")) {
+				String option = args[arg++];
+				if (option.equals("--specialize")) {
+					prefix = args[arg++];
+				} else if (option.equals("--memo")) {
+					memo = true;
+				} else if (option.equals("--profile")) {
+					profile = true;
+				} else if (option.equals("--output")) {
+					output = args[arg++];
+				} else if (option.equals("--flush")) {
+					policy = flushPolicy(args[arg++]);
+				} else if (option.equals("--output-format")) {
+					binary = isBinary(args[arg++]);
+				} else if (option.equals("--no-print")) {
+					print = false;
+				} else if (option.equals("--print-to")) {
+					printTo = args[arg++];
+				} else if (option.equals("--print-async")) {
+					async = true;
+				} else if (option.equals("--pipe")) {
+					pipe = true;
+				} else if (option.equals("--batch")) {
+					batch = args[arg++];
+					batchOut = args[arg++];
+				} else if (option.equals("--daemon")) {
+					daemon = Integer.parseInt(args[arg++]);
+				} else if (option.equals("--cache")) {
+					cache = Integer.parseInt(args[arg++]);
+					if (cache < 1) usage();
+				} else if (option.equals("--cache-dir")) {
+					cacheDir = args[arg++];
+				} else if (option.equals("--result-cache")) {
+					resultDir = args[arg++];
+				} else if (option.equals("--farm")) {
+					farm = args[arg++];
+					batchOut = args[arg++];
+				} else if (option.equals("--sessions")) {
+					sessions = Integer.parseInt(args[arg++]);
+					if (sessions < 1) usage();
+				} else if (option.equals("--max-steps")) {
+					maxSteps = limit(args[arg++]);
+				} else if (option.equals("--max-time")) {
+					maxTime = limit(args[arg++]);
+				} else if (option.equals("--max-output")) {
+					maxOutput = limit(args[arg++]);
+				} else if (option.equals("--slice")) {
+					slice = limit(args[arg++]);
+					if (slice == 0) usage();
+				} else if (option.equals("--workers")) {
+					workers = Integer.parseInt(args[arg++]);
+					if (workers < 1) usage();
+				} else if (option.equals("--share-prefix")) {
+					share = true;
+				} else if (option.equals("--columnar")) {
+					columnar = true;
+				} else if (option.equals("--parallel")) {
+					parallel = true;
+				} else if (option.equals("--checkpoint")) {
+					checkpointFile = args[arg++];
+				} else if (option.equals("--checkpoint-interval")) {
+					checkpointInterval = limit(args[arg++]);
+					if (checkpointInterval == 0) usage();
+				} else if (option.equals("--restore")) {
+					restore = true;
+				} else if (option.equals("--numeric")) {
+					numeric = numericMode(args[arg++]);
+				} else if (option.equals("--threads")) {
+					threads = Integer.parseInt(args[arg++]);
+					if (threads < 1) usage();
+				} else if (option.equals("--convert")) {
+					convert = args[arg++];
+				} else {
+					usage();
+				}
+			}
+			budget = new Budget(maxSteps, maxTime, maxOutput);
+			if (binary && output == null) errors = System.err;
+			if ((restore && checkpointFile == null) || (checkpointFile != null && pipe)) usage();
+			// WideFrame := single runs on a data file only, without memo; other modes run int variables;
+			if (numeric != null && (memo || pipe || prefix != null || batch != null || farm != null || daemon >= 0
+					|| sessions > 0 || parallel || checkpointFile != null || resultDir != null)) {
+				usage();
+			}
+			// Memo := Executor runs of their own; prefix-sharing and columnar batches do not memoize;
+			if (memo && (share || columnar)) usage();
+			// Profile := single runs of the Executor on a data file or standard input;
+			if (profile && (numeric != null || prefix != null || batch != null || farm != null || daemon >= 0
+					|| sessions > 0 || parallel || checkpointFile != null || resultDir != null)) {
+				usage();
+			}
+			if (convert != null) {
+				// Converter := data file in the other format;
+				convert(args[arg], isBinary(convert) ? OutputSink.binaryFile(args[arg + 1], policy)
+						: OutputSink.file(args[arg + 1], policy));
+				return;
+			}
+			if (resultDir != null) {
+				results = new ResultCache(new File(resultDir), RESULT_MEMORY, RESULT_DISK);
+				results.setMemo(memo);
+				results.setBudget(budget);
+			}
+			if (daemon >= 0) {
+				// Daemon := loopback server until the process is killed;
+				final Daemon server = new Daemon(daemon, cache);
+				server.setResultCache(results);
+				server.setBudget(budget);
+				System.err.println("DAEMON: listening on 127.0.0.1:" + server.getPort());
+				Runtime.getRuntime().addShutdownHook(new Thread() {
+					@Override
+					public void run() { System.err.println(server.getStats()); }
+				});
+				server.serve();
+				return;
+			}
+			if (farm != null) {
+				// FarmRunner := every program of the directory against the data file parsed once;
+				FarmRunner runner = new FarmRunner(ArrayInput.read(args[arg]), threads);
+				runner.setBudget(budget);
+				// Scheduler := executions time-sliced round-robin on the carriers;
+				Scheduler scheduler = slice > 0 ? new Scheduler(threads, slice) : null;
+				runner.setScheduler(scheduler);
+				runner.run(BatchRunner.dataFiles(new File(farm)), new File(batchOut)).print();
+				System.err.println(runner.getLatencyReport());
+				if (scheduler != null) {
+					scheduler.shutdown();
+					System.err.println(scheduler.getReport());
+				}
+				return;
+			}
+			// Scanner := token stream; Parser := generate parse tree; ProgramCache := skip both when warm;
+			interpreter = cacheDir == null ? Interpreter.load(args[arg])
+					: new Interpreter(new ProgramCache(new File(cacheDir)).load(args[arg]));
+			interpreter.setMemo(memo);
+			interpreter.setProfile(profile);
+			interpreter.setBudget(budget);
+			// ParallelRegions := independent top-level statements run concurrently;
+			if (parallel) interpreter.setParallel(threads);
+			interpreter.setNumeric(numeric);
+		} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+			usage();
+		}
 		// Print tokens - 2/24/2015 partial submission only;
-		// Scanner.printTokens();
+		// interpreter.getScanner().printTokens();
+
+		PROG parseTree = interpreter.getParseTree();
+
+		if (prefix != null) {
+			// Specializer := residual program for the known input prefix;
+			Printer.prettyPrint(Specializer.specialize(parseTree, InputSource.readAll(prefix)));
+			return;
+		}
+
+		if (batch != null && share) {
+			// PrefixBatchRunner := common input prefixes of the data files executed once;
+			PrefixBatchRunner runner = new PrefixBatchRunner(interpreter.getProgram());
+			runner.setBudget(budget);
+			runner.run(BatchRunner.dataFiles(new File(batch)), new File(batchOut)).print();
+			System.err.println(runner.getSharingReport());
+			return;
+		} else if (batch != null && workers > 0) {
+			// WorkerPool := data files streamed to worker JVMs running the shipped parse tree;
+			WorkerPool pool = new WorkerPool(parseTree, workers);
+			pool.setMemo(memo);
+			pool.setBudget(budget);
+			pool.run(BatchRunner.dataFiles(new File(batch)), new File(batchOut)).print();
+			System.err.println(pool.getReport());
+			return;
+		} else if (batch != null && columnar) {
+			// ColumnarEngine := blocks of data files run in SIMD lanes, one int[] column per variable;
+			if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+				throw new CoreRuntimeException("--columnar needs java --add-modules jdk.incubator.vector");
+			}
+			ColumnarEngine engine = new ColumnarEngine(interpreter.getProgram(), threads);
+			engine.setBudget(budget);
+			engine.run(BatchRunner.dataFiles(new File(batch)), new File(batchOut)).print();
+			System.err.println(engine.getReport());
+			return;
+		} else if (batch != null) {
+			// BatchRunner := one compiled program over every data file of the directory;
+			BatchRunner runner = new BatchRunner(interpreter.getProgram(), threads);
+			runner.setMemo(memo);
+			runner.setBudget(budget);
+			runner.run(BatchRunner.dataFiles(new File(batch)), new File(batchOut)).print();
+			return;
+		}
+
+		if (sessions > 0) {
+			// SessionHost := load test of concurrent sessions, each fed the data file over time;
+			ArrayInput data = null;
+			try {
+				data = ArrayInput.read(args[arg + 1]);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				usage();
+			}
+			try {
+				System.err.println(new SessionHost(interpreter.getProgram()).loadTest(sessions, data));
+			} catch (InterruptedException e) {
+				throw new CoreRuntimeException("load test interrupted");
+			}
+			return;
+		}
+
+		// Printer := print program; Standard output only carries OUTPUT values in a pipe or in binary;
+		FutureTask<Void> listing = null;
+		if (print && printTo != null) {
+			listing = printToFile(parseTree, printTo, async);
+		} else if (print && !pipe && (!binary || output != null)) {
+			Printer.prettyPrint(parseTree);
+		}
+
+		// Checkpoint := execution state saved to a file; --restore continues the saved one;
+		Checkpoint checkpoint = null;
+		Checkpoint.State state = null;
+		if (checkpointFile != null) {
+			checkpoint = new Checkpoint(interpreter.getProgram(), new File(checkpointFile), checkpointInterval);
+			checkpoint.setBudget(budget);
+			if (restore) state = checkpoint.load();
+		}
 
-		// Parser := generate parse tree;
-		PROG parseTree = Parser.getParseTree();
+		// Output := buffered sink for OUTPUT values; a restored run keeps the values saved before;
+		OutputSink sink;
+		if (state != null && output != null) {
+			sink = binary ? OutputSink.resumeBinaryFile(output, state.getOutputs(), policy)
+					: OutputSink.resumeFile(output, state.getOutputs(), policy);
+		} else if (binary) {
+			sink = output == null ? OutputSink.binaryStdout(policy) : OutputSink.binaryFile(output, policy);
+		} else {
+			sink = output == null ? OutputSink.stdout(policy) : OutputSink.file(output, policy);
+		}
 
-		// Printer := print program; Uncomment to see;
-		Printer.prettyPrint(parseTree);
+		Executor executor;
+		if (pipe) {
+			// Executor := OUTPUT streams while standard input is read ahead;
+			try {
+				interpreter.run(new PipeInput(), sink);
+			} finally {
+				if (profile) printProfile(interpreter);
+			}
+			executor = interpreter.getExecutor();
+		} else {
+			String data = null;
+			try {
+				data = args[arg + 1];
+			} catch (ArrayIndexOutOfBoundsException e) {
+				usage();
+			}
+			byte[] bytes = results == null || checkpoint != null ? null : readData(data);
+			if (checkpoint != null) {
+				// Checkpoint := step mode execution paused at LOOP back-edges to save its state;
+				try {
+					checkpoint.run(InputSource.open(data), sink, state);
+				} finally {
+					System.err.println(checkpoint.getReport());
+				}
+				executor = null;
+			} else if (bytes != null) {
+				// ResultCache := replay the output of an identical earlier run, else execute;
+				try {
+					executor = results.execute(interpreter.getProgram(), bytes, sink);
+				} finally {
+					System.err.println(results.getStats());
+				}
+			} else {
+				// Executor := generate output with input; the profile also covers a failed run;
+				try {
+					interpreter.run(data, sink);
+				} finally {
+					if (profile) printProfile(interpreter);
+				}
+				executor = interpreter.getExecutor();
+			}
+		}
+		// Listing := a failure of the background printer fails the run once the OUTPUT is written;
+		awaitListing(listing, printTo);
+		if (parallel) System.err.println(interpreter.getRegions().getReport());
+		// Report memo hit rate; nothing was executed on a result cache hit;
+		if (memo && executor != null) System.err.println(executor.getMemoReport());
+		if (!pipe && (!binary || output != null)) System.out.println();
+	}
 
+	/**
+	 * Print the program to a file; A background thread prints concurrently with execution when
+	 * async is set; Printing to standard output is always synchronous so it precedes the OUTPUT;
+	 *
+	 * @param parseTree     root PROG node for the parse tree of the program
+	 * @param path          name of the file to print to
+	 * @param async         whether or not to print on a background thread
+	 * @return              the background printing, for awaitListing; null when printed already
+	 * @throws CoreException if the file cannot be written synchronously
+	 */
+	private static FutureTask<Void> printToFile(final PROG parseTree, final String path, boolean async) {
+		if (!async) {
+			printListing(parseTree, path);
+			return null;
+		}
+		FutureTask<Void> listing = new FutureTask<Void>(new Callable<Void>() {
+			@Override
+			public Void call() {
+				printListing(parseTree, path);
+				return null;
+			}
+		});
+		final Thread printer = new Thread(listing, "core-printer");
+		printer.start();
+		// Errors end the process through System.exit in main; finish the listing first;
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try {
+					printer.join();
+				} catch (InterruptedException ignored) { }
+			}
+		});
+		return listing;
+	}
+
+	/**
+	 * Print the program to a file;
+	 *
+	 * @param parseTree     root PROG node for the parse tree of the program
+	 * @param path          name of the file to print to
+	 * @throws CoreException if the file cannot be opened or written
+	 */
+	private static void printListing(PROG parseTree, String path) {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(path))) {
+			Printer.prettyPrint(parseTree, writer);
+		} catch (IOException e) {
+			throw new CoreException("cannot print program to " + path + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Wait for the background printing of printToFile and rethrow its failure;
+	 *
+	 * @param listing   background printing; null if none
+	 * @param path      name of the file printed to, for the error message
+	 * @throws CoreException if the file could not be written
+	 */
+	private static void awaitListing(FutureTask<Void> listing, String path) {
+		if (listing == null) return;
 		try {
-			// Executor := generate output with input; Uncomment to see;
-			Executor.execute(parseTree, args[1]);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			System.out.println("Unknown option or incorrect number of arguments");
-			System.exit(2);
+			listing.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CoreException) throw (CoreException) e.getCause();
+			throw new CoreException("cannot print program to " + path + ": " + e.getCause());
+		} catch (InterruptedException e) {
+			throw new CoreException("interrupted while printing program to " + path);
 		}
-		System.out.println();
+	}
+
+	/**
+	 * Print the annotated listing and hot spots of the last run to standard error;
+	 *
+	 * @param interpreter   interpreter of the profiled run
+	 */
+	private static void printProfile(Interpreter interpreter) {
+		Executor executor = interpreter.getExecutor();
+		// No profile when the data file could not be opened;
+		if (executor == null || executor.getProfile() == null) return;
+		executor.getProfile().report(interpreter.getParseTree(), System.err);
+		System.err.flush();
+	}
+
+	/**
+	 * Read a data file for the result cache, which keys runs by the data bytes;
+	 *
+	 * @param data  name of file containing the input data
+	 * @return      bytes of the file; null if it cannot be read, so the run reports it as usual
+	 */
+	private static byte[] readData(String data) {
+		try {
+			return Files.readAllBytes(Paths.get(data));
+		} catch (IOException | InvalidPathException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Copy every integer of a data file in either format to a sink;
+	 *
+	 * @param data  name of file containing the input data
+	 * @param sink  sink writing the converted data file
+	 */
+	private static void convert(String data, OutputSink sink) {
+		InputSource source = InputSource.open(data);
+		try {
+			while (source.hasNext()) sink.write(source.next());
+		} catch (NumberFormatException e) {
+			throw new CoreRuntimeException("Input " + e.getMessage() + " does not match a valid integer");
+		} finally {
+			sink.close();
+			source.close();
+		}
+	}
+
+	/**
+	 * Parse the argument of a budget option;
+	 *
+	 * @param value     non-negative integer
+	 * @return          the limit
+	 */
+	private static long limit(String value) {
+		long limit = Long.parseLong(value);
+		if (limit < 0) usage();
+		return limit;
+	}
+
+	/**
+	 * Parse the argument of a data format option;
+	 *
+	 * @param format    text or binary
+	 * @return          whether or not the format is binary
+	 */
+	private static boolean isBinary(String format) {
+		if (format.equals("binary")) return true;
+		if (!format.equals("text")) usage();
+		return false;
+	}
+
+	/**
+	 * Parse the argument of the --flush option;
+	 *
+	 * @param name  latency or throughput
+	 * @return      corresponding flush policy of the output sink
+	 */
+	private static OutputSink.FlushPolicy flushPolicy(String name) {
+		if (name.equals("latency")) return OutputSink.FlushPolicy.LATENCY;
+		if (!name.equals("throughput")) usage();
+		return OutputSink.FlushPolicy.THROUGHPUT;
+	}
+
+	/**
+	 * Parse the argument of the numeric mode option;
+	 *
+	 * @param name  int, long or big
+	 * @return      mode of a WideFrame; null for int
+	 */
+	private static WideFrame.Mode numericMode(String name) {
+		if (name.equals("long")) return WideFrame.Mode.LONG;
+		if (name.equals("big")) return WideFrame.Mode.BIG;
+		if (!name.equals("int")) usage();
+		return null;
+	}
+
+	/**
+	 * Report incorrect command line arguments and terminate;
+	 */
+	private static void usage() {
+		System.out.println("Unknown option or incorrect number of arguments");
+		System.exit(2);
 	}
 }
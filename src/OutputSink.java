@@ -0,0 +1,455 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.IntConsumer;
+
+/**
+ * OutputSink Class for the Core Interpreter Project; Destination of the values written by OUTPUT;
+ */
+public abstract class OutputSink {
+
+	private static final int CHUNK = 1 << 16;   // bytes read at a time when resuming a file;
+
+	/**
+	 * When buffered output is written: after every OUTPUT statement, or only when the buffer is full;
+	 */
+	public enum FlushPolicy { LATENCY, THROUGHPUT }
+
+	/***********************************************************************************************
+	 ************************************ Methods for Executor *************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Write one output value;
+	 *
+	 * @param value     value of an id in an OUTPUT statement
+	 */
+	public abstract void write(int value);
+
+	/**
+	 * Write one output value of a WideFrame; Sinks of int32 values take it if it fits;
+	 *
+	 * @param value     value of an id in an OUTPUT statement
+	 * @throws CoreRuntimeException if the sink cannot hold the value
+	 */
+	public void write(long value) {
+		if ((int) value != value) throw new CoreRuntimeException("output value " + value + " does not fit in 32 bits");
+		write((int) value);
+	}
+
+	/**
+	 * Write one output value of a WideFrame in BIG mode;
+	 *
+	 * @param value     value of an id in an OUTPUT statement
+	 * @throws CoreRuntimeException if the sink cannot hold the value
+	 */
+	public void write(BigInteger value) {
+		if (value.bitLength() > 31) throw new CoreRuntimeException("output value " + value + " does not fit in 32 bits");
+		write(value.intValue());
+	}
+
+	/**
+	 * Mark the end of an OUTPUT statement; Flushes under the LATENCY policy;
+	 */
+	public void endStatement() { }
+
+	/**
+	 * Write any buffered values to the destination;
+	 */
+	public void flush() { }
+
+	/**
+	 * Flush, then force the values written so far to the disk; Only file sinks do more than
+	 * flush; e.g. before a Checkpoint claims the values;
+	 *
+	 * @throws CoreRuntimeException if the values cannot be written or forced
+	 */
+	public void sync() { flush(); }
+
+	/**
+	 * Flush and release the destination; Standard output itself is never closed;
+	 */
+	public void close() { flush(); }
+
+	/***********************************************************************************************
+	 ************************************ Factory Methods for Sinks ********************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Sink writing one decimal value per line to standard output in large chunks;
+	 *
+	 * @param policy    flush policy of the sink
+	 * @return          sink writing to standard output
+	 */
+	public static OutputSink stdout(FlushPolicy policy) {
+		return new ChannelSink(new FileOutputStream(FileDescriptor.out).getChannel(), policy, false);
+	}
+
+	/**
+	 * Sink writing one decimal value per line to a file through its FileChannel; Truncates the file;
+	 *
+	 * @param path      name of the output file
+	 * @param policy    flush policy of the sink
+	 * @return          sink writing to the file
+	 */
+	public static OutputSink file(String path, FlushPolicy policy) {
+		try {
+			RandomAccessFile file = new RandomAccessFile(path, "rw");
+			file.setLength(0);
+			return new ChannelSink(file.getChannel(), policy, true);
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot open output file " + path);
+		}
+	}
+
+	/**
+	 * Sink writing little-endian int32 values after the binary header to standard output;
+	 *
+	 * @param policy    flush policy of the sink
+	 * @return          sink writing the binary format to standard output
+	 */
+	public static OutputSink binaryStdout(FlushPolicy policy) {
+		return new BinarySink(new FileOutputStream(FileDescriptor.out).getChannel(), policy, false);
+	}
+
+	/**
+	 * Sink writing little-endian int32 values after the binary header to a file; Truncates the file;
+	 *
+	 * @param path      name of the output file
+	 * @param policy    flush policy of the sink
+	 * @return          sink writing the binary format to the file
+	 */
+	public static OutputSink binaryFile(String path, FlushPolicy policy) {
+		try {
+			RandomAccessFile file = new RandomAccessFile(path, "rw");
+			file.setLength(0);
+			return new BinarySink(file.getChannel(), policy, true);
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot open output file " + path);
+		}
+	}
+
+	/**
+	 * Sink continuing a text output file after its first values, e.g. for a run resumed from a
+	 * Checkpoint; Anything after them, written by the interrupted run, is cut off;
+	 *
+	 * @param path      name of the output file
+	 * @param values    number of values to keep
+	 * @param policy    flush policy of the sink
+	 * @return          sink appending to the kept values
+	 * @throws CoreRuntimeException if the file holds fewer values
+	 */
+	public static OutputSink resumeFile(String path, long values, FlushPolicy policy) {
+		RandomAccessFile file = null;
+		boolean resumed = false;
+		try {
+			file = new RandomAccessFile(path, "rw");
+			// One line per value: keep everything up to the end of line number values;
+			byte[] buffer = new byte[CHUNK];
+			long offset = 0, lines = 0;
+			while (lines < values) {
+				int n = file.read(buffer);
+				if (n < 0) {
+					throw new CoreRuntimeException("output file " + path + " has fewer than " + values + " values");
+				}
+				for (int i = 0; i < n && lines < values; i++) {
+					if (buffer[i] == '\n') lines++;
+					offset++;
+				}
+			}
+			file.setLength(offset);
+			file.seek(offset);
+			OutputSink sink = new ChannelSink(file.getChannel(), policy, true);
+			resumed = true;
+			return sink;
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot open output file " + path);
+		} finally {
+			if (!resumed) close(file);
+		}
+	}
+
+	/**
+	 * Sink continuing a binary output file after its first values; See resumeFile;
+	 *
+	 * @param path      name of the output file
+	 * @param values    number of values to keep
+	 * @param policy    flush policy of the sink
+	 * @return          sink appending to the kept values
+	 * @throws CoreRuntimeException if the file holds fewer values
+	 */
+	public static OutputSink resumeBinaryFile(String path, long values, FlushPolicy policy) {
+		RandomAccessFile file = null;
+		boolean resumed = false;
+		try {
+			file = new RandomAccessFile(path, "rw");
+			long offset = BinaryInput.HEADER + values * 4;
+			if (file.length() < offset) {
+				throw new CoreRuntimeException("output file " + path + " has fewer than " + values + " values");
+			}
+			file.setLength(offset);
+			file.seek(offset);
+			BinarySink sink = new BinarySink(file.getChannel(), policy, true);
+			sink.buffer.clear();
+			resumed = true;
+			return sink;
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot open output file " + path);
+		} finally {
+			if (!resumed) close(file);
+		}
+	}
+
+	/**
+	 * Sink writing one decimal value per line to a stream, e.g. a response buffer; Not closed;
+	 *
+	 * @param out       destination stream
+	 * @return          sink writing to the stream
+	 */
+	public static OutputSink stream(OutputStream out) {
+		return new ChannelSink(Channels.newChannel(out), FlushPolicy.THROUGHPUT, false);
+	}
+
+	/**
+	 * Sink handing every value to a consumer; For embedding the interpreter;
+	 *
+	 * @param consumer  consumer of the output values
+	 * @return          sink calling the consumer
+	 */
+	public static OutputSink consumer(final IntConsumer consumer) {
+		return new OutputSink() {
+			@Override
+			public void write(int value) { consumer.accept(value); }
+		};
+	}
+
+	/***********************************************************************************************
+	 ************************************ Buffered Channel Sink ************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Formats values straight into a reusable byte buffer; No boxing and no per-value locking;
+	 */
+	private static class ChannelSink extends OutputSink {
+
+		private static final int CAPACITY = 1 << 16;
+		private static final byte[] NEWLINE = System.lineSeparator().getBytes();
+		private static final byte[] MIN_VALUE = String.valueOf(Integer.MIN_VALUE).getBytes();
+
+		private final WritableByteChannel channel;
+		private final FlushPolicy policy;
+		private final boolean closeable;
+		private final byte[] buffer = new byte[CAPACITY];
+		private final ByteBuffer view = ByteBuffer.wrap(buffer);
+		private int count = 0;
+
+		private ChannelSink(WritableByteChannel channel, FlushPolicy policy, boolean closeable) {
+			this.channel = channel;
+			this.policy = policy;
+			this.closeable = closeable;
+		}
+
+		@Override
+		public void write(int value) {
+			// Room for sign, 10 digits and line separator;
+			if (count + 11 + NEWLINE.length > CAPACITY) flush();
+			if (value == Integer.MIN_VALUE) {
+				System.arraycopy(MIN_VALUE, 0, buffer, count, MIN_VALUE.length);
+				count += MIN_VALUE.length;
+			} else {
+				if (value < 0) {
+					buffer[count++] = '-';
+					value = -value;
+				}
+				// Write digits backwards from the end of the number;
+				int end = count + digits(value);
+				for (int i = end - 1; i >= count; i--) {
+					buffer[i] = (byte) ('0' + value % 10);
+					value /= 10;
+				}
+				count = end;
+			}
+			for (byte b : NEWLINE) buffer[count++] = b;
+		}
+
+		@Override
+		public void write(long value) {
+			if ((int) value == value) {
+				write((int) value);
+			} else {
+				write(String.valueOf(value).getBytes());
+			}
+		}
+
+		@Override
+		public void write(BigInteger value) {
+			if (value.bitLength() < 64) {
+				write(value.longValue());
+			} else {
+				write(value.toString().getBytes());
+			}
+		}
+
+		/**
+		 * Write the digits of a wide value and a line separator; Longer ones bypass the buffer;
+		 *
+		 * @param digits    decimal digits of the value
+		 */
+		private void write(byte[] digits) {
+			if (count + digits.length + NEWLINE.length > CAPACITY) flush();
+			if (digits.length + NEWLINE.length > CAPACITY) {
+				try {
+					ByteBuffer wide = ByteBuffer.wrap(digits);
+					while (wide.hasRemaining()) channel.write(wide);
+				} catch (IOException e) {
+					throw new CoreRuntimeException("cannot write output: " + e.getMessage());
+				}
+			} else {
+				System.arraycopy(digits, 0, buffer, count, digits.length);
+				count += digits.length;
+			}
+			for (byte b : NEWLINE) buffer[count++] = b;
+		}
+
+		@Override
+		public void endStatement() {
+			if (policy == FlushPolicy.LATENCY) flush();
+		}
+
+		@Override
+		public void flush() {
+			if (count == 0) return;
+			// Keep anything already printed through System.out ahead of the values;
+			System.out.flush();
+			view.clear();
+			view.limit(count);
+			try {
+				while (view.hasRemaining()) channel.write(view);
+			} catch (IOException e) {
+				throw new CoreRuntimeException("cannot write output: " + e.getMessage());
+			}
+			count = 0;
+		}
+
+		@Override
+		public void sync() {
+			flush();
+			force(channel);
+		}
+
+		@Override
+		public void close() {
+			flush();
+			if (!closeable) return;
+			try {
+				channel.close();
+			} catch (IOException ignored) { }
+		}
+
+		private static int digits(int value) {
+			int n = 1;
+			while (value >= 10) {
+				value /= 10;
+				n++;
+			}
+			return n;
+		}
+	}
+
+	/***********************************************************************************************
+	 ************************************ Binary Channel Sink **************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Writes values as little-endian int32s into a reusable buffer; No text formatting at all;
+	 */
+	private static class BinarySink extends OutputSink {
+
+		private static final int CAPACITY = 1 << 16;
+
+		private final WritableByteChannel channel;
+		private final FlushPolicy policy;
+		private final boolean closeable;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+
+		private BinarySink(WritableByteChannel channel, FlushPolicy policy, boolean closeable) {
+			this.channel = channel;
+			this.policy = policy;
+			this.closeable = closeable;
+			buffer.put(BinaryInput.MAGIC).putInt(BinaryInput.VERSION);
+		}
+
+		@Override
+		public void write(int value) {
+			if (buffer.remaining() < 4) flush();
+			buffer.putInt(value);
+		}
+
+		@Override
+		public void endStatement() {
+			if (policy == FlushPolicy.LATENCY) flush();
+		}
+
+		@Override
+		public void flush() {
+			if (buffer.position() == 0) return;
+			System.out.flush();
+			buffer.flip();
+			try {
+				while (buffer.hasRemaining()) channel.write(buffer);
+			} catch (IOException e) {
+				throw new CoreRuntimeException("cannot write output: " + e.getMessage());
+			}
+			buffer.clear();
+		}
+
+		@Override
+		public void sync() {
+			flush();
+			force(channel);
+		}
+
+		@Override
+		public void close() {
+			flush();
+			if (!closeable) return;
+			try {
+				channel.close();
+			} catch (IOException ignored) { }
+		}
+	}
+
+	/***********************************************************************************************
+	 ************************************ Helper Methods for Files *********************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Force the content of a file channel to the disk; Other channels have nothing to force;
+	 *
+	 * @param channel   channel of a sink
+	 * @throws CoreRuntimeException if the content cannot be forced
+	 */
+	private static void force(WritableByteChannel channel) {
+		if (!(channel instanceof FileChannel)) return;
+		try {
+			((FileChannel) channel).force(false);
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot sync output: " + e.getMessage());
+		}
+	}
+
+	private static void close(RandomAccessFile file) {
+		if (file == null) return;
+		try {
+			file.close();
+		} catch (IOException ignored) { }
+	}
+}
@@ -0,0 +1,372 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ParallelRegions Class for the Core Interpreter Project; Independent top-level statements of a
+ * program run concurrently;
+ */
+public class ParallelRegions {
+
+	/*******************************************************************************************
+	 * Each top-level statement is a node of a DAG; A statement depends on an earlier one that *
+	 * may write a variable it reads or writes, or that reads a variable it may write; INPUT   *
+	 * and OUTPUT statements also depend on the previous one, so effects stay in order;        *
+	 * Statements containing a LOOP are heavy and run on a ForkJoinPool once their             *
+	 * predecessors are done; the others run on the thread finishing their last predecessor;   *
+	 * The first statement not done writes its OUTPUT values straight to the sink; those      *
+	 * running ahead of it write to buffers of their own, replayed in program order as they    *
+	 * come first, up to the statement that failed, so the output and the error are those of  *
+	 * a sequential run                                                                        *
+	 *******************************************************************************************/
+
+	/*******************************************************************************************
+	 * Private Members: Compiled Program; Top-Level Statements; Predecessors in the DAG; Heavy *
+	 * Statements; Longest Chain of Heavy Statements; Worker Count; Budget                     *
+	 *******************************************************************************************/
+
+	private final Program program;
+	private final STMT[] statements;
+	private final int[][] predecessors;
+	private final boolean[] heavy;
+	private final int heavyCount;
+	private final int heavyChain;
+	private final int threads;
+	private Budget budget = Budget.UNLIMITED;
+
+	/**
+	 * Analyse the top-level statements of a program; Done once per program;
+	 *
+	 * @param program   compiled program to run
+	 * @param threads   number of worker threads for heavy statements
+	 */
+	public ParallelRegions(Program program, int threads) {
+		this.program = program;
+		this.threads = threads;
+		List<STMT> list = new ArrayList<STMT>();
+		for (STMT_SEQ stmtSeq = program.getParseTree().getStmtSeq(); ; stmtSeq = stmtSeq.getStmtSeq()) {
+			list.add(stmtSeq.getStmt());
+			if (stmtSeq.getAltNo() != 1) break;
+		}
+		statements = list.toArray(new STMT[list.size()]);
+		predecessors = new int[statements.length][];
+		heavy = new boolean[statements.length];
+		// Last statement writing each slot; statements reading it since; last INPUT or OUTPUT;
+		int[] writer = new int[program.size()];
+		Arrays.fill(writer, -1);
+		List<List<Integer>> readers = new ArrayList<List<Integer>>();
+		for (int slot = 0; slot < program.size(); slot++) readers.add(new ArrayList<Integer>());
+		int effect = -1;
+		int[] chain = new int[statements.length];
+		int count = 0, longest = 0;
+		for (int j = 0; j < statements.length; j++) {
+			Access access = new Access();
+			access.visit(statements[j]);
+			Set<Integer> before = new LinkedHashSet<Integer>();
+			for (int slot = access.reads.nextSetBit(0); slot >= 0; slot = access.reads.nextSetBit(slot + 1)) {
+				if (writer[slot] >= 0) before.add(writer[slot]);
+			}
+			for (int slot = access.writes.nextSetBit(0); slot >= 0; slot = access.writes.nextSetBit(slot + 1)) {
+				if (writer[slot] >= 0) before.add(writer[slot]);
+				before.addAll(readers.get(slot));
+			}
+			if (access.effect) {
+				if (effect >= 0) before.add(effect);
+				effect = j;
+			}
+			before.remove(j);
+			for (int slot = access.reads.nextSetBit(0); slot >= 0; slot = access.reads.nextSetBit(slot + 1)) {
+				readers.get(slot).add(j);
+			}
+			for (int slot = access.writes.nextSetBit(0); slot >= 0; slot = access.writes.nextSetBit(slot + 1)) {
+				writer[slot] = j;
+				readers.get(slot).clear();
+			}
+			predecessors[j] = new int[before.size()];
+			int k = 0;
+			for (int i : before) {
+				predecessors[j][k++] = i;
+				chain[j] = Math.max(chain[j], chain[i]);
+			}
+			heavy[j] = access.loop;
+			if (heavy[j]) {
+				count++;
+				chain[j]++;
+			}
+			longest = Math.max(longest, chain[j]);
+		}
+		heavyCount = count;
+		heavyChain = longest;
+	}
+
+	/**
+	 * Limit every run; See Executor.setBudget; In a parallel run the statements share one
+	 * deadline and count their steps and OUTPUT values together, so the limits apply to the
+	 * whole run; The step limit is checked where LOOPs repeat and where statements containing
+	 * one end, and may be passed by the statements running at the same time, by at most one
+	 * check interval each;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/**
+	 * Whether or not two heavy statements can run at the same time;
+	 *
+	 * @return  true if the longest chain of dependent heavy statements is not all of them
+	 */
+	public boolean isParallel() { return heavyChain < heavyCount; }
+
+	/**
+	 * Describe the DAG;
+	 *
+	 * @return  statements, heavy statements and the longest chain of dependent heavy ones
+	 */
+	public String getReport() {
+		return "REGIONS: " + statements.length + " top-level statements; " + heavyCount + " heavy; "
+				+ "longest chain of " + heavyChain + " heavy statements; " + (isParallel() ? "parallel" : "sequential");
+	}
+
+	/*******************************************************************************************
+	 ************************** Start Method for Running the Program ***************************
+	 *******************************************************************************************/
+
+	/**
+	 * Execute the program; Runs it on one Executor unless heavy statements are independent;
+	 * Closes the source and the sink; Once the run ends, statements still running stop at
+	 * their next LOOP back-edge check, those not started are skipped, and their effects are
+	 * dropped;
+	 *
+	 * @param data      source of the input data
+	 * @param output    sink for the values of OUTPUT statements
+	 * @throws CoreRuntimeException if an error occurs; OUTPUT values written before it are flushed
+	 */
+	public void run(InputSource data, OutputSink output) {
+		if (!isParallel()) {
+			Executor executor = new Executor(program, data, output);
+			executor.setBudget(budget);
+			executor.execute();
+			return;
+		}
+		int[] values = new int[program.size()];
+		boolean[] defined = new boolean[program.size()];
+		Buffer[] buffers = new Buffer[statements.length];
+		List<CompletableFuture<Void>> done = new ArrayList<CompletableFuture<Void>>();
+		final AtomicBoolean abort = new AtomicBoolean();
+		Budget.Tally tally = new Budget.Tally(budget);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			new Executor(program, values, defined, data, output).checkRepeated();
+			for (int j = 0; j < statements.length; j++) {
+				buffers[j] = new Buffer(output);
+				final Executor executor = new Executor(program, values, defined, data, buffers[j]);
+				executor.setBudget(budget);
+				executor.setAbort(abort);
+				executor.setTally(tally);
+				final STMT stmt = statements[j];
+				final boolean loops = heavy[j];
+				Runnable task = new Runnable() {
+					@Override
+					public void run() {
+						if (!abort.get()) executor.execute(stmt, loops);
+					}
+				};
+				CompletableFuture<?>[] after = new CompletableFuture<?>[predecessors[j].length];
+				for (int k = 0; k < after.length; k++) after[k] = done.get(predecessors[j][k]);
+				CompletableFuture<Void> ready = CompletableFuture.allOf(after);
+				done.add(heavy[j] ? ready.thenRunAsync(task, pool) : ready.thenRun(task));
+			}
+			// Commit := in program order, each statement writes through once the ones before it are done;
+			for (int j = 0; j < statements.length; j++) {
+				buffers[j].release();
+				Throwable failure = null;
+				try {
+					done.get(j).join();
+				} catch (CompletionException e) {
+					failure = e.getCause();
+				}
+				output.endStatement();
+				if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+				if (failure instanceof Error) throw (Error) failure;
+			}
+		} finally {
+			// Abort := after a failure, statements on the pool must not keep running;
+			abort.set(true);
+			pool.shutdown();
+			output.close();
+			data.close();
+		}
+	}
+
+	/*******************************************************************************************
+	 *************************** Read & Write Sets of a Statement ******************************
+	 *******************************************************************************************/
+
+	/**
+	 * Slots a statement may read or write, whether it takes INPUT or gives OUTPUT, and whether
+	 * it contains a LOOP; Undeclared ids fail when run and touch no slot;
+	 */
+	private class Access {
+
+		private final BitSet reads = new BitSet();
+		private final BitSet writes = new BitSet();
+		private boolean effect = false;
+		private boolean loop = false;
+
+		private void visit(STMT_SEQ stmtSeq) {
+			for (; ; stmtSeq = stmtSeq.getStmtSeq()) {
+				visit(stmtSeq.getStmt());
+				if (stmtSeq.getAltNo() != 1) return;
+			}
+		}
+
+		private void visit(STMT stmt) {
+			switch (stmt.getAltNo()) {
+				case 1: // ASSIGN;
+					write(stmt.getAssign().getLvalue());
+					visit(stmt.getAssign().getExpr());
+					break;
+				case 2: // IF;
+					visit(stmt.getIf().getCond());
+					visit(stmt.getIf().getStmtSeq());
+					if (stmt.getIf().getAltNo() == 1) visit(stmt.getIf().getElseStmtSeq());
+					break;
+				case 3: // LOOP;
+					loop = true;
+					visit(stmt.getLoop().getStmtSeq());
+					visit(stmt.getLoop().getCond());
+					break;
+				case 4: // INPUT;
+					effect = true;
+					for (ID_LIST idList = stmt.getIn().getIdList(); idList != null; idList = idList.getIdList()) {
+						write(idList.getId());
+					}
+					break;
+				case 5: // OUTPUT;
+					effect = true;
+					for (ID_LIST idList = stmt.getOut().getIdList(); idList != null; idList = idList.getIdList()) {
+						read(idList.getId());
+					}
+					break;
+				case 6: // CASE;
+					read(stmt.getCase().getId());
+					write(stmt.getCase().getId());
+					for (CASES cases = stmt.getCase().getCases(); ; cases = cases.getCases()) {
+						visit(cases.getExpr());
+						if (cases.getAltNo() != 1) {
+							visit(cases.getElseExpr());
+							break;
+						}
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void visit(COND cond) {
+			switch (cond.getAltNo()) {
+				case 0:
+					visit(cond.getNeg());
+					break;
+				case 1:
+					visit(cond.getLhs());
+					visit(cond.getRhs());
+					break;
+				case 2:
+					visit(cond.getCmpr().getExpr1());
+					visit(cond.getCmpr().getExpr2());
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void visit(EXPR expr) {
+			for (; ; expr = expr.getExpr()) {
+				for (TERM term = expr.getTerm(); ; term = term.getTerm()) {
+					visit(term.getFactor());
+					if (term.getAltNo() != 1) break;
+				}
+				if (expr.getAltNo() != 1) return;
+			}
+		}
+
+		private void visit(FACTOR factor) {
+			switch (factor.getAltNo()) {
+				case 1:
+					read(factor.getId());
+					break;
+				case 2:
+					visit(factor.getFactor());
+					break;
+				case 3:
+					visit(factor.getExpr());
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void read(String id) {
+			if (program.slot(id) >= 0) reads.set(program.slot(id));
+		}
+
+		private void write(String id) {
+			if (program.slot(id) >= 0) writes.set(program.slot(id));
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************************ Output Buffers ***************************************
+	 *******************************************************************************************/
+
+	/**
+	 * OUTPUT values of one statement, kept until the statements before it are committed, then
+	 * written straight to the sink; Written by the thread of the statement, released by the
+	 * committing thread;
+	 */
+	private static class Buffer extends OutputSink {
+
+		private final OutputSink sink;
+		private int[] values = new int[4];
+		private int count = 0;
+		private boolean released = false;
+
+		private Buffer(OutputSink sink) { this.sink = sink; }
+
+		@Override
+		public synchronized void write(int value) {
+			if (released) {
+				sink.write(value);
+				return;
+			}
+			if (count == values.length) values = Arrays.copyOf(values, count * 2);
+			values[count++] = value;
+		}
+
+		@Override
+		public synchronized void endStatement() {
+			if (released) sink.endStatement();
+		}
+
+		/**
+		 * Write the values kept so far and the later ones to the sink; Once every statement
+		 * before this one is committed;
+		 */
+		private synchronized void release() {
+			for (int i = 0; i < count; i++) sink.write(values[i]);
+			if (count > 0) sink.endStatement();
+			values = null;
+			count = 0;
+			released = true;
+		}
+	}
+}
@@ -10,13 +10,15 @@ public class Parser {
 	 ***************************************************************************************************/
 
 	/**
-	 * Call Scanner/Tokenizer to generate token stream; Parse token stream; Build & return parse tree;
+	 * Parse the token stream of a Scanner; Build & return parse tree;
 	 *
+	 * @param scanner   token stream of the program
 	 * @return          root node of the program parse tree
+	 * @throws CoreSyntaxException  if the token stream is not a valid program
 	 */
-	public static PROG getParseTree() {
+	public static PROG getParseTree(Scanner scanner) {
 		// Generate Parse Tree;
-		PROG tree = new PROG(); tree.parse();
+		PROG tree = new PROG(); tree.parse(scanner);
 		return tree;
 	}
 }
@@ -26,20 +28,53 @@ public class Parser {
  *******************************************************************************************************/
 
 /**
- * Class for the PROG node; Parsing and accessing child node(s) enabled;
+ * Base class of the parse tree nodes; Source position of the first token of the node;
+ * Nodes are not modified after parsing, so a parse tree can be shared between threads;
  */
-class PROG {
+abstract class NODE {
+
+	private int line = 0;       // 0 for nodes built rather than parsed;
+	private int column = 0;
+
+	protected void mark(Scanner scanner) {
+		line = scanner.line();
+		column = scanner.column();
+	}
+
+	/**
+	 * Restore the source position of a node decoded rather than parsed; See TreeCodec;
+	 *
+	 * @param line      line of the first token, starting at 1
+	 * @param column    column of the first token, starting at 1
+	 */
+	void position(int line, int column) {
+		this.line = line;
+		this.column = column;
+	}
+
+	public int getLine() { return line; }
+	public int getColumn() { return column; }
+}
+
+/**
+ * Class for the PROG node; Parsing, building and accessing child node(s) enabled;
+ */
+class PROG extends NODE {
 	private DECL_SEQ declSeq;
 	private STMT_SEQ stmtSeq;
 
-	public void parse() {
-		Scanner.match("PROGRAM");
-		declSeq = new DECL_SEQ(); declSeq.parse();
-		Scanner.match("BEGIN");
-		stmtSeq = new STMT_SEQ(); stmtSeq.parse();
-		Scanner.match("END");
+	public PROG() { }
+	public PROG(DECL_SEQ declSeq, STMT_SEQ stmtSeq) { this.declSeq = declSeq; this.stmtSeq = stmtSeq; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("PROGRAM");
+		declSeq = new DECL_SEQ(); declSeq.parse(scanner);
+		scanner.match("BEGIN");
+		stmtSeq = new STMT_SEQ(); stmtSeq.parse(scanner);
+		scanner.match("END");
 		// Prevent straggling code after END;
-		Scanner.match("EOF");
+		scanner.match("EOF");
 	}
 
 	public DECL_SEQ getDeclSeq() { return declSeq; }
@@ -47,20 +82,25 @@ class PROG {
 }
 
 /**
- * Class for the DECL_SEQ node; Parsing and accessing child node(s) enabled;
+ * Class for the DECL_SEQ node; Parsing, building and accessing child node(s) enabled;
  */
-class DECL_SEQ {
+class DECL_SEQ extends NODE {
 
 	private int altNo = 0;      // Decision;
 	private DECL decl;          // 0 ::= <decl>;
 	private DECL_SEQ declSeq;   // 1 ::= <decl><declSeq>;
 
-	public void parse() {
-		decl = new DECL(); decl.parse();
+	public DECL_SEQ() { }
+	public DECL_SEQ(DECL decl) { this.decl = decl; }
+	public DECL_SEQ(DECL decl, DECL_SEQ declSeq) { altNo = 1; this.decl = decl; this.declSeq = declSeq; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		decl = new DECL(); decl.parse(scanner);
 		// Parse another DECL_SEQ if no BEGIN token;
-		if (!Scanner.currentToken().equals("BEGIN")) {
+		if (!scanner.currentToken().equals("BEGIN")) {
 			altNo = 1;
-			declSeq = new DECL_SEQ(); declSeq.parse();
+			declSeq = new DECL_SEQ(); declSeq.parse(scanner);
 		}
 	}
 
@@ -70,37 +110,46 @@ class DECL_SEQ {
 }
 
 /**
- * Class for the DECL node; Parsing and accessing child node(s) enabled;
+ * Class for the DECL node; Parsing, building and accessing child node(s) enabled;
  */
-class DECL {
+class DECL extends NODE {
 
 	private ID_LIST idList;
 
-	public void parse() {
-		Scanner.match("INT");
-		idList = new ID_LIST(); idList.parse();
-		Scanner.match("SEMICOLON");
+	public DECL() { }
+	public DECL(ID_LIST idList) { this.idList = idList; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("INT");
+		idList = new ID_LIST(); idList.parse(scanner);
+		scanner.match("SEMICOLON");
 	}
 
 	public ID_LIST getIdList() { return idList; }
 }
 
 /**
- * Class for the ID_LIST node; Parsing and accessing child node(s) enabled;
+ * Class for the ID_LIST node; Parsing, building and accessing child node(s) enabled;
  */
-class ID_LIST {
+class ID_LIST extends NODE {
 
 	private int altNo = 0;  // Decision;
 	private String id;      // 0 ::= id;
 	private ID_LIST idList; // 1 ::= id<idList>;
 
-	public void parse() {
-		id = Scanner.getID();
+	public ID_LIST() { }
+	public ID_LIST(String id) { this.id = id; }
+	public ID_LIST(String id, ID_LIST idList) { altNo = 1; this.id = id; this.idList = idList; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		id = scanner.getID();
 		// Parse another ID_LIST if COMMA token is encountered;
-		if(Scanner.currentToken().equals("COMMA")) {
+		if(scanner.currentToken().equals("COMMA")) {
 			altNo = 1;
-			Scanner.nextToken();
-			idList = new ID_LIST(); idList.parse();
+			scanner.nextToken();
+			idList = new ID_LIST(); idList.parse(scanner);
 		}
 	}
 
@@ -110,22 +159,27 @@ class ID_LIST {
 }
 
 /**
- * Class for the STMT_SEQ node; Parsing and accessing child node(s) enabled;
+ * Class for the STMT_SEQ node; Parsing, building and accessing child node(s) enabled;
  */
-class STMT_SEQ {
+class STMT_SEQ extends NODE {
 
 	private int altNo = 0;      // Decision;
 	private STMT stmt;          // 0 ::= <stmt>;
 	private STMT_SEQ stmtSeq;   // 1 ::= <stmt><stmtSeq>;
 
-	public void parse() {
-		stmt = new STMT(); stmt.parse();
+	public STMT_SEQ() { }
+	public STMT_SEQ(STMT stmt) { this.stmt = stmt; }
+	public STMT_SEQ(STMT stmt, STMT_SEQ stmtSeq) { altNo = 1; this.stmt = stmt; this.stmtSeq = stmtSeq; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		stmt = new STMT(); stmt.parse(scanner);
 		// Parse another STMT_SEQ if not the end of a PROG, IF, LOOP, CASE, or ELSE statement;
-		String token = Scanner.currentToken();
+		String token = scanner.currentToken();
 		if (!token.equals("END") && !token.equals("ENDIF")
 				&& !token.equals("WHILE") && !token.equals("ELSE")) {
 			altNo = 1;
-			stmtSeq = new STMT_SEQ(); stmtSeq.parse();
+			stmtSeq = new STMT_SEQ(); stmtSeq.parse(scanner);
 		}
 	}
 
@@ -135,9 +189,9 @@ class STMT_SEQ {
 }
 
 /**
- * Class for the STMT node; Parsing and accessing child node(s) enabled;
+ * Class for the STMT node; Parsing, building and accessing child node(s) enabled;
  */
-class STMT {
+class STMT extends NODE {
 
 	private int altNo;  // Decision;
 	private ASSIGN s1;  // 1 ::= <assign>;
@@ -147,32 +201,40 @@ class STMT {
 	private OUT s5;     // 5 ::= <output>;
 	private CASE s6;    // 6 ::= <case>;
 
-	public void parse() {
-		String token = Scanner.currentToken();
+	public STMT() { }
+	public STMT(ASSIGN s1) { altNo = 1; this.s1 = s1; }
+	public STMT(IF s2) { altNo = 2; this.s2 = s2; }
+	public STMT(LOOP s3) { altNo = 3; this.s3 = s3; }
+	public STMT(IN s4) { altNo = 4; this.s4 = s4; }
+	public STMT(OUT s5) { altNo = 5; this.s5 = s5; }
+	public STMT(CASE s6) { altNo = 6; this.s6 = s6; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		String token = scanner.currentToken();
 		if (token.contains("ID")) {
 			altNo = 1;
-			s1 = new ASSIGN(); s1.parse();
+			s1 = new ASSIGN(); s1.parse(scanner);
 		} else if (token.equals("IF")) {
 			altNo = 2;
-			s2 = new IF(); s2.parse();
+			s2 = new IF(); s2.parse(scanner);
 		} else if (token.equals("DO")) {
 			altNo = 3;
-			s3 = new LOOP(); s3.parse();
+			s3 = new LOOP(); s3.parse(scanner);
 		} else if (token.equals("INPUT")) {
 			altNo = 4;
-			s4 = new IN(); s4.parse();
+			s4 = new IN(); s4.parse(scanner);
 		} else if (token.equals("OUTPUT")) {
 			altNo = 5;
-			s5 = new OUT(); s5.parse();
+			s5 = new OUT(); s5.parse(scanner);
 		} else if (token.equals("CASE")) {
 			altNo = 6;
-			s6 = new CASE(); s6.parse();
+			s6 = new CASE(); s6.parse(scanner);
 		} else {
-			System.out.println("ERROR: Expected a statement, found " + token);
-			System.exit(2);
+			throw new CoreSyntaxException("Expected a statement, found " + token, scanner);
 		}
 		// All statements end with SEMICOLON;
-		Scanner.match("SEMICOLON");
+		scanner.match("SEMICOLON");
 	}
 
 	public int getAltNo() { return altNo; }
@@ -185,17 +247,21 @@ class STMT {
 }
 
 /**
- * Class for the ASSIGN node; Parsing and accessing child node(s) enabled;
+ * Class for the ASSIGN node; Parsing, building and accessing child node(s) enabled;
  */
-class ASSIGN {
+class ASSIGN extends NODE {
 
 	private EXPR expr;
 	private String lvalue;
 
-	public void parse() {
-		lvalue = Scanner.getID();
-		Scanner.match("ASSIGN");
-		expr = new EXPR(); expr.parse();
+	public ASSIGN() { }
+	public ASSIGN(String lvalue, EXPR expr) { this.lvalue = lvalue; this.expr = expr; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		lvalue = scanner.getID();
+		scanner.match("ASSIGN");
+		expr = new EXPR(); expr.parse(scanner);
 	}
 
 	public EXPR getExpr() { return expr; }
@@ -203,28 +269,35 @@ class ASSIGN {
 }
 
 /**
- * Class for the IF node; Parsing and accessing child node(s) enabled;
+ * Class for the IF node; Parsing, building and accessing child node(s) enabled;
  */
-class IF {
+class IF extends NODE {
 
 	private int altNo = 0;          // Decision;
 	private COND cond;              // 0 ::= if <cond> then <stmtSeq>;
 	private STMT_SEQ stmtSeq;       // 0 ::= if <cond> then <stmtSeq>;
 	private STMT_SEQ elseStmtSeq;   // 1 ::= if <cond> then <stmtSeq> else <stmtSeq>;
 
-	public void parse() {
-		Scanner.match("IF");
-		cond = new COND(); cond.parse();
-		Scanner.match("THEN");
-		stmtSeq = new STMT_SEQ(); stmtSeq.parse();
+	public IF() { }
+	public IF(COND cond, STMT_SEQ stmtSeq) { this.cond = cond; this.stmtSeq = stmtSeq; }
+	public IF(COND cond, STMT_SEQ stmtSeq, STMT_SEQ elseStmtSeq) {
+		altNo = 1; this.cond = cond; this.stmtSeq = stmtSeq; this.elseStmtSeq = elseStmtSeq;
+	}
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("IF");
+		cond = new COND(); cond.parse(scanner);
+		scanner.match("THEN");
+		stmtSeq = new STMT_SEQ(); stmtSeq.parse(scanner);
 		// Parse ELSE statement if encountered;
-		String token = Scanner.currentToken();
+		String token = scanner.currentToken();
 		if (token.equals("ELSE")) {
 			altNo = 1;
-			Scanner.nextToken();
-			elseStmtSeq = new STMT_SEQ(); elseStmtSeq.parse();
+			scanner.nextToken();
+			elseStmtSeq = new STMT_SEQ(); elseStmtSeq.parse(scanner);
 		}
-		Scanner.match("ENDIF");
+		scanner.match("ENDIF");
 	}
 
 	public int getAltNo() { return altNo; }
@@ -234,19 +307,23 @@ class IF {
 }
 
 /**
- * Class for the LOOP node; Parsing and accessing child node(s) enabled;
+ * Class for the LOOP node; Parsing, building and accessing child node(s) enabled;
  */
-class LOOP {
+class LOOP extends NODE {
 
 	private STMT_SEQ stmtSeq;
 	private COND cond;
 
-	public void parse() {
-		Scanner.match("DO");
-		stmtSeq = new STMT_SEQ(); stmtSeq.parse();
-		Scanner.match("WHILE");
-		cond = new COND(); cond.parse();
-		Scanner.match("ENDDO");
+	public LOOP() { }
+	public LOOP(STMT_SEQ stmtSeq, COND cond) { this.stmtSeq = stmtSeq; this.cond = cond; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("DO");
+		stmtSeq = new STMT_SEQ(); stmtSeq.parse(scanner);
+		scanner.match("WHILE");
+		cond = new COND(); cond.parse(scanner);
+		scanner.match("ENDDO");
 	}
 
 	public STMT_SEQ getStmtSeq() { return stmtSeq; }
@@ -254,39 +331,47 @@ class LOOP {
 }
 
 /**
- * Class for the IN node; Parsing and accessing child node(s) enabled;
+ * Class for the IN node; Parsing, building and accessing child node(s) enabled;
  */
-class IN {
+class IN extends NODE {
 
 	private ID_LIST idList;
 
-	public void parse() {
-		Scanner.match("INPUT");
-		idList = new ID_LIST(); idList.parse();
+	public IN() { }
+	public IN(ID_LIST idList) { this.idList = idList; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("INPUT");
+		idList = new ID_LIST(); idList.parse(scanner);
 	}
 
 	public ID_LIST getIdList() { return idList; }
 }
 
 /**
- * Class for the OUT node; Parsing and accessing child node(s) enabled;
+ * Class for the OUT node; Parsing, building and accessing child node(s) enabled;
  */
-class OUT {
+class OUT extends NODE {
 
 	private ID_LIST idList;
 
-	public void parse() {
-		Scanner.match("OUTPUT");
-		idList = new ID_LIST(); idList.parse();
+	public OUT() { }
+	public OUT(ID_LIST idList) { this.idList = idList; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("OUTPUT");
+		idList = new ID_LIST(); idList.parse(scanner);
 	}
 
 	public ID_LIST getIdList() { return idList; }
 }
 
 /**
- * Class for the COND node; Parsing and accessing child node(s) enabled;
+ * Class for the COND node; Parsing, building and accessing child node(s) enabled;
  */
-class COND {
+class COND extends NODE {
 
 	private int altNo;  // Decision;
 	private COND neg;   // 0 ::= !<cond>;
@@ -295,28 +380,34 @@ class COND {
 	private String op;  // 1 ::= (<cond> op <cond>);
 	private CMPR cmpr;  // 2 ::= cmpr;
 
-	public void parse() {
-		String token = Scanner.currentToken();
+	public COND() { }
+	public COND(COND neg) { altNo = 0; this.neg = neg; }
+	public COND(COND lhs, String op, COND rhs) { altNo = 1; this.lhs = lhs; this.op = op; this.rhs = rhs; }
+	public COND(CMPR cmpr) { altNo = 2; this.cmpr = cmpr; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		String token = scanner.currentToken();
 		if (token.equals("NOT")) { // !<cond>;
 			altNo = 0;
-			Scanner.nextToken();
-			neg = new COND(); neg.parse();
+			scanner.nextToken();
+			neg = new COND(); neg.parse(scanner);
 		} else if (token.equals("LEFT_PAREN")) { // (<cond> op <cond>);
 			altNo = 1;
-			Scanner.nextToken();
-			lhs = new COND(); lhs.parse();
-			token = Scanner.currentToken();
+			scanner.nextToken();
+			lhs = new COND(); lhs.parse(scanner);
+			token = scanner.currentToken();
 			if (token.equals("AND") || token.equals("OR")) {
 				op = token;
-				Scanner.nextToken();
+				scanner.nextToken();
 			} else {
-				System.out.println("ERROR: Expected a boolean operator, found " + token);
+				throw new CoreSyntaxException("Expected a boolean operator, found " + token, scanner);
 			}
-			rhs = new COND(); rhs.parse();
-			Scanner.match("RIGHT_PAREN");
+			rhs = new COND(); rhs.parse(scanner);
+			scanner.match("RIGHT_PAREN");
 		} else { // <cmpr>;
 			altNo = 2;
-			cmpr = new CMPR(); cmpr.parse();
+			cmpr = new CMPR(); cmpr.parse(scanner);
 		}
 	}
 
@@ -329,20 +420,24 @@ class COND {
 }
 
 /**
- * Class for the CMPR node; Parsing and accessing child node(s) enabled;
+ * Class for the CMPR node; Parsing, building and accessing child node(s) enabled;
  */
-class CMPR {
+class CMPR extends NODE {
 
 	private CMPR_OP op;
 	private EXPR expr1;
 	private EXPR expr2;
 
-	public void parse() {
-		Scanner.match("LEFT_BRACKET");
-		expr1 = new EXPR(); expr1.parse();
-		op = new CMPR_OP(); op.parse();
-		expr2 = new EXPR(); expr2.parse();
-		Scanner.match("RIGHT_BRACKET");
+	public CMPR() { }
+	public CMPR(EXPR expr1, CMPR_OP op, EXPR expr2) { this.expr1 = expr1; this.op = op; this.expr2 = expr2; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("LEFT_BRACKET");
+		expr1 = new EXPR(); expr1.parse(scanner);
+		op = new CMPR_OP(); op.parse(scanner);
+		expr2 = new EXPR(); expr2.parse(scanner);
+		scanner.match("RIGHT_BRACKET");
 	}
 
 	public CMPR_OP getOp() { return op; }
@@ -351,47 +446,55 @@ class CMPR {
 }
 
 /**
- * Class for the CMPR_OP node; Parsing and accessing child node(s) enabled;
+ * Class for the CMPR_OP node; Parsing, building and accessing child node(s) enabled;
  */
-class CMPR_OP {
+class CMPR_OP extends NODE {
 
 	private String op;
 
-	public void parse() {
-		String token = Scanner.currentToken();
+	public CMPR_OP() { }
+	public CMPR_OP(String op) { this.op = op; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		String token = scanner.currentToken();
 		if (token.equals("EQUALS") || token.equals("LESS_THAN") ||
 				token.equals("GREATER_THAN") || token.equals("LESS_EQUAL") ||
 				token.equals("GREATER_EQUAL") || token.equals("NOT_EQUAL")) {
 			op = token;
 		} else {
-			System.out.println("ERROR: Expected a comparison operator, found " + token);
-			System.exit(2); // Failure Case
+			throw new CoreSyntaxException("Expected a comparison operator, found " + token, scanner);
 		}
-		Scanner.nextToken();
+		scanner.nextToken();
 	}
 
 	public String getOp() { return op; }
 }
 
 /**
- * Class for the EXPR node; Parsing and accessing child node(s) enabled;
+ * Class for the EXPR node; Parsing, building and accessing child node(s) enabled;
  */
-class EXPR {
+class EXPR extends NODE {
 
 	private int altNo = 0;  // Decision;
 	private TERM term;      // 0 ::= <term>;
 	private EXPR expr;      // 1 ::= <term> op <expr>
 	private String op;      // 1 ::= <term> op <expr>
 
-	public void parse() {
-		term = new TERM(); term.parse();
+	public EXPR() { }
+	public EXPR(TERM term) { this.term = term; }
+	public EXPR(TERM term, String op, EXPR expr) { altNo = 1; this.term = term; this.op = op; this.expr = expr; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		term = new TERM(); term.parse(scanner);
 		// Continue parsing if arithmetic operator is encountered;
-		String token = Scanner.currentToken();
+		String token = scanner.currentToken();
 		if (token.equals("PLUS") || token.equals("MINUS")) {
 			altNo = 1;
 			op = token;
-			Scanner.nextToken();
-			expr = new EXPR(); expr.parse();
+			scanner.nextToken();
+			expr = new EXPR(); expr.parse(scanner);
 		}
 	}
 
@@ -402,21 +505,26 @@ class EXPR {
 }
 
 /**
- * Class for the TERM node; Parsing and accessing child node(s) enabled;
+ * Class for the TERM node; Parsing, building and accessing child node(s) enabled;
  */
-class TERM {
+class TERM extends NODE {
 
 	private int altNo = 0;  // Decision;
 	private FACTOR factor;  // 0 ::= <factor>;
 	private TERM term;      // 1 ::= <factor> * <term>;
 
-	public void parse() {
-		factor = new FACTOR(); factor.parse();
+	public TERM() { }
+	public TERM(FACTOR factor) { this.factor = factor; }
+	public TERM(FACTOR factor, TERM term) { altNo = 1; this.factor = factor; this.term = term; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		factor = new FACTOR(); factor.parse(scanner);
 		// Continue parsing TIMES operator is encountered;
-		if (Scanner.currentToken().equals("TIMES")) {
+		if (scanner.currentToken().equals("TIMES")) {
 			altNo = 1;
-			Scanner.nextToken();
-			term = new TERM(); term.parse();
+			scanner.nextToken();
+			term = new TERM(); term.parse(scanner);
 		}
 	}
 
@@ -426,9 +534,9 @@ class TERM {
 }
 
 /**
- * Class for the FACTOR node; Parsing and accessing child node(s) enabled;
+ * Class for the FACTOR node; Parsing, building and accessing child node(s) enabled;
  */
-class FACTOR {
+class FACTOR extends NODE {
 
 	private int altNo;      // Decision;
 	private int value;      // 0 ::= const;
@@ -436,23 +544,30 @@ class FACTOR {
 	private FACTOR factor;  // 2 ::= -<factor>;
 	private EXPR expr;      // 3 ::= (<expr>);
 
-	public void parse() {
-		String token = Scanner.currentToken();
+	public FACTOR() { }
+	public FACTOR(int value) { altNo = 0; this.value = value; }
+	public FACTOR(String id) { altNo = 1; this.id = id; }
+	public FACTOR(FACTOR factor) { altNo = 2; this.factor = factor; }
+	public FACTOR(EXPR expr) { altNo = 3; this.expr = expr; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		String token = scanner.currentToken();
 		if (token.contains("CONST")) { // const;
 			altNo = 0;
-			value = Scanner.getConst();
+			value = scanner.getConst();
 		} else if (token.contains("ID")) { // id;
 			altNo = 1;
-			id = Scanner.getID();
+			id = scanner.getID();
 		} else if (token.equals("MINUS")) { // -<factor>;
 			altNo = 2;
-			Scanner.nextToken();
-			factor = new FACTOR(); factor.parse();
+			scanner.nextToken();
+			factor = new FACTOR(); factor.parse(scanner);
 		} else if (token.equals("LEFT_PAREN")) { // (<expr>);
 			altNo = 3;
-			Scanner.match("LEFT_PAREN");
-			expr = new EXPR(); expr.parse();
-			Scanner.match("RIGHT_PAREN");
+			scanner.match("LEFT_PAREN");
+			expr = new EXPR(); expr.parse(scanner);
+			scanner.match("RIGHT_PAREN");
 		}
 	}
 
@@ -464,19 +579,23 @@ class FACTOR {
 }
 
 /**
- * Class for the CASE node; Parsing and accessing child node(s) enabled;
+ * Class for the CASE node; Parsing, building and accessing child node(s) enabled;
  */
-class CASE {
+class CASE extends NODE {
 
 	private String id;
 	private CASES cases;
 
-	public void parse() {
-		Scanner.match("CASE");
-		id = Scanner.getID();
-		Scanner.match("OF");
-		cases = new CASES(); cases.parse();
-		Scanner.match("END");
+	public CASE() { }
+	public CASE(String id, CASES cases) { this.id = id; this.cases = cases; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		scanner.match("CASE");
+		id = scanner.getID();
+		scanner.match("OF");
+		cases = new CASES(); cases.parse(scanner);
+		scanner.match("END");
 	}
 
 	public String getId() { return id; }
@@ -484,9 +603,9 @@ class CASE {
 }
 
 /**
- * Class for the CASES node; Parsing and accessing child node(s) enabled;
+ * Class for the CASES node; Parsing, building and accessing child node(s) enabled;
  */
-class CASES {
+class CASES extends NODE {
 
 	private int altNo = 0;      // Decision;
 	private INT_LIST intList;   // 0 ::= <intList> : <expr> BAR <cases>;
@@ -494,18 +613,27 @@ class CASES {
 	private EXPR elseExpr;      // 1 ::= <intList> : <expr> else <expr>;
 	private CASES cases;        // 0 ::= <intList> : <expr> BAR <cases>;
 
-	public void parse () {
-		intList = new INT_LIST(); intList.parse();
-		Scanner.match("COLON");
-		expr = new EXPR(); expr.parse();
+	public CASES() { }
+	public CASES(INT_LIST intList, EXPR expr, CASES cases) {
+		altNo = 1; this.intList = intList; this.expr = expr; this.cases = cases;
+	}
+	public CASES(INT_LIST intList, EXPR expr, EXPR elseExpr) {
+		this.intList = intList; this.expr = expr; this.elseExpr = elseExpr;
+	}
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		intList = new INT_LIST(); intList.parse(scanner);
+		scanner.match("COLON");
+		expr = new EXPR(); expr.parse(scanner);
 		// Continue parsing additional CASES or ELSE;
-		if (Scanner.currentToken().equals("BAR")) {
+		if (scanner.currentToken().equals("BAR")) {
 			altNo = 1;
-			Scanner.nextToken();
-			cases = new CASES(); cases.parse();
+			scanner.nextToken();
+			cases = new CASES(); cases.parse(scanner);
 		} else {
-			Scanner.match("ELSE");
-			elseExpr = new EXPR(); elseExpr.parse();
+			scanner.match("ELSE");
+			elseExpr = new EXPR(); elseExpr.parse(scanner);
 		}
 	}
 
@@ -517,21 +645,26 @@ class CASES {
 }
 
 /**
- * Class for the INT_LIST node; Parsing and accessing child node(s) enabled;
+ * Class for the INT_LIST node; Parsing, building and accessing child node(s) enabled;
  */
-class INT_LIST {
+class INT_LIST extends NODE {
 
 	private int altNo = 0;      // Decision;
 	private int value;          // 0 ::= int;
 	private INT_LIST intList;   // 1 ::= int, <intList>;
 
-	public void parse() {
-		value = Scanner.getConst();
+	public INT_LIST() { }
+	public INT_LIST(int value) { this.value = value; }
+	public INT_LIST(int value, INT_LIST intList) { altNo = 1; this.value = value; this.intList = intList; }
+
+	public void parse(Scanner scanner) {
+		mark(scanner);
+		value = scanner.getConst();
 		// Parse another INT_LIST if COMMA is encountered
-		if(Scanner.currentToken().equals("COMMA")) {
+		if(scanner.currentToken().equals("COMMA")) {
 			altNo = 1;
-			Scanner.nextToken();
-			intList = new INT_LIST(); intList.parse();
+			scanner.nextToken();
+			intList = new INT_LIST(); intList.parse(scanner);
 		}
 	}
 
@@ -0,0 +1,56 @@
+import java.io.FileInputStream;
+import java.io.FileDescriptor;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * PipeInput Class for the Core Interpreter Project; Standard input parsed ahead by a background thread;
+ */
+public class PipeInput extends InputSource {
+
+	/***********************************************************************************************
+	 ********************* Private Members: Ring of Parsed Values; Reader Thread *******************
+	 ***********************************************************************************************/
+
+	private static final int CAPACITY = 1 << 16;
+
+	private final IntRing ring = new IntRing(CAPACITY);
+	private final Thread reader;
+
+	/**
+	 * Start reading standard input ahead of INPUT; Memory use is bounded by the ring capacity;
+	 */
+	public PipeInput() { this(Channels.newChannel(new FileInputStream(FileDescriptor.in))); }
+
+	/**
+	 * Start reading a stream of text data ahead of INPUT, e.g. a socket or data held in memory;
+	 *
+	 * @param stream    channel of the text data; read to its end by the reader thread
+	 */
+	public PipeInput(ReadableByteChannel stream) {
+		final TextInput text = new TextInput(stream);
+		reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (text.hasNext()) ring.put(text.next());
+					ring.close();
+				} catch (NumberFormatException e) {
+					ring.fail(e.getMessage());
+				}
+			}
+		}, "core-input-reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/***********************************************************************************************
+	 ************************************ Methods for Executor *************************************
+	 ***********************************************************************************************/
+
+	@Override
+	public boolean hasNext() { return ring.hasNext(); }
+
+	@Override
+	public int next() { return ring.take(); }
+}
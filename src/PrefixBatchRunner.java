@@ -0,0 +1,280 @@
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * PrefixBatchRunner Class for the Core Interpreter Project; Batch runs sharing common input prefixes;
+ */
+public class PrefixBatchRunner {
+
+	/*******************************************************************************************
+	 * Private Members: Compiled Program; Budget of a Run; Input Streams in Trie Order;        *
+	 * Counters of the Batch                                                                   *
+	 *******************************************************************************************/
+
+	private final Program program;
+	private Budget budget = Budget.UNLIMITED;
+	private Stream[] streams;
+	private Integer[] order;
+	private String[] errors;
+	private File outDir;
+	private long forks = 0;
+	private long supplied = 0;
+
+	/**
+	 * Prepare prefix-sharing batch runs of a program;
+	 *
+	 * @param program   compiled program to run
+	 */
+	public PrefixBatchRunner(Program program) { this.program = program; }
+
+	/*******************************************************************************************
+	 ************************** Start Method for Beginning a Batch *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run the program on every data file, executing each common prefix of the inputs once;
+	 *
+	 * The inputs are sorted as integer streams, so the inputs sharing a prefix are adjacent and
+	 * form an implicit trie; One execution in step mode follows each branch of the trie and is
+	 * forked where the inputs of the branch differ at the next INPUT; Outputs and errors are
+	 * written as by BatchRunner, so both modes produce the same files; A fork inherits the
+	 * steps, OUTPUT values and wall time of the budget spent on the shared prefix; The time a
+	 * fork waits while other branches run is not charged to it;
+	 *
+	 * @param inputs    data files in either format
+	 * @param outDir    directory for the output files; created if missing
+	 * @return          report of the batch, in the order of inputs
+	 */
+	public BatchRunner.Report run(List<File> inputs, File outDir) {
+		BatchRunner.createDirectory(outDir);
+		long start = System.nanoTime();
+		this.outDir = outDir;
+		streams = new Stream[inputs.size()];
+		order = new Integer[inputs.size()];
+		errors = new String[inputs.size()];
+		for (int i = 0; i < streams.length; i++) {
+			streams[i] = new Stream(inputs.get(i));
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) { return streams[a].compareTo(streams[b]); }
+		});
+		// Branches of the trie still to run; explicit so deep tries do not overflow the stack;
+		ArrayDeque<Branch> branches = new ArrayDeque<Branch>();
+		if (streams.length > 0) {
+			Segment root = new Segment(null);
+			Executor executor = new Executor(program, null, root);
+			executor.setBudget(budget);
+			try {
+				executor.begin();
+				branches.push(new Branch(executor, root, 0, streams.length, 0));
+			} catch (Throwable e) {
+				finish(0, streams.length, root, CoreException.messageOf(e));
+			}
+		}
+		while (!branches.isEmpty()) runBranch(branches.pop(), branches);
+		return new BatchRunner.Report(inputs, errors, System.nanoTime() - start);
+	}
+
+	/**
+	 * Setter method for the budget of each run;
+	 *
+	 * @param budget    limits of a run, as for BatchRunner; Budget.UNLIMITED by default
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/**
+	 * Describe how much input was shared;
+	 *
+	 * @return  values supplied to INPUT in total and number of forks
+	 */
+	public String getSharingReport() {
+		long total = 0;
+		for (Stream stream : streams) total += stream.data.size();
+		return "PREFIX: " + supplied + " of " + total + " input values executed; " + forks + " forks";
+	}
+
+	/*******************************************************************************************
+	 ********************************** Helper Methods for Branches ****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run a branch until the program ends or its inputs differ at the next INPUT; Pushes one
+	 * forked branch per distinct next token;
+	 *
+	 * @param branch    branch to run; its executor is starting or waiting for the token at branch.pos
+	 * @param pending   branches still to run
+	 */
+	private void runBranch(Branch branch, ArrayDeque<Branch> pending) {
+		Executor executor = branch.executor;
+		int pos = branch.pos;
+		executor.delayDeadline(System.nanoTime() - branch.forked);
+		try {
+			while (true) {
+				if (executor.isWaiting()) {
+					// Every input of the branch has the same token at pos;
+					executor.supply(streams[order[branch.from]].token(pos++));
+					supplied++;
+				}
+				if (!executor.advance()) {
+					finish(branch.from, branch.to, branch.segment, null);
+					return;
+				}
+				int end = groupEnd(branch.from, branch.to, pos);
+				if (end == branch.to) continue;
+				// Fork := one branch per distinct token; the frame is copied on first write;
+				for (int from = branch.from; from < branch.to; from = end) {
+					end = groupEnd(from, branch.to, pos);
+					Segment segment = new Segment(branch.segment);
+					pending.push(new Branch(executor.fork(segment), segment, from, end, pos));
+					forks++;
+				}
+				return;
+			}
+		} catch (Throwable e) {
+			// Any failure ends the inputs of this branch alone, as it would end their runs;
+			finish(branch.from, branch.to, branch.segment, CoreException.messageOf(e));
+		}
+	}
+
+	/**
+	 * End of the group of inputs sharing the token at pos with the input at from;
+	 *
+	 * @param from  first index in order
+	 * @param to    end of the branch in order
+	 * @param pos   position of the token in the streams
+	 * @return      index after the last input of the group
+	 */
+	private int groupEnd(int from, int to, int pos) {
+		Stream first = streams[order[from]];
+		int end = from + 1;
+		while (end < to && first.compareAt(streams[order[end]], pos) == 0) end++;
+		return end;
+	}
+
+	/**
+	 * Write the outputs of a finished branch; Every input of the branch has the same output;
+	 *
+	 * @param from      first index in order
+	 * @param to        end of the branch in order
+	 * @param segment   last output segment of the branch
+	 * @param error     message of the failure ending the branch; null if the program ended
+	 */
+	private void finish(int from, int to, Segment segment, String error) {
+		for (int i = from; i < to; i++) {
+			File out = new File(outDir, streams[order[i]].file.getName() + ".out");
+			OutputSink sink = OutputSink.file(out.getPath(), OutputSink.FlushPolicy.THROUGHPUT);
+			segment.writeTo(sink);
+			sink.close();
+			if (error != null) errors[order[i]] = BatchRunner.appendError(out, error);
+		}
+	}
+
+	/*******************************************************************************************
+	 *********************************** Branches of the Trie **********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Executor following the inputs order[from..to), which share their first pos tokens; Forked
+	 * at System.nanoTime() forked;
+	 */
+	private static class Branch {
+
+		private final Executor executor;
+		private final Segment segment;
+		private final int from;
+		private final int to;
+		private final int pos;
+		private final long forked = System.nanoTime();
+
+		private Branch(Executor executor, Segment segment, int from, int to, int pos) {
+			this.executor = executor;
+			this.segment = segment;
+			this.from = from;
+			this.to = to;
+			this.pos = pos;
+		}
+	}
+
+	/**
+	 * OUTPUT values of one branch between two forks; Chained to the segment before the fork;
+	 */
+	private static class Segment extends OutputSink {
+
+		private final Segment parent;
+		private int[] values = new int[16];
+		private int count = 0;
+
+		private Segment(Segment parent) { this.parent = parent; }
+
+		@Override
+		public void write(int value) {
+			if (count == values.length) values = Arrays.copyOf(values, count * 2);
+			values[count++] = value;
+		}
+
+		private void writeTo(OutputSink sink) {
+			ArrayDeque<Segment> chain = new ArrayDeque<Segment>();
+			for (Segment segment = this; segment != null; segment = segment.parent) chain.push(segment);
+			for (Segment segment : chain) {
+				for (int i = 0; i < segment.count; i++) sink.write(segment.values[i]);
+			}
+		}
+	}
+
+	/*******************************************************************************************
+	 *********************************** Input Streams *****************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Integers of a data file, ended by nothing or by a malformed token; Read once, in memory;
+	 */
+	private static class Stream implements Comparable<Stream> {
+
+		private final File file;
+		private final ArrayInput data;
+
+		private Stream(File file) {
+			this.file = file;
+			this.data = ArrayInput.read(file.getPath());
+		}
+
+		/**
+		 * Source of the token at pos for INPUT: a value, a malformed token or the end;
+		 *
+		 * @param pos   position in the stream
+		 * @return      cursor at that token
+		 */
+		private InputSource token(int pos) { return data.cursor(pos); }
+
+		/**
+		 * Order of the tokens at pos: the end, then malformed tokens, then values;
+		 *
+		 * @param other     stream to compare with
+		 * @param pos       position in both streams
+		 * @return          negative, zero or positive as for compareTo
+		 */
+		private int compareAt(Stream other, int pos) {
+			int kind = kind(pos), otherKind = other.kind(pos);
+			if (kind != otherKind) return kind - otherKind;
+			if (kind == 1) return data.getMalformed().compareTo(other.data.getMalformed());
+			if (kind == 2) return Integer.compare(data.get(pos), other.data.get(pos));
+			return 0;
+		}
+
+		private int kind(int pos) { return pos < data.size() ? 2 : data.getMalformed() != null ? 1 : 0; }
+
+		@Override
+		public int compareTo(Stream other) {
+			int n = Math.min(data.size(), other.data.size());
+			for (int pos = 0; pos < n; pos++) {
+				if (data.get(pos) != other.data.get(pos)) return Integer.compare(data.get(pos), other.data.get(pos));
+			}
+			return compareAt(other, n);
+		}
+	}
+}
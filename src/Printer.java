@@ -1,9 +1,30 @@
+import java.io.IOException;
+
 /**
  * Printer Class for the Core Interpreter Project;
  */
 public class Printer {
 
-	private Printer() { }
+	/*************************************************************************************************
+	 * Private Members: Cached Indentation Strings; Reusable Buffer & Destination of a Pretty Print  *
+	 *************************************************************************************************/
+
+	private static final String NEWLINE = System.lineSeparator();
+	private static final int CHUNK = 1 << 13;
+	private static final String[] INDENTS = new String[32];
+	static {
+		INDENTS[0] = "";
+		for (int i = 1; i < INDENTS.length; i++) INDENTS[i] = INDENTS[i - 1] + "  ";
+	}
+
+	private final StringBuilder buffer = new StringBuilder(CHUNK + 256);
+	private final Appendable out;
+	private final Profile profile;      // annotates every line when set; see Profile.report;
+
+	private Printer(Appendable out, Profile profile) {
+		this.out = out;
+		this.profile = profile;
+	}
 
 	/*************************************************************************************************
 	 ****************************** Start Method for Beginning Printing ******************************
@@ -14,7 +35,32 @@ public class Printer {
 	 *
 	 * @param parseTree     root PROG node for the parse tree of the program
 	 */
-	public static void prettyPrint(PROG parseTree) { printPROG(parseTree); }
+	public static void prettyPrint(PROG parseTree) {
+		prettyPrint(parseTree, System.out);
+		System.out.flush();
+	}
+
+	/**
+	 * Generate pretty print for the program into any Appendable; Written in large chunks;
+	 *
+	 * @param parseTree     root PROG node for the parse tree of the program
+	 * @param out           destination of the pretty print
+	 */
+	public static void prettyPrint(PROG parseTree, Appendable out) { prettyPrint(parseTree, out, null); }
+
+	/**
+	 * Generate pretty print for the program with the counts and times of a profile before
+	 * every line;
+	 *
+	 * @param parseTree     root PROG node for the parse tree of the program
+	 * @param out           destination of the pretty print
+	 * @param profile       profile of runs of the program; null for the plain pretty print
+	 */
+	static void prettyPrint(PROG parseTree, Appendable out, Profile profile) {
+		Printer printer = new Printer(out, profile);
+		printer.printPROG(parseTree);
+		printer.write();
+	}
 
 	/*************************************************************************************************
 	 *********************************** Methods for Pretty Print ************************************
@@ -25,12 +71,15 @@ public class Printer {
 	 *
 	 * @param prog  PROG node to pretty print
 	 */
-	private static void printPROG(PROG prog) {
-		System.out.println("program");
+	private void printPROG(PROG prog) {
+		margin(null);
+		println("program");
 		printDECLSEQ(prog.getDeclSeq());
-		System.out.println("begin");
+		margin(null);
+		println("begin");
 		printSTMTSEQ(prog.getStmtSeq(), 1);
-		System.out.println("end");
+		margin(null);
+		println("end");
 	}
 
 	/**
@@ -38,7 +87,8 @@ public class Printer {
 	 *
 	 * @param declSeq   DECL_SEQ node to pretty print
 	 */
-	private static void printDECLSEQ(DECL_SEQ declSeq) {
+	private void printDECLSEQ(DECL_SEQ declSeq) {
+		margin(null);
 		indent(1);
 		printDECL(declSeq.getDecl());
 		// Decision: print another DECL_SEQ;
@@ -52,10 +102,10 @@ public class Printer {
 	 *
 	 * @param decl  DECL node to pretty print
 	 */
-	private static void printDECL(DECL decl) {
-		System.out.print("int ");
+	private void printDECL(DECL decl) {
+		print("int ");
 		printIDLIST(decl.getIdList());
-		System.out.println(";");
+		println(";");
 	}
 
 	/**
@@ -63,11 +113,11 @@ public class Printer {
 	 *
 	 * @param idList   ID_LIST node to pretty print
 	 */
-	private static void printIDLIST(ID_LIST idList) {
-		System.out.print(idList.getId());
+	private void printIDLIST(ID_LIST idList) {
+		print(idList.getId());
 		// Decision: print another ID_LIST;
 		if (idList.getAltNo() == 1) {
-			System.out.print(",");
+			print(",");
 			printIDLIST(idList.getIdList());
 		}
 	}
@@ -78,7 +128,8 @@ public class Printer {
 	 * @param stmtSeq   STMT_SEQ node to pretty print
 	 * @param indent    number of times to indent block
 	 */
-	private static void printSTMTSEQ(STMT_SEQ stmtSeq, int indent) {
+	private void printSTMTSEQ(STMT_SEQ stmtSeq, int indent) {
+		margin(stmtSeq.getStmt());
 		indent(indent);
 		printSTMT(stmtSeq.getStmt(), indent);
 		// Decision: print another STMT_SEQ;
@@ -93,7 +144,7 @@ public class Printer {
 	 * @param stmt      STMT node to pretty print
 	 * @param indent    number of times to indent block
 	 */
-	private static void printSTMT(STMT stmt, int indent) {
+	private void printSTMT(STMT stmt, int indent) {
 		switch (stmt.getAltNo()) {
 			case 1: // ASSIGN
 				printASSIGN(stmt.getAssign());
@@ -116,7 +167,7 @@ public class Printer {
 			default:
 				break;
 		}
-		System.out.println(";");
+		println(";");
 	}
 
 	/**
@@ -124,8 +175,9 @@ public class Printer {
 	 *
 	 * @param assignStmt    ASSIGN node to pretty print
 	 */
-	private static void printASSIGN(ASSIGN assignStmt) {
-		System.out.print(assignStmt.getLvalue() + ":=");
+	private void printASSIGN(ASSIGN assignStmt) {
+		print(assignStmt.getLvalue());
+		print(":=");
 		printEXPR(assignStmt.getExpr());
 	}
 
@@ -135,19 +187,21 @@ public class Printer {
 	 * @param ifStmt    IF node to pretty print
 	 * @param indent    number of times to indent block
 	 */
-	private static void printIF(IF ifStmt, int indent) {
-		System.out.print("if");
+	private void printIF(IF ifStmt, int indent) {
+		print("if");
 		printCOND(ifStmt.getCond());
-		System.out.println("then");
+		println("then");
 		printSTMTSEQ(ifStmt.getStmtSeq(), indent + 1);
 		// Decision: print ELSE clause;
 		if (ifStmt.getAltNo() == 1) {
+			margin(null);
 			indent(indent);
-			System.out.println("else");
+			println("else");
 			printSTMTSEQ(ifStmt.getElseStmtSeq(), indent + 1);
 		}
+		margin(null);
 		indent(indent);
-		System.out.print("endif");
+		print("endif");
 	}
 
 	/**
@@ -156,13 +210,15 @@ public class Printer {
 	 * @param loopStmt  LOOP node to pretty print
 	 * @param indent    number of times to indent block
 	 */
-	private static void printLOOP(LOOP loopStmt, int indent) {
-		System.out.println("do");
+	private void printLOOP(LOOP loopStmt, int indent) {
+		println("do");
 		printSTMTSEQ(loopStmt.getStmtSeq(), indent + 1);
+		// Iterations of the LOOP on the line of its test;
+		margin(loopStmt);
 		indent(indent);
-		System.out.print("while");
+		print("while");
 		printCOND(loopStmt.getCond());
-		System.out.print("enddo");
+		print("enddo");
 	}
 
 	/**
@@ -170,8 +226,8 @@ public class Printer {
 	 *
 	 * @param inputStmt     INPUT node to pretty print
 	 */
-	private static void printIN(IN inputStmt) {
-		System.out.print("input ");
+	private void printIN(IN inputStmt) {
+		print("input ");
 		printIDLIST(inputStmt.getIdList());
 	}
 
@@ -180,8 +236,8 @@ public class Printer {
 	 *
 	 * @param outputStmt    OUTPUT node to pretty print
 	 */
-	private static void printOUT(OUT outputStmt) {
-		System.out.print("output ");
+	private void printOUT(OUT outputStmt) {
+		print("output ");
 		printIDLIST(outputStmt.getIdList());
 	}
 
@@ -190,18 +246,18 @@ public class Printer {
 	 *
 	 * @param cond  COND node to pretty print
 	 */
-	private static void printCOND(COND cond) {
+	private void printCOND(COND cond) {
 		switch (cond.getAltNo()) {
 			case 0: // !COND;
-				System.out.print("!");
+				print("!");
 				printCOND(cond.getNeg());
 				break;
 			case 1: // (COND op COND);
-				System.out.print("(");
+				print("(");
 				printCOND(cond.getLhs());
-				System.out.print(cond.getOp());
+				print(cond.getOp());
 				printCOND(cond.getRhs());
-				System.out.print(")");
+				print(")");
 				break;
 			case 2: // CMPR;
 				printCMPR(cond.getCmpr());
@@ -216,12 +272,12 @@ public class Printer {
 	 *
 	 * @param cmpr  CMPR node to pretty print
 	 */
-	private static void printCMPR(CMPR cmpr) {
-		System.out.print("[");
+	private void printCMPR(CMPR cmpr) {
+		print("[");
 		printEXPR(cmpr.getExpr1());
 		printCMPROP(cmpr.getOp());
 		printEXPR(cmpr.getExpr2());
-		System.out.print("]");
+		print("]");
 	}
 
 	/**
@@ -229,19 +285,19 @@ public class Printer {
 	 *
 	 * @param cmprOp    CMPR_OP node to pretty print
 	 */
-	private static void printCMPROP(CMPR_OP cmprOp) {
+	private void printCMPROP(CMPR_OP cmprOp) {
 		if (cmprOp.getOp().equals("EQUALS")) {
-			System.out.print("=");
+			print("=");
 		} else if (cmprOp.getOp().equals("LESS_THAN")) {
-			System.out.print("<");
+			print("<");
 		} else if (cmprOp.getOp().equals("GREATER_THAN")) {
-			System.out.print(">");
+			print(">");
 		} else if (cmprOp.getOp().equals("LESS_EQUAL")) {
-			System.out.print("<=");
+			print("<=");
 		} else if (cmprOp.getOp().equals("GREATER_EQUAL")) {
-			System.out.print(">=");
+			print(">=");
 		} else if (cmprOp.getOp().equals("NOT_EQUAL")) {
-			System.out.print("!=");
+			print("!=");
 		}
 	}
 
@@ -250,14 +306,14 @@ public class Printer {
 	 *
 	 * @param expr      EXPR node to pretty print
 	 */
-	private static void printEXPR(EXPR expr) {
+	private void printEXPR(EXPR expr) {
 		printTERM(expr.getTerm());
 		// Decision: print OP EXPR;
 		if (expr.getAltNo() == 1) {
 			if (expr.getOp().equals("PLUS")) {
-				System.out.print("+");
+				print("+");
 			} else {
-				System.out.print("-");
+				print("-");
 			}
 			printEXPR(expr.getExpr());
 		}
@@ -268,11 +324,11 @@ public class Printer {
 	 *
 	 * @param term      TERM node to pretty print
 	 */
-	private static void printTERM(TERM term) {
+	private void printTERM(TERM term) {
 		printFACTOR(term.getFactor());
 		// Decision: print * TERM;
 		if (term.getAltNo() == 1) {
-			System.out.print("*");
+			print("*");
 			printTERM(term.getTerm());
 		}
 	}
@@ -282,22 +338,22 @@ public class Printer {
 	 *
 	 * @param factor    FACTOR node to pretty print
 	 */
-	private static void printFACTOR(FACTOR factor) {
+	private void printFACTOR(FACTOR factor) {
 		switch (factor.getAltNo()) {
 			case 0: // CONST;
-				System.out.print(factor.getValue());
+				print(factor.getValue());
 				break;
 			case 1: // ID;
-				System.out.print(factor.getId());
+				print(factor.getId());
 				break;
 			case 2: // -<FACTOR>;
-				System.out.print("-");
+				print("-");
 				printFACTOR(factor.getFactor());
 				break;
 			case 3: // (EXPR);
-				System.out.print("(");
+				print("(");
 				printEXPR(factor.getExpr());
-				System.out.print(")");
+				print(")");
 				break;
 			default:
 				break;
@@ -310,14 +366,16 @@ public class Printer {
 	 * @param case_stmt     CASE node to pretty print
 	 * @param indent        number of times to indent block
 	 */
-	private static void printCASE(CASE case_stmt, int indent) {
-		System.out.println("case " + case_stmt.getId() + " of");
+	private void printCASE(CASE case_stmt, int indent) {
+		println("case " + case_stmt.getId() + " of");
+		margin(case_stmt.getCases().getExpr());
 		indent(indent + 1);
 		printCASES(case_stmt.getCases(), indent + 1);
 		// Split: new line for end keyword
-		System.out.println();
+		println("");
+		margin(null);
 		indent(indent);
-		System.out.print("end");
+		print("end");
 	}
 
 	/**
@@ -326,18 +384,19 @@ public class Printer {
 	 * @param cases     CASES node to pretty print
 	 * @param indent    number of times to indent block
 	 */
-	private static void printCASES(CASES cases, int indent) {
+	private void printCASES(CASES cases, int indent) {
 		printINTLIST(cases.getIntList());
-		System.out.print(":");
+		print(":");
 		printEXPR(cases.getExpr());
 		// Decision: more cases or else
-		System.out.println();
+		println("");
+		margin(cases.getAltNo() == 1 ? cases.getCases().getExpr() : cases.getElseExpr());
 		indent(indent);
 		if (cases.getAltNo() == 1) {
-			System.out.print("|");
+			print("|");
 			printCASES(cases.getCases(), indent);
 		} else {
-			System.out.print("else ");
+			print("else ");
 			printEXPR(cases.getElseExpr());
 		}
 	}
@@ -347,23 +406,62 @@ public class Printer {
 	 *
 	 * @param intList   INT_LIST node to pretty print
 	 */
-	private static void printINTLIST(INT_LIST intList) {
-		System.out.print(intList.getValue());
+	private void printINTLIST(INT_LIST intList) {
+		print(intList.getValue());
 		// Decision: print another INT_LIST;
 		if (intList.getAltNo() == 1) {
-			System.out.print(",");
+			print(",");
 			printINTLIST(intList.getIntList());
 		}
 	}
 
 	/*************************************************************************************************
-	 ******************************** Helper Method for Print Methods ********************************
+	 ******************************** Helper Methods for Print Methods *******************************
 	 *************************************************************************************************/
 
 	/**
-	 * Helper method to generate two-space indents for the pretty print;
+	 * Helper method to annotate a line with the region of a node in profile mode;
+	 *
+	 * @param node      node of the region shown by the line; null for none
+	 */
+	private void margin(NODE node) {
+		if (profile != null) buffer.append(profile.margin(node));
+	}
+
+	/**
+	 * Helper method to generate two-space indents for the pretty print; Uses cached strings;
 	 *
 	 * @param times     integer representing number of times to indent
 	 */
-	private static void indent(int times) { for(int i = 0; i < times; i++) System.out.print("  "); }
+	private void indent(int times) {
+		if (times < INDENTS.length) {
+			buffer.append(INDENTS[times]);
+		} else {
+			for (int i = 0; i < times; i++) buffer.append("  ");
+		}
+	}
+
+	/**
+	 * Helper methods to append to the buffer; The buffer is written out once it fills a chunk;
+	 *
+	 * @param text  text or value to append
+	 */
+	private void print(String text) { buffer.append(text); }
+	private void print(int value) { buffer.append(value); }
+	private void println(String text) {
+		buffer.append(text).append(NEWLINE);
+		if (buffer.length() >= CHUNK) write();
+	}
+
+	/**
+	 * Helper method to write the buffer to the destination and reuse it;
+	 */
+	private void write() {
+		try {
+			out.append(buffer);
+		} catch (IOException e) {
+			throw new CoreException("cannot print program: " + e.getMessage());
+		}
+		buffer.setLength(0);
+	}
 }
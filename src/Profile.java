@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Profile Class for the Core Interpreter Project; Executions and time of every statement of
+ * the runs of an Executor;
+ */
+public final class Profile {
+
+	/*******************************************************************************************
+	 * A region is a STMT, one iteration of a LOOP (its body and the test after it) or an arm  *
+	 * of a CASE (the EXPR it assigns), keyed by its node and reported at its source line; The *
+	 * Executor enters and leaves regions as it runs; Every execution is counted, but the      *
+	 * clock is only read around a random one in PERIOD executions of a region, always the     *
+	 * first, since two reads cost more than most statements; Inclusive time is the mean of    *
+	 * the timed executions times the count, exclusive time that less the inclusive time of    *
+	 * the regions nested in it; A region does not contain itself, CORE having no calls;       *
+	 * Regions left by an error are closed by finish(); A Profile is not thread-safe           *
+	 *******************************************************************************************/
+
+	private static final int PERIOD = 16;                   // mean executions per timed one;
+	private static final int HOT_SPOTS = 10;                // regions listed by exclusive time;
+	private static final long CLOCK = clockCost();          // ns of one read, part of every timing;
+	private static final String[] STMTS = {"", "ASSIGN", "IF", "LOOP", "INPUT", "OUTPUT", "CASE"};
+	private static final String BLANK = String.format(Locale.ROOT, "%10s %10s %10s %6s | ", "", "", "", "");
+
+	/*******************************************************************************************
+	 * Private Members: Regions by Node; Stack of Entered Regions; Random Gaps between Timed   *
+	 * Executions; Runs & their Wall Time                                                      *
+	 *******************************************************************************************/
+
+	private final IdentityHashMap<NODE,Region> regions = new IdentityHashMap<NODE,Region>();
+	private Region[] stack = new Region[16];
+	private int depth = 0;
+	private int random = 0x2545F491;
+	private long runs = 0;
+	private long started = 0;
+	private long nanos = 0;
+
+	/*******************************************************************************************
+	 ********************************* Methods for the Executor ********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Start a run;
+	 */
+	void start() {
+		runs++;
+		depth = 0;
+		started = System.nanoTime();
+	}
+
+	/**
+	 * Enter the region of a node; Nested in the region entered last;
+	 *
+	 * @param node  STMT, LOOP for an iteration or EXPR of a CASE arm
+	 */
+	void enter(NODE node) {
+		Region region = regions.get(node);
+		if (region == null) {
+			region = new Region(node);
+			regions.put(node, region);
+		}
+		if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+		stack[depth++] = region;
+		region.count++;
+		if (--region.gap == 0) {
+			region.gap = gap();
+			region.timing = true;
+			region.start = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Leave the region entered last;
+	 */
+	void exit() {
+		Region region = stack[--depth];
+		stack[depth] = null;
+		if (region.timing) region.stop(System.nanoTime());
+	}
+
+	/**
+	 * End a run; Closes the regions an error left open, timed up to now;
+	 */
+	void finish() {
+		long now = System.nanoTime();
+		while (depth > 0) {
+			Region region = stack[--depth];
+			stack[depth] = null;
+			if (region.timing) region.stop(now);
+		}
+		nanos += now - started;
+	}
+
+	/**
+	 * Executions until the next timed one: uniform from 1 to 2 * PERIOD - 1, by xorshift;
+	 */
+	private int gap() {
+		random ^= random << 13;
+		random ^= random >>> 17;
+		random ^= random << 5;
+		return 1 + (random >>> 1) % (2 * PERIOD - 1);
+	}
+
+	/**
+	 * Nanoseconds of one clock read: the least difference of two reads in a row;
+	 */
+	private static long clockCost() {
+		long least = Long.MAX_VALUE;
+		for (int i = 0; i < 1000; i++) {
+			long start = System.nanoTime();
+			least = Math.min(least, System.nanoTime() - start);
+		}
+		return least;
+	}
+
+	/*******************************************************************************************
+	 ****************************************** Reports ****************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Print the program in the layout of the Printer, every line after the count, inclusive
+	 * and exclusive milliseconds and source line of its region, then the hot spots;
+	 *
+	 * @param parseTree     root PROG node of the profiled program
+	 * @param out           destination of the report
+	 */
+	public void report(PROG parseTree, Appendable out) {
+		// Exclusive := inclusive less the nested regions; negative only by sampling error;
+		long statements = 0;
+		for (Region region : regions.values()) {
+			double nested = 0;
+			for (NODE child : children(region.node)) {
+				Region inner = regions.get(child);
+				if (inner != null) nested += inner.inclusive();
+			}
+			region.exclusive = Math.max(0, region.inclusive() - nested);
+			if (region.node instanceof STMT) statements += region.count;
+		}
+		StringBuilder text = new StringBuilder();
+		text.append(String.format(Locale.ROOT, "PROFILE: %d run(s), %d statements, %.3f ms; 1 in %d timed%n", runs,
+				statements, nanos / 1e6, PERIOD));
+		text.append(String.format(Locale.ROOT, "%10s %10s %10s %6s | %s%n", "count", "incl ms", "excl ms", "line",
+				"program"));
+		write(text, out);
+		Printer.prettyPrint(parseTree, out, this);
+		List<Region> hot = new ArrayList<Region>(regions.values());
+		Collections.sort(hot, (a, b) -> Double.compare(b.exclusive, a.exclusive));
+		text.append(String.format(Locale.ROOT, "HOT SPOTS by exclusive time%n"));
+		for (Region region : hot.subList(0, Math.min(HOT_SPOTS, hot.size()))) {
+			text.append(String.format(Locale.ROOT, "%10.3f ms %5.1f%% %10d x  line %-5d %s%n", region.exclusive / 1e6,
+					nanos == 0 ? 0.0 : 100.0 * region.exclusive / nanos, region.count, region.node.getLine(),
+					region.kind()));
+		}
+		write(text, out);
+	}
+
+	/**
+	 * Annotation of a line of the listing; For the Printer, after report() computed the times;
+	 *
+	 * @param node  node of the region the line shows; null for a line of no region
+	 * @return      count, inclusive and exclusive milliseconds and source line of the region
+	 */
+	String margin(NODE node) {
+		if (node == null) return BLANK;
+		Region region = regions.get(node);
+		if (region == null) return String.format(Locale.ROOT, "%10d %10s %10s %6d | ", 0, "", "", node.getLine());
+		return String.format(Locale.ROOT, "%10d %10.3f %10.3f %6d | ", region.count, region.inclusive() / 1e6,
+				region.exclusive / 1e6, node.getLine());
+	}
+
+	/**
+	 * Regions directly nested in the region of a node;
+	 *
+	 * @param node  STMT, LOOP or EXPR of a region
+	 * @return      STMTs of the bodies of an IF or LOOP iteration, the iterations of a LOOP
+	 *              STMT, the arms of a CASE
+	 */
+	private static List<NODE> children(NODE node) {
+		List<NODE> children = new ArrayList<NODE>();
+		if (node instanceof LOOP) {
+			statements(((LOOP) node).getStmtSeq(), children);
+		} else if (node instanceof STMT) {
+			STMT stmt = (STMT) node;
+			if (stmt.getAltNo() == 2) {
+				statements(stmt.getIf().getStmtSeq(), children);
+				if (stmt.getIf().getAltNo() == 1) statements(stmt.getIf().getElseStmtSeq(), children);
+			} else if (stmt.getAltNo() == 3) {
+				children.add(stmt.getLoop());
+			} else if (stmt.getAltNo() == 6) {
+				CASES cases = stmt.getCase().getCases();
+				for (; cases.getAltNo() == 1; cases = cases.getCases()) children.add(cases.getExpr());
+				children.add(cases.getExpr());
+				children.add(cases.getElseExpr());
+			}
+		}
+		return children;
+	}
+
+	private static void statements(STMT_SEQ stmtSeq, List<NODE> children) {
+		for (; stmtSeq.getAltNo() == 1; stmtSeq = stmtSeq.getStmtSeq()) children.add(stmtSeq.getStmt());
+		children.add(stmtSeq.getStmt());
+	}
+
+	private static void write(StringBuilder text, Appendable out) {
+		try {
+			out.append(text);
+		} catch (IOException e) {
+			throw new CoreException("cannot print profile: " + e.getMessage());
+		}
+		text.setLength(0);
+	}
+
+	/*******************************************************************************************
+	 ********************************** Counters of a Region ***********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Executions of a region and nanoseconds of the timed ones;
+	 */
+	private static final class Region {
+
+		private final NODE node;
+		private long count = 0;
+		private long timed = 0;
+		private long nanos = 0;
+		private int gap = 1;                // executions until the next timed one;
+		private boolean timing = false;
+		private long start = 0;
+		private double exclusive = 0;
+
+		private Region(NODE node) { this.node = node; }
+
+		private void stop(long now) {
+			nanos += Math.max(0, now - start - CLOCK);
+			timed++;
+			timing = false;
+		}
+
+		private double inclusive() { return timed == 0 ? 0 : (double) nanos * count / timed; }
+
+		private String kind() {
+			if (node instanceof STMT) return STMTS[((STMT) node).getAltNo()];
+			return node instanceof LOOP ? "LOOP iteration" : "CASE arm";
+		}
+	}
+}
@@ -0,0 +1,81 @@
+import java.util.HashMap;
+
+/**
+ * Program Class for the Core Interpreter Project; Immutable compiled program shared by Executors;
+ */
+public final class Program {
+
+	/*******************************************************************************************
+	 * Private Members: Parse Tree; Slot of each Declared Variable; First Repeated Declaration *
+	 *******************************************************************************************/
+
+	private final PROG parseTree;
+	private final HashMap<String,Integer> slots = new HashMap<String,Integer>();
+	private final String[] names;
+	private final ID_LIST repeated;
+
+	private Program(PROG parseTree) {
+		this.parseTree = parseTree;
+		ID_LIST first = null;
+		for (DECL_SEQ declSeq = parseTree.getDeclSeq(); declSeq != null; declSeq = declSeq.getDeclSeq()) {
+			for (ID_LIST idList = declSeq.getDecl().getIdList(); idList != null; idList = idList.getIdList()) {
+				if (!slots.containsKey(idList.getId())) slots.put(idList.getId(), slots.size());
+				else if (first == null) first = idList;
+			}
+		}
+		names = new String[slots.size()];
+		for (String id : slots.keySet()) names[slots.get(id)] = id;
+		repeated = first;
+	}
+
+	/*******************************************************************************************
+	 ************************** Start Method for Compiling a Program ***************************
+	 *******************************************************************************************/
+
+	/**
+	 * Number the declared variables of a parse tree; The tree must not be modified afterwards;
+	 *
+	 * @param parseTree     parse tree representing the program file
+	 * @return              compiled program, safe to execute from several threads at once
+	 */
+	public static Program compile(PROG parseTree) { return new Program(parseTree); }
+
+	/*******************************************************************************************
+	 ************************************* Getter Methods **************************************
+	 *******************************************************************************************/
+
+	public PROG getParseTree() { return parseTree; }
+
+	/**
+	 * Getter for the number of declared variables; Size of an Executor frame;
+	 *
+	 * @return  number of distinct declared ids
+	 */
+	public int size() { return names.length; }
+
+	/**
+	 * Getter for the frame slot of a variable;
+	 *
+	 * @param id    identifier name
+	 * @return      slot of the declared id; -1 if the id is not declared
+	 */
+	public int slot(String id) {
+		Integer slot = slots.get(id);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * Getter for the variable of a frame slot;
+	 *
+	 * @param slot  slot of a declared id
+	 * @return      identifier name
+	 */
+	public String name(int slot) { return names[slot]; }
+
+	/**
+	 * Getter for the first declaration of an id declared before; Reported when execution starts;
+	 *
+	 * @return  ID_LIST node of the repeated declaration; null if every id is declared once
+	 */
+	ID_LIST getRepeated() { return repeated; }
+}
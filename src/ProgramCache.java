@@ -0,0 +1,117 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProgramCache Class for the Core Interpreter Project; Parse trees kept on disk between runs;
+ */
+public class ProgramCache {
+
+	/*******************************************************************************************
+	 * Private Members: Cache Directory; Whether the Last Load was Served from the Cache        *
+	 *******************************************************************************************/
+
+	private final File dir;
+	private boolean hit = false;
+
+	/**
+	 * Use a cache directory; Entries are named by the SHA-256 of the program file and the
+	 * TreeCodec VERSION, so edited programs and new interpreter versions never see stale trees;
+	 *
+	 * @param dir   cache directory; created if missing
+	 * @throws CoreRuntimeException if the directory cannot be created
+	 */
+	public ProgramCache(File dir) {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new CoreRuntimeException("cannot create cache directory " + dir);
+		}
+		this.dir = dir;
+	}
+
+	/*******************************************************************************************
+	 ************************** Start Method for Loading a Program *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Parse tree of a program file; A cached tree is memory-mapped and decoded without the
+	 * Tokenizer or the Parser; Otherwise the file is parsed and its tree is cached; The cache
+	 * is best effort: unreadable or corrupt entries are parsed again and rewritten;
+	 *
+	 * @param programFile   name of file containing program code
+	 * @return              parse tree of the program, with source positions
+	 * @throws CoreException    if the file cannot be read or is not a valid program
+	 */
+	public PROG load(String programFile) {
+		byte[] source;
+		try {
+			source = Files.readAllBytes(Paths.get(programFile));
+		} catch (IOException e) {
+			throw new CoreException("cannot read program file " + programFile);
+		}
+		Path entry = new File(dir, Storage.hash(source) + ".v" + TreeCodec.VERSION + ".tree").toPath();
+		hit = false;
+		if (Files.isRegularFile(entry)) {
+			try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+				PROG tree = TreeCodec.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+				hit = true;
+				return tree;
+			} catch (IOException | CoreException e) {
+				// Corrupt or unreadable entry := parse again and replace it;
+			}
+		}
+		PROG tree = Parser.getParseTree(new Scanner(new Tokenizer(lines(source))));
+		store(entry, TreeCodec.encode(tree));
+		return tree;
+	}
+
+	/**
+	 * Getter for whether the last load skipped the Tokenizer and the Parser;
+	 *
+	 * @return  whether or not the tree came from the cache
+	 */
+	public boolean isHit() { return hit; }
+
+	/*******************************************************************************************
+	 ********************************* Helper Methods for Entries ******************************
+	 *******************************************************************************************/
+
+	/**
+	 * Write an entry atomically: a temporary file in the cache directory, then renamed; Readers
+	 * see either no entry or a complete one, even with concurrent runs; See Storage.replace;
+	 * Failures are ignored;
+	 *
+	 * @param entry     path of the entry
+	 * @param tree      encoded parse tree
+	 */
+	private void store(Path entry, byte[] tree) {
+		try {
+			Storage.replace(entry, out -> out.write(tree), false);
+		} catch (IOException ignored) { }
+	}
+
+	/**
+	 * Split program code into lines as Tokenizer.open reads a program file;
+	 *
+	 * @param source    bytes of the program file, in the default charset
+	 * @return          lines of the program code
+	 */
+	private static List<String> lines(byte[] source) {
+		List<String> lines = new ArrayList<String>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(source)))) {
+			String line;
+			while ((line = reader.readLine()) != null) lines.add(line);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return lines;
+	}
+}
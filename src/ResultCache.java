@@ -0,0 +1,391 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * ResultCache Class for the Core Interpreter Project; Outputs of earlier runs by program and data;
+ */
+public class ResultCache {
+
+	/*******************************************************************************************
+	 * Execution is deterministic: the OUTPUT values and the error of a run depend only on the  *
+	 * program and the bytes of its data; A run is keyed by the SHA-256 hashes of the canonical *
+	 * Printer listing of the program and of the data; Results are kept in two LRU levels, in   *
+	 * memory and as files in a directory, each bounded by its total size in bytes             *
+	 *******************************************************************************************/
+
+	private static final int VERSION = 2;
+	private static final int OVERHEAD = 64;     // estimated bytes per entry besides its values;
+
+	/*******************************************************************************************
+	 * Private Members: Directory & Size Bounds; Memory & Disk LRU Levels; Program Keys;       *
+	 * Counters                                                                                *
+	 *******************************************************************************************/
+
+	private final File dir;
+	private final long memoryBytes;
+	private final long diskBytes;
+	private final LinkedHashMap<String,Result> memory = new LinkedHashMap<String,Result>(16, 0.75f, true);
+	private final LinkedHashMap<String,Long> disk = new LinkedHashMap<String,Long>(16, 0.75f, true);
+	private final Map<Program,String> programKeys = new WeakHashMap<Program,String>();
+	private long memoryUsed = 0;
+	private long diskUsed = 0;
+	private boolean memo = false;
+	private Budget budget = Budget.UNLIMITED;
+	private long memoryHits = 0;
+	private long diskHits = 0;
+	private long misses = 0;
+
+	/**
+	 * Use a result cache; Entries already in the directory are kept, oldest first in LRU order;
+	 *
+	 * @param dir           directory of the disk level; created if missing; null for memory only
+	 * @param memoryBytes   bound on the estimated size of the results kept in memory
+	 * @param diskBytes     bound on the total size of the entry files
+	 * @throws CoreRuntimeException if the directory cannot be created
+	 */
+	public ResultCache(File dir, long memoryBytes, long diskBytes) {
+		this.dir = dir;
+		this.memoryBytes = memoryBytes;
+		this.diskBytes = dir == null ? 0 : diskBytes;
+		if (dir == null) return;
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new CoreRuntimeException("cannot create cache directory " + dir);
+		}
+		File[] files = dir.listFiles();
+		if (files == null) return;
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) { return Long.compare(a.lastModified(), b.lastModified()); }
+		});
+		for (File file : files) {
+			if (!file.getName().endsWith(".result")) continue;
+			disk.put(file.getName(), file.length());
+			diskUsed += file.length();
+		}
+		evictDisk();
+	}
+
+	/**
+	 * Enable memo mode for the runs on a miss; See Executor.setMemo;
+	 *
+	 * @param memo  whether or not to cache EXPR values across evaluations
+	 */
+	public void setMemo(boolean memo) { this.memo = memo; }
+
+	/**
+	 * Limit the runs on a miss; See Executor.setBudget; The step and output limits are part of
+	 * the key; A run failing under a time limit is not cached, as it depends on the machine;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/*******************************************************************************************
+	 ************************** Start Method for Executing through the Cache *******************
+	 *******************************************************************************************/
+
+	/**
+	 * Execute a program on data, or replay the result of an identical earlier run; Either way
+	 * the sink receives the same OUTPUT values, is closed, and the same error is thrown;
+	 *
+	 * @param program   compiled program to run
+	 * @param data      bytes of the data in the text or the binary format
+	 * @param output    sink for the values of OUTPUT statements
+	 * @return          executor of the run on a miss, e.g. for its memo report; null on a hit
+	 * @throws CoreRuntimeException if the run failed; its OUTPUT values are written first
+	 */
+	public Executor execute(Program program, byte[] data, OutputSink output) {
+		String key = programKey(program) + Storage.hash(data) + budgetKey();
+		key = Storage.hash(key.getBytes(StandardCharsets.UTF_8));
+		Result result = lookup(key);
+		if (result != null) {
+			try {
+				for (int value : result.values) output.write(value);
+			} finally {
+				output.close();
+			}
+			if (result.error != null) throw new CoreRuntimeException(result.error, result.line, result.column);
+			return null;
+		}
+		Recorder recorder = new Recorder(output, (int) Math.min(Integer.MAX_VALUE - 8,
+				Math.max(memoryBytes, diskBytes) / 4));
+		Executor executor = new Executor(program, InputSource.wrap(data), recorder);
+		executor.setMemo(memo);
+		executor.setBudget(budget);
+		try {
+			executor.execute();
+		} catch (CoreException e) {
+			if (budget.getMillis() == Budget.NONE) store(key, recorder, e);
+			throw e;
+		}
+		store(key, recorder, null);
+		return executor;
+	}
+
+	/**
+	 * Describe the hit rate and the size of both levels;
+	 *
+	 * @return  memory hits, disk hits, misses, entries and bytes per level
+	 */
+	public synchronized String getStats() {
+		return "RESULTS: " + memoryHits + " memory hits, " + diskHits + " disk hits, " + misses + " misses; "
+				+ memory.size() + " in memory (" + memoryUsed + " bytes), "
+				+ disk.size() + " on disk (" + diskUsed + " bytes)";
+	}
+
+	/*******************************************************************************************
+	 ********************************* Helper Methods for Entries ******************************
+	 *******************************************************************************************/
+
+	/**
+	 * Hash of the canonical listing of a program; Computed once per Program;
+	 *
+	 * @param program   compiled program
+	 * @return          SHA-256 of its Printer listing as hex
+	 */
+	private String programKey(Program program) {
+		synchronized (programKeys) {
+			String key = programKeys.get(program);
+			if (key == null) {
+				StringBuilder listing = new StringBuilder();
+				Printer.prettyPrint(program.getParseTree(), listing);
+				key = Storage.hash(listing.toString().getBytes(StandardCharsets.UTF_8));
+				programKeys.put(program, key);
+			}
+			return key;
+		}
+	}
+
+	/**
+	 * Part of the key for the limits that change the result of a run; Empty without limits,
+	 * so unlimited runs keep their keys;
+	 *
+	 * @return  step and output limits
+	 */
+	private String budgetKey() {
+		if (budget.getSteps() == Budget.NONE && budget.getOutputs() == Budget.NONE) return "";
+		return ":" + budget.getSteps() + ":" + budget.getOutputs();
+	}
+
+	/**
+	 * Find a result in memory, then on disk; A disk hit is promoted to memory;
+	 *
+	 * @param key   key of the run
+	 * @return      result of the run; null on a miss
+	 */
+	private synchronized Result lookup(String key) {
+		Result result = memory.get(key);
+		if (result != null) {
+			memoryHits++;
+			return result;
+		}
+		if (disk.get(key + ".result") != null) {
+			File file = new File(dir, key + ".result");
+			result = read(file);
+			if (result != null) {
+				// Touch := the LRU order of the next process follows the modification times;
+				file.setLastModified(System.currentTimeMillis());
+				diskHits++;
+				putMemory(key, result);
+				return result;
+			}
+			diskUsed -= disk.remove(key + ".result");
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Keep the result of a run in both levels, unless its output was too large to record;
+	 *
+	 * @param key       key of the run
+	 * @param recorder  OUTPUT values of the run
+	 * @param error     error ending the run; null if it succeeded
+	 */
+	private synchronized void store(String key, Recorder recorder, CoreException error) {
+		if (recorder.values == null) return;
+		int[] values = Arrays.copyOf(recorder.values, recorder.count);
+		Result result = error == null ? new Result(values, null, 0, 0)
+				: new Result(values, error.getMessage(), error.getLine(), error.getColumn());
+		putMemory(key, result);
+		if (dir == null || result.size() > diskBytes) return;
+		Path entry = new File(dir, key + ".result").toPath();
+		try {
+			Storage.replace(entry, out -> write(out, result), false);
+			Long previous = disk.put(entry.getFileName().toString(), Files.size(entry));
+			diskUsed += Files.size(entry) - (previous == null ? 0 : previous);
+			evictDisk();
+		} catch (IOException ignored) {
+			// The disk level is best effort; the result stays in memory;
+		}
+	}
+
+	private void putMemory(String key, Result result) {
+		if (result.size() > memoryBytes) return;
+		Result previous = memory.put(key, result);
+		memoryUsed += result.size() - (previous == null ? 0 : previous.size());
+		Iterator<Result> eldest = memory.values().iterator();
+		while (memoryUsed > memoryBytes) {
+			memoryUsed -= eldest.next().size();
+			eldest.remove();
+		}
+	}
+
+	private void evictDisk() {
+		Iterator<Map.Entry<String,Long>> eldest = disk.entrySet().iterator();
+		while (diskUsed > diskBytes) {
+			Map.Entry<String,Long> entry = eldest.next();
+			new File(dir, entry.getKey()).delete();
+			diskUsed -= entry.getValue();
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Entry file := int VERSION; int count; count x int value; boolean failed;
+	 *               [UTF error; int line; int column];
+	 *
+	 * @param out       stream of the entry file
+	 * @param result    result of a run
+	 * @throws IOException  if the file cannot be written
+	 */
+	private static void write(DataOutputStream out, Result result) throws IOException {
+		out.writeInt(VERSION);
+		out.writeInt(result.values.length);
+		for (int value : result.values) out.writeInt(value);
+		out.writeBoolean(result.error != null);
+		if (result.error != null) {
+			out.writeUTF(result.error);
+			out.writeInt(result.line);
+			out.writeInt(result.column);
+		}
+	}
+
+	/**
+	 * Read an entry file;
+	 *
+	 * @param file  file to read
+	 * @return      result of a run; null if the file is missing, corrupt or of another VERSION
+	 */
+	private static Result read(File file) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (in.readInt() != VERSION) return null;
+			int count = in.readInt();
+			if (count < 0 || count > (file.length() - 9) / 4) return null;
+			int[] values = new int[count];
+			for (int i = 0; i < count; i++) values[i] = in.readInt();
+			String error = null;
+			int line = 0, column = 0;
+			if (in.readBoolean()) {
+				error = in.readUTF();
+				line = in.readInt();
+				column = in.readInt();
+			}
+			if (in.read() != -1) return null;
+			return new Result(values, error, line, column);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************************ Results & Recording **********************************
+	 *******************************************************************************************/
+
+	/**
+	 * OUTPUT values and error of a run, with the source position of the error;
+	 */
+	private static class Result {
+
+		private final int[] values;
+		private final String error;
+		private final int line;
+		private final int column;
+
+		private Result(int[] values, String error, int line, int column) {
+			this.values = values;
+			this.error = error;
+			this.line = line;
+			this.column = column;
+		}
+
+		private long size() { return OVERHEAD + 4L * values.length + (error == null ? 0 : 2L * error.length()); }
+	}
+
+	/**
+	 * Sink passing every value on while recording it; Stops recording beyond a limit, so the
+	 * runs with the largest outputs are executed every time rather than cached; A failure of
+	 * the target sink also stops recording, as it does not follow from the program and data;
+	 */
+	private static class Recorder extends OutputSink {
+
+		private final OutputSink target;
+		private final int limit;
+		private int[] values = new int[16];
+		private int count = 0;
+
+		private Recorder(OutputSink target, int limit) {
+			this.target = target;
+			this.limit = limit;
+		}
+
+		@Override
+		public void write(int value) {
+			try {
+				target.write(value);
+			} catch (RuntimeException e) {
+				values = null;
+				throw e;
+			}
+			if (values == null) return;
+			if (count == limit) {
+				values = null;
+				return;
+			}
+			if (count == values.length) values = Arrays.copyOf(values, (int) Math.min(limit, count * 2L));
+			values[count++] = value;
+		}
+
+		@Override
+		public void endStatement() {
+			try {
+				target.endStatement();
+			} catch (RuntimeException e) {
+				values = null;
+				throw e;
+			}
+		}
+
+		@Override
+		public void flush() {
+			try {
+				target.flush();
+			} catch (RuntimeException e) {
+				values = null;
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				target.close();
+			} catch (RuntimeException e) {
+				values = null;
+				throw e;
+			}
+		}
+	}
+}
@@ -5,8 +5,6 @@ import java.util.Arrays;
  */
 public class Scanner {
 
-	private Scanner() { }
-
 	/***********************************************************************************************
 	 ***** Private Array for Reserved Keywords & String for Illegal Characters in the Language *****
 	 ***********************************************************************************************/
@@ -15,16 +13,27 @@ public class Scanner {
 	private static final String[] KEYWORD = {"program", "begin", "end", "int", "input", "output", "if",
 			"then", "else", "endif", "do", "enddo", "while", "endwhile", "case", "of", "OR", "AND", "EOF"};
 
+	private final Tokenizer tokenizer;
+
 	/***********************************************************************************************
-	 ************************** Start Method for Beginning Token Stream ****************************
+	 ************************** Start Methods for Beginning Token Stream ***************************
 	 ***********************************************************************************************/
 
 	/**
-	 * Generate raw token stream from tokenizer to be converted into parsable tokens;
+	 * Scan the raw token stream of a tokenizer as parsable tokens;
+	 *
+	 * @param tokenizer     token stream of the program code
+	 */
+	public Scanner(Tokenizer tokenizer) { this.tokenizer = tokenizer; }
+
+	/**
+	 * Generate raw token stream from the program file to be converted into parsable tokens;
 	 *
 	 * @param program   file name of the document containing the program code
+	 * @return          scanner of the program
+	 * @throws CoreException    if the program file cannot be read
 	 */
-	public static void begin(String program) { Tokenizer.begin(program); }
+	public static Scanner open(String program) { return new Scanner(Tokenizer.open(program)); }
 
 	/***********************************************************************************************
 	 ****************************** Public Methods for Parser to Use *******************************
@@ -35,30 +44,44 @@ public class Scanner {
 	 *
 	 * @return  current token in the token stream as a parsable token
 	 */
-	public static String currentToken() { return getParsableToken(Tokenizer.currentToken()); }
+	public String currentToken() { return getParsableToken(tokenizer.currentToken()); }
+
+	/**
+	 * Getter for the line of the current token;
+	 *
+	 * @return  line of the program, starting at 1
+	 */
+	public int line() { return tokenizer.line(); }
+
+	/**
+	 * Getter for the column of the current token;
+	 *
+	 * @return  column of the line, starting at 1
+	 */
+	public int column() { return tokenizer.column(); }
 
 	/**
 	 * Setter for the current index of the token stream; Advance the current token;
 	 */
-	public static void nextToken() { Tokenizer.nextToken(); }
+	public void nextToken() { tokenizer.nextToken(); }
 
 	/**
 	 * Reset tracker to 0; Only required for printing the tokens in the partial submission;
 	 */
-	public static void resetTokenStream() { Tokenizer.resetTokenStream(); }
+	public void resetTokenStream() { tokenizer.resetTokenStream(); }
 
 	/**
 	 * Check if the currentToken matches the keyword; Advance stream if true;
 	 *
 	 * @param keyword   token consumed by the parser
+	 * @throws CoreSyntaxException  if the current token does not match
 	 */
-	public static void match(String keyword) {
+	public void match(String keyword) {
 		String token = currentToken();
 		if (token.equals(keyword)) {
 			nextToken();
 		} else {
-			System.out.println("ERROR: Expected " + keyword + ", found " + token);
-			System.exit(2); // Failure Case;
+			throw new CoreSyntaxException("Expected " + keyword + ", found " + token, this);
 		}
 	}
 
@@ -67,15 +90,14 @@ public class Scanner {
 	 *
 	 * @return  string value enclosed in brackets of the ID terminal token
 	 */
-	public static String getID() {
+	public String getID() {
 		String token = currentToken();
 		String id = "";
 		if(token.contains("ID")) {
 			id = token.substring(token.indexOf("[") + 1, token.indexOf("]"));
 			nextToken();
 		} else {
-			System.out.println("ERROR: Expected ID token, found " + token);
-			System.exit(2); // Failure Case;
+			throw new CoreSyntaxException("Expected ID token, found " + token, this);
 		}
 		return id;
 	}
@@ -85,23 +107,21 @@ public class Scanner {
 	 *
 	 * @return  int value enclosed in brackets of the CONST terminal token
 	 */
-	public static int getConst() {
+	public int getConst() {
 		String token = currentToken();
 		String id = "";
 		if(token.contains("CONST")) {
 			id = token.substring(token.indexOf("[") + 1, token.indexOf("]"));
-			nextToken();
 		} else {
-			System.out.println("ERROR: Expected CONST token, found " + token);
-			System.exit(2); // Failure Case;
+			throw new CoreSyntaxException("Expected CONST token, found " + token, this);
 		}
 		int value = 0;
 		try {
 			value = Integer.parseInt(id);
 		} catch (NumberFormatException e) {
-			System.out.println("ERROR: Data token " + id + " does not match a valid integer");
-			System.exit(2); // Failure Case;
+			throw new CoreSyntaxException("Data token " + id + " does not match a valid integer", this);
 		}
+		nextToken();
 		return value;
 	}
 
@@ -164,13 +184,13 @@ public class Scanner {
 	/**
 	 * Method to print out all tokens represented internally by the scanner;
 	 */
-	public static void printTokens() {
+	public void printTokens() {
 		String token;
 		while (!(token = currentToken()).equals("EOF")) {
 			if (token.contains("SCANNER_ERROR")) {
-				System.out.println("\nERROR: Token " + token.substring(14, token.indexOf("]"))
-						+ " did not match any valid token in the Core language");
-				System.exit(2); // Failure Case;
+				System.out.println();
+				throw new CoreSyntaxException("Token " + token.substring(14, token.indexOf("]"))
+						+ " did not match any valid token in the Core language", this);
 			} else {
 				System.out.print(token + " ");
 			}
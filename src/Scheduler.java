@@ -0,0 +1,184 @@
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduler Class for the Core Interpreter Project; Many runs time-sliced on a few carrier threads;
+ */
+public class Scheduler {
+
+	/*******************************************************************************************
+	 * Every run is an Executor in step mode; A carrier takes the run at the head of the queue, *
+	 * advances it for one time slice of statements and puts it back at the tail unless it    *
+	 * ended, so a LOOP that never ends delays the other runs by one slice per round at most   *
+	 *******************************************************************************************/
+
+	/*******************************************************************************************
+	 * Private Members: Runs Ready to Continue; Carrier Threads; Slice Length; Slice Counter   *
+	 *******************************************************************************************/
+
+	private final LinkedBlockingQueue<Task> ready = new LinkedBlockingQueue<Task>();
+	private final Thread[] carriers;
+	private final long slice;
+	private final AtomicLong slices = new AtomicLong();
+
+	/**
+	 * Start the carrier threads; They are daemon threads and wait for runs;
+	 *
+	 * @param carriers  number of carrier threads
+	 * @param slice     statements a run executes before it yields at a LOOP back-edge
+	 */
+	public Scheduler(int carriers, long slice) {
+		this.slice = slice;
+		this.carriers = new Thread[carriers];
+		for (int i = 0; i < carriers; i++) {
+			this.carriers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() { carry(); }
+			}, "core-carrier-" + i);
+			this.carriers[i].setDaemon(true);
+			this.carriers[i].start();
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************** Start Method for Submitting a Run ******************************
+	 *******************************************************************************************/
+
+	/**
+	 * Queue a run of a program; Its INPUT reads the source, which must not block;
+	 *
+	 * @param program   compiled program to run
+	 * @param data      source of the input data; closed when the run ends
+	 * @param output    sink for the OUTPUT values; closed when the run ends
+	 * @param budget    limits of the run
+	 * @return          handle of the run
+	 */
+	public Task submit(Program program, InputSource data, OutputSink output, Budget budget) {
+		Executor executor = new Executor(program, null, output);
+		executor.setBudget(budget);
+		Task task = new Task(executor, data, output);
+		ready.add(task);
+		return task;
+	}
+
+	/**
+	 * Stop the carriers once their current slices end; Queued runs are abandoned;
+	 */
+	public void shutdown() {
+		for (Thread carrier : carriers) carrier.interrupt();
+	}
+
+	/**
+	 * Describe the time slicing;
+	 *
+	 * @return  number of slices run and the slice length
+	 */
+	public String getReport() {
+		return "SCHEDULER: " + slices.get() + " slices of " + slice + " steps on " + carriers.length + " carriers";
+	}
+
+	/*******************************************************************************************
+	 ********************************* Helper Methods for Carriers *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Loop of a carrier thread: run one slice of the run at the head of the queue;
+	 */
+	private void carry() {
+		while (true) {
+			Task task;
+			try {
+				task = ready.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			slices.incrementAndGet();
+			if (task.runSlice()) ready.add(task);
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************************** Runs ***********************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run of a program in step mode; Only one carrier advances it at a time;
+	 */
+	public final class Task {
+
+		private final Executor executor;
+		private final InputSource data;
+		private final OutputSink output;
+		private final long submitted = System.nanoTime();
+		private boolean started = false;
+		private volatile boolean done = false;
+		private volatile String error = null;
+		private volatile long nanos = 0;
+
+		private Task(Executor executor, InputSource data, OutputSink output) {
+			this.executor = executor;
+			this.data = data;
+			this.output = output;
+		}
+
+		/**
+		 * Wait for the run to end;
+		 *
+		 * @return  message of the error ending the run; null if it succeeded
+		 * @throws InterruptedException if the wait is interrupted
+		 */
+		public synchronized String await() throws InterruptedException {
+			while (!done) wait();
+			return error;
+		}
+
+		public boolean isDone() { return done; }
+
+		/**
+		 * Getter for the time from the submission to the end of the run;
+		 *
+		 * @return  latency in nanoseconds; 0 while the run is not done
+		 */
+		public long getNanos() { return nanos; }
+
+		/**
+		 * Advance the run for one slice; INPUT ids waiting for a value take it from the source;
+		 * Any failure ends this run only, so the carrier goes on and await() returns;
+		 *
+		 * @return  whether or not the run yielded and has to be queued again
+		 */
+		private boolean runSlice() {
+			try {
+				if (!started) {
+					started = true;
+					executor.begin();
+				}
+				while (true) {
+					if (executor.isWaiting()) executor.supply(data);
+					executor.advance(slice);
+					if (executor.isFinished()) break;
+					if (!executor.isWaiting()) return true;
+				}
+				finish(null);
+			} catch (Throwable e) {
+				finish(CoreException.messageOf(e));
+			}
+			return false;
+		}
+
+		private void finish(String message) {
+			try {
+				output.close();
+				data.close();
+			} catch (Throwable e) {
+				if (message == null) message = CoreException.messageOf(e);
+			}
+			synchronized (this) {
+				error = message;
+				nanos = System.nanoTime() - submitted;
+				done = true;
+				notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,251 @@
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SessionHost Class for the Core Interpreter Project; Many concurrent runs of a program, each
+ * fed its input over time by the caller;
+ */
+public class SessionHost {
+
+	/*******************************************************************************************
+	 * One thread per session: virtual threads where the JDK has them (21+), found by          *
+	 * reflection so the source still compiles on JDK 17; otherwise daemon platform threads    *
+	 * with a small stack; A session blocked at INPUT parks in its IntRing, which unmounts a   *
+	 * virtual thread from its carrier, so idle sessions cost heap rather than OS threads      *
+	 *******************************************************************************************/
+
+	private static final int CAPACITY = 16;           // values queued per session before send blocks;
+	private static final long STACK_SIZE = 256 << 10;  // stack of a platform session thread;
+
+	/*******************************************************************************************
+	 * Private Members: Compiled Program; Thread Factory; Sessions Waiting at INPUT            *
+	 *******************************************************************************************/
+
+	private final Program program;
+	private final ThreadFactory threads;
+	private final boolean virtual;
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final AtomicLong sessions = new AtomicLong();
+
+	/**
+	 * Prepare sessions of a program;
+	 *
+	 * @param program   compiled program run by every session
+	 */
+	public SessionHost(Program program) {
+		this.program = program;
+		ThreadFactory factory = virtualThreads();
+		this.virtual = factory != null;
+		this.threads = virtual ? factory : new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(null, task, "core-session-" + sessions.get(), STACK_SIZE);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/*******************************************************************************************
+	 ************************** Start Method for Opening a Session *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Start a run of the program; Its INPUT statements take the values sent to the session
+	 * and block while none is queued; Its OUTPUT values go to the sink of the session;
+	 *
+	 * @param output    sink for the OUTPUT values of this session; closed when the run ends
+	 * @return          session to send input to
+	 */
+	public Session open(OutputSink output) {
+		final Session session = new Session(output);
+		sessions.incrementAndGet();
+		session.thread = threads.newThread(new Runnable() {
+			@Override
+			public void run() { session.execute(); }
+		});
+		session.thread.start();
+		return session;
+	}
+
+	public boolean isVirtual() { return virtual; }
+
+	/**
+	 * Getter for the number of sessions inside an INPUT statement with no value queued yet;
+	 *
+	 * @return  number of idle sessions
+	 */
+	public int getWaiting() { return waiting.get(); }
+
+	/*******************************************************************************************
+	 ************************************ Load Test ********************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Open sessions until all of them wait at their first INPUT, measure the heap, then send
+	 * every session the same data one value per session in turn; The OUTPUT values are counted;
+	 *
+	 * @param count     number of concurrent sessions
+	 * @param data      input sent to every session
+	 * @return          report of the memory per idle session and the aggregate throughput; the
+	 *                  heap growth, plus the stack reserved by a platform thread
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	public String loadTest(int count, ArrayInput data) throws InterruptedException {
+		final AtomicLong outputs = new AtomicLong();
+		OutputSink counter = new OutputSink() {
+			@Override
+			public void write(int value) { outputs.incrementAndGet(); }
+		};
+		long before = usedHeap();
+		long start = System.nanoTime();
+		Session[] open = new Session[count];
+		for (int i = 0; i < count; i++) open[i] = open(counter);
+		// Idle := every session parked at INPUT, or already ended if the program takes none;
+		int ended = 0;
+		while (waiting.get() + ended < count) {
+			Thread.sleep(10);
+			ended = 0;
+			for (Session session : open) {
+				if (session.isDone()) ended++;
+			}
+		}
+		long opened = System.nanoTime();
+		long idle = usedHeap() - before;
+		for (int pos = 0; pos < data.size(); pos++) {
+			for (Session session : open) {
+				session.send(data.get(pos));
+			}
+		}
+		int failed = 0;
+		for (Session session : open) {
+			if (data.getMalformed() != null) session.fail(data.getMalformed());
+			else session.end();
+		}
+		for (Session session : open) {
+			if (session.await() != null) failed++;
+		}
+		long nanos = System.nanoTime() - opened;
+		// Stack := native memory outside the heap; reserved per platform thread, on the heap if virtual;
+		String stack = virtual ? "" : String.format(" + %d bytes stack reserved", STACK_SIZE);
+		return String.format("SESSIONS: %d %s threads (%d failed); %d bytes heap%s per idle session; "
+				+ "opened in %.3f s; %d inputs and %d outputs in %.3f s = %.0f values/s",
+				count, virtual ? "virtual" : "platform", failed, idle / Math.max(count, 1), stack,
+				(opened - start) / 1e9, (long) count * data.size(), outputs.get(), nanos / 1e9,
+				((long) count * data.size() + outputs.get()) * 1e9 / Math.max(nanos, 1));
+	}
+
+	/*******************************************************************************************
+	 ************************************ Sessions *********************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run of the program on its own thread; Fed by one producer thread at a time;
+	 */
+	public final class Session {
+
+		private final IntRing ring = new IntRing(CAPACITY);
+		private final OutputSink output;
+		private volatile boolean done = false;
+		private volatile String error = null;
+		private Thread thread;
+
+		private Session(OutputSink output) { this.output = output; }
+
+		/**
+		 * Queue a value for the next INPUT; Blocks while CAPACITY values are queued and the run
+		 * has not ended; Values sent after the end of the run are dropped;
+		 *
+		 * @param value     input value
+		 */
+		public void send(int value) { ring.put(value); }
+
+		/**
+		 * End the input; Further INPUT statements report that no input is left;
+		 */
+		public void end() { ring.close(); }
+
+		/**
+		 * End the input at a malformed token; Reported by the INPUT statement reading it;
+		 *
+		 * @param token     text of the malformed token
+		 */
+		public void fail(String token) { ring.fail(token); }
+
+		public boolean isDone() { return done; }
+
+		/**
+		 * Wait for the run to end;
+		 *
+		 * @return  message of the error ending the run; null if it succeeded
+		 * @throws InterruptedException if the wait is interrupted
+		 */
+		public String await() throws InterruptedException {
+			thread.join();
+			return error;
+		}
+
+		private void execute() {
+			try {
+				new Executor(program, new SessionInput(ring), output).execute();
+			} catch (Throwable e) {
+				// Any failure ends the session with an error, e.g. a StackOverflowError or a failing sink;
+				error = CoreException.messageOf(e);
+			} finally {
+				done = true;
+				// A producer must not block on the ring of an ended run;
+				ring.abandon();
+			}
+		}
+	}
+
+	/**
+	 * Input of a session; Counts the sessions waiting for a value;
+	 */
+	private class SessionInput extends InputSource {
+
+		private final IntRing ring;
+
+		private SessionInput(IntRing ring) { this.ring = ring; }
+
+		@Override
+		public boolean hasNext() {
+			waiting.incrementAndGet();
+			try {
+				return ring.hasNext();
+			} finally {
+				waiting.decrementAndGet();
+			}
+		}
+
+		@Override
+		public int next() { return ring.take(); }
+	}
+
+	/*******************************************************************************************
+	 ************************************ Helper Methods ***************************************
+	 *******************************************************************************************/
+
+	/**
+	 * Factory of virtual threads, looked up by reflection: Thread.ofVirtual().name(...).factory();
+	 *
+	 * @return  factory of virtual threads; null before JDK 21 or with preview features disabled
+	 */
+	private static ThreadFactory virtualThreads() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> type = Class.forName("java.lang.Thread$Builder");
+			builder = type.getMethod("name", String.class, long.class).invoke(builder, "core-session-", 0L);
+			return (ThreadFactory) type.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,634 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Specializer Class for the Core Interpreter Project;
+ */
+public class Specializer {
+
+	/*******************************************************************************************
+	 * Private Members: Known Input Prefix; Static & Materialized Values; Constant Node Values  *
+	 *******************************************************************************************/
+
+	private static final int UNROLL_LIMIT = 100000;
+
+	private final int[] prefix;
+	private int consumed = 0;
+	private int unrolled = 0;
+	private int dynamic = 0;
+	private String scratch = null;
+	private final Set<String> declared = new LinkedHashSet<String>();
+	private HashMap<String,Integer> known = new HashMap<String,Integer>();
+	private HashMap<String,Integer> held = new HashMap<String,Integer>();
+	private final IdentityHashMap<Object,Integer> values = new IdentityHashMap<Object,Integer>();
+	private final IdentityHashMap<COND,Boolean> truths = new IdentityHashMap<COND,Boolean>();
+
+	private Specializer(List<Integer> data) {
+		prefix = new int[data.size()];
+		int i = 0;
+		for (Integer value : data) prefix[i++] = value;
+	}
+
+	/*******************************************************************************************
+	 ************************ Start Method for Beginning Specialization ************************
+	 *******************************************************************************************/
+
+	/**
+	 * Partially evaluate a program against a known prefix of its input DATA; Everything that
+	 * depends only on the prefix is executed and folded; The residual program produces the same
+	 * output as the original when run on the DATA remaining after the prefix;
+	 *
+	 * The known map holds the values computed at specialization time; The held map holds the values
+	 * the residual program is known to store, so a known value is only materialized as an assignment
+	 * when the residual program has to read it, i.e. for OUTPUT or before control depending on DATA;
+	 *
+	 * @param parseTree     parse tree representing the program file
+	 * @param prefix        known leading integers of the input DATA
+	 * @return              parse tree of the residual program
+	 * @throws CoreException    if INPUT reads the prefix under control depending on later DATA
+	 */
+	public static PROG specialize(PROG parseTree, List<Integer> prefix) {
+		return new Specializer(prefix).specialize(parseTree);
+	}
+
+	/**
+	 * Specialize the program against the prefix of this Specializer; Used once per instance;
+	 *
+	 * @param parseTree     parse tree representing the program file
+	 * @return              parse tree of the residual program
+	 */
+	private PROG specialize(PROG parseTree) {
+		// Declarations are kept as they are; repeated declarations still fail at execution;
+		for (DECL_SEQ declSeq = parseTree.getDeclSeq(); declSeq != null; declSeq = declSeq.getDeclSeq()) {
+			for (ID_LIST idList = declSeq.getDecl().getIdList(); idList != null; idList = idList.getIdList()) {
+				declared.add(idList.getId());
+			}
+		}
+		List<STMT> stmts = new ArrayList<STMT>();
+		specSTMTSEQ(parseTree.getStmtSeq(), stmts);
+		STMT_SEQ stmtSeq = toSTMTSEQ(stmts);
+		DECL_SEQ declSeq = parseTree.getDeclSeq();
+		if (scratch != null) declSeq = appendDECL(declSeq, new DECL(new ID_LIST(scratch)));
+		return new PROG(declSeq, stmtSeq);
+	}
+
+	/*******************************************************************************************
+	 **************************** Methods for Specializing Statements **************************
+	 *******************************************************************************************/
+
+	/**
+	 * Function to specialize each STMT of a STMT_SEQ node;
+	 *
+	 * @param stmtSeq   STMT_SEQ node to specialize
+	 * @param out       residual statements generated so far
+	 */
+	private void specSTMTSEQ(STMT_SEQ stmtSeq, List<STMT> out) {
+		for (; stmtSeq != null; stmtSeq = stmtSeq.getStmtSeq()) specSTMT(stmtSeq.getStmt(), out);
+	}
+
+	/**
+	 * Function to specialize a STMT node;
+	 *
+	 * @param stmt  STMT node to specialize
+	 * @param out   residual statements generated so far
+	 */
+	private void specSTMT(STMT stmt, List<STMT> out) {
+		switch (stmt.getAltNo()) {
+			case 1:
+				specASSIGN(stmt.getAssign(), out);
+				break;
+			case 2:
+				specIF(stmt.getIf(), out);
+				break;
+			case 3:
+				specLOOP(stmt.getLoop(), out);
+				break;
+			case 4:
+				specIN(stmt.getIn(), out);
+				break;
+			case 5:
+				specOUT(stmt.getOut(), out);
+				break;
+			case 6:
+				specCASE(stmt.getCase(), out);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Function to specialize an ASSIGN statement; Folded if the value is known;
+	 *
+	 * @param assignStmt    ASSIGN node to specialize
+	 * @param out           residual statements generated so far
+	 */
+	private void specASSIGN(ASSIGN assignStmt, List<STMT> out) {
+		String id = assignStmt.getLvalue();
+		EXPR expr = specEXPR(assignStmt.getExpr());
+		Integer value = values.get(expr);
+		if (value != null && declared.contains(id)) {
+			known.put(id, value);
+		} else { // Undeclared ids are kept so the residual program fails the same way;
+			out.add(new STMT(new ASSIGN(id, expr)));
+			known.remove(id);
+			if (value != null) held.put(id, value);
+			else held.remove(id);
+		}
+	}
+
+	/**
+	 * Function to specialize an IF statement; The branch is selected if the condition is known;
+	 *
+	 * @param ifStmt    IF node to specialize
+	 * @param out       residual statements generated so far
+	 */
+	private void specIF(IF ifStmt, List<STMT> out) {
+		COND cond = specCOND(ifStmt.getCond());
+		Boolean truth = truths.get(cond);
+		if (truth == null) {
+			residualIF(cond, ifStmt.getStmtSeq(), ifStmt.getElseStmtSeq(), out);
+		} else if (truth) {
+			specSTMTSEQ(ifStmt.getStmtSeq(), out);
+		} else if (ifStmt.getAltNo() == 1) {
+			specSTMTSEQ(ifStmt.getElseStmtSeq(), out);
+		}
+	}
+
+	/**
+	 * Function to specialize a LOOP statement; Unrolled while the condition is known;
+	 *
+	 * @param loopStmt  LOOP node to specialize
+	 * @param out       residual statements generated so far
+	 */
+	private void specLOOP(LOOP loopStmt, List<STMT> out) {
+		while (true) {
+			specSTMTSEQ(loopStmt.getStmtSeq(), out);
+			COND cond = specCOND(loopStmt.getCond());
+			Boolean truth = truths.get(cond);
+			if (truth == null) { // Remaining iterations depend on DATA;
+				residualIF(cond, loopStmt, null, out);
+				return;
+			} else if (!truth) {
+				return;
+			} else if (++unrolled > UNROLL_LIMIT) { // Bound unrolling of endless loops;
+				residualLOOP(loopStmt, out);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Function to specialize an INPUT statement; Ids read from the known prefix become known;
+	 *
+	 * @param inputStmt     IN node to specialize
+	 * @param out           residual statements generated so far
+	 */
+	private void specIN(IN inputStmt, List<STMT> out) {
+		List<String> ids = new ArrayList<String>();
+		for (ID_LIST idList = inputStmt.getIdList(); idList != null; idList = idList.getIdList()) {
+			String id = idList.getId();
+			if (consumed < prefix.length) {
+				if (dynamic > 0) {
+					throw new CoreException("cannot specialize input of " + id
+							+ " under control depending on data after the known prefix", idList.getLine(),
+							idList.getColumn());
+				}
+				int value = prefix[consumed++];
+				if (declared.contains(id)) {
+					known.put(id, value);
+				} else { // Residual assignment fails as the input would have;
+					out.add(new STMT(new ASSIGN(id, constEXPR(value))));
+				}
+			} else {
+				ids.add(id);
+				known.remove(id);
+				held.remove(id);
+			}
+		}
+		if (!ids.isEmpty()) out.add(new STMT(new IN(toIDLIST(ids))));
+	}
+
+	/**
+	 * Function to specialize an OUTPUT statement; Known values are materialized first;
+	 *
+	 * @param outputStmt    OUT node to specialize
+	 * @param out           residual statements generated so far
+	 */
+	private void specOUT(OUT outputStmt, List<STMT> out) {
+		for (ID_LIST idList = outputStmt.getIdList(); idList != null; idList = idList.getIdList()) {
+			Integer value = known.get(idList.getId());
+			if (value != null) materialize(idList.getId(), value, held, out);
+		}
+		out.add(new STMT(outputStmt));
+	}
+
+	/**
+	 * Function to specialize a CASE statement; The arm is selected if the id value is known;
+	 *
+	 * @param caseStmt  CASE node to specialize
+	 * @param out       residual statements generated so far
+	 */
+	private void specCASE(CASE caseStmt, List<STMT> out) {
+		String id = caseStmt.getId();
+		Integer value = known.get(id);
+		if (value == null) {
+			out.add(new STMT(new CASE(id, specCASES(caseStmt.getCases()))));
+			known.remove(id);
+			held.remove(id);
+			return;
+		}
+		CASES cases = caseStmt.getCases();
+		while (!contains(cases.getIntList(), value) && cases.getAltNo() == 1) cases = cases.getCases();
+		EXPR expr = specEXPR(contains(cases.getIntList(), value) ? cases.getExpr() : cases.getElseExpr());
+		Integer result = values.get(expr);
+		if (result != null) {
+			known.put(id, result);
+		} else {
+			out.add(new STMT(new ASSIGN(id, expr)));
+			known.remove(id);
+			held.remove(id);
+		}
+	}
+
+	/**
+	 * Function to specialize the arms of a CASES node whose id value is not known;
+	 *
+	 * @param cases     CASES node to specialize
+	 * @return          residual CASES node
+	 */
+	private CASES specCASES(CASES cases) {
+		EXPR expr = specEXPR(cases.getExpr());
+		if (cases.getAltNo() == 1) {
+			return new CASES(cases.getIntList(), expr, specCASES(cases.getCases()));
+		}
+		return new CASES(cases.getIntList(), expr, specEXPR(cases.getElseExpr()));
+	}
+
+	/*******************************************************************************************
+	 ******************** Methods for Control Depending on Unknown DATA ************************
+	 *******************************************************************************************/
+
+	/**
+	 * Generate a residual IF; Both branches are specialized from the same state and joined;
+	 * Values known after only one branch, or known with different values, are materialized;
+	 *
+	 * @param cond          residual condition of the IF
+	 * @param thenBranch    STMT_SEQ node, or LOOP node for the remaining iterations of a loop
+	 * @param elseBranch    STMT_SEQ node for the ELSE clause, or null
+	 * @param out           residual statements generated so far
+	 */
+	private void residualIF(COND cond, Object thenBranch, STMT_SEQ elseBranch, List<STMT> out) {
+		HashMap<String,Integer> savedKnown = new HashMap<String,Integer>(known);
+		HashMap<String,Integer> savedHeld = new HashMap<String,Integer>(held);
+		dynamic++;
+		List<STMT> thenOut = new ArrayList<STMT>();
+		if (thenBranch instanceof LOOP) residualLOOP((LOOP) thenBranch, thenOut);
+		else specSTMTSEQ((STMT_SEQ) thenBranch, thenOut);
+		HashMap<String,Integer> thenKnown = known, thenHeld = held;
+		known = savedKnown;
+		held = savedHeld;
+		List<STMT> elseOut = new ArrayList<STMT>();
+		if (elseBranch != null) specSTMTSEQ(elseBranch, elseOut);
+		dynamic--;
+		// Join := keep values known alike in both branches; materialize the others;
+		HashMap<String,Integer> joinKnown = new HashMap<String,Integer>();
+		HashMap<String,Integer> joinHeld = new HashMap<String,Integer>();
+		for (String id : declared) {
+			Integer thenValue = thenKnown.get(id), elseValue = known.get(id);
+			if (thenValue != null && thenValue.equals(elseValue)) {
+				joinKnown.put(id, thenValue);
+			} else {
+				if (thenValue != null) materialize(id, thenValue, thenHeld, thenOut);
+				if (elseValue != null) materialize(id, elseValue, held, elseOut);
+			}
+			Integer thenHeldValue = thenHeld.get(id);
+			if (thenHeldValue != null && thenHeldValue.equals(held.get(id))) joinHeld.put(id, thenHeldValue);
+		}
+		known = joinKnown;
+		held = joinHeld;
+		if (elseOut.isEmpty()) {
+			out.add(new STMT(new IF(cond, toSTMTSEQ(thenOut))));
+		} else {
+			out.add(new STMT(new IF(cond, toSTMTSEQ(thenOut), toSTMTSEQ(elseOut))));
+		}
+	}
+
+	/**
+	 * Generate a residual LOOP; Ids written in the body are unknown at the head of every
+	 * iteration, so they are materialized before the loop and at the end of the body;
+	 * Ids not written in the body keep their known values and are still folded;
+	 *
+	 * @param loopStmt  LOOP node to generate
+	 * @param out       residual statements generated so far
+	 */
+	private void residualLOOP(LOOP loopStmt, List<STMT> out) {
+		Set<String> written = new HashSet<String>();
+		writes(loopStmt.getStmtSeq(), written);
+		forget(written, out);
+		dynamic++;
+		List<STMT> body = new ArrayList<STMT>();
+		specSTMTSEQ(loopStmt.getStmtSeq(), body);
+		COND cond = specCOND(loopStmt.getCond());
+		forget(written, body);
+		dynamic--;
+		out.add(new STMT(new LOOP(toSTMTSEQ(body), cond)));
+	}
+
+	/**
+	 * Materialize the known values of ids and mark them as unknown;
+	 *
+	 * @param ids   ids whose values are no longer known
+	 * @param out   residual statements generated so far
+	 */
+	private void forget(Set<String> ids, List<STMT> out) {
+		for (String id : ids) {
+			Integer value = known.remove(id);
+			if (value != null) materialize(id, value, held, out);
+			held.remove(id);
+		}
+	}
+
+	/**
+	 * Generate an assignment of a known value unless the residual program already holds it;
+	 *
+	 * @param id        id of the variable
+	 * @param value     known value of the variable
+	 * @param residual  values held by the residual program along this path
+	 * @param out       residual statements generated so far
+	 */
+	private void materialize(String id, int value, HashMap<String,Integer> residual, List<STMT> out) {
+		Integer current = residual.get(id);
+		if (current == null || current != value) {
+			out.add(new STMT(new ASSIGN(id, constEXPR(value))));
+			residual.put(id, value);
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************ Methods for Folding Conditions & Expressions *********************
+	 *******************************************************************************************/
+
+	/**
+	 * Function to specialize a COND node; Known conditions are recorded in truths;
+	 *
+	 * @param cond  COND node to specialize
+	 * @return      residual COND node
+	 */
+	private COND specCOND(COND cond) {
+		switch (cond.getAltNo()) {
+			case 0: { // !COND;
+				COND neg = specCOND(cond.getNeg());
+				Boolean truth = truths.get(neg);
+				return truth != null ? constCOND(!truth) : new COND(neg);
+			}
+			case 1: { // (COND op COND); Short circuit as the Executor does;
+				COND lhs = specCOND(cond.getLhs());
+				Boolean truth = truths.get(lhs);
+				boolean and = cond.getOp().equals("AND");
+				if (truth != null) {
+					if (truth != and) return constCOND(truth);
+					return specCOND(cond.getRhs());
+				}
+				return new COND(lhs, cond.getOp(), specCOND(cond.getRhs()));
+			}
+			default: // CMPR;
+				return specCMPR(cond.getCmpr());
+		}
+	}
+
+	/**
+	 * Function to specialize a CMPR node;
+	 *
+	 * @param cmpr  CMPR node to specialize
+	 * @return      residual COND node wrapping the comparison
+	 */
+	private COND specCMPR(CMPR cmpr) {
+		EXPR expr1 = specEXPR(cmpr.getExpr1());
+		EXPR expr2 = specEXPR(cmpr.getExpr2());
+		Integer a = values.get(expr1), b = values.get(expr2);
+		if (a == null || b == null) return new COND(new CMPR(expr1, cmpr.getOp(), expr2));
+		String op = cmpr.getOp().getOp();
+		if (op.equals("EQUALS")) return constCOND(a.intValue() == b.intValue());
+		else if (op.equals("LESS_THAN")) return constCOND(a < b);
+		else if (op.equals("GREATER_THAN")) return constCOND(a > b);
+		else if (op.equals("LESS_EQUAL")) return constCOND(a <= b);
+		else if (op.equals("GREATER_EQUAL")) return constCOND(a >= b);
+		else return constCOND(a.intValue() != b.intValue());
+	}
+
+	/**
+	 * Function to specialize an EXPR node; Known expressions are recorded in values;
+	 *
+	 * @param expr  EXPR node to specialize
+	 * @return      residual EXPR node
+	 */
+	private EXPR specEXPR(EXPR expr) {
+		TERM term = specTERM(expr.getTerm());
+		Integer a = values.get(term);
+		if (expr.getAltNo() == 0) {
+			EXPR result = new EXPR(term);
+			if (a != null) values.put(result, a);
+			return result;
+		}
+		EXPR rest = specEXPR(expr.getExpr());
+		Integer b = values.get(rest);
+		if (a == null || b == null) return new EXPR(term, expr.getOp(), rest);
+		return constEXPR(expr.getOp().equals("PLUS") ? a + b : a - b);
+	}
+
+	/**
+	 * Function to specialize a TERM node;
+	 *
+	 * @param term  TERM node to specialize
+	 * @return      residual TERM node
+	 */
+	private TERM specTERM(TERM term) {
+		FACTOR factor = specFACTOR(term.getFactor());
+		Integer a = values.get(factor);
+		if (term.getAltNo() == 0) {
+			TERM result = new TERM(factor);
+			if (a != null) values.put(result, a);
+			return result;
+		}
+		TERM rest = specTERM(term.getTerm());
+		Integer b = values.get(rest);
+		if (a == null || b == null) return new TERM(factor, rest);
+		TERM result = new TERM(constFACTOR(a * b));
+		values.put(result, a * b);
+		return result;
+	}
+
+	/**
+	 * Function to specialize a FACTOR node; Known ids are replaced by their values;
+	 *
+	 * @param factor    FACTOR node to specialize
+	 * @return          residual FACTOR node
+	 */
+	private FACTOR specFACTOR(FACTOR factor) {
+		switch (factor.getAltNo()) {
+			case 0: // CONST;
+				values.put(factor, factor.getValue());
+				return factor;
+			case 1: { // ID;
+				Integer value = known.get(factor.getId());
+				return value != null ? constFACTOR(value) : factor;
+			}
+			case 2: { // -FACTOR;
+				FACTOR neg = specFACTOR(factor.getFactor());
+				Integer value = values.get(neg);
+				return value != null ? constFACTOR(-1*value) : new FACTOR(neg);
+			}
+			default: { // (EXPR);
+				EXPR expr = specEXPR(factor.getExpr());
+				Integer value = values.get(expr);
+				return value != null ? constFACTOR(value) : new FACTOR(expr);
+			}
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************** Helper Methods for Building Residual Nodes *********************
+	 *******************************************************************************************/
+
+	/**
+	 * Build a FACTOR for a known value; CONST tokens are unsigned so negatives use -FACTOR;
+	 *
+	 * @param value     known int value
+	 * @return          FACTOR node evaluating to value
+	 */
+	private FACTOR constFACTOR(int value) {
+		FACTOR factor;
+		if (value >= 0) {
+			factor = new FACTOR(value);
+		} else if (value != Integer.MIN_VALUE) {
+			factor = new FACTOR(new FACTOR(-value));
+		} else { // (-2147483647-1);
+			TERM max = new TERM(new FACTOR(new FACTOR(Integer.MAX_VALUE)));
+			factor = new FACTOR(new EXPR(max, "MINUS", new EXPR(new TERM(new FACTOR(1)))));
+		}
+		values.put(factor, value);
+		return factor;
+	}
+
+	/**
+	 * Build an EXPR for a known value;
+	 *
+	 * @param value     known int value
+	 * @return          EXPR node evaluating to value
+	 */
+	private EXPR constEXPR(int value) {
+		EXPR expr = new EXPR(new TERM(constFACTOR(value)));
+		values.put(expr, value);
+		return expr;
+	}
+
+	/**
+	 * Build a COND for a known truth value: [0=0] or [0=1];
+	 *
+	 * @param truth     known boolean value
+	 * @return          COND node evaluating to truth
+	 */
+	private COND constCOND(boolean truth) {
+		COND cond = new COND(new CMPR(constEXPR(0), new CMPR_OP("EQUALS"), constEXPR(truth ? 0 : 1)));
+		truths.put(cond, truth);
+		return cond;
+	}
+
+	/**
+	 * Link residual statements into a STMT_SEQ; An empty block holds a single no-op assignment;
+	 *
+	 * @param stmts     residual statements of the block
+	 * @return          STMT_SEQ node of the block
+	 */
+	private STMT_SEQ toSTMTSEQ(List<STMT> stmts) {
+		if (stmts.isEmpty()) {
+			if (scratch == null) {
+				int n = 0;
+				while (declared.contains("pe" + n)) n++;
+				scratch = "pe" + n;
+			}
+			stmts.add(new STMT(new ASSIGN(scratch, constEXPR(0))));
+		}
+		STMT_SEQ stmtSeq = new STMT_SEQ(stmts.get(stmts.size() - 1));
+		for (int i = stmts.size() - 2; i >= 0; i--) stmtSeq = new STMT_SEQ(stmts.get(i), stmtSeq);
+		return stmtSeq;
+	}
+
+	/**
+	 * Link ids into an ID_LIST;
+	 *
+	 * @param ids   non-empty list of ids
+	 * @return      ID_LIST node of the ids
+	 */
+	private static ID_LIST toIDLIST(List<String> ids) {
+		ID_LIST idList = new ID_LIST(ids.get(ids.size() - 1));
+		for (int i = ids.size() - 2; i >= 0; i--) idList = new ID_LIST(ids.get(i), idList);
+		return idList;
+	}
+
+	/**
+	 * Copy a DECL_SEQ with one more DECL at its end;
+	 *
+	 * @param declSeq   DECL_SEQ node of the program
+	 * @param decl      DECL node to append
+	 * @return          DECL_SEQ node ending with decl
+	 */
+	private static DECL_SEQ appendDECL(DECL_SEQ declSeq, DECL decl) {
+		if (declSeq.getAltNo() == 1) return new DECL_SEQ(declSeq.getDecl(), appendDECL(declSeq.getDeclSeq(), decl));
+		return new DECL_SEQ(declSeq.getDecl(), new DECL_SEQ(decl));
+	}
+
+	/**
+	 * Collect the ids written by ASSIGN, INPUT and CASE statements in a STMT_SEQ;
+	 *
+	 * @param stmtSeq   STMT_SEQ node to search
+	 * @param ids       set of written ids to update
+	 */
+	static void writes(STMT_SEQ stmtSeq, Set<String> ids) {
+		for (; stmtSeq != null; stmtSeq = stmtSeq.getStmtSeq()) {
+			STMT stmt = stmtSeq.getStmt();
+			switch (stmt.getAltNo()) {
+				case 1:
+					ids.add(stmt.getAssign().getLvalue());
+					break;
+				case 2:
+					writes(stmt.getIf().getStmtSeq(), ids);
+					writes(stmt.getIf().getElseStmtSeq(), ids);
+					break;
+				case 3:
+					writes(stmt.getLoop().getStmtSeq(), ids);
+					break;
+				case 4:
+					for (ID_LIST idList = stmt.getIn().getIdList(); idList != null; idList = idList.getIdList()) {
+						ids.add(idList.getId());
+					}
+					break;
+				case 6:
+					ids.add(stmt.getCase().getId());
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Determine whether a value is a member of the int list;
+	 *
+	 * @param intList   INT_LIST node to search
+	 * @param value     int value to match to members
+	 * @return          whether or not value is contained in intList
+	 */
+	private static boolean contains(INT_LIST intList, int value) {
+		for (; intList != null; intList = intList.getIntList()) {
+			if (intList.getValue() == value) return true;
+		}
+		return false;
+	}
+}
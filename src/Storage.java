@@ -0,0 +1,86 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Storage Class for the Core Interpreter Project; Content keys and atomic replacement of the
+ * files of the caches and checkpoints;
+ */
+public final class Storage {
+
+	/*******************************************************************************************
+	 * A file is written to a temporary file in its own directory, then renamed over it; A     *
+	 * reader sees the old file or the new one, never a partial one, even with concurrent      *
+	 * writers; Where the file system cannot rename atomically the rename replaces the file    *
+	 *******************************************************************************************/
+
+	private Storage() { }
+
+	/**
+	 * Writer of the content of a file;
+	 */
+	interface Content {
+
+		/**
+		 * Write the whole content;
+		 *
+		 * @param out   buffered stream of the temporary file
+		 * @throws IOException if the content cannot be written
+		 */
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	/**
+	 * Content hash of a byte array;
+	 *
+	 * @param bytes     content to hash
+	 * @return          SHA-256 digest as hex
+	 */
+	static String hash(byte[] bytes) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest) hex.append(String.format("%02x", b));
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Replace a file atomically with new content; The temporary file is deleted on failure;
+	 *
+	 * @param file      path of the file
+	 * @param content   writer of the new content
+	 * @param sync      whether or not the content reaches the disk before the rename
+	 * @throws IOException if the content cannot be written or renamed
+	 */
+	static void replace(Path file, Content content, boolean sync) throws IOException {
+		Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			FileOutputStream stream = new FileOutputStream(temp.toFile());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+				content.write(out);
+				out.flush();
+				if (sync) stream.getFD().sync();
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException ignored) { }
+			throw e;
+		}
+	}
+}
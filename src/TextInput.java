@@ -0,0 +1,240 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * TextInput Class for the Core Interpreter Project; Whitespace separated integers parsed on demand;
+ */
+public class TextInput extends InputSource {
+
+	/***********************************************************************************************
+	 * Private Members: Window of the Data; Absolute Cursor; Start of the Bytes to Keep (Mark)     *
+	 ***********************************************************************************************/
+
+	private static final int WINDOW = 1 << 26;
+	private static final int CHUNK = 1 << 16;
+
+	private final FileChannel file;
+	private final ReadableByteChannel stream;
+	private final long size;
+	private ByteBuffer window;
+	private long windowStart = 0;
+	private long position = 0;
+	private long mark = 0;
+	private boolean pending = false;
+	private boolean eof = false;
+
+	/**
+	 * Read a data file through memory-mapped windows; Memory use does not depend on file size;
+	 *
+	 * @param file  channel of the data file
+	 * @throws IOException  if the size of the file cannot be read
+	 */
+	public TextInput(FileChannel file) throws IOException {
+		this.file = file;
+		this.stream = null;
+		this.size = file.size();
+		this.window = ByteBuffer.allocate(0);
+	}
+
+	/**
+	 * Read a pipe or other stream in chunks through a reusable buffer;
+	 *
+	 * @param stream    channel of the data stream
+	 */
+	public TextInput(ReadableByteChannel stream) {
+		this.file = null;
+		this.stream = stream;
+		this.size = Long.MAX_VALUE;
+		this.window = ByteBuffer.allocate(CHUNK);
+		this.window.limit(0);
+	}
+
+	/**
+	 * Read data held in memory;
+	 *
+	 * @param data  bytes of the data in the text format
+	 */
+	public TextInput(byte[] data) {
+		this.file = null;
+		this.stream = null;
+		this.size = data.length;
+		this.window = ByteBuffer.wrap(data);
+		this.eof = true;
+	}
+
+	/***********************************************************************************************
+	 ************************************ Methods for Executor *************************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Skip to the next token; A token starts with a digit or '-'; Everything else is a separator;
+	 *
+	 * @return  whether or not another token remains
+	 */
+	@Override
+	public boolean hasNext() {
+		if (pending) return true;
+		int c;
+		while ((c = byteAt(position)) >= 0) {
+			if (isDigit(c) || c == '-') return pending = true;
+			mark = ++position;
+		}
+		return false;
+	}
+
+	/**
+	 * Parse the next token: an optional '-' followed by digits; Parsed with a primitive cursor;
+	 *
+	 * @return  value of the token
+	 */
+	@Override
+	public int next() {
+		hasNext();
+		pending = false;
+		long start = mark = position;
+		boolean negative = byteAt(position) == '-';
+		if (negative) position++;
+		long value = 0;
+		boolean digits = false;
+		int c;
+		while (isDigit(c = byteAt(position))) {
+			// Saturate beyond the int range; the token is reported below;
+			if (value <= Integer.MAX_VALUE) value = value * 10 + (c - '0');
+			digits = true;
+			position++;
+		}
+		if (negative) value = -value;
+		if (!digits || value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+			throw new NumberFormatException(token(start, position));
+		}
+		mark = position;
+		return (int) value;
+	}
+
+	/**
+	 * Parse the next token as a long; Accumulated as a negative value so Long.MIN_VALUE fits;
+	 *
+	 * @return  value of the token
+	 */
+	@Override
+	public long nextLong() {
+		hasNext();
+		pending = false;
+		long start = mark = position;
+		boolean negative = byteAt(position) == '-';
+		if (negative) position++;
+		long value = 0;
+		boolean digits = false, overflow = false;
+		int c;
+		while (isDigit(c = byteAt(position))) {
+			if (value < (Long.MIN_VALUE + (c - '0')) / 10) {
+				overflow = true;
+			} else {
+				value = value * 10 - (c - '0');
+			}
+			digits = true;
+			position++;
+		}
+		if (!digits || overflow || (!negative && value == Long.MIN_VALUE)) {
+			throw new NumberFormatException(token(start, position));
+		}
+		mark = position;
+		return negative ? value : -value;
+	}
+
+	/**
+	 * Byte offset of the next token; A stream cannot seek;
+	 *
+	 * @return  offset after the last token taken; -1 for a stream
+	 */
+	@Override
+	public long position() { return stream != null ? -1 : position; }
+
+	@Override
+	public void seek(long offset) {
+		if (stream != null || offset < 0) super.seek(offset);
+		position = mark = offset;
+		pending = false;
+		if (file != null) {
+			// Map again from the new mark on the next byte read;
+			window = ByteBuffer.allocate(0);
+			windowStart = 0;
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			if (file != null) file.close();
+			if (stream != null) stream.close();
+		} catch (IOException ignored) { }
+	}
+
+	/***********************************************************************************************
+	 ************************************ Helper Methods for Parsing *******************************
+	 ***********************************************************************************************/
+
+	/**
+	 * Read a byte of the data; Moves the window when needed;
+	 *
+	 * @param offset    absolute offset in the data, not before the mark
+	 * @return          byte value at offset; -1 at the end of the data
+	 */
+	private int byteAt(long offset) {
+		if (offset - windowStart >= window.limit() && !fill(offset)) return -1;
+		return window.get((int) (offset - windowStart)) & 0xFF;
+	}
+
+	/**
+	 * Move the window to start at the mark and contain offset; Maps the file or reads the stream;
+	 *
+	 * @param offset    absolute offset in the data
+	 * @return          whether or not offset is before the end of the data
+	 */
+	private boolean fill(long offset) {
+		try {
+			if (file != null) {
+				if (offset >= size) return false;
+				window = file.map(FileChannel.MapMode.READ_ONLY, mark, Math.min(WINDOW, size - mark));
+				windowStart = mark;
+				return true;
+			}
+			if (eof) return false;
+			// Keep the bytes of the current token; Grow only for tokens longer than the buffer;
+			window.position((int) (mark - windowStart));
+			if (window.remaining() == window.capacity()) {
+				window = ByteBuffer.allocate(window.capacity() * 2).put(window);
+			} else {
+				window.compact();
+			}
+			windowStart = mark;
+			while (windowStart + window.position() <= offset && window.hasRemaining()) {
+				if (stream.read(window) < 0) {
+					eof = true;
+					break;
+				}
+			}
+			window.flip();
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot read input data: " + e.getMessage());
+		}
+		return offset - windowStart < window.limit();
+	}
+
+	/**
+	 * Text of a token for error messages;
+	 *
+	 * @param start     absolute offset of the first byte
+	 * @param end       absolute offset after the last byte
+	 * @return          token as a string
+	 */
+	private String token(long start, long end) {
+		StringBuilder token = new StringBuilder();
+		for (long i = start; i < end; i++) token.append((char) byteAt(i));
+		return token.toString();
+	}
+
+	private static boolean isDigit(int c) { return c >= '0' && c <= '9'; }
+}
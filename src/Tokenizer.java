@@ -1,5 +1,6 @@
 import java.io.*;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -7,45 +8,52 @@ import java.util.List;
  */
 public class Tokenizer {
 
-	private Tokenizer() { }
-
 	/*************************************************************************************************
-	 * Private Members: Strings for Reserved Symbols; List for Generated Tokens; Token Tracker Index *
+	 * Private Members: Strings for Reserved Symbols; Generated Tokens & Positions; Token Tracker    *
 	 *************************************************************************************************/
 
 	private static final String WHITESPACE = " \n\t\r";
 	private static final String SPECIAL_SYMBOL = ":!<>";
 	private static final String SYMBOL = ";,()[]=+-*|";
-	private static List<String> TOKENS = new LinkedList<String>();
-	private static int TRACKER = 0;
+	private final List<String> tokens = new ArrayList<String>();
+	private int[] lineOf = new int[64];
+	private int[] columnOf = new int[64];
+	private int tracker = 0;
 
 	/*************************************************************************************************
-	 **************************** Start Method for Beginning Tokenization ****************************
+	 **************************** Start Methods for Beginning Tokenization ***************************
 	 *************************************************************************************************/
 
 	/**
-	 * Open program file and begin generation of the token stream;
+	 * Generate the token stream of the program lines; Every Tokenizer owns its token stream;
+	 *
+	 * @param lines     lines of the program code
+	 */
+	public Tokenizer(List<String> lines) { tokenize(lines); }
+
+	/**
+	 * Open program file and generate its token stream;
 	 *
 	 * @param program   name of file containing program code
+	 * @return          tokenizer of the program
+	 * @throws CoreException    if the program file cannot be read
 	 */
-	public static void begin(String program) {
+	public static Tokenizer open(String program) {
 		BufferedReader reader = null;
-		List<String> lines = new LinkedList<String>();
+		List<String> lines = new ArrayList<String>();
 		try {
 			reader = new BufferedReader(new FileReader(new File(program)));
 			// Extract lines from program file for tokenization process;
 			String line;
 			while ((line = reader.readLine()) != null) lines.add(line);
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
 		} catch (IOException e) {
-			e.printStackTrace();
+			throw new CoreException("cannot read program file " + program);
 		} finally {
 			try {
 				if (reader != null) reader.close();
 			} catch (IOException ignored) { }
 		}
-		tokenize(lines);
+		return new Tokenizer(lines);
 	}
 
 	/*************************************************************************************************
@@ -53,33 +61,49 @@ public class Tokenizer {
 	 *************************************************************************************************/
 
 	/**
-	 * Getter for the token in TOKENS at the position represented by the TRACKER index;
+	 * Getter for the token at the position represented by the tracker index;
 	 *
 	 * @return  current token in the token stream as raw input
 	 */
-	public static String currentToken() { return TOKENS.get(TRACKER); }
+	public String currentToken() { return tokens.get(tracker); }
+
+	/**
+	 * Getter for the line of the current token;
+	 *
+	 * @return  line of the program, starting at 1
+	 */
+	public int line() { return lineOf[tracker]; }
+
+	/**
+	 * Getter for the column of the current token;
+	 *
+	 * @return  column of the line, starting at 1
+	 */
+	public int column() { return columnOf[tracker]; }
 
 	/**
 	 * Setter for the current index of the token stream; Advance the current token;
 	 */
-	public static void nextToken() { TRACKER++; }
+	public void nextToken() { tracker++; }
 
 	/**
-	 * Reset TRACKER to 0; Only required for printing the tokens in the partial submission;
+	 * Reset tracker to 0; Only required for printing the tokens in the partial submission;
 	 */
-	public static void resetTokenStream() { TRACKER = 0; }
+	public void resetTokenStream() { tracker = 0; }
 
 	/*************************************************************************************************
 	 **************************** Helper Method for Tokenization Process *****************************
 	 *************************************************************************************************/
 
 	/**
-	 * Generates a token stream from the line list of the program file; Update TOKENS;
+	 * Generates a token stream from the line list of the program file; Record token positions;
 	 *
 	 * @param lines     lines of the program read from the BufferedReader
 	 */
-	private static void tokenize (List<String> lines) {
+	private void tokenize(List<String> lines) {
+		int row = 0;
 		for (String line : lines) {
+			row++;
 			int i = 0, len = line.length();
 			while (i < len) {
 				// Ensure j - i = |next token|;
@@ -89,26 +113,44 @@ public class Tokenizer {
 				if (Character.isDigit(first)) {
 					// Case for integer constants
 					while (j < len && Character.isDigit(line.charAt(j))) j++;
-					TOKENS.add(line.substring(i, j));
+					add(line.substring(i, j), row, i + 1);
 				} else if (SPECIAL_SYMBOL.contains(String.valueOf(first))) {
 					// Case for special symbols; Potentially proceeded by '=';
 					if (i + 1 < len && line.charAt(i + 1) == '=') j++;
-					TOKENS.add(line.substring(i, j));
+					add(line.substring(i, j), row, i + 1);
 				} else if (SYMBOL.contains(String.valueOf(first))) {
 					// Case for simple symbols := singular;
-					TOKENS.add(line.substring(i, j));
+					add(line.substring(i, j), row, i + 1);
 				} else if (!WHITESPACE.contains(String.valueOf(first))) {
 					// Case for IDs, keywords, and invalid tokens;
 					while (j < len && !WHITESPACE.contains(String.valueOf(line.charAt(j)))
 							&& !SYMBOL.contains(String.valueOf(line.charAt(j)))
 							&& !SPECIAL_SYMBOL.contains(String.valueOf(line.charAt(j)))) j++;
-					TOKENS.add(line.substring(i, j));
+					add(line.substring(i, j), row, i + 1);
 				}
 				// Update index with length of built token; Only increment for whitespace;
 				i = j;
 			}
 		}
 		// Represent end of token stream;
-		TOKENS.add("EOF");
+		add("EOF", row + 1, 1);
+	}
+
+	/**
+	 * Append a token and its position; Grow the position arrays as needed;
+	 *
+	 * @param token     raw token
+	 * @param line      line of the token, starting at 1
+	 * @param column    column of the first character, starting at 1
+	 */
+	private void add(String token, int line, int column) {
+		int n = tokens.size();
+		if (n == lineOf.length) {
+			lineOf = Arrays.copyOf(lineOf, n * 2);
+			columnOf = Arrays.copyOf(columnOf, n * 2);
+		}
+		tokens.add(token);
+		lineOf[n] = line;
+		columnOf[n] = column;
 	}
 }
@@ -0,0 +1,513 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * TreeCodec Class for the Core Interpreter Project; Compact binary form of a parse tree;
+ */
+public final class TreeCodec {
+
+	/*******************************************************************************************
+	 * Format: Big-Endian Header, String Table, then the Nodes in Preorder                     *
+	 *                                                                                         *
+	 * tree  := int MAGIC; int VERSION; varint count; count x (varint length; UTF-8 bytes);    *
+	 *          node of PROG                                                                   *
+	 * node  := varint line; varint column; [varint altNo]; fields and child nodes in the      *
+	 *          order of the builder constructor; ids and operators as string table indexes;   *
+	 *          integers and the position deltas to the previous node zigzag encoded           *
+	 *                                                                                         *
+	 * The grammar fixes the type of every child, so nodes carry no type tag; Decoding calls   *
+	 * the builder constructors directly;                                                      *
+	 *******************************************************************************************/
+
+	public static final int VERSION = 1;        // bumped whenever the format or the node classes change;
+	private static final int MAGIC = 0x43545245; // "CTRE";
+
+	/*******************************************************************************************
+	 * Private Members: String Table & Node Bytes to Encode; Buffer & String Table to Decode;  *
+	 * Position of the Last Node                                                               *
+	 *******************************************************************************************/
+
+	private final HashMap<String,Integer> indexes = new HashMap<String,Integer>();
+	private final List<String> strings = new ArrayList<String>();
+	private byte[] bytes = new byte[256];
+	private int size = 0;
+	private int line = 0;       // position of the last node encoded or decoded;
+	private int column = 0;
+	private ByteBuffer buffer;
+	private String[] table;
+
+	private TreeCodec() { }
+
+	/*******************************************************************************************
+	 ************************** Start Methods for Encoding & Decoding **************************
+	 *******************************************************************************************/
+
+	/**
+	 * Encode a parse tree with the source position of every node;
+	 *
+	 * @param tree  root PROG node of the parse tree
+	 * @return      encoded tree
+	 */
+	public static byte[] encode(PROG tree) {
+		TreeCodec nodes = new TreeCodec();
+		nodes.putPROG(tree);
+		TreeCodec header = new TreeCodec();
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putVarint(nodes.strings.size());
+		for (String s : nodes.strings) {
+			byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+			header.putVarint(utf8.length);
+			header.putBytes(utf8, utf8.length);
+		}
+		header.putBytes(nodes.bytes, nodes.size);
+		return Arrays.copyOf(header.bytes, header.size);
+	}
+
+	/**
+	 * Decode a parse tree, e.g. from a memory-mapped file; Reads the buffer from its position;
+	 *
+	 * @param buffer    encoded tree, to its limit
+	 * @return          root PROG node of the parse tree
+	 * @throws CoreException    if the buffer is not a complete tree of this VERSION
+	 */
+	public static PROG decode(ByteBuffer buffer) {
+		TreeCodec codec = new TreeCodec();
+		codec.buffer = buffer;
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new CoreException("not a parse tree of version " + VERSION);
+			}
+			codec.table = new String[codec.length()];
+			for (int i = 0; i < codec.table.length; i++) {
+				byte[] utf8 = new byte[codec.length()];
+				buffer.get(utf8);
+				codec.table[i] = new String(utf8, StandardCharsets.UTF_8);
+			}
+			PROG tree = codec.getPROG();
+			if (buffer.hasRemaining()) throw new CoreException("trailing bytes after parse tree");
+			return tree;
+		} catch (BufferUnderflowException e) {
+			throw new CoreException("truncated parse tree");
+		}
+	}
+
+	/*******************************************************************************************
+	 ************************************ Encoding of the Nodes ********************************
+	 *******************************************************************************************/
+
+	private void putPROG(PROG node) {
+		putPosition(node);
+		putDECL_SEQ(node.getDeclSeq());
+		putSTMT_SEQ(node.getStmtSeq());
+	}
+
+	private void putDECL_SEQ(DECL_SEQ node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putDECL(node.getDecl());
+		if (node.getAltNo() == 1) putDECL_SEQ(node.getDeclSeq());
+	}
+
+	private void putDECL(DECL node) {
+		putPosition(node);
+		putID_LIST(node.getIdList());
+	}
+
+	private void putID_LIST(ID_LIST node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putString(node.getId());
+		if (node.getAltNo() == 1) putID_LIST(node.getIdList());
+	}
+
+	private void putSTMT_SEQ(STMT_SEQ node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putSTMT(node.getStmt());
+		if (node.getAltNo() == 1) putSTMT_SEQ(node.getStmtSeq());
+	}
+
+	private void putSTMT(STMT node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		switch (node.getAltNo()) {
+			case 1: putASSIGN(node.getAssign()); break;
+			case 2: putIF(node.getIf()); break;
+			case 3: putLOOP(node.getLoop()); break;
+			case 4: putPosition(node.getIn()); putID_LIST(node.getIn().getIdList()); break;
+			case 5: putPosition(node.getOut()); putID_LIST(node.getOut().getIdList()); break;
+			default: putCASE(node.getCase());
+		}
+	}
+
+	private void putASSIGN(ASSIGN node) {
+		putPosition(node);
+		putString(node.getLvalue());
+		putEXPR(node.getExpr());
+	}
+
+	private void putIF(IF node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putCOND(node.getCond());
+		putSTMT_SEQ(node.getStmtSeq());
+		if (node.getAltNo() == 1) putSTMT_SEQ(node.getElseStmtSeq());
+	}
+
+	private void putLOOP(LOOP node) {
+		putPosition(node);
+		putSTMT_SEQ(node.getStmtSeq());
+		putCOND(node.getCond());
+	}
+
+	private void putCOND(COND node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		if (node.getAltNo() == 0) {
+			putCOND(node.getNeg());
+		} else if (node.getAltNo() == 1) {
+			putCOND(node.getLhs());
+			putString(node.getOp());
+			putCOND(node.getRhs());
+		} else {
+			putCMPR(node.getCmpr());
+		}
+	}
+
+	private void putCMPR(CMPR node) {
+		putPosition(node);
+		putEXPR(node.getExpr1());
+		putPosition(node.getOp());
+		putString(node.getOp().getOp());
+		putEXPR(node.getExpr2());
+	}
+
+	private void putEXPR(EXPR node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putTERM(node.getTerm());
+		if (node.getAltNo() == 1) {
+			putString(node.getOp());
+			putEXPR(node.getExpr());
+		}
+	}
+
+	private void putTERM(TERM node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putFACTOR(node.getFactor());
+		if (node.getAltNo() == 1) putTERM(node.getTerm());
+	}
+
+	private void putFACTOR(FACTOR node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		switch (node.getAltNo()) {
+			case 0: putVarint(zigzag(node.getValue())); break;
+			case 1: putString(node.getId()); break;
+			case 2: putFACTOR(node.getFactor()); break;
+			default: putEXPR(node.getExpr());
+		}
+	}
+
+	private void putCASE(CASE node) {
+		putPosition(node);
+		putString(node.getId());
+		putCASES(node.getCases());
+	}
+
+	private void putCASES(CASES node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putINT_LIST(node.getIntList());
+		putEXPR(node.getExpr());
+		if (node.getAltNo() == 1) putCASES(node.getCases());
+		else putEXPR(node.getElseExpr());
+	}
+
+	private void putINT_LIST(INT_LIST node) {
+		putPosition(node);
+		putVarint(node.getAltNo());
+		putVarint(zigzag(node.getValue()));
+		if (node.getAltNo() == 1) putINT_LIST(node.getIntList());
+	}
+
+	/*******************************************************************************************
+	 ************************************ Decoding of the Nodes ********************************
+	 *******************************************************************************************/
+
+	private PROG getPROG() {
+		int line = line(), column = column();
+		DECL_SEQ declSeq = getDECL_SEQ();
+		return at(new PROG(declSeq, getSTMT_SEQ()), line, column);
+	}
+
+	private DECL_SEQ getDECL_SEQ() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		DECL decl = getDECL();
+		return at(altNo == 1 ? new DECL_SEQ(decl, getDECL_SEQ()) : new DECL_SEQ(decl), line, column);
+	}
+
+	private DECL getDECL() {
+		int line = line(), column = column();
+		return at(new DECL(getID_LIST()), line, column);
+	}
+
+	private ID_LIST getID_LIST() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		String id = getString();
+		return at(altNo == 1 ? new ID_LIST(id, getID_LIST()) : new ID_LIST(id), line, column);
+	}
+
+	private STMT_SEQ getSTMT_SEQ() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		STMT stmt = getSTMT();
+		return at(altNo == 1 ? new STMT_SEQ(stmt, getSTMT_SEQ()) : new STMT_SEQ(stmt), line, column);
+	}
+
+	private STMT getSTMT() {
+		int line = line(), column = column();
+		int altNo = alternative(6);
+		STMT stmt;
+		if (altNo == 1) {
+			stmt = new STMT(getASSIGN());
+		} else if (altNo == 2) {
+			stmt = new STMT(getIF());
+		} else if (altNo == 3) {
+			stmt = new STMT(getLOOP());
+		} else if (altNo == 4) {
+			int inLine = line(), inColumn = column();
+			stmt = new STMT(at(new IN(getID_LIST()), inLine, inColumn));
+		} else if (altNo == 5) {
+			int outLine = line(), outColumn = column();
+			stmt = new STMT(at(new OUT(getID_LIST()), outLine, outColumn));
+		} else if (altNo == 6) {
+			stmt = new STMT(getCASE());
+		} else {
+			throw new CoreException("invalid statement alternative " + altNo);
+		}
+		return at(stmt, line, column);
+	}
+
+	private ASSIGN getASSIGN() {
+		int line = line(), column = column();
+		String lvalue = getString();
+		return at(new ASSIGN(lvalue, getEXPR()), line, column);
+	}
+
+	private IF getIF() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		COND cond = getCOND();
+		STMT_SEQ stmtSeq = getSTMT_SEQ();
+		return at(altNo == 1 ? new IF(cond, stmtSeq, getSTMT_SEQ()) : new IF(cond, stmtSeq), line, column);
+	}
+
+	private LOOP getLOOP() {
+		int line = line(), column = column();
+		STMT_SEQ stmtSeq = getSTMT_SEQ();
+		return at(new LOOP(stmtSeq, getCOND()), line, column);
+	}
+
+	private COND getCOND() {
+		int line = line(), column = column();
+		int altNo = alternative(2);
+		COND cond;
+		if (altNo == 0) {
+			cond = new COND(getCOND());
+		} else if (altNo == 1) {
+			COND lhs = getCOND();
+			String op = getString();
+			cond = new COND(lhs, op, getCOND());
+		} else {
+			cond = new COND(getCMPR());
+		}
+		return at(cond, line, column);
+	}
+
+	private CMPR getCMPR() {
+		int line = line(), column = column();
+		EXPR expr1 = getEXPR();
+		int opLine = line(), opColumn = column();
+		CMPR_OP op = at(new CMPR_OP(getString()), opLine, opColumn);
+		return at(new CMPR(expr1, op, getEXPR()), line, column);
+	}
+
+	private EXPR getEXPR() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		TERM term = getTERM();
+		if (altNo == 0) return at(new EXPR(term), line, column);
+		String op = getString();
+		return at(new EXPR(term, op, getEXPR()), line, column);
+	}
+
+	private TERM getTERM() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		FACTOR factor = getFACTOR();
+		return at(altNo == 1 ? new TERM(factor, getTERM()) : new TERM(factor), line, column);
+	}
+
+	private FACTOR getFACTOR() {
+		int line = line(), column = column();
+		int altNo = alternative(3);
+		FACTOR factor;
+		if (altNo == 0) factor = new FACTOR(unzigzag(getVarint()));
+		else if (altNo == 1) factor = new FACTOR(getString());
+		else if (altNo == 2) factor = new FACTOR(getFACTOR());
+		else factor = new FACTOR(getEXPR());
+		return at(factor, line, column);
+	}
+
+	private CASE getCASE() {
+		int line = line(), column = column();
+		String id = getString();
+		return at(new CASE(id, getCASES()), line, column);
+	}
+
+	private CASES getCASES() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		INT_LIST intList = getINT_LIST();
+		EXPR expr = getEXPR();
+		return at(altNo == 1 ? new CASES(intList, expr, getCASES()) : new CASES(intList, expr, getEXPR()),
+				line, column);
+	}
+
+	private INT_LIST getINT_LIST() {
+		int line = line(), column = column();
+		int altNo = alternative(1);
+		int value = unzigzag(getVarint());
+		return at(altNo == 1 ? new INT_LIST(value, getINT_LIST()) : new INT_LIST(value), line, column);
+	}
+
+	/*******************************************************************************************
+	 ************************************ Helper Methods for Bytes *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Write the position of a node as the difference to the node before it; Mostly one byte each;
+	 *
+	 * @param node  node to encode
+	 */
+	private void putPosition(NODE node) {
+		putVarint(zigzag(node.getLine() - line));
+		putVarint(zigzag(node.getColumn() - column));
+		line = node.getLine();
+		column = node.getColumn();
+	}
+
+	private void putString(String s) {
+		Integer index = indexes.get(s);
+		if (index == null) {
+			index = strings.size();
+			indexes.put(s, index);
+			strings.add(s);
+		}
+		putVarint(index);
+	}
+
+	private void putInt(int value) {
+		for (int shift = 24; shift >= 0; shift -= 8) putByte(value >>> shift);
+	}
+
+	/**
+	 * Write an int in 7-bit groups, least significant first; Small values take one byte;
+	 *
+	 * @param value     int read as unsigned
+	 */
+	private void putVarint(int value) {
+		while ((value & ~0x7f) != 0) {
+			putByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		putByte(value);
+	}
+
+	private void putBytes(byte[] source, int length) {
+		if (size + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+		System.arraycopy(source, 0, bytes, size, length);
+		size += length;
+	}
+
+	private void putByte(int b) {
+		if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+		bytes[size++] = (byte) b;
+	}
+
+	private int getVarint() {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = buffer.get();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new CoreException("invalid varint in parse tree");
+	}
+
+	/**
+	 * Read a non-negative varint: a position, a count or a length;
+	 *
+	 * @return  value read
+	 * @throws CoreException    if the value is negative
+	 */
+	private int count() {
+		int value = getVarint();
+		if (value < 0) throw new CoreException("invalid count in parse tree");
+		return value;
+	}
+
+	/**
+	 * Read the size of a table or a string; Bounded by the bytes left, so it is safe to allocate;
+	 *
+	 * @return  value read
+	 * @throws CoreException    if the value exceeds the remaining bytes
+	 */
+	private int length() {
+		int value = count();
+		if (value > buffer.remaining()) throw new CoreException("invalid length in parse tree");
+		return value;
+	}
+
+	private int line() {
+		line += unzigzag(getVarint());
+		if (line < 0) throw new CoreException("invalid position in parse tree");
+		return line;
+	}
+
+	private int column() {
+		column += unzigzag(getVarint());
+		if (column < 0) throw new CoreException("invalid position in parse tree");
+		return column;
+	}
+
+	private int alternative(int max) {
+		int altNo = getVarint();
+		if (altNo < 0 || altNo > max) throw new CoreException("invalid alternative " + altNo + " in parse tree");
+		return altNo;
+	}
+
+	private String getString() {
+		int index = getVarint();
+		if (index < 0 || index >= table.length) throw new CoreException("invalid string index in parse tree");
+		return table[index];
+	}
+
+	private static <T extends NODE> T at(T node, int line, int column) {
+		node.position(line, column);
+		return node;
+	}
+
+	private static int zigzag(int value) { return (value << 1) ^ (value >> 31); }
+	private static int unzigzag(int value) { return (value >>> 1) ^ -(value & 1); }
+}
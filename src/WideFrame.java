@@ -0,0 +1,325 @@
+import java.math.BigInteger;
+
+/**
+ * WideFrame Class for the Core Interpreter Project; 64-bit or arbitrary precision variables of
+ * an Executor: their storage and arithmetic; Statements, conditions, INPUT, OUTPUT, the budget
+ * and the errors stay with the Executor;
+ */
+public class WideFrame {
+
+	/**
+	 * Numeric mode: LONG wraps at 64 bits as the Executor wraps at 32; BIG never overflows;
+	 */
+	public enum Mode { LONG, BIG }
+
+	/*******************************************************************************************
+	 * Values are longs; In BIG mode + - * use Math.addExact, subtractExact, multiplyExact and *
+	 * negateExact, and an overflow anywhere in an EXPR or CMPR ends its long evaluation and   *
+	 * evaluates it again with BigInteger; Expressions have no side effects, so the second     *
+	 * evaluation fails exactly where the first would have; A variable holds a BigInteger     *
+	 * only while its value does not fit a long, so the common case of small values stays on  *
+	 * the primitive path; + - * are exact modulo 2^32 on ints and modulo 2^64 on longs, so a  *
+	 * run whose stored, compared and read values all fit in 32 bits behaves as an int run     *
+	 *******************************************************************************************/
+
+	private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+	private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+	/*******************************************************************************************
+	 * Private Members: Mode; Values & Wide Values per Slot; Executor Resolving the Ids;       *
+	 * Values beyond the int Range                                                             *
+	 *******************************************************************************************/
+
+	private final boolean exact;
+	private final long[] values;
+	private final BigInteger[] bigs;    // value of a slot beyond the long range; null otherwise;
+	private final Executor executor;
+	private long overflows = 0;
+
+	/**
+	 * Prepare the variables of an Executor;
+	 *
+	 * @param program   compiled program of the Executor
+	 * @param mode      numeric mode of the variables
+	 * @param executor  executor reading the variables; reports undeclared and uninstantiated ids
+	 */
+	WideFrame(Program program, Mode mode, Executor executor) {
+		this.exact = mode == Mode.BIG;
+		this.values = new long[program.size()];
+		this.bigs = exact ? new BigInteger[program.size()] : null;
+		this.executor = executor;
+	}
+
+	/**
+	 * Copy the variables of a forked Executor;
+	 *
+	 * @param parent    frame to copy
+	 * @param executor  fork reading the copy
+	 */
+	private WideFrame(WideFrame parent, Executor executor) {
+		this.exact = parent.exact;
+		this.values = parent.values.clone();
+		this.bigs = exact ? parent.bigs.clone() : null;
+		this.executor = executor;
+		this.overflows = parent.overflows;
+	}
+
+	/**
+	 * Copy the variables for a fork of the Executor;
+	 *
+	 * @param executor  fork reading the copy
+	 * @return          frame with the same values
+	 */
+	WideFrame copy(Executor executor) { return new WideFrame(this, executor); }
+
+	/**
+	 * Getter for the number of values stored, compared or read that do not fit in 32 bits;
+	 *
+	 * @return  values an int run would have wrapped or rejected; 0 if the run was an int run
+	 */
+	long getOverflows() { return overflows; }
+
+	/*******************************************************************************************
+	 ******************************* Methods for the Executor **********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Evaluate an EXPR into a slot; On the long path first, on BigIntegers after an overflow;
+	 *
+	 * @param slot  frame slot of the identifier
+	 * @param expr  EXPR node giving the value
+	 */
+	void assign(int slot, EXPR expr) {
+		if (!exact) {
+			values[slot] = execEXPR(expr);
+		} else {
+			try {
+				values[slot] = execEXPR(expr);
+				bigs[slot] = null;
+			} catch (ArithmeticException e) {
+				setBig(slot, bigEXPR(expr));
+			}
+		}
+		count(slot);
+	}
+
+	/**
+	 * Compare the values of two EXPR nodes; Compares BigIntegers once either side overflowed;
+	 *
+	 * @param expr1     left side of a CMPR
+	 * @param expr2     right side of a CMPR
+	 * @return          negative, zero or positive as the left side is less, equal or greater
+	 */
+	int compare(EXPR expr1, EXPR expr2) {
+		long lhs, rhs;
+		try {
+			lhs = execEXPR(expr1);
+			rhs = execEXPR(expr2);
+		} catch (ArithmeticException e) {
+			overflows++;
+			return bigEXPR(expr1).compareTo(bigEXPR(expr2));
+		}
+		if ((int) lhs != lhs || (int) rhs != rhs) overflows++;
+		return Long.compare(lhs, rhs);
+	}
+
+	/**
+	 * Whether or not a slot holds a CASE constant; A value beyond the long range matches none;
+	 *
+	 * @param slot      frame slot of an instantiated identifier
+	 * @param constant  constant of an INT_LIST
+	 * @return          true if the value equals the constant
+	 */
+	boolean is(int slot, int constant) {
+		return !(exact && bigs[slot] != null) && values[slot] == constant;
+	}
+
+	/**
+	 * Take the next value of the data into a slot; As a long in LONG mode, exactly in BIG mode;
+	 *
+	 * @param slot  frame slot of the identifier
+	 * @param data  source holding the next token
+	 * @throws NumberFormatException    if the token does not match a valid integer; message is the token
+	 */
+	void input(int slot, InputSource data) {
+		if (exact) {
+			setBig(slot, data.nextBig());
+		} else {
+			values[slot] = data.nextLong();
+		}
+		count(slot);
+	}
+
+	/**
+	 * Write the long or the BigInteger of a slot;
+	 *
+	 * @param slot      frame slot of an instantiated identifier
+	 * @param output    sink for the value
+	 * @throws CoreRuntimeException if the sink cannot hold the value
+	 */
+	void output(int slot, OutputSink output) {
+		if (exact && bigs[slot] != null) {
+			output.write(bigs[slot]);
+		} else {
+			output.write(values[slot]);
+		}
+	}
+
+	/*******************************************************************************************
+	 ****************************** Long Path: Primitive Values ********************************
+	 *******************************************************************************************/
+
+	/**
+	 * Function to evaluate an EXPR node on longs; Right-recursive as in the Executor;
+	 *
+	 * @param expr  EXPR node to evaluate
+	 * @return      value of the expression
+	 * @throws ArithmeticException in BIG mode if a value leaves the long range or is a BigInteger
+	 */
+	private long execEXPR(EXPR expr) {
+		long result = execTERM(expr.getTerm());
+		if (expr.getAltNo() == 1) {
+			long rest = execEXPR(expr.getExpr());
+			if (expr.getOp().equals("PLUS")) {
+				result = exact ? Math.addExact(result, rest) : result + rest;
+			} else {
+				result = exact ? Math.subtractExact(result, rest) : result - rest;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Function to evaluate a TERM node on longs;
+	 *
+	 * @param term  TERM node to evaluate
+	 * @return      value of the term
+	 * @throws ArithmeticException in BIG mode if a value leaves the long range or is a BigInteger
+	 */
+	private long execTERM(TERM term) {
+		long result = execFACTOR(term.getFactor());
+		if (term.getAltNo() == 1) {
+			long rest = execTERM(term.getTerm());
+			result = exact ? Math.multiplyExact(result, rest) : result * rest;
+		}
+		return result;
+	}
+
+	/**
+	 * Function to evaluate a FACTOR node on longs;
+	 *
+	 * @param factor    FACTOR node to evaluate
+	 * @return          value of the factor
+	 * @throws ArithmeticException in BIG mode if a value leaves the long range or is a BigInteger
+	 */
+	private long execFACTOR(FACTOR factor) {
+		switch (factor.getAltNo()) {
+			case 0: // CONST;
+				return factor.getValue();
+			case 1: // ID;
+				int slot = executor.slot(factor.getId(), factor);
+				if (exact && bigs[slot] != null) throw Overflow.WIDE;
+				return values[slot];
+			case 2: // -FACTOR;
+				long value = execFACTOR(factor.getFactor());
+				return exact ? Math.negateExact(value) : -value;
+			case 3: // (EXPR);
+				return execEXPR(factor.getExpr());
+			default:
+				return 0;
+		}
+	}
+
+	/*******************************************************************************************
+	 *************************** Wide Path: BigInteger after Overflow **************************
+	 *******************************************************************************************/
+
+	/**
+	 * Function to evaluate an EXPR node on BigIntegers, after the long path overflowed;
+	 *
+	 * @param expr  EXPR node to evaluate
+	 * @return      exact value of the expression
+	 */
+	private BigInteger bigEXPR(EXPR expr) {
+		BigInteger result = bigTERM(expr.getTerm());
+		if (expr.getAltNo() == 1) {
+			BigInteger rest = bigEXPR(expr.getExpr());
+			result = expr.getOp().equals("PLUS") ? result.add(rest) : result.subtract(rest);
+		}
+		return result;
+	}
+
+	/**
+	 * Function to evaluate a TERM node on BigIntegers;
+	 *
+	 * @param term  TERM node to evaluate
+	 * @return      exact value of the term
+	 */
+	private BigInteger bigTERM(TERM term) {
+		BigInteger result = bigFACTOR(term.getFactor());
+		if (term.getAltNo() == 1) result = result.multiply(bigTERM(term.getTerm()));
+		return result;
+	}
+
+	/**
+	 * Function to evaluate a FACTOR node on BigIntegers; Reads the long of a variable that fits;
+	 *
+	 * @param factor    FACTOR node to evaluate
+	 * @return          exact value of the factor
+	 */
+	private BigInteger bigFACTOR(FACTOR factor) {
+		switch (factor.getAltNo()) {
+			case 0: // CONST;
+				return BigInteger.valueOf(factor.getValue());
+			case 1: // ID;
+				int slot = executor.slot(factor.getId(), factor);
+				return bigs[slot] != null ? bigs[slot] : BigInteger.valueOf(values[slot]);
+			case 2: // -FACTOR;
+				return bigFACTOR(factor.getFactor()).negate();
+			case 3: // (EXPR);
+				return bigEXPR(factor.getExpr());
+			default:
+				return BigInteger.ZERO;
+		}
+	}
+
+	/**
+	 * Count the value of a slot if it does not fit in 32 bits;
+	 *
+	 * @param slot  frame slot written last
+	 */
+	private void count(int slot) {
+		if ((exact && bigs[slot] != null) || (int) values[slot] != values[slot]) overflows++;
+	}
+
+	/**
+	 * Store a BigInteger; Kept as a long whenever it fits, so later reads stay primitive;
+	 *
+	 * @param slot      frame slot of the identifier
+	 * @param value     value of the identifier
+	 */
+	private void setBig(int slot, BigInteger value) {
+		if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+			values[slot] = value.longValue();
+			bigs[slot] = null;
+		} else {
+			bigs[slot] = value;
+		}
+	}
+
+	/**
+	 * Thrown on the long path of BIG mode when it reads a BigInteger variable; Preallocated and
+	 * without a stack trace, like the overflows of Math.addExact once compiled;
+	 */
+	private static final class Overflow extends ArithmeticException {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final Overflow WIDE = new Overflow();
+
+		private Overflow() { super("wide value"); }
+
+		@Override
+		public synchronized Throwable fillInStackTrace() { return this; }
+	}
+}
@@ -0,0 +1,92 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Worker Class for the Core Interpreter Project; JVM running batch items for a WorkerPool;
+ */
+public class Worker {
+
+	private Worker() { }
+
+	/**
+	 * Connect to a coordinator, receive its program, then run items until told to stop; See
+	 * the protocol in WorkerPool;
+	 *
+	 * @param args  host port [token]; the token is 0 for a worker the pool did not start
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("usage: java Worker <host> <port> [token]");
+			System.exit(2);
+		}
+		try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out.writeInt(WorkerPool.MAGIC);
+			out.writeInt(args.length == 3 ? Integer.parseInt(args[2]) : 0);
+			out.flush();
+			serve(in, out);
+		} catch (IOException | NumberFormatException e) {
+			// Coordinator gone or bad arguments; it queues the items of this worker again;
+			System.err.println("WORKER: " + e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Run the items of a coordinator on one reused Executor;
+	 *
+	 * @param in    stream from the coordinator
+	 * @param out   stream to the coordinator
+	 * @throws IOException  if the connection fails or the program is not of this version
+	 */
+	private static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+		if (in.readInt() != WorkerPool.PROTOCOL) throw new IOException("unsupported pool protocol");
+		int flags = in.readInt();
+		Budget budget = new Budget(in.readLong(), in.readLong(), in.readLong());
+		byte[] tree = new byte[in.readInt()];
+		in.readFully(tree);
+		Executor executor;
+		try {
+			executor = new Executor(Program.compile(TreeCodec.decode(ByteBuffer.wrap(tree))));
+		} catch (CoreException e) {
+			throw new IOException("cannot decode program: " + e.getMessage());
+		}
+		executor.setMemo((flags & WorkerPool.MEMO) != 0);
+		executor.setBudget(budget);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		while (true) {
+			int id;
+			try {
+				id = in.readInt();
+			} catch (EOFException e) {
+				return;
+			}
+			if (id < 0) return;
+			String path = in.readUTF();
+			output.reset();
+			String error = null;
+			try {
+				executor.execute(InputSource.open(path), OutputSink.stream(output));
+			} catch (CoreException e) {
+				error = e.getMessage();
+				output.write(("ERROR: " + error + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+			}
+			out.writeInt(id);
+			out.writeBoolean(error != null);
+			if (error != null) out.writeUTF(error);
+			out.writeInt(output.size());
+			output.writeTo(out);
+			// Flush only once no further item is buffered, so pipelined results share writes;
+			if (in.available() == 0) out.flush();
+		}
+	}
+}
@@ -0,0 +1,356 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WorkerPool Class for the Core Interpreter Project; Batch runs spread over worker JVMs;
+ */
+public class WorkerPool {
+
+	/*******************************************************************************************
+	 * Protocol: Big-Endian over a Socket per Worker; the Worker Connects to the Coordinator   *
+	 *                                                                                         *
+	 * hello    := int MAGIC; int token (0 for a worker the pool did not start)                *
+	 * program  := int PROTOCOL; int flags; long steps; long millis; long outputs;             *
+	 *             int length; TreeCodec bytes of the parse tree                               *
+	 * item     := int id; UTF path of a data file; id -1 ends the worker                      *
+	 * result   := int id; boolean failed; [UTF error]; int length; output file bytes          *
+	 *                                                                                         *
+	 * Up to WINDOW items are in flight per worker; A worker runs them in order, so the first  *
+	 * item in flight is the one running when a worker dies; Only that item counts an attempt; *
+	 * the others are queued again as they are                                                 *
+	 *******************************************************************************************/
+
+	static final int MAGIC = 0x43575243;        // "CWRC";
+	static final int PROTOCOL = 1;
+	static final int MEMO = 1;                  // flag: execute in memo mode;
+	private static final int WINDOW = 8;
+	private static final int ATTEMPTS = 3;      // deaths of workers running an item before it fails;
+	private static final int RESTARTS = 3;      // restarts per worker slot beyond the first start;
+	private static final long CONNECT_MILLIS = 30000;
+
+	/*******************************************************************************************
+	 * Private Members: Encoded Program & Settings; Items of a Run; Connections by Token;      *
+	 * Counters                                                                                *
+	 *******************************************************************************************/
+
+	private final byte[] tree;
+	private final int workers;
+	private boolean memo = false;
+	private Budget budget = Budget.UNLIMITED;
+	private List<File> inputs;
+	private File outDir;
+	private String[] errors;
+	private int[] attempts;
+	private final LinkedBlockingQueue<Integer> pending = new LinkedBlockingQueue<Integer>();
+	private final AtomicInteger remaining = new AtomicInteger();
+	private final ConcurrentHashMap<Integer,SynchronousQueue<Socket>> connecting =
+			new ConcurrentHashMap<Integer,SynchronousQueue<Socket>>();
+	private final AtomicInteger restarts = new AtomicInteger();
+	private final AtomicInteger requeued = new AtomicInteger();
+
+	/**
+	 * Prepare a pool; The parse tree is encoded once and shipped to every worker;
+	 *
+	 * @param parseTree     parse tree of the program
+	 * @param workers       number of worker JVMs
+	 */
+	public WorkerPool(PROG parseTree, int workers) {
+		this.tree = TreeCodec.encode(parseTree);
+		this.workers = workers;
+	}
+
+	/**
+	 * Enable memo mode in every worker; See Executor.setMemo;
+	 *
+	 * @param memo  whether or not to cache EXPR values across evaluations
+	 */
+	public void setMemo(boolean memo) { this.memo = memo; }
+
+	/**
+	 * Limit every run; See Executor.setBudget; Bounds how long a worker can be held by one item;
+	 *
+	 * @param budget    limits on the steps, wall time and OUTPUT values of a run
+	 */
+	public void setBudget(Budget budget) { this.budget = budget; }
+
+	/*******************************************************************************************
+	 ************************** Start Method for Beginning a Batch *****************************
+	 *******************************************************************************************/
+
+	/**
+	 * Run the program on every data file in worker JVMs on this machine; The output files are
+	 * the same as those of BatchRunner; A worker that dies is restarted and its items are
+	 * queued again;
+	 *
+	 * @param inputs    data files in either format; read by the workers
+	 * @param outDir    directory for the output files; created if missing; written here
+	 * @return          report of the batch, in the order of inputs
+	 * @throws CoreRuntimeException if the coordinator socket cannot be opened
+	 */
+	public BatchRunner.Report run(List<File> inputs, File outDir) {
+		BatchRunner.createDirectory(outDir);
+		long start = System.nanoTime();
+		this.inputs = inputs;
+		this.outDir = outDir;
+		errors = new String[inputs.size()];
+		attempts = new int[inputs.size()];
+		for (int i = 0; i < inputs.size(); i++) pending.add(i);
+		remaining.set(inputs.size());
+		final ServerSocket server;
+		try {
+			server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		} catch (IOException e) {
+			throw new CoreRuntimeException("cannot open coordinator socket: " + e.getMessage());
+		}
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() { accept(server); }
+		}, "core-pool-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		Thread[] slots = new Thread[workers];
+		for (int i = 0; i < workers; i++) {
+			final int token = i + 1;
+			final int port = server.getLocalPort();
+			slots[i] = new Thread(new Runnable() {
+				@Override
+				public void run() { slot(token, port); }
+			}, "core-pool-slot-" + token);
+			slots[i].start();
+		}
+		try {
+			for (Thread slot : slots) slot.join();
+		} catch (InterruptedException e) {
+			throw new CoreRuntimeException("batch interrupted");
+		} finally {
+			try {
+				server.close();
+			} catch (IOException ignored) { }
+		}
+		// Every slot gave up := the items left fail;
+		for (Integer i = pending.poll(); i != null; i = pending.poll()) {
+			fail(i, "no worker left to run the input");
+		}
+		return new BatchRunner.Report(inputs, errors, System.nanoTime() - start);
+	}
+
+	/**
+	 * Describe the restarts of the batch;
+	 *
+	 * @return  workers, restarts and items queued again
+	 */
+	public String getReport() {
+		return "POOL: " + workers + " workers; " + restarts.get() + " restarts; " + requeued.get() + " items queued again";
+	}
+
+	/*******************************************************************************************
+	 ********************************* Helper Methods for Workers ******************************
+	 *******************************************************************************************/
+
+	/**
+	 * Keep one worker JVM running while items remain; Restart it when it dies;
+	 *
+	 * @param token     identifier of the slot, passed to its worker
+	 * @param port      port of the coordinator socket
+	 */
+	private void slot(int token, int port) {
+		SynchronousQueue<Socket> handoff = new SynchronousQueue<Socket>();
+		connecting.put(token, handoff);
+		for (int start = 0; start <= RESTARTS && remaining.get() > 0; start++) {
+			if (start > 0) restarts.incrementAndGet();
+			Process process = launch(token, port);
+			if (process == null) continue;
+			try {
+				Socket socket = awaitConnection(handoff, process);
+				if (socket != null && serve(socket)) return;
+			} finally {
+				stop(process);
+			}
+		}
+	}
+
+	/**
+	 * Start a worker JVM with the class path of this JVM;
+	 *
+	 * @param token     identifier sent back by the worker
+	 * @param port      port of the coordinator socket
+	 * @return          worker process; null if it cannot be started
+	 */
+	private Process launch(int token, int port) {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				"Worker", InetAddress.getLoopbackAddress().getHostAddress(), String.valueOf(port),
+				String.valueOf(token));
+		builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		try {
+			return builder.start();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Wait for the started worker to connect; Gives up if it exits first;
+	 *
+	 * @param handoff   queue the acceptor hands the connection of this slot to
+	 * @param process   started worker
+	 * @return          connection of the worker; null if it exited or did not connect in time
+	 */
+	private Socket awaitConnection(SynchronousQueue<Socket> handoff, Process process) {
+		long deadline = System.currentTimeMillis() + CONNECT_MILLIS;
+		try {
+			while (System.currentTimeMillis() < deadline) {
+				Socket socket = handoff.poll(100, TimeUnit.MILLISECONDS);
+				if (socket != null) return socket;
+				if (!process.isAlive()) return null;
+			}
+		} catch (InterruptedException ignored) { }
+		return null;
+	}
+
+	/**
+	 * Accept the connections of workers; Hands each to the slot named by its token;
+	 *
+	 * @param server    coordinator socket; closed at the end of the batch
+	 */
+	private void accept(ServerSocket server) {
+		while (true) {
+			Socket socket;
+			try {
+				socket = server.accept();
+			} catch (IOException e) {
+				return;
+			}
+			try {
+				socket.setSoTimeout((int) CONNECT_MILLIS);
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				SynchronousQueue<Socket> handoff = in.readInt() == MAGIC ? connecting.get(in.readInt()) : null;
+				socket.setSoTimeout(0);
+				if (handoff == null || !handoff.offer(socket, CONNECT_MILLIS, TimeUnit.MILLISECONDS)) socket.close();
+			} catch (IOException | InterruptedException e) {
+				try {
+					socket.close();
+				} catch (IOException ignored) { }
+			}
+		}
+	}
+
+	/**
+	 * Ship the program to a worker, then stream items to it until none remain;
+	 *
+	 * @param socket    connection of the worker
+	 * @return          whether or not the batch is done; false if the worker died
+	 */
+	private boolean serve(Socket socket) {
+		ArrayDeque<Integer> inFlight = new ArrayDeque<Integer>();
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out.writeInt(PROTOCOL);
+			out.writeInt(memo ? MEMO : 0);
+			out.writeLong(budget.getSteps());
+			out.writeLong(budget.getMillis());
+			out.writeLong(budget.getOutputs());
+			out.writeInt(tree.length);
+			out.write(tree);
+			while (true) {
+				for (Integer i = null; inFlight.size() < WINDOW && (i = pending.poll()) != null; ) {
+					// In flight before the write, which may fail, so a dead worker queues it again;
+					inFlight.add(i);
+					out.writeInt(i);
+					out.writeUTF(inputs.get(i).getPath());
+				}
+				out.flush();
+				if (inFlight.isEmpty()) {
+					if (remaining.get() == 0) break;
+					// Other workers hold the last items; one of them may die and queue them again;
+					Integer i = pending.poll(50, TimeUnit.MILLISECONDS);
+					if (i != null) pending.add(i);
+					continue;
+				}
+				receive(in, inFlight.peek());
+				inFlight.remove();
+			}
+			out.writeInt(-1);
+			out.flush();
+			socket.close();
+			return true;
+		} catch (IOException | InterruptedException e) {
+			// Dead worker := the running item counts an attempt; every item in flight is queued again;
+			Integer running = inFlight.poll();
+			if (running != null && ++attempts[running] >= ATTEMPTS) {
+				fail(running, "worker died " + ATTEMPTS + " times running the input");
+			} else if (running != null) {
+				inFlight.addFirst(running);
+			}
+			requeued.addAndGet(inFlight.size());
+			pending.addAll(inFlight);
+			try {
+				socket.close();
+			} catch (IOException ignored) { }
+			return false;
+		}
+	}
+
+	/**
+	 * Read the result of the first item in flight and write its output file;
+	 *
+	 * @param in    stream of the worker
+	 * @param i     index of the expected item
+	 * @throws IOException  if the worker died or answered out of order
+	 */
+	private void receive(DataInputStream in, int i) throws IOException {
+		int id = in.readInt();
+		if (id != i) throw new IOException("result " + id + " out of order");
+		String error = in.readBoolean() ? in.readUTF() : null;
+		int length = in.readInt();
+		if (length < 0) throw new IOException("invalid output length " + length);
+		byte[] output = new byte[length];
+		in.readFully(output);
+		Files.write(new File(outDir, inputs.get(i).getName() + ".out").toPath(), output);
+		if (error != null) errors[i] = "ERROR: " + error;
+		remaining.decrementAndGet();
+	}
+
+	/**
+	 * End an item without a result from a worker; Its output file holds only the error;
+	 *
+	 * @param i         index of the item
+	 * @param error     message of the failure
+	 */
+	private void fail(int i, String error) {
+		File out = new File(outDir, inputs.get(i).getName() + ".out");
+		out.delete();
+		errors[i] = BatchRunner.appendError(out, error);
+		remaining.decrementAndGet();
+	}
+
+	/**
+	 * End a worker process; It exits by itself after the end item or a closed connection;
+	 *
+	 * @param process   worker process
+	 */
+	private static void stop(Process process) {
+		try {
+			if (!process.waitFor(2, TimeUnit.SECONDS)) process.destroyForcibly();
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+		}
+	}
+}